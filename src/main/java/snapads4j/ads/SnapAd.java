@@ -19,6 +19,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.*;
@@ -29,6 +30,7 @@ import org.apache.logging.log4j.Logger;
 import snapads4j.adsquads.SnapAdSquads;
 import snapads4j.enums.CheckAdEnum;
 import snapads4j.exceptions.*;
+import snapads4j.model.PageConsumer;
 import snapads4j.model.Pagination;
 import snapads4j.model.ads.Ad;
 import snapads4j.model.ads.SnapHttpRequestAd;
@@ -45,7 +47,9 @@ import javax.validation.ValidatorFactory;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -166,6 +170,46 @@ public class SnapAd implements SnapAdInterface {
         return result;
     }// updateAd()
 
+    @Override
+    public List<Ad> updateAds(String oAuthAccessToken, List<Ad> ads) throws SnapOAuthAccessTokenException, JsonProcessingException,
+            SnapResponseErrorException, SnapArgumentException, UnsupportedEncodingException, SnapExecutionException {
+        if (StringUtils.isEmpty(oAuthAccessToken)) {
+            throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
+        }
+        if (CollectionUtils.isEmpty(ads)) {
+            throw new SnapArgumentException("At least one ad is required");
+        }
+        Map<String, SnapHttpRequestAd> requests = new LinkedHashMap<>();
+        for (Ad ad : ads) {
+            checkSnapAd(ad, CheckAdEnum.UPDATE);
+            requests.computeIfAbsent(ad.getAdSquadId(), adSquadId -> new SnapHttpRequestAd()).addAd(ad);
+        }
+        List<Ad> results = new ArrayList<>();
+        for (Map.Entry<String, SnapHttpRequestAd> entry : requests.entrySet()) {
+            final String url = this.endpointUpdateAd.replace("{ad_squad_id}", entry.getKey());
+            HttpPut request = HttpUtils.preparePutRequestObject(url, oAuthAccessToken, entry.getValue());
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                int statusCode = response.getStatusLine().getStatusCode();
+                if (statusCode >= 300) {
+                    throw SnapExceptionsUtils.getResponseExceptionByStatusCode(statusCode);
+                }
+                HttpEntity entity = response.getEntity();
+                if (entity != null) {
+                    String body = entityUtilsWrapper.toString(entity);
+                    ObjectMapper mapper = JsonUtils.initMapper();
+                    SnapHttpResponseAd responseFromJson = mapper.readValue(body, SnapHttpResponseAd.class);
+                    if (responseFromJson != null) {
+                        results.addAll(responseFromJson.getAllAd());
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.error("Impossible to update ads, adSquadId = {}", entry.getKey(), e);
+                throw new SnapExecutionException("Impossible to update ads", e);
+            }
+        }
+        return results;
+    }// updateAds()
+
     @Override
     public List<Ad> getAllAdsFromAdSquad(String oAuthAccessToken, String adSquadId)
             throws SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException, SnapExecutionException {
@@ -202,19 +246,29 @@ public class SnapAd implements SnapAdInterface {
     @Override
     public List<Pagination<Ad>> getAllAdsFromAdAccount(String oAuthAccessToken, String adAccountId, int limit)
             throws SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException, SnapExecutionException {
+        List<Pagination<Ad>> results = new ArrayList<>();
+        this.streamAllAdsFromAdAccount(oAuthAccessToken, adAccountId, limit, results::add);
+        return results;
+    }// getAllAdsFromAdAccount()
+
+    @Override
+    public void streamAllAdsFromAdAccount(String oAuthAccessToken, String adAccountId, int limit, PageConsumer<Ad> consumer)
+            throws SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException, SnapExecutionException {
         if (StringUtils.isEmpty(oAuthAccessToken)) {
             throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
         }
         if (StringUtils.isEmpty(adAccountId)) {
             throw new SnapArgumentException("The AdAccount ID is required");
         }
+        if (consumer == null) {
+            throw new SnapArgumentException("Consumer is required");
+        }
         if(limit < minLimitPagination){
             throw new SnapArgumentException("Minimum limit is " + minLimitPagination);
         }
         if(limit > maxLimitPagination){
             throw new SnapArgumentException("Maximum limit is " + maxLimitPagination);
         }
-        List<Pagination<Ad>> results = new ArrayList<>();
         String url = this.endpointAllAdsAdAccount.replace("{ad_account_id}", adAccountId);
         url += "?limit=" + limit;
         boolean hasNextPage = true;
@@ -232,7 +286,7 @@ public class SnapAd implements SnapAdInterface {
                     ObjectMapper mapper = JsonUtils.initMapper();
                     SnapHttpResponseAd responseFromJson = mapper.readValue(body, SnapHttpResponseAd.class);
                     if (responseFromJson != null) {
-                        results.add(new Pagination<>(numberPage++,responseFromJson.getAllAd()));
+                        consumer.accept(new Pagination<>(numberPage++,responseFromJson.getAllAd()));
                         hasNextPage = responseFromJson.hasPaging();
                         if(hasNextPage){
                             url = responseFromJson.getPaging().getNextLink();
@@ -245,8 +299,7 @@ public class SnapAd implements SnapAdInterface {
                 throw new SnapExecutionException("Impossible to get all ads", e);
             }
         }
-        return results;
-    }// getAllAdsFromAdAccount()
+    }// streamAllAdsFromAdAccount()
 
     @Override
     public Optional<Ad> getSpecificAd(String oAuthAccessToken, String id)
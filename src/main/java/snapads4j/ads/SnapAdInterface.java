@@ -20,6 +20,7 @@ import snapads4j.exceptions.SnapArgumentException;
 import snapads4j.exceptions.SnapExecutionException;
 import snapads4j.exceptions.SnapOAuthAccessTokenException;
 import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.PageConsumer;
 import snapads4j.model.Pagination;
 import snapads4j.model.ads.Ad;
 
@@ -64,6 +65,17 @@ public interface SnapAdInterface {
     Optional<Ad> updateAd(String oAuthAccessToken, Ad ad) throws SnapOAuthAccessTokenException,
             JsonProcessingException, SnapResponseErrorException, SnapArgumentException, UnsupportedEncodingException, SnapExecutionException;
 
+    /**
+     * Update several ads, one request per ad squad instead of one request per ad.
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param ads              Ads to update
+     * @return Ads updated
+     * @see #updateAd(String, Ad)
+     */
+    List<Ad> updateAds(String oAuthAccessToken, List<Ad> ads) throws SnapOAuthAccessTokenException,
+            JsonProcessingException, SnapResponseErrorException, SnapArgumentException, UnsupportedEncodingException, SnapExecutionException;
+
     /**
      * @param oAuthAccessToken oAuthAccessToken
      * @param adSquadId        AdSquadID
@@ -89,6 +101,19 @@ public interface SnapAdInterface {
     List<Pagination<Ad>> getAllAdsFromAdAccount(String oAuthAccessToken, String adAccountId, int limit)
             throws SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException, SnapExecutionException;
 
+    /**
+     * Get all ads of an ad account, each page is handed to the consumer as soon as it is fetched
+     * instead of keeping all pages in memory.
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param adAccountId      AD Account ID
+     * @param limit            Number of results per page
+     * @param consumer         Consumer of the pages
+     * @see #getAllAdsFromAdAccount(String, String, int)
+     */
+    void streamAllAdsFromAdAccount(String oAuthAccessToken, String adAccountId, int limit, PageConsumer<Ad> consumer)
+            throws SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException, SnapExecutionException;
+
     /**
      * @param oAuthAccessToken oAuthAccessToken
      * @param id               Ad ID
@@ -19,6 +19,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.*;
@@ -29,6 +30,7 @@ import org.apache.logging.log4j.Logger;
 import snapads4j.enums.BidStrategyEnum;
 import snapads4j.enums.CheckAdSquadEnum;
 import snapads4j.exceptions.*;
+import snapads4j.model.PageConsumer;
 import snapads4j.model.Pagination;
 import snapads4j.model.adsquads.AdSquad;
 import snapads4j.model.adsquads.SnapHttpRequestAdSquad;
@@ -45,7 +47,9 @@ import javax.validation.ValidatorFactory;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -171,6 +175,46 @@ public class SnapAdSquads implements SnapAdSquadsInterface {
         return result;
     } // updateAdSquad()
 
+    @Override
+    public List<AdSquad> updateAdSquads(String oAuthAccessToken, List<AdSquad> adSquads) throws SnapOAuthAccessTokenException,
+            JsonProcessingException, SnapResponseErrorException, SnapArgumentException, UnsupportedEncodingException, SnapExecutionException {
+        if (StringUtils.isEmpty(oAuthAccessToken)) {
+            throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
+        }
+        if (CollectionUtils.isEmpty(adSquads)) {
+            throw new SnapArgumentException("At least one ad squad is required");
+        }
+        Map<String, SnapHttpRequestAdSquad> requests = new LinkedHashMap<>();
+        for (AdSquad adSquad : adSquads) {
+            checkAdSquad(adSquad, CheckAdSquadEnum.UPDATE);
+            requests.computeIfAbsent(adSquad.getCampaignId(), campaignId -> new SnapHttpRequestAdSquad()).addAdSquad(adSquad);
+        }
+        List<AdSquad> results = new ArrayList<>();
+        for (Map.Entry<String, SnapHttpRequestAdSquad> entry : requests.entrySet()) {
+            final String url = this.endpointUpdateAdSquad.replace("{campaign_id}", entry.getKey());
+            HttpPut request = HttpUtils.preparePutRequestObject(url, oAuthAccessToken, entry.getValue());
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                int statusCode = response.getStatusLine().getStatusCode();
+                if (statusCode >= 300) {
+                    throw SnapExceptionsUtils.getResponseExceptionByStatusCode(statusCode);
+                }
+                HttpEntity entity = response.getEntity();
+                if (entity != null) {
+                    String body = entityUtilsWrapper.toString(entity);
+                    ObjectMapper mapper = JsonUtils.initMapper();
+                    SnapHttpResponseAdSquad responseFromJson = mapper.readValue(body, SnapHttpResponseAdSquad.class);
+                    if (responseFromJson != null) {
+                        results.addAll(responseFromJson.getAllAdSquads());
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.error("Impossible to update ad squads, campaignId = {}", entry.getKey(), e);
+                throw new SnapExecutionException("Impossible to update ad squads", e);
+            }
+        }
+        return results;
+    } // updateAdSquads()
+
     @Override
     public List<AdSquad> getAllAdSquadsFromCampaign(String oAuthAccessToken, String campaignId)
             throws SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException, SnapExecutionException {
@@ -207,19 +251,29 @@ public class SnapAdSquads implements SnapAdSquadsInterface {
     @Override
     public List<Pagination<AdSquad>> getAllAdSquadsFromAdAccount(String oAuthAccessToken, String adAccountId, int limit)
             throws SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException, SnapExecutionException {
+        List<Pagination<AdSquad>> results = new ArrayList<>();
+        this.streamAllAdSquadsFromAdAccount(oAuthAccessToken, adAccountId, limit, results::add);
+        return results;
+    } // getAllAdSquadsFromAdAccount()
+
+    @Override
+    public void streamAllAdSquadsFromAdAccount(String oAuthAccessToken, String adAccountId, int limit, PageConsumer<AdSquad> consumer)
+            throws SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException, SnapExecutionException {
         if (StringUtils.isEmpty(oAuthAccessToken)) {
             throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
         }
         if (StringUtils.isEmpty(adAccountId)) {
             throw new SnapArgumentException("The AdAccount ID is required");
         }
+        if (consumer == null) {
+            throw new SnapArgumentException("Consumer is required");
+        }
         if(limit < minLimitPagination){
             throw new SnapArgumentException("Minimum limit is " + minLimitPagination);
         }
         if(limit > maxLimitPagination){
             throw new SnapArgumentException("Maximum limit is " + maxLimitPagination);
         }
-        List<Pagination<AdSquad>> results = new ArrayList<>();
         String url = this.endpointAllAdSquadsAdAccount.replace("{ad_account_id}", adAccountId);
         url += "?limit=" + limit;
         boolean hasNextPage = true;
@@ -237,7 +291,7 @@ public class SnapAdSquads implements SnapAdSquadsInterface {
                     ObjectMapper mapper = JsonUtils.initMapper();
                     SnapHttpResponseAdSquad responseFromJson = mapper.readValue(body, SnapHttpResponseAdSquad.class);
                     if (responseFromJson != null) {
-                        results.add(new Pagination<>(numberPage++, responseFromJson.getAllAdSquads()));
+                        consumer.accept(new Pagination<>(numberPage++, responseFromJson.getAllAdSquads()));
                         hasNextPage = responseFromJson.hasPaging();
                         if(hasNextPage){
                             url = responseFromJson.getPaging().getNextLink();
@@ -250,8 +304,7 @@ public class SnapAdSquads implements SnapAdSquadsInterface {
                 throw new SnapExecutionException("Impossible to get all adsquads", e);
             }
         }
-        return results;
-    } // getAllAdSquadsFromAdAccount()
+    } // streamAllAdSquadsFromAdAccount()
 
     @Override
     public Optional<AdSquad> getSpecificAdSquad(String oAuthAccessToken, String id)
@@ -20,6 +20,7 @@ import snapads4j.exceptions.SnapArgumentException;
 import snapads4j.exceptions.SnapExecutionException;
 import snapads4j.exceptions.SnapOAuthAccessTokenException;
 import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.PageConsumer;
 import snapads4j.model.Pagination;
 import snapads4j.model.adsquads.AdSquad;
 
@@ -37,10 +38,35 @@ public interface SnapAdSquadsInterface {
             throws SnapOAuthAccessTokenException, JsonProcessingException, SnapResponseErrorException,
             SnapArgumentException, UnsupportedEncodingException, SnapExecutionException;
 
+    /**
+     * Update several ad squads, one request per campaign instead of one request per ad squad.
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param adSquads         Ad squads to update
+     * @return Ad squads updated
+     * @see #updateAdSquad(String, AdSquad)
+     */
+    List<AdSquad> updateAdSquads(String oAuthAccessToken, List<AdSquad> adSquads)
+            throws SnapOAuthAccessTokenException, JsonProcessingException, SnapResponseErrorException,
+            SnapArgumentException, UnsupportedEncodingException, SnapExecutionException;
+
     List<AdSquad> getAllAdSquadsFromCampaign(String oAuthAccessToken, String campaignId) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException, SnapExecutionException;
 
     List<Pagination<AdSquad>> getAllAdSquadsFromAdAccount(String oAuthAccessToken, String adAccountId, int limit) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException, SnapExecutionException;
 
+    /**
+     * Get all ad squads of an ad account, each page is handed to the consumer as soon as it is fetched
+     * instead of keeping all pages in memory.
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param adAccountId      AD Account ID
+     * @param limit            Number of results per page
+     * @param consumer         Consumer of the pages
+     * @see #getAllAdSquadsFromAdAccount(String, String, int)
+     */
+    void streamAllAdSquadsFromAdAccount(String oAuthAccessToken, String adAccountId, int limit, PageConsumer<AdSquad> consumer)
+            throws SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException, SnapExecutionException;
+
     Optional<AdSquad> getSpecificAdSquad(String oAuthAccessToken, String id) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException, SnapExecutionException;
 
     /**
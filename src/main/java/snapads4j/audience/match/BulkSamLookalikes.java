@@ -0,0 +1,344 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.match;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import snapads4j.enums.SourceTypeEnum;
+import snapads4j.enums.TypeCreationSpecDetails;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapExecutionException;
+import snapads4j.exceptions.SnapOAuthAccessTokenException;
+import snapads4j.model.audience.match.AudienceSegment;
+import snapads4j.model.audience.match.CreationSpec;
+import snapads4j.model.audience.match.SamLookalikes;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Create the lookalikes of one seed segment for several countries and types of lookalike.
+ * <p>
+ * The parameters are validated when built, so a bad country or type fails before any request. Each batch is checked
+ * again by {@link SnapAudienceSegmentInterface#createAllSamLookalikes} before it's sent. Lookalikes are sent by
+ * {@link #getBatchSize()} in each request, requests run concurrently. A request which fails only fails its
+ * lookalikes, they're reported in the errors of the result.
+ * <pre>
+ * try (BulkSamLookalikes bulk = new BulkSamLookalikes.Builder().setSnapAudienceSegment(segments)
+ *         .setAdAccountId(adAccountId).setSeedSegmentId(seedID).setCountries(Arrays.asList("US", "FR"))
+ *         .setTypes(Arrays.asList(TypeCreationSpecDetails.BALANCE, TypeCreationSpecDetails.REACH)).build()) {
+ *     BulkSamLookalikesResult result = bulk.create(token);
+ * }
+ * </pre>
+ *
+ * @author Yassine
+ */
+public class BulkSamLookalikes implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger(BulkSamLookalikes.class);
+
+    private static final Pattern COUNTRY_PATTERN = Pattern.compile("[A-Z]{2}");
+
+    private final SnapAudienceSegmentInterface snapAudienceSegment;
+
+    private final List<SamLookalikes> lookalikes;
+
+    private final int batchSize;
+
+    private final Executor executor;
+
+    private final boolean ownExecutor;
+
+    private BulkSamLookalikes(Builder builder, List<SamLookalikes> lookalikes) {
+        this.snapAudienceSegment = builder.snapAudienceSegment;
+        this.lookalikes = lookalikes;
+        this.batchSize = builder.batchSize;
+        this.ownExecutor = builder.executor == null;
+        this.executor = ownExecutor ? Executors.newFixedThreadPool(builder.threads) : builder.executor;
+    }// BulkSamLookalikes()
+
+    public int getBatchSize() {
+        return batchSize;
+    }// getBatchSize()
+
+    /**
+     * @return lookalikes to create (one by country and type)
+     */
+    public List<SamLookalikes> getLookalikes() {
+        return Collections.unmodifiableList(lookalikes);
+    }// getLookalikes()
+
+    /**
+     * Create all the lookalikes
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @return lookalikes created and errors by creation spec (in the order of the countries then the types)
+     * @throws SnapOAuthAccessTokenException If the token is missing
+     * @throws SnapExecutionException        If the thread is interrupted
+     */
+    public BulkSamLookalikesResult create(String oAuthAccessToken)
+            throws SnapOAuthAccessTokenException, SnapExecutionException {
+        if (StringUtils.isEmpty(oAuthAccessToken)) {
+            throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
+        }
+        List<CompletableFuture<List<AudienceSegment>>> requests = new ArrayList<>();
+        for (int from = 0; from < lookalikes.size(); from += batchSize) {
+            List<SamLookalikes> batch = lookalikes.subList(from, Math.min(from + batchSize, lookalikes.size()));
+            requests.add(CompletableFuture.supplyAsync(() -> send(oAuthAccessToken, batch), executor));
+        }
+        Map<CreationSpec, AudienceSegment> segments = new LinkedHashMap<>();
+        Map<CreationSpec, Exception> errors = new LinkedHashMap<>();
+        int index = 0;
+        for (CompletableFuture<List<AudienceSegment>> request : requests) {
+            List<SamLookalikes> batch = lookalikes.subList(index, Math.min(index + batchSize, lookalikes.size()));
+            index += batch.size();
+            try {
+                List<AudienceSegment> created = request.get();
+                for (int i = 0; i < batch.size(); i++) {
+                    AudienceSegment segment = i < created.size() ? created.get(i) : null;
+                    if (segment != null) {
+                        segments.put(batch.get(i).getCreationSpec(), segment);
+                    } else {
+                        errors.put(batch.get(i).getCreationSpec(), new SnapExecutionException("Lookalike not created", null));
+                    }
+                }
+            } catch (ExecutionException e) {
+                Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                batch.forEach(sam -> errors.put(sam.getCreationSpec(), cause));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SnapExecutionException("Interrupted while creating the lookalikes", e);
+            }
+        }
+        return new BulkSamLookalikesResult(Collections.unmodifiableMap(segments), Collections.unmodifiableMap(errors));
+    }// create()
+
+    /**
+     * Stop the threads (if it owns them)
+     */
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }// close()
+
+    private List<AudienceSegment> send(String oAuthAccessToken, List<SamLookalikes> batch) {
+        try {
+            return snapAudienceSegment.createAllSamLookalikes(oAuthAccessToken, batch);
+        } catch (Exception e) {
+            LOGGER.warn("Impossible to create {} lookalikes of segment {}", batch.size(),
+                    batch.get(0).getCreationSpec().getSeedSegmentId(), e);
+            // Unwrapped by get()
+            throw new CompletionException(e);
+        }
+    }// send()
+
+    /**
+     * Used to build BulkSamLookalikes instance ({@link BulkSamLookalikes})
+     *
+     * @author Yassine
+     */
+    public static class Builder {
+
+        private SnapAudienceSegmentInterface snapAudienceSegment;
+
+        private String adAccountId;
+
+        private String seedSegmentId;
+
+        private Collection<String> countries;
+
+        private Collection<TypeCreationSpecDetails> types = Collections.singletonList(TypeCreationSpecDetails.BALANCE);
+
+        private String name;
+
+        private String description;
+
+        private int retentionInDays = 180;
+
+        private int batchSize = 10;
+
+        private int threads = 2;
+
+        private Executor executor;
+
+        public Builder setSnapAudienceSegment(SnapAudienceSegmentInterface snapAudienceSegment) {
+            this.snapAudienceSegment = snapAudienceSegment;
+            return this;
+        }// setSnapAudienceSegment()
+
+        public Builder setAdAccountId(String adAccountId) {
+            this.adAccountId = adAccountId;
+            return this;
+        }// setAdAccountId()
+
+        public Builder setSeedSegmentId(String seedSegmentId) {
+            this.seedSegmentId = seedSegmentId;
+            return this;
+        }// setSeedSegmentId()
+
+        /**
+         * @param countries ISO-2 Country Codes
+         * @return builder
+         */
+        public Builder setCountries(Collection<String> countries) {
+            this.countries = countries;
+            return this;
+        }// setCountries()
+
+        /**
+         * @param types Types of lookalike (BALANCE by default)
+         * @return builder
+         */
+        public Builder setTypes(Collection<TypeCreationSpecDetails> types) {
+            this.types = types;
+            return this;
+        }// setTypes()
+
+        /**
+         * @param name Name of the lookalikes, followed by the country and the type (seed segment ID by default)
+         * @return builder
+         */
+        public Builder setName(String name) {
+            this.name = name;
+            return this;
+        }// setName()
+
+        public Builder setDescription(String description) {
+            this.description = description;
+            return this;
+        }// setDescription()
+
+        /**
+         * @param retentionInDays Number days to retain audience members (180 by default)
+         * @return builder
+         */
+        public Builder setRetentionInDays(int retentionInDays) {
+            this.retentionInDays = retentionInDays;
+            return this;
+        }// setRetentionInDays()
+
+        /**
+         * @param batchSize Number of lookalikes by request
+         * @return builder
+         */
+        public Builder setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }// setBatchSize()
+
+        /**
+         * @param threads Number of requests at once
+         * @return builder
+         */
+        public Builder setThreads(int threads) {
+            this.threads = threads;
+            return this;
+        }// setThreads()
+
+        /**
+         * @param executor Executor of the requests, not shut down
+         * @return builder
+         */
+        public Builder setExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }// setExecutor()
+
+        public BulkSamLookalikes build() throws SnapArgumentException {
+            StringBuilder sb = new StringBuilder();
+            if (snapAudienceSegment == null) {
+                sb.append("SnapAudienceSegment is required,");
+            }
+            if (StringUtils.isEmpty(adAccountId)) {
+                sb.append("The Ad Account ID is required,");
+            }
+            if (StringUtils.isEmpty(seedSegmentId)) {
+                sb.append("Seed segment ID is required,");
+            }
+            Set<String> distinctCountries = new LinkedHashSet<>();
+            if (CollectionUtils.isEmpty(countries)) {
+                sb.append("At least one country is required,");
+            } else {
+                for (String country : countries) {
+                    String code = country != null ? country.trim().toUpperCase(Locale.ROOT) : "";
+                    if (!COUNTRY_PATTERN.matcher(code).matches()) {
+                        sb.append("Country must be an ISO-2 code : ").append(country).append(",");
+                    }
+                    distinctCountries.add(code);
+                }
+            }
+            Set<TypeCreationSpecDetails> distinctTypes = new LinkedHashSet<>();
+            if (CollectionUtils.isEmpty(types) || types.contains(null)) {
+                sb.append("Lookalike creation spec type is required,");
+            } else {
+                distinctTypes.addAll(types);
+            }
+            if (retentionInDays < 0 || retentionInDays > 180) {
+                sb.append("The retention must be between 0 and 180 days,");
+            }
+            if (batchSize < 1) {
+                sb.append("Batch size must be positive,");
+            }
+            if (executor == null && threads < 1) {
+                sb.append("At least one thread is required,");
+            }
+            String finalErrors = sb.toString();
+            if (!StringUtils.isEmpty(finalErrors)) {
+                throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+            }
+            String prefix = StringUtils.isEmpty(name) ? seedSegmentId : name;
+            List<SamLookalikes> lookalikes = new ArrayList<>(distinctCountries.size() * distinctTypes.size());
+            for (String country : distinctCountries) {
+                for (TypeCreationSpecDetails type : distinctTypes) {
+                    CreationSpec spec = new CreationSpec();
+                    spec.setSeedSegmentId(seedSegmentId);
+                    spec.setCountry(country);
+                    spec.setType(type);
+                    SamLookalikes sam = new SamLookalikes();
+                    sam.setAdAccountId(adAccountId);
+                    sam.setName(prefix + " " + country + " " + type);
+                    sam.setDescription(description);
+                    sam.setRetentionInDays(retentionInDays);
+                    sam.setSourceType(SourceTypeEnum.LOOKALIKE);
+                    sam.setCreationSpec(spec);
+                    lookalikes.add(sam);
+                }
+            }
+            return new BulkSamLookalikes(this, lookalikes);
+        }// build()
+
+    }// Builder
+
+}// BulkSamLookalikes
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.match;
+
+import lombok.Getter;
+import lombok.ToString;
+import snapads4j.enums.TypeCreationSpecDetails;
+import snapads4j.model.audience.match.AudienceSegment;
+import snapads4j.model.audience.match.CreationSpec;
+
+import java.util.Map;
+
+/**
+ * Result of a bulk creation of lookalikes
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public class BulkSamLookalikesResult {
+
+    /**
+     * Lookalikes created by creation spec
+     */
+    private final Map<CreationSpec, AudienceSegment> segments;
+
+    /**
+     * Errors by creation spec of the lookalikes which couldn't be created
+     */
+    private final Map<CreationSpec, Exception> errors;
+
+    BulkSamLookalikesResult(Map<CreationSpec, AudienceSegment> segments, Map<CreationSpec, Exception> errors) {
+        this.segments = segments;
+        this.errors = errors;
+    }// BulkSamLookalikesResult()
+
+    /**
+     * @param seedSegmentId Seed Audience Segment ID
+     * @param country       ISO-2 Country Code
+     * @param type          Type of lookalike
+     * @return lookalike created for this spec, null if it wasn't created
+     */
+    public AudienceSegment getSegment(String seedSegmentId, String country, TypeCreationSpecDetails type) {
+        CreationSpec spec = new CreationSpec();
+        spec.setSeedSegmentId(seedSegmentId);
+        spec.setCountry(country);
+        spec.setType(type);
+        return segments.get(spec);
+    }// getSegment()
+
+    public boolean isComplete() {
+        return errors.isEmpty();
+    }// isComplete()
+
+}// BulkSamLookalikesResult
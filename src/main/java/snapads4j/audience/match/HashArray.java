@@ -0,0 +1,533 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.match;
+
+import snapads4j.enums.SchemaEnum;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Array of SHA-256 hashes stored as raw 32 bytes values out of the heap (direct buffers) or in a memory-mapped file.
+ * <p>
+ * 50M hashes take 1.6 GB outside the heap instead of 6-7 GB of hex {@link String}s. Once sorted
+ * ({@link #sort(int)}, parallel in-place radix sort), hashes can be searched ({@link #indexOf}) and two arrays can be
+ * diffed with a sorted merge ({@link #diff}). Hex is computed only when asked ({@link #hex(long)}), i.e. when
+ * request bodies are built.
+ * <p>
+ * Values are split into chunks of 32M hashes (1 GB) because a buffer can't be bigger than 2 GB. The array isn't
+ * thread-safe, except {@link #sort(int)} which uses its own threads.
+ *
+ * @author Yassine
+ */
+public final class HashArray implements Closeable {
+
+    public static final int HASH_LENGTH = IdentifierHasher.HASH_LENGTH;
+
+    private static final int CHUNK_SHIFT = 25;
+
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /**
+     * Ranges smaller than this are sorted by the thread which partitioned them
+     */
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 16;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ByteBuffer[] chunks;
+
+    private final long capacity;
+
+    private final boolean writable;
+
+    private final byte[] scratch = new byte[HASH_LENGTH];
+
+    private long size;
+
+    private HashArray(ByteBuffer[] chunks, long capacity, long size, boolean writable) {
+        this.chunks = chunks;
+        this.capacity = capacity;
+        this.size = size;
+        this.writable = writable;
+    }// HashArray()
+
+    /**
+     * Allocate an empty array out of the heap. Direct memory is limited by {@code -XX:MaxDirectMemorySize} (the max
+     * heap size by default) : 50M hashes need 1.6 GB of it, whatever the heap used.
+     *
+     * @param capacity Max number of hashes
+     * @return array
+     */
+    public static HashArray allocate(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        ByteBuffer[] chunks = new ByteBuffer[chunkCount(capacity)];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = ByteBuffer.allocateDirect(chunkLength(capacity, c));
+        }
+        return new HashArray(chunks, capacity, 0, true);
+    }// allocate()
+
+    /**
+     * Map a file of hashes (written by {@link #write(Path)}) in read only
+     *
+     * @param file File of hashes
+     * @return array of the hashes of the file
+     * @throws IOException If the file can't be mapped
+     */
+    public static HashArray open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length % HASH_LENGTH != 0) {
+                throw new IOException("Not a file of hashes : " + file);
+            }
+            long count = length / HASH_LENGTH;
+            ByteBuffer[] chunks = new ByteBuffer[chunkCount(count)];
+            for (int c = 0; c < chunks.length; c++) {
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, (long) c << (CHUNK_SHIFT + 5), chunkLength(count, c));
+            }
+            return new HashArray(chunks, count, count, false);
+        }
+    }// open()
+
+    /**
+     * Write the hashes in a file (raw 32 bytes values)
+     *
+     * @param file Destination, replaced if it exists
+     * @throws IOException If the file can't be written
+     */
+    public void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long remaining = size * HASH_LENGTH;
+            for (ByteBuffer chunk : chunks) {
+                if (remaining == 0) {
+                    break;
+                }
+                ByteBuffer values = chunk.duplicate();
+                values.clear();
+                values.limit((int) Math.min(values.capacity(), remaining));
+                remaining -= values.remaining();
+                while (values.hasRemaining()) {
+                    channel.write(values);
+                }
+            }
+        }
+    }// write()
+
+    public long size() {
+        return size;
+    }// size()
+
+    public long capacity() {
+        return capacity;
+    }// capacity()
+
+    /**
+     * Append a hash
+     *
+     * @param hash   Hash
+     * @param offset Offset of the 32 bytes of the hash
+     */
+    public void add(byte[] hash, int offset) {
+        long index = next();
+        for (int w = 0; w < 4; w++) {
+            putWord(index, w, readLong(hash, offset + (w << 3)));
+        }
+    }// add()
+
+    /**
+     * Append a hash of another array
+     *
+     * @param hashes Array
+     * @param index  Index of the hash in this array
+     */
+    public void add(HashArray hashes, long index) {
+        long to = next();
+        for (int w = 0; w < 4; w++) {
+            putWord(to, w, hashes.word(index, w));
+        }
+    }// add()
+
+    /**
+     * Normalize, hash and append an identifier ({@link IdentifierHasher})
+     *
+     * @param schema     Schema of the identifier
+     * @param identifier Identifier (not normalized)
+     * @return false if the identifier isn't valid for the schema (nothing is added)
+     */
+    public boolean addHashed(SchemaEnum schema, CharSequence identifier) {
+        if (!IdentifierHasher.hash(schema, identifier, scratch, 0)) {
+            return false;
+        }
+        add(scratch, 0);
+        return true;
+    }// addHashed()
+
+    /**
+     * Read a hash
+     *
+     * @param index  Index of the hash
+     * @param out    Destination of the 32 bytes
+     * @param offset Offset in the destination
+     */
+    public void get(long index, byte[] out, int offset) {
+        checkIndex(index);
+        for (int w = 0; w < 4; w++) {
+            writeLong(word(index, w), out, offset + (w << 3));
+        }
+    }// get()
+
+    /**
+     * Write a hash in lower case hex
+     *
+     * @param index  Index of the hash
+     * @param out    Destination of the 64 chars
+     * @param offset Offset in the destination
+     */
+    public void hex(long index, char[] out, int offset) {
+        checkIndex(index);
+        for (int w = 0; w < 4; w++) {
+            long word = word(index, w);
+            for (int shift = 60; shift >= 0; shift -= 4) {
+                out[offset++] = HEX[(int) (word >>> shift) & 0xF];
+            }
+        }
+    }// hex()
+
+    /**
+     * @param index Index of the hash
+     * @return hash in lower case hex
+     */
+    public String hex(long index) {
+        char[] out = new char[IdentifierHasher.HEX_LENGTH];
+        hex(index, out, 0);
+        return new String(out);
+    }// hex()
+
+    /**
+     * Binary search of a hash, the array must be sorted
+     *
+     * @param hash   Hash
+     * @param offset Offset of the 32 bytes of the hash
+     * @return index of the hash, or (-(insertion point) - 1) if it's missing
+     */
+    public long indexOf(byte[] hash, int offset) {
+        long k0 = readLong(hash, offset);
+        long k1 = readLong(hash, offset + 8);
+        long k2 = readLong(hash, offset + 16);
+        long k3 = readLong(hash, offset + 24);
+        long lo = 0;
+        long hi = size - 1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            int cmp = Long.compareUnsigned(word(mid, 0), k0);
+            if (cmp == 0) {
+                cmp = Long.compareUnsigned(word(mid, 1), k1);
+            }
+            if (cmp == 0) {
+                cmp = Long.compareUnsigned(word(mid, 2), k2);
+            }
+            if (cmp == 0) {
+                cmp = Long.compareUnsigned(word(mid, 3), k3);
+            }
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }// indexOf()
+
+    public boolean contains(byte[] hash, int offset) {
+        return indexOf(hash, offset) >= 0;
+    }// contains()
+
+    /**
+     * Sort the hashes (unsigned bytes order) in place : MSD radix sort, the ranges of the first levels are sorted
+     * concurrently
+     *
+     * @param parallelism Number of threads
+     */
+    public void sort(int parallelism) {
+        checkWritable();
+        if (size < 2) {
+            return;
+        }
+        if (parallelism <= 1 || size < PARALLEL_SORT_THRESHOLD) {
+            radixSort(0, size, 0);
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new SortTask(this, 0, size, 0));
+        } finally {
+            pool.shutdown();
+        }
+    }// sort()
+
+    /**
+     * Remove the duplicates of a sorted array
+     *
+     * @return number of hashes removed
+     */
+    public long removeDuplicates() {
+        checkWritable();
+        if (size < 2) {
+            return 0;
+        }
+        long n = 1;
+        for (long i = 1; i < size; i++) {
+            if (compare(this, i, this, n - 1) != 0) {
+                if (i != n) {
+                    copy(i, n);
+                }
+                n++;
+            }
+        }
+        long removed = size - n;
+        size = n;
+        return removed;
+    }// removeDuplicates()
+
+    /**
+     * Sorted merge of two sorted arrays without duplicates, hashes are given in order
+     *
+     * @param previous  Previous hashes
+     * @param current   Current hashes
+     * @param additions Consumer of the hashes of current missing from previous
+     * @param removals  Consumer of the hashes of previous missing from current
+     */
+    public static void diff(HashArray previous, HashArray current, HashConsumer additions, HashConsumer removals) {
+        long i = 0;
+        long j = 0;
+        while (i < previous.size && j < current.size) {
+            int cmp = compare(previous, i, current, j);
+            if (cmp < 0) {
+                removals.accept(previous, i++);
+            } else if (cmp > 0) {
+                additions.accept(current, j++);
+            } else {
+                i++;
+                j++;
+            }
+        }
+        while (i < previous.size) {
+            removals.accept(previous, i++);
+        }
+        while (j < current.size) {
+            additions.accept(current, j++);
+        }
+    }// diff()
+
+    /**
+     * Compare two hashes (unsigned bytes order)
+     */
+    public static int compare(HashArray a, long i, HashArray b, long j) {
+        for (int w = 0; w < 4; w++) {
+            int cmp = Long.compareUnsigned(a.word(i, w), b.word(j, w));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }// compare()
+
+    /**
+     * Drop the buffers, nothing is freed here : direct memory (and the mapping of a file) is released when the buffers
+     * are garbage collected. Until then, it still counts against {@code -XX:MaxDirectMemorySize}.
+     */
+    @Override
+    public void close() {
+        Arrays.fill(chunks, null);
+        size = 0;
+    }// close()
+
+    private void radixSort(long lo, long hi, int depth) {
+        if (hi - lo < INSERTION_SORT_THRESHOLD || depth == HASH_LENGTH) {
+            insertionSort(lo, hi);
+            return;
+        }
+        long[] bounds = partition(lo, hi, depth);
+        for (int b = 0; b < 256; b++) {
+            if (bounds[b + 1] - bounds[b] > 1) {
+                radixSort(bounds[b], bounds[b + 1], depth + 1);
+            }
+        }
+    }// radixSort()
+
+    /**
+     * American flag sort of a range on one byte
+     *
+     * @return bounds of the 256 buckets (257 values)
+     */
+    private long[] partition(long lo, long hi, int depth) {
+        long[] bounds = new long[257];
+        for (long i = lo; i < hi; i++) {
+            bounds[byteAt(i, depth) + 1]++;
+        }
+        bounds[0] = lo;
+        for (int b = 0; b < 256; b++) {
+            bounds[b + 1] += bounds[b];
+        }
+        long[] next = Arrays.copyOf(bounds, 256);
+        for (int b = 0; b < 256; b++) {
+            while (next[b] < bounds[b + 1]) {
+                int value = byteAt(next[b], depth);
+                if (value == b) {
+                    next[b]++;
+                } else {
+                    swap(next[b], next[value]++);
+                }
+            }
+        }
+        return bounds;
+    }// partition()
+
+    private void insertionSort(long lo, long hi) {
+        for (long i = lo + 1; i < hi; i++) {
+            for (long j = i; j > lo && compare(this, j - 1, this, j) > 0; j--) {
+                swap(j - 1, j);
+            }
+        }
+    }// insertionSort()
+
+    private long next() {
+        checkWritable();
+        if (size == capacity) {
+            throw new IllegalStateException("HashArray is full");
+        }
+        return size++;
+    }// next()
+
+    private void checkWritable() {
+        if (!writable) {
+            throw new IllegalStateException("HashArray is read only");
+        }
+    }// checkWritable()
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+    }// checkIndex()
+
+    private int byteAt(long index, int depth) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) ((index & CHUNK_MASK) << 5) + depth) & 0xFF;
+    }// byteAt()
+
+    private long word(long index, int w) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].getLong((int) ((index & CHUNK_MASK) << 5) + (w << 3));
+    }// word()
+
+    private void putWord(long index, int w, long value) {
+        chunks[(int) (index >>> CHUNK_SHIFT)].putLong((int) ((index & CHUNK_MASK) << 5) + (w << 3), value);
+    }// putWord()
+
+    private void copy(long from, long to) {
+        for (int w = 0; w < 4; w++) {
+            putWord(to, w, word(from, w));
+        }
+    }// copy()
+
+    private void swap(long i, long j) {
+        for (int w = 0; w < 4; w++) {
+            long tmp = word(i, w);
+            putWord(i, w, word(j, w));
+            putWord(j, w, tmp);
+        }
+    }// swap()
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }// readLong()
+
+    private static void writeLong(long value, byte[] bytes, int offset) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }// writeLong()
+
+    private static int chunkCount(long count) {
+        return (int) ((count + CHUNK_MASK) >>> CHUNK_SHIFT);
+    }// chunkCount()
+
+    private static int chunkLength(long count, int chunk) {
+        return (int) (Math.min(CHUNK_MASK + 1, count - ((long) chunk << CHUNK_SHIFT)) * HASH_LENGTH);
+    }// chunkLength()
+
+    /**
+     * Partition a range then sort its buckets, big buckets concurrently
+     */
+    private static final class SortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient HashArray array;
+
+        private final long lo;
+
+        private final long hi;
+
+        private final int depth;
+
+        private SortTask(HashArray array, long lo, long hi, int depth) {
+            this.array = array;
+            this.lo = lo;
+            this.hi = hi;
+            this.depth = depth;
+        }// SortTask()
+
+        @Override
+        protected void compute() {
+            if (hi - lo < PARALLEL_SORT_THRESHOLD || depth == HASH_LENGTH) {
+                array.radixSort(lo, hi, depth);
+                return;
+            }
+            long[] bounds = array.partition(lo, hi, depth);
+            List<SortTask> tasks = new ArrayList<>();
+            for (int b = 0; b < 256; b++) {
+                if (bounds[b + 1] - bounds[b] > 1) {
+                    tasks.add(new SortTask(array, bounds[b], bounds[b + 1], depth + 1));
+                }
+            }
+            invokeAll(tasks);
+        }// compute()
+
+    }// SortTask
+
+}// HashArray
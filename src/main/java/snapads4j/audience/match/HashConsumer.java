@@ -0,0 +1,28 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.match;
+
+/**
+ * Consumer of a hash of a {@link HashArray}, the hash is read (or encoded in hex) only if needed
+ *
+ * @author Yassine
+ */
+@FunctionalInterface
+public interface HashConsumer {
+
+    void accept(HashArray hashes, long index);
+
+}// HashConsumer
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.match;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Remove the duplicates of a stream of SHA-256 hashes.
+ * <p>
+ * A {@link ScalableBloomFilter} (about 10 bits by hash at 1%) answers first : most new hashes are told apart
+ * without comparing keys and are appended to the exact set (32 bytes by hash out of the heap, open addressing)
+ * by looking for a free slot only. Possible hits of the filter are checked against the exact set, so a false
+ * positive never drops a hash.
+ * <p>
+ * Thread-safe, hashes are added one at a time.
+ *
+ * @author Yassine
+ */
+public class HashDeduplicator {
+
+    private static final int CHUNK_SHIFT = 20;
+
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final ScalableBloomFilter filter;
+
+    private ByteBuffer[] chunks;
+
+    private long mask;
+
+    /**
+     * True if the hash made of zeros (empty slot) was added
+     */
+    private boolean zero;
+
+    private long distinct;
+
+    private long duplicates;
+
+    private long falsePositives;
+
+    public HashDeduplicator() {
+        this(100_000, 0.01);
+    }// HashDeduplicator()
+
+    /**
+     * Constructor
+     *
+     * @param expectedHashes    Expected number of distinct hashes (the structures grow beyond)
+     * @param falsePositiveRate False positive rate of the Bloom filter (exact checks needed by new hashes)
+     */
+    public HashDeduplicator(long expectedHashes, double falsePositiveRate) {
+        if (expectedHashes < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Expected hashes must be positive and false positive rate between 0 and 1");
+        }
+        this.filter = new ScalableBloomFilter(expectedHashes, falsePositiveRate);
+        allocate(Long.highestOneBit(Math.max(16, expectedHashes) * 2 - 1) << 1);
+    }// HashDeduplicator()
+
+    /**
+     * Add a hash
+     *
+     * @param hash   Hash
+     * @param offset Offset of the 32 bytes of the hash
+     * @return true if the hash wasn't added before
+     */
+    public synchronized boolean add(byte[] hash, int offset) {
+        long w0 = readLong(hash, offset);
+        long w1 = readLong(hash, offset + 8);
+        long w2 = readLong(hash, offset + 16);
+        long w3 = readLong(hash, offset + 24);
+        boolean added;
+        if (!filter.mightContain(w0, w1)) {
+            filter.put(w0, w1);
+            added = insert(w0, w1, w2, w3, false);
+        } else {
+            added = insert(w0, w1, w2, w3, true);
+            if (added) {
+                falsePositives++;
+            }
+        }
+        if (added) {
+            distinct++;
+        } else {
+            duplicates++;
+        }
+        return added;
+    }// add()
+
+    public synchronized long getDistinct() {
+        return distinct;
+    }// getDistinct()
+
+    public synchronized long getDuplicates() {
+        return duplicates;
+    }// getDuplicates()
+
+    /**
+     * @return number of new hashes the Bloom filter took for duplicates (checked in the exact set)
+     */
+    public synchronized long getFalsePositives() {
+        return falsePositives;
+    }// getFalsePositives()
+
+    /**
+     * Insert a hash in the exact set
+     *
+     * @param check False if the hash is known to be missing (the keys met aren't compared)
+     * @return false if the hash is already there
+     */
+    private boolean insert(long w0, long w1, long w2, long w3, boolean check) {
+        if ((w0 | w1 | w2 | w3) == 0) {
+            boolean added = !zero;
+            zero = true;
+            return added;
+        }
+        long slot = w2 & mask;
+        while (!isEmpty(slot)) {
+            if (check && word(slot, 0) == w0 && word(slot, 1) == w1 && word(slot, 2) == w2 && word(slot, 3) == w3) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        put(slot, w0, w1, w2, w3);
+        if ((distinct + 1) * 2 > mask + 1) {
+            grow();
+        }
+        return true;
+    }// insert()
+
+    private void grow() {
+        ByteBuffer[] old = chunks;
+        long oldSlots = mask + 1;
+        allocate(oldSlots << 1);
+        for (long i = 0; i < oldSlots; i++) {
+            ByteBuffer chunk = old[(int) (i >>> CHUNK_SHIFT)];
+            int position = (int) ((i & CHUNK_MASK) << 5);
+            long w0 = chunk.getLong(position);
+            long w1 = chunk.getLong(position + 8);
+            long w2 = chunk.getLong(position + 16);
+            long w3 = chunk.getLong(position + 24);
+            if ((w0 | w1 | w2 | w3) != 0) {
+                long slot = w2 & mask;
+                while (!isEmpty(slot)) {
+                    slot = (slot + 1) & mask;
+                }
+                put(slot, w0, w1, w2, w3);
+            }
+        }
+    }// grow()
+
+    private void allocate(long slots) {
+        int count = (int) Math.max(1, slots >>> CHUNK_SHIFT);
+        chunks = new ByteBuffer[count];
+        for (int c = 0; c < count; c++) {
+            chunks[c] = ByteBuffer.allocateDirect((int) Math.min(slots, CHUNK_MASK + 1) << 5);
+        }
+        mask = slots - 1;
+    }// allocate()
+
+    private boolean isEmpty(long slot) {
+        return (word(slot, 0) | word(slot, 1) | word(slot, 2) | word(slot, 3)) == 0;
+    }// isEmpty()
+
+    private long word(long slot, int w) {
+        return chunks[(int) (slot >>> CHUNK_SHIFT)].getLong((int) ((slot & CHUNK_MASK) << 5) + (w << 3));
+    }// word()
+
+    private void put(long slot, long w0, long w1, long w2, long w3) {
+        ByteBuffer chunk = chunks[(int) (slot >>> CHUNK_SHIFT)];
+        int position = (int) ((slot & CHUNK_MASK) << 5);
+        chunk.putLong(position, w0);
+        chunk.putLong(position + 8, w1);
+        chunk.putLong(position + 16, w2);
+        chunk.putLong(position + 24, w3);
+    }// put()
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }// readLong()
+
+}// HashDeduplicator
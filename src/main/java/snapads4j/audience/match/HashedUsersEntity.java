@@ -0,0 +1,254 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.match;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import snapads4j.enums.SchemaEnum;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Body of the requests adding (or removing) users to a segment, written straight to the connection.
+ * <p>
+ * The JSON is the same as the one of {@link snapads4j.model.audience.match.SnapHttpRequestUserForAudienceSegment} :
+ * <pre>{"users":[{"id":"...","schema":["EMAIL_SHA256"],"data":["...","..."]}]}</pre>
+ * but it's never built in memory : the hashes are written through a small buffer, from hex strings or from raw
+ * 32 bytes hashes (hex is computed while writing). The length is known beforehand and the entity can be written
+ * again (retries).
+ *
+ * @author Yassine
+ */
+public class HashedUsersEntity extends AbstractHttpEntity {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] TAIL = "]}]}".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] head;
+
+    private final Iterable<? extends CharSequence> hashes;
+
+    private final ByteBuffer rawHashes;
+
+    private final long length;
+
+    /**
+     * Constructor
+     *
+     * @param segmentID ID of the segment
+     * @param schema    Schema of the hashes
+     * @param hashes    Hashes (hex), iterated once to compute the length then once by write
+     */
+    public HashedUsersEntity(String segmentID, SchemaEnum schema, Iterable<? extends CharSequence> hashes) {
+        this.head = head(segmentID, schema);
+        this.hashes = hashes;
+        this.rawHashes = null;
+        long dataLength = 0;
+        int count = 0;
+        for (CharSequence hash : hashes) {
+            int plain = plainLength(hash);
+            dataLength += (plain >= 0 ? plain : quote(hash).length) + 2;
+            count++;
+        }
+        this.length = head.length + dataLength + Math.max(0, count - 1) + TAIL.length;
+        setContentType(ContentType.APPLICATION_JSON.toString());
+    }// HashedUsersEntity()
+
+    /**
+     * Constructor
+     *
+     * @param segmentID ID of the segment
+     * @param schema    Schema of the hashes
+     * @param rawHashes Raw hashes (32 bytes each) between the position and the limit of the buffer, not modified
+     */
+    public HashedUsersEntity(String segmentID, SchemaEnum schema, ByteBuffer rawHashes) {
+        if (rawHashes.remaining() % IdentifierHasher.HASH_LENGTH != 0) {
+            throw new IllegalArgumentException("Buffer must contain 32 bytes hashes");
+        }
+        this.head = head(segmentID, schema);
+        this.hashes = null;
+        this.rawHashes = rawHashes.duplicate();
+        int count = rawHashes.remaining() / IdentifierHasher.HASH_LENGTH;
+        this.length = head.length + (long) count * (IdentifierHasher.HEX_LENGTH + 2) + Math.max(0, count - 1) + TAIL.length;
+        setContentType(ContentType.APPLICATION_JSON.toString());
+    }// HashedUsersEntity()
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }// isRepeatable()
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }// getContentLength()
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }// isStreaming()
+
+    /**
+     * Build the whole body in memory, only for callers which need it (writeTo doesn't)
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE - 8, length));
+        writeTo(out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }// getContent()
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        Sink sink = new Sink(out);
+        sink.write(head);
+        boolean first = true;
+        if (rawHashes != null) {
+            ByteBuffer values = rawHashes.duplicate();
+            while (values.hasRemaining()) {
+                byte[] buffer = sink.reserve(IdentifierHasher.HEX_LENGTH + 3);
+                int n = sink.n;
+                if (!first) {
+                    buffer[n++] = ',';
+                }
+                first = false;
+                buffer[n++] = '"';
+                for (int i = 0; i < IdentifierHasher.HASH_LENGTH; i++) {
+                    int b = values.get();
+                    buffer[n++] = HEX[(b >> 4) & 0xF];
+                    buffer[n++] = HEX[b & 0xF];
+                }
+                buffer[n++] = '"';
+                sink.n = n;
+            }
+        } else {
+            for (CharSequence hash : hashes) {
+                if (!first) {
+                    sink.write(',');
+                }
+                first = false;
+                sink.write('"');
+                int plain = plainLength(hash);
+                if (plain >= 0 && plain < BUFFER_SIZE) {
+                    byte[] buffer = sink.reserve(plain);
+                    for (int i = 0; i < plain; i++) {
+                        buffer[sink.n++] = (byte) hash.charAt(i);
+                    }
+                } else {
+                    sink.write(quote(hash));
+                }
+                sink.write('"');
+            }
+        }
+        sink.write(TAIL);
+        sink.flush();
+    }// writeTo()
+
+    private static byte[] head(String segmentID, SchemaEnum schema) {
+        StringBuilder sb = new StringBuilder("{\"users\":[{\"id\":");
+        if (segmentID == null) {
+            sb.append("null");
+        } else {
+            sb.append('"').append(JsonStringEncoder.getInstance().quoteAsString(segmentID)).append('"');
+        }
+        sb.append(",\"schema\":[");
+        if (schema != null) {
+            sb.append('"').append(schema.name()).append('"');
+        }
+        sb.append("],\"data\":[");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }// head()
+
+    /**
+     * @return length of a value which doesn't need escaping (ASCII, no quote, backslash or control char), -1 otherwise
+     */
+    private static int plainLength(CharSequence value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c >= 0x7F || c == '"' || c == '\\') {
+                return -1;
+            }
+        }
+        return length;
+    }// plainLength()
+
+    /**
+     * JSON escaping (UTF-8)
+     */
+    private static byte[] quote(CharSequence value) {
+        return JsonStringEncoder.getInstance().quoteAsUTF8(value.toString());
+    }// quote()
+
+    /**
+     * Buffer in front of the connection
+     */
+    private static class Sink {
+
+        private final OutputStream out;
+
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        private int n;
+
+        private Sink(OutputStream out) {
+            this.out = out;
+        }// Sink()
+
+        /**
+         * @return buffer with room for length bytes from n (length must not be bigger than the buffer)
+         */
+        private byte[] reserve(int length) throws IOException {
+            if (n + length > BUFFER_SIZE) {
+                out.write(buffer, 0, n);
+                n = 0;
+            }
+            return buffer;
+        }// reserve()
+
+        private void write(char c) throws IOException {
+            reserve(1)[n++] = (byte) c;
+        }// write()
+
+        private void write(byte[] bytes) throws IOException {
+            if (bytes.length > BUFFER_SIZE) {
+                reserve(BUFFER_SIZE);
+                out.write(bytes);
+            } else {
+                System.arraycopy(bytes, 0, reserve(bytes.length), n, bytes.length);
+                n += bytes.length;
+            }
+        }// write()
+
+        private void flush() throws IOException {
+            out.write(buffer, 0, n);
+            n = 0;
+            out.flush();
+        }// flush()
+
+    }// Sink
+
+}// HashedUsersEntity
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.match;
+
+import snapads4j.enums.SchemaEnum;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Normalize and hash (SHA-256) the identifiers of audience segments.
+ * <p>
+ * Normalization is done in a single pass over the characters, straight into a UTF-8 buffer :
+ * <ul>
+ * <li>Email : trimmed, lower case, must have an '@' with something before and after</li>
+ * <li>Phone (E.164) : digits only (spaces, '+', '-', '.', '(' and ')' are dropped), leading zeros removed,
+ * 10 to 15 digits with the country code</li>
+ * <li>Mobile ad ID : trimmed, lower case</li>
+ * </ul>
+ * The MessageDigest and the buffers are reused by thread, {@link #hash(SchemaEnum, CharSequence, byte[], int)} and
+ * {@link #hashHex(SchemaEnum, CharSequence, char[], int)} don't allocate.
+ *
+ * @author Yassine
+ */
+public final class IdentifierHasher {
+
+    /**
+     * Length of a SHA-256 hash (bytes)
+     */
+    public static final int HASH_LENGTH = 32;
+
+    /**
+     * Length of a SHA-256 hash in hex (chars)
+     */
+    public static final int HEX_LENGTH = 64;
+
+    private static final int MIN_PHONE_DIGITS = 10;
+
+    private static final int MAX_PHONE_DIGITS = 15;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private IdentifierHasher() {
+    }// IdentifierHasher()
+
+    /**
+     * Normalize and hash an identifier
+     *
+     * @param schema     Schema of the identifier
+     * @param identifier Identifier (not normalized)
+     * @param out        Destination of the 32 bytes of the hash
+     * @param offset     Offset in the destination
+     * @return false if the identifier isn't valid for the schema (nothing is written)
+     */
+    public static boolean hash(SchemaEnum schema, CharSequence identifier, byte[] out, int offset) {
+        State state = STATE.get();
+        int length = normalize(schema, identifier, state);
+        if (length < 0) {
+            return false;
+        }
+        state.digest.update(state.input, 0, length);
+        try {
+            state.digest.digest(out, offset, HASH_LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalArgumentException("Destination is too small for a SHA-256 hash", e);
+        }
+        return true;
+    }// hash()
+
+    /**
+     * Normalize and hash an identifier, the hash is written in lower case hex
+     *
+     * @param schema     Schema of the identifier
+     * @param identifier Identifier (not normalized)
+     * @param out        Destination of the 64 chars of the hash
+     * @param offset     Offset in the destination
+     * @return false if the identifier isn't valid for the schema (nothing is written)
+     */
+    public static boolean hashHex(SchemaEnum schema, CharSequence identifier, char[] out, int offset) {
+        State state = STATE.get();
+        if (!hash(schema, identifier, state.hash, 0)) {
+            return false;
+        }
+        toHex(state.hash, 0, out, offset);
+        return true;
+    }// hashHex()
+
+    /**
+     * Normalize and hash an identifier
+     *
+     * @param schema     Schema of the identifier
+     * @param identifier Identifier (not normalized)
+     * @return hash in lower case hex, null if the identifier isn't valid for the schema
+     */
+    public static String hashHex(SchemaEnum schema, CharSequence identifier) {
+        State state = STATE.get();
+        return hashHex(schema, identifier, state.hex, 0) ? new String(state.hex) : null;
+    }// hashHex()
+
+    /**
+     * Write a hash in lower case hex
+     *
+     * @param hash      Hash
+     * @param offset    Offset of the hash
+     * @param out       Destination of the 64 chars
+     * @param outOffset Offset in the destination
+     */
+    public static void toHex(byte[] hash, int offset, char[] out, int outOffset) {
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            int b = hash[offset + i];
+            out[outOffset++] = HEX[(b >> 4) & 0xF];
+            out[outOffset++] = HEX[b & 0xF];
+        }
+    }// toHex()
+
+    /**
+     * Normalize an identifier into the input buffer of the thread
+     *
+     * @return number of bytes written, -1 if the identifier isn't valid
+     */
+    private static int normalize(SchemaEnum schema, CharSequence identifier, State state) {
+        int start = 0;
+        int end = identifier.length();
+        while (start < end && identifier.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && identifier.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (schema == SchemaEnum.PHONE_SHA256) {
+            return normalizePhone(identifier, start, end, state.input);
+        }
+        boolean valid = schema != SchemaEnum.EMAIL_SHA256;
+        // 3 bytes max by char (4 by surrogate pair)
+        byte[] input = state.ensureCapacity((end - start) * 3);
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            char c = identifier.charAt(i);
+            if (c < 0x80) {
+                if (c == '@' && i > start && i < end - 1) {
+                    valid = true;
+                }
+                input[n++] = (byte) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+            } else if (c < 0x800) {
+                c = Character.toLowerCase(c);
+                n = putChar(input, n, c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(identifier.charAt(i + 1))) {
+                int codePoint = Character.toLowerCase(Character.toCodePoint(c, identifier.charAt(++i)));
+                input[n++] = (byte) (0xF0 | (codePoint >> 18));
+                input[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                input[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                input[n++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Same as String.getBytes(UTF_8) for a lone surrogate
+                input[n++] = '?';
+            } else {
+                n = putChar(input, n, Character.toLowerCase(c));
+            }
+        }
+        return valid ? n : -1;
+    }// normalize()
+
+    private static int putChar(byte[] input, int n, char c) {
+        if (c < 0x80) {
+            input[n++] = (byte) c;
+        } else if (c < 0x800) {
+            input[n++] = (byte) (0xC0 | (c >> 6));
+            input[n++] = (byte) (0x80 | (c & 0x3F));
+        } else {
+            input[n++] = (byte) (0xE0 | (c >> 12));
+            input[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            input[n++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return n;
+    }// putChar()
+
+    private static int normalizePhone(CharSequence identifier, int start, int end, byte[] input) {
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            char c = identifier.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (n == 0 && c == '0') {
+                    continue;
+                }
+                if (n == MAX_PHONE_DIGITS) {
+                    return -1;
+                }
+                input[n++] = (byte) c;
+            } else if (c != ' ' && c != '+' && c != '-' && c != '.' && c != '(' && c != ')') {
+                return -1;
+            }
+        }
+        return n < MIN_PHONE_DIGITS ? -1 : n;
+    }// normalizePhone()
+
+    /**
+     * Buffers of a thread
+     */
+    private static class State {
+
+        private final MessageDigest digest;
+
+        private byte[] input = new byte[256];
+
+        private final byte[] hash = new byte[HASH_LENGTH];
+
+        private final char[] hex = new char[HEX_LENGTH];
+
+        private State() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                // Every JVM has SHA-256
+                throw new IllegalStateException(e);
+            }
+        }// State()
+
+        private byte[] ensureCapacity(int capacity) {
+            if (input.length < capacity) {
+                input = new byte[Math.max(capacity, input.length << 1)];
+            }
+            return input;
+        }// ensureCapacity()
+
+    }// State
+
+}// IdentifierHasher
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.match;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bloom filter of SHA-256 hashes which grows with the number of hashes added : when a filter is full a new one,
+ * twice as big and with half the false positive rate, is added (so the overall rate stays under the rate asked).
+ * <p>
+ * Hashes are uniform already, the bits of a hash are picked from its first two words (double hashing).
+ *
+ * @author Yassine
+ */
+final class ScalableBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final List<Stage> stages = new ArrayList<>();
+
+    private final double falsePositiveRate;
+
+    ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+        stages.add(new Stage(initialCapacity, falsePositiveRate / 2));
+    }// ScalableBloomFilter()
+
+    boolean mightContain(long h0, long h1) {
+        for (Stage stage : stages) {
+            if (stage.mightContain(h0, h1)) {
+                return true;
+            }
+        }
+        return false;
+    }// mightContain()
+
+    void put(long h0, long h1) {
+        Stage last = stages.get(stages.size() - 1);
+        if (last.count == last.capacity) {
+            last = new Stage(last.capacity * 2, falsePositiveRate / (1L << (stages.size() + 1)));
+            stages.add(last);
+        }
+        last.put(h0, h1);
+    }// put()
+
+    int getStages() {
+        return stages.size();
+    }// getStages()
+
+    /**
+     * @return memory used by the bits (bytes)
+     */
+    long getMemory() {
+        long memory = 0;
+        for (Stage stage : stages) {
+            memory += (long) stage.bits.length * 8;
+        }
+        return memory;
+    }// getMemory()
+
+    private static class Stage {
+
+        private final long[] bits;
+
+        private final long size;
+
+        private final int hashes;
+
+        private final long capacity;
+
+        private long count;
+
+        private Stage(long capacity, double falsePositiveRate) {
+            this.capacity = Math.max(1, capacity);
+            long m = (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+            this.bits = new long[(int) Math.max(1, (m + 63) >>> 6)];
+            this.size = (long) bits.length << 6;
+            this.hashes = (int) Math.max(1, Math.round((double) size / this.capacity * LN2));
+        }// Stage()
+
+        private boolean mightContain(long h0, long h1) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h0 + i * h1, size);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }// mightContain()
+
+        private void put(long h0, long h1) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h0 + i * h1, size);
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+            count++;
+        }// put()
+
+    }// Stage
+
+}// ScalableBloomFilter
@@ -18,7 +18,6 @@ package snapads4j.audience.match;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Setter;
-import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpEntity;
@@ -42,15 +41,12 @@ import snapads4j.utils.JsonUtils;
 import javax.validation.ConstraintViolation;
 import javax.validation.Validation;
 import javax.validation.Validator;
-import javax.validation.ValidatorFactory;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * SnapAudienceSegment
@@ -92,6 +88,11 @@ public class SnapAudienceSegment implements SnapAudienceSegmentInterface {
 
     private static final Logger LOGGER = LogManager.getLogger(SnapAudienceSegment.class);
 
+    /**
+     * Validators are thread safe, the factory is costly to build
+     */
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
     public SnapAudienceSegment() throws IOException{
         this.fp = new FileProperties();
         this.apiUrl = (String) fp.getProperties().get("api.url");
@@ -189,6 +190,41 @@ public class SnapAudienceSegment implements SnapAudienceSegmentInterface {
         return result;
     }// createSamLookalikes()
 
+    @Override
+    public List<AudienceSegment> createAllSamLookalikes(String oAuthAccessToken, List<SamLookalikes> sams)
+            throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException,
+            JsonProcessingException, UnsupportedEncodingException, SnapExecutionException {
+        if (StringUtils.isEmpty(oAuthAccessToken)) {
+            throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
+        }
+        checkAllSamLookalikes(sams);
+        List<AudienceSegment> results = new ArrayList<>();
+        final String url = this.endpointCreationSam.replace("{ad_account_id}", sams.get(0).getAdAccountId());
+        SnapHttpRequestAudienceSegment reqBody = new SnapHttpRequestAudienceSegment();
+        sams.forEach(reqBody::addAudienceSegment);
+        HttpPost request = HttpUtils.preparePostRequestObject(url, oAuthAccessToken, reqBody);
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode >= 300) {
+                throw SnapExceptionsUtils.getResponseExceptionByStatusCode(statusCode);
+            }
+            HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                String body = entityUtilsWrapper.toString(entity);
+                ObjectMapper mapper = JsonUtils.initMapper();
+                SnapHttpResponseAudienceSegment responseFromJson = mapper.readValue(body,
+                        SnapHttpResponseAudienceSegment.class);
+                if (responseFromJson != null) {
+                    results = responseFromJson.getAllAudienceSegment();
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Impossible to create sam lookalikes, ad_account_id = {}", sams.get(0).getAdAccountId(), e);
+            throw new SnapExecutionException("Impossible to create sam lookalikes", e);
+        }
+        return results;
+    }// createAllSamLookalikes()
+
     @Override
     public Optional<AudienceSegment> updateAudienceSegment(String oAuthAccessToken, AudienceSegment segment)
             throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException,
@@ -326,38 +362,32 @@ public class SnapAudienceSegment implements SnapAudienceSegmentInterface {
         int result = 0;
         if (CollectionUtils.isNotEmpty(formUserForAudienceSegment.getData())) {
             normalizeAndHashDataUserForAudienceSegment(formUserForAudienceSegment);
-            final String url = this.endpointAddUserForAudienceSegment.replace("{segment_id}",
-                    formUserForAudienceSegment.getId());
-            SnapHttpRequestUserForAudienceSegment reqBody = new SnapHttpRequestUserForAudienceSegment();
-            reqBody.addUserForAudienceSegment(formUserForAudienceSegment);
-            HttpPost request = HttpUtils.preparePostRequestObject(url, oAuthAccessToken, reqBody);
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                int statusCode = response.getStatusLine().getStatusCode();
-                if (statusCode >= 300) {
-                    throw SnapExceptionsUtils.getResponseExceptionByStatusCode(statusCode);
-                }
-                HttpEntity entity = response.getEntity();
-                if (entity != null) {
-                    ObjectMapper mapper = JsonUtils.initMapper();
-                    String body = entityUtilsWrapper.toString(entity);
-                    SnapHttpResponseUserForAudienceSegment responseFromJson = mapper.readValue(body,
-                            SnapHttpResponseUserForAudienceSegment.class);
-                    if (responseFromJson != null) {
-                        Optional<UserForAudienceSegment> resp = responseFromJson.getSpecificUserForAudienceSegment();
-                        if (resp.isPresent()) {
-                            result = resp.get().getNumberUploadedUsers();
-                        }
-                    }
-                }
-            } catch (IOException ie) {
-                LOGGER.error("Impossible to add user to an existant segment, segmentID = {}",
-                        formUserForAudienceSegment.getId(), ie);
-                throw new SnapExecutionException("Impossible to add user to an existant segment", ie);
-            }
+            result = postUsers(oAuthAccessToken, formUserForAudienceSegment);
         }
         return result;
     }// addUserToSegment()
 
+    /**
+     * Identifiers must be normalized and hashed already, they are sent as is (pipelines hash them once
+     * on their own threads).
+     *
+     * @throws SnapExecutionException
+     */
+    @Override
+    public int addHashedUsersToSegment(String oAuthAccessToken, FormUserForAudienceSegment formUserForAudienceSegment)
+            throws SnapOAuthAccessTokenException, JsonProcessingException, UnsupportedEncodingException,
+            SnapResponseErrorException, SnapArgumentException, SnapExecutionException {
+        if (StringUtils.isEmpty(oAuthAccessToken)) {
+            throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
+        }
+        checkUserForAudienceSegment(formUserForAudienceSegment);
+        int result = 0;
+        if (CollectionUtils.isNotEmpty(formUserForAudienceSegment.getData())) {
+            result = postUsers(oAuthAccessToken, formUserForAudienceSegment);
+        }
+        return result;
+    }// addHashedUsersToSegment()
+
     /**
      * Type schema mobile_ad_id regex isn't checked here unlike phone and email.
      *
@@ -374,38 +404,31 @@ public class SnapAudienceSegment implements SnapAudienceSegmentInterface {
         int result = 0;
         if (CollectionUtils.isNotEmpty(formUserForAudienceSegment.getData())) {
             normalizeAndHashDataUserForAudienceSegment(formUserForAudienceSegment);
-            final String url = this.endpointDeleteUserForAudienceSegment.replace("{segment_id}",
-                    formUserForAudienceSegment.getId());
-            SnapHttpRequestUserForAudienceSegment reqBody = new SnapHttpRequestUserForAudienceSegment();
-            reqBody.addUserForAudienceSegment(formUserForAudienceSegment);
-            HttpDeleteWithBody request = HttpUtils.prepareDeleteRequestObject(url, oAuthAccessToken, reqBody);
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                int statusCode = response.getStatusLine().getStatusCode();
-                if (statusCode >= 300) {
-                    throw SnapExceptionsUtils.getResponseExceptionByStatusCode(statusCode);
-                }
-                HttpEntity entity = response.getEntity();
-                if (entity != null) {
-                    ObjectMapper mapper = JsonUtils.initMapper();
-                    String body = entityUtilsWrapper.toString(entity);
-                    SnapHttpResponseUserForAudienceSegment responseFromJson = mapper.readValue(body,
-                            SnapHttpResponseUserForAudienceSegment.class);
-                    if (responseFromJson != null) {
-                        Optional<UserForAudienceSegment> resp = responseFromJson.getSpecificUserForAudienceSegment();
-                        if (resp.isPresent()) {
-                            result = resp.get().getNumberUploadedUsers();
-                        }
-                    }
-                }
-            } catch (IOException ie) {
-                LOGGER.error("Impossible to delete user to an existant segment, segmentID = {}",
-                        formUserForAudienceSegment.getId(), ie);
-                throw new SnapExecutionException("Impossible to delete user to an existant segment", ie);
-            }
+            result = deleteUsers(oAuthAccessToken, formUserForAudienceSegment);
         }
         return result;
     }// deleteUserFromSegment()
 
+    /**
+     * Identifiers must be normalized and hashed already, they are sent as is.
+     *
+     * @throws SnapExecutionException
+     */
+    @Override
+    public int deleteHashedUsersFromSegment(String oAuthAccessToken, FormUserForAudienceSegment formUserForAudienceSegment)
+            throws SnapOAuthAccessTokenException, JsonProcessingException, UnsupportedEncodingException,
+            SnapResponseErrorException, SnapArgumentException, SnapExecutionException {
+        if (StringUtils.isEmpty(oAuthAccessToken)) {
+            throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
+        }
+        checkUserForAudienceSegment(formUserForAudienceSegment);
+        int result = 0;
+        if (CollectionUtils.isNotEmpty(formUserForAudienceSegment.getData())) {
+            result = deleteUsers(oAuthAccessToken, formUserForAudienceSegment);
+        }
+        return result;
+    }// deleteHashedUsersFromSegment()
+
     @Override
     public Optional<AudienceSegment> deleteAllUsersFromSegment(String oAuthAccessToken, String segmentID)
             throws SnapOAuthAccessTokenException,
@@ -475,6 +498,79 @@ public class SnapAudienceSegment implements SnapAudienceSegmentInterface {
         return result;
     }// deleteAudienceSegment()
 
+    /**
+     * Send identifiers already hashed to a segment
+     *
+     * @return number of uploaded users
+     */
+    private int postUsers(String oAuthAccessToken, FormUserForAudienceSegment formUserForAudienceSegment)
+            throws JsonProcessingException, UnsupportedEncodingException, SnapResponseErrorException, SnapExecutionException {
+        int result = 0;
+        final String url = this.endpointAddUserForAudienceSegment.replace("{segment_id}",
+                formUserForAudienceSegment.getId());
+        HashedUsersEntity reqBody = new HashedUsersEntity(formUserForAudienceSegment.getId(),
+                formUserForAudienceSegment.getSchema().get(0), formUserForAudienceSegment.getData());
+        HttpPost request = HttpUtils.preparePostRequestEntity(url, oAuthAccessToken, reqBody);
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode >= 300) {
+                throw SnapExceptionsUtils.getResponseExceptionByStatusCode(statusCode);
+            }
+            HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                ObjectMapper mapper = JsonUtils.initMapper();
+                String body = entityUtilsWrapper.toString(entity);
+                SnapHttpResponseUserForAudienceSegment responseFromJson = mapper.readValue(body,
+                        SnapHttpResponseUserForAudienceSegment.class);
+                if (responseFromJson != null) {
+                    Optional<UserForAudienceSegment> resp = responseFromJson.getSpecificUserForAudienceSegment();
+                    if (resp.isPresent()) {
+                        result = resp.get().getNumberUploadedUsers();
+                    }
+                }
+            }
+        } catch (IOException ie) {
+            LOGGER.error("Impossible to add user to an existant segment, segmentID = {}",
+                    formUserForAudienceSegment.getId(), ie);
+            throw new SnapExecutionException("Impossible to add user to an existant segment", ie);
+        }
+        return result;
+    }// postUsers()
+
+    private int deleteUsers(String oAuthAccessToken, FormUserForAudienceSegment formUserForAudienceSegment)
+            throws JsonProcessingException, UnsupportedEncodingException, SnapResponseErrorException, SnapExecutionException {
+        int result = 0;
+        final String url = this.endpointDeleteUserForAudienceSegment.replace("{segment_id}",
+                formUserForAudienceSegment.getId());
+        HashedUsersEntity reqBody = new HashedUsersEntity(formUserForAudienceSegment.getId(),
+                formUserForAudienceSegment.getSchema().get(0), formUserForAudienceSegment.getData());
+        HttpDeleteWithBody request = HttpUtils.prepareDeleteRequestEntity(url, oAuthAccessToken, reqBody);
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode >= 300) {
+                throw SnapExceptionsUtils.getResponseExceptionByStatusCode(statusCode);
+            }
+            HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                ObjectMapper mapper = JsonUtils.initMapper();
+                String body = entityUtilsWrapper.toString(entity);
+                SnapHttpResponseUserForAudienceSegment responseFromJson = mapper.readValue(body,
+                        SnapHttpResponseUserForAudienceSegment.class);
+                if (responseFromJson != null) {
+                    Optional<UserForAudienceSegment> resp = responseFromJson.getSpecificUserForAudienceSegment();
+                    if (resp.isPresent()) {
+                        result = resp.get().getNumberUploadedUsers();
+                    }
+                }
+            }
+        } catch (IOException ie) {
+            LOGGER.error("Impossible to delete user to an existant segment, segmentID = {}",
+                    formUserForAudienceSegment.getId(), ie);
+            throw new SnapExecutionException("Impossible to delete user to an existant segment", ie);
+        }
+        return result;
+    }// deleteUsers()
+
     private void checkUserForAudienceSegment(FormUserForAudienceSegment form) throws SnapArgumentException {
         StringBuilder sb = new StringBuilder();
         if (form != null) {
@@ -498,7 +594,7 @@ public class SnapAudienceSegment implements SnapAudienceSegmentInterface {
     }// checkUserForAudienceSegment()
 
     /**
-     * Mobile_ad_id isn't checked unlike email and phone
+     * Mobile_ad_id isn't checked unlike email and phone, normalization rules are those of {@link IdentifierHasher}
      *
      * @param form
      * @throws SnapArgumentException
@@ -509,23 +605,15 @@ public class SnapAudienceSegment implements SnapAudienceSegmentInterface {
             throw new SnapNormalizeArgumentException("Form must be normalized and hashed before send to Snap API");
         }
         SchemaEnum schema = form.getSchema().get(0);
-        List<String> data = form.getData();
-        data = data.stream().map(String::trim).map(String::toLowerCase).collect(Collectors.toList());
-        if (schema == SchemaEnum.EMAIL_SHA256) {
-            List<String> tmpEmails = data.stream().filter(Pattern.compile("^(.+)@(.+)$").asPredicate())
-                    .collect(Collectors.toList());
-            if (tmpEmails.size() != data.size()) {
-                throw new SnapNormalizeArgumentException("Data must be have valid email(s)");
-            }
-        } else if (schema == SchemaEnum.PHONE_SHA256) {
-            List<String> tmpPhones = data.stream()
-                    .filter(Pattern.compile("\\d{10}|(?:\\d{3}-){2}\\d{4}|\\(\\d{3}\\)\\d{3}-?\\d{4}").asPredicate())
-                    .collect(Collectors.toList());
-            if (tmpPhones.size() != data.size()) {
-                throw new SnapNormalizeArgumentException("Data must be have valid phone(s) number");
+        List<String> data = new ArrayList<>(form.getData().size());
+        for (String identifier : form.getData()) {
+            String hash = IdentifierHasher.hashHex(schema, identifier);
+            if (hash == null) {
+                throw new SnapNormalizeArgumentException(schema == SchemaEnum.PHONE_SHA256
+                        ? "Data must be have valid phone(s) number" : "Data must be have valid email(s)");
             }
+            data.add(hash);
         }
-        data = data.stream().map(DigestUtils::sha256Hex).collect(Collectors.toList());
         form.setData(data);
     }// normalizeAndHashDataUserForAudienceSegment()
 
@@ -537,9 +625,7 @@ public class SnapAudienceSegment implements SnapAudienceSegmentInterface {
                     sb.append("The source type is required,");
                 }
             }
-            ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
-            Validator validator = factory.getValidator();
-            Set<ConstraintViolation<AudienceSegment>> violations = validator.validate(segment);
+            Set<ConstraintViolation<AudienceSegment>> violations = VALIDATOR.validate(segment);
             for (ConstraintViolation<AudienceSegment> violation : violations) {
                 sb.append(violation.getMessage()).append(",");
             }
@@ -556,35 +642,32 @@ public class SnapAudienceSegment implements SnapAudienceSegmentInterface {
     private void checkSamLookalikes(SamLookalikes sam) throws SnapArgumentException {
         StringBuilder sb = new StringBuilder();
         if (sam != null) {
-            if (sam.getRetentionInDays() > 180) {
-                sb.append("The retention must be equal or less than 180 days,");
-            }
-            if (sam.getSourceType() == null) {
-                sb.append("The source type is required,");
-            }
-            if (sam.getSourceType() != null && sam.getSourceType() != SourceTypeEnum.LOOKALIKE) {
-                sb.append("The source type must be LOOKALIKE,");
-            }
-            if (sam.getCreationSpec() == null) {
-                sb.append("Lookalike creation spec is required,");
-            }
-            if (sam.getCreationSpec() != null) {
-                if (StringUtils.isEmpty(sam.getCreationSpec().getCountry())) {
-                    sb.append("Lookalike creation spec country is required,");
-                }
-                if (StringUtils.isEmpty(sam.getCreationSpec().getSeedSegmentId())) {
-                    sb.append("Lookalike creation spec seed segment ID is required,");
+            checkSamLookalikes(sam, sb, "");
+        } else {
+            sb.append("Sam Lookalikes parameter is required,");
+        }
+        String finalErrors = sb.toString();
+        if (!StringUtils.isEmpty(finalErrors)) {
+            finalErrors = finalErrors.substring(0, finalErrors.length() - 1);
+            throw new SnapArgumentException(finalErrors);
+        }
+    }// checkSamLookalikes()
+
+    private void checkAllSamLookalikes(List<SamLookalikes> sams) throws SnapArgumentException {
+        StringBuilder sb = new StringBuilder();
+        if (CollectionUtils.isNotEmpty(sams)) {
+            for (int i = 0; i < sams.size(); i++) {
+                String prefix = "SamLookalikes index n°" + i + " : ";
+                SamLookalikes sam = sams.get(i);
+                if (sam == null) {
+                    sb.append(prefix).append("Sam Lookalikes parameter is required,");
+                    continue;
                 }
-                if (sam.getCreationSpec().getType() == null) {
-                    sb.append("Lookalike creation spec type is required,");
+                checkSamLookalikes(sam, sb, prefix);
+                if (i > 0 && sams.get(0) != null && !StringUtils.equals(sam.getAdAccountId(), sams.get(0).getAdAccountId())) {
+                    sb.append(prefix).append("All Sam Lookalikes must have the same Ad Account ID,");
                 }
             }
-            ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
-            Validator validator = factory.getValidator();
-            Set<ConstraintViolation<SamLookalikes>> violations = validator.validate(sam);
-            for (ConstraintViolation<SamLookalikes> violation : violations) {
-                sb.append(violation.getMessage()).append(",");
-            }
         } else {
             sb.append("Sam Lookalikes parameter is required,");
         }
@@ -593,6 +676,36 @@ public class SnapAudienceSegment implements SnapAudienceSegmentInterface {
             finalErrors = finalErrors.substring(0, finalErrors.length() - 1);
             throw new SnapArgumentException(finalErrors);
         }
+    }// checkAllSamLookalikes()
+
+    private void checkSamLookalikes(SamLookalikes sam, StringBuilder sb, String prefix) {
+        if (sam.getRetentionInDays() > 180) {
+            sb.append(prefix).append("The retention must be equal or less than 180 days,");
+        }
+        if (sam.getSourceType() == null) {
+            sb.append(prefix).append("The source type is required,");
+        }
+        if (sam.getSourceType() != null && sam.getSourceType() != SourceTypeEnum.LOOKALIKE) {
+            sb.append(prefix).append("The source type must be LOOKALIKE,");
+        }
+        if (sam.getCreationSpec() == null) {
+            sb.append(prefix).append("Lookalike creation spec is required,");
+        }
+        if (sam.getCreationSpec() != null) {
+            if (StringUtils.isEmpty(sam.getCreationSpec().getCountry())) {
+                sb.append(prefix).append("Lookalike creation spec country is required,");
+            }
+            if (StringUtils.isEmpty(sam.getCreationSpec().getSeedSegmentId())) {
+                sb.append(prefix).append("Lookalike creation spec seed segment ID is required,");
+            }
+            if (sam.getCreationSpec().getType() == null) {
+                sb.append(prefix).append("Lookalike creation spec type is required,");
+            }
+        }
+        Set<ConstraintViolation<SamLookalikes>> violations = VALIDATOR.validate(sam);
+        for (ConstraintViolation<SamLookalikes> violation : violations) {
+            sb.append(prefix).append(violation.getMessage()).append(",");
+        }
     }// checkSamLookalikes()
 
 }// SnapAudienceSegment
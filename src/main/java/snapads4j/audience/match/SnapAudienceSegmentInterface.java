@@ -48,10 +48,32 @@ public interface SnapAudienceSegmentInterface {
             throws SnapOAuthAccessTokenException, JsonProcessingException, UnsupportedEncodingException,
             SnapResponseErrorException, SnapArgumentException, SnapNormalizeArgumentException, SnapExecutionException;
 
+    /**
+     * Same as {@link #addUserToSegment} but the identifiers are already normalized and hashed
+     *
+     * @param oAuthAccessToken           oAuthAccessToken
+     * @param formUserForAudienceSegment Segment ID, schema and hashed identifiers
+     * @return number of uploaded users
+     */
+    int addHashedUsersToSegment(String oAuthAccessToken, FormUserForAudienceSegment formUserForAudienceSegment)
+            throws SnapOAuthAccessTokenException, JsonProcessingException, UnsupportedEncodingException,
+            SnapResponseErrorException, SnapArgumentException, SnapExecutionException;
+
     int deleteUserFromSegment(String oAuthAccessToken, FormUserForAudienceSegment formUserForAudienceSegment)
             throws SnapOAuthAccessTokenException, JsonProcessingException, UnsupportedEncodingException,
             SnapResponseErrorException, SnapArgumentException, SnapNormalizeArgumentException, SnapExecutionException;
 
+    /**
+     * Same as {@link #deleteUserFromSegment} but the identifiers are already normalized and hashed
+     *
+     * @param oAuthAccessToken           oAuthAccessToken
+     * @param formUserForAudienceSegment Segment ID, schema and hashed identifiers
+     * @return number of deleted users
+     */
+    int deleteHashedUsersFromSegment(String oAuthAccessToken, FormUserForAudienceSegment formUserForAudienceSegment)
+            throws SnapOAuthAccessTokenException, JsonProcessingException, UnsupportedEncodingException,
+            SnapResponseErrorException, SnapArgumentException, SnapExecutionException;
+
     Optional<AudienceSegment> deleteAllUsersFromSegment(String oAuthAccessToken, String segmentID)
             throws SnapOAuthAccessTokenException,
             SnapResponseErrorException, SnapArgumentException, SnapExecutionException;
@@ -60,4 +82,15 @@ public interface SnapAudienceSegmentInterface {
             throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException,
             JsonProcessingException, UnsupportedEncodingException, SnapExecutionException;
 
+    /**
+     * Create several lookalikes of the same ad account in one request
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param sams             Lookalikes to create (same ad account)
+     * @return created lookalikes, in the order of the request (null for a lookalike not created)
+     */
+    List<AudienceSegment> createAllSamLookalikes(String oAuthAccessToken, List<SamLookalikes> sams)
+            throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException,
+            JsonProcessingException, UnsupportedEncodingException, SnapExecutionException;
+
 }// SnapAudienceSegmentInterface
@@ -0,0 +1,548 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.readiness;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import snapads4j.audience.match.SnapAudienceSegmentInterface;
+import snapads4j.enums.TargetableStatusEnum;
+import snapads4j.enums.UploadStatusEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapExecutionException;
+import snapads4j.exceptions.SnapOAuthAccessTokenException;
+import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.Pagination;
+import snapads4j.model.audience.match.AudienceSegment;
+import snapads4j.utils.RateLimiter;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Wait for many audience segments to be ready, each one polled at its own pace.
+ * <p>
+ * A segment whose state (status, upload status, targetable status, approximate number of users) changed since its
+ * previous poll is polled again after the minimum interval, a segment which didn't change waits twice as long as the
+ * previous time, up to the maximum interval. When {@link #getBatchThreshold()} segments or more of the same ad account
+ * are due at once, they're all read with one {@link SnapAudienceSegmentInterface#getAllAudienceSegments} call instead
+ * of one call by segment. Each request takes a permit of the shared {@link RateLimiter}.
+ * <p>
+ * The future of a segment is completed once the segment matches its condition ({@link #DEFAULT_READY} by default)
+ * and its approximate number of users didn't change since the previous poll.
+ * <pre>
+ * SegmentReadinessWatcher watcher = new SegmentReadinessWatcher.Builder()
+ *     .setSnapAudienceSegment(segments).setOAuthAccessToken(token).build();
+ * watcher.start();
+ * watcher.watch(adAccountId, segmentId).thenAccept(segment -&gt; campaigns.target(segment));
+ * </pre>
+ *
+ * @author Yassine
+ */
+public class SegmentReadinessWatcher implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger(SegmentReadinessWatcher.class);
+
+    /**
+     * Page limits accepted by the API when all the segments of an ad account are read
+     */
+    private static final int MIN_PAGE_LIMIT = 50;
+
+    private static final int MAX_PAGE_LIMIT = 1000;
+
+    /**
+     * Uploads processed and segment targetable (or too small to be targeted)
+     */
+    public static final Predicate<AudienceSegment> DEFAULT_READY = segment ->
+            segment.getUploadStatus() != UploadStatusEnum.PROCESSING
+                    && (segment.getTargetableStatus() == TargetableStatusEnum.READY
+                    || segment.getTargetableStatus() == TargetableStatusEnum.TOO_FEW_USERS);
+
+    private final SnapAudienceSegmentInterface snapAudienceSegment;
+
+    @Getter
+    @Setter
+    private volatile String oAuthAccessToken;
+
+    private final RateLimiter rateLimiter;
+
+    @Getter
+    private final long minIntervalMillis;
+
+    @Getter
+    private final long maxIntervalMillis;
+
+    private final long tickMillis;
+
+    private final long timeoutMillis;
+
+    @Getter
+    private final int batchThreshold;
+
+    private final int pageLimit;
+
+    private final Executor executor;
+
+    private final boolean ownExecutor;
+
+    private final LongSupplier clock;
+
+    private final Map<String, WatchedSegment> segments = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private SegmentReadinessWatcher(Builder builder) {
+        this.snapAudienceSegment = builder.snapAudienceSegment;
+        this.oAuthAccessToken = builder.oAuthAccessToken;
+        this.rateLimiter = builder.rateLimiter;
+        this.minIntervalMillis = builder.minIntervalMillis;
+        this.maxIntervalMillis = builder.maxIntervalMillis;
+        this.tickMillis = builder.tickMillis;
+        this.timeoutMillis = builder.timeoutMillis;
+        this.batchThreshold = builder.batchThreshold;
+        this.pageLimit = builder.pageLimit;
+        this.ownExecutor = builder.executor == null;
+        this.executor = ownExecutor ? Executors.newFixedThreadPool(builder.threads) : builder.executor;
+        this.clock = builder.clock;
+    }// SegmentReadinessWatcher()
+
+    /**
+     * Start polling in a background thread
+     */
+    public synchronized void start() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "snapads4j-segment-watcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // An exception would cancel the next ticks
+            scheduler.scheduleAtFixedRate(() -> {
+                try {
+                    tick(clock.getAsLong());
+                } catch (RuntimeException e) {
+                    LOGGER.error("Segment watcher tick failed", e);
+                }
+            }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }// start()
+
+    /**
+     * Stop polling, the futures of the segments still watched are cancelled
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (ownExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+        segments.values().forEach(segment -> segment.future.cancel(false));
+        segments.clear();
+    }// close()
+
+    /**
+     * Watch a segment until it's ready ({@link #DEFAULT_READY}), its first poll is done at the next tick
+     *
+     * @param adAccountID ID of the ad account of the segment
+     * @param segmentID   ID of the segment
+     * @return segment once ready
+     * @throws SnapArgumentException If an ID is missing
+     */
+    public CompletableFuture<AudienceSegment> watch(String adAccountID, String segmentID) throws SnapArgumentException {
+        return watch(adAccountID, segmentID, DEFAULT_READY);
+    }// watch()
+
+    /**
+     * Watch a segment until it matches a condition. The future of a segment already watched is returned as is.
+     * Cancelling the future stops watching the segment.
+     *
+     * @param adAccountID ID of the ad account of the segment
+     * @param segmentID   ID of the segment
+     * @param ready       Condition of the segment
+     * @return segment once it matches the condition and its number of users is settled
+     * @throws SnapArgumentException If an argument is missing
+     */
+    public CompletableFuture<AudienceSegment> watch(String adAccountID, String segmentID, Predicate<AudienceSegment> ready)
+            throws SnapArgumentException {
+        StringBuilder sb = new StringBuilder();
+        if (StringUtils.isEmpty(adAccountID)) {
+            sb.append("The Ad Account ID is required,");
+        }
+        if (StringUtils.isEmpty(segmentID)) {
+            sb.append("Segment ID is required,");
+        }
+        if (ready == null) {
+            sb.append("Condition is required,");
+        }
+        String finalErrors = sb.toString();
+        if (!StringUtils.isEmpty(finalErrors)) {
+            throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+        }
+        long now = clock.getAsLong();
+        long deadline = timeoutMillis > 0 ? now + timeoutMillis : Long.MAX_VALUE;
+        WatchedSegment created = new WatchedSegment(adAccountID, segmentID, ready, minIntervalMillis, now, deadline);
+        WatchedSegment existing = segments.putIfAbsent(segmentID, created);
+        if (existing != null) {
+            return existing.future;
+        }
+        created.future.whenComplete((result, e) -> segments.remove(created.id, created));
+        return created.future;
+    }// watch()
+
+    /**
+     * Stop watching a segment, its future is cancelled
+     */
+    public void unwatch(String segmentID) {
+        WatchedSegment segment = segmentID == null ? null : segments.remove(segmentID);
+        if (segment != null) {
+            segment.future.cancel(false);
+        }
+    }// unwatch()
+
+    public boolean isWatched(String segmentID) {
+        return segmentID != null && segments.containsKey(segmentID);
+    }// isWatched()
+
+    /**
+     * @return current delay between two polls of a segment, -1 if not watched
+     */
+    public long getIntervalMillis(String segmentID) {
+        WatchedSegment segment = segmentID == null ? null : segments.get(segmentID);
+        return segment == null ? -1L : segment.intervalMillis;
+    }// getIntervalMillis()
+
+    /**
+     * Hand the segments due to the executor, grouped by ad account
+     *
+     * @param now Current time (millis)
+     * @return number of segments due
+     */
+    synchronized int tick(long now) {
+        Map<String, List<WatchedSegment>> due = new LinkedHashMap<>();
+        for (WatchedSegment segment : segments.values()) {
+            if (segment.future.isDone()) {
+                segments.remove(segment.id, segment);
+            } else if (now >= segment.deadline) {
+                segment.future.completeExceptionally(new SnapExecutionException("Segment not ready in time : " + segment.id, null));
+            } else if (now >= segment.nextPollMillis && segment.polling.compareAndSet(false, true)) {
+                due.computeIfAbsent(segment.adAccountId, id -> new ArrayList<>()).add(segment);
+            }
+        }
+        int count = 0;
+        for (Map.Entry<String, List<WatchedSegment>> account : due.entrySet()) {
+            List<WatchedSegment> accountSegments = account.getValue();
+            count += accountSegments.size();
+            if (accountSegments.size() >= batchThreshold) {
+                submit(() -> pollAccount(account.getKey(), accountSegments), accountSegments);
+            } else {
+                accountSegments.forEach(segment -> submit(() -> poll(segment), Collections.singletonList(segment)));
+            }
+        }
+        return count;
+    }// tick()
+
+    /**
+     * Hand a poll to the executor, the segments are polled again at the next minimum interval if it's rejected
+     */
+    private void submit(Runnable poll, List<WatchedSegment> polled) {
+        try {
+            executor.execute(poll);
+        } catch (RejectedExecutionException e) {
+            // Executor saturated or shut down, try again later
+            LOGGER.warn("Segment poll rejected, {} segment(s)", polled.size(), e);
+            for (WatchedSegment segment : polled) {
+                segment.nextPollMillis = clock.getAsLong() + minIntervalMillis;
+                segment.polling.set(false);
+            }
+        }
+    }// submit()
+
+    /**
+     * Read all the segments of an ad account at once, segments not listed are read one by one
+     */
+    private void pollAccount(String adAccountID, List<WatchedSegment> due) {
+        Map<String, AudienceSegment> byId = new HashMap<>();
+        try {
+            acquire();
+            List<Pagination<AudienceSegment>> pages = snapAudienceSegment.getAllAudienceSegments(oAuthAccessToken,
+                    adAccountID, pageLimit);
+            if (pages != null) {
+                for (Pagination<AudienceSegment> page : pages) {
+                    if (page.getResults() != null) {
+                        page.getResults().stream().filter(Objects::nonNull).forEach(s -> byId.put(s.getId(), s));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            due.forEach(segment -> segment.polling.set(false));
+            return;
+        } catch (SnapResponseErrorException | SnapExecutionException | SnapArgumentException | SnapOAuthAccessTokenException e) {
+            // Rate limit, expired token, API errors... try again later
+            LOGGER.warn("Impossible to poll the segments of ad account {}", adAccountID, e);
+            due.forEach(this::backOff);
+            return;
+        } catch (RuntimeException e) {
+            LOGGER.error("Unexpected error while polling the segments of ad account {}", adAccountID, e);
+            due.forEach(this::backOff);
+            return;
+        }
+        for (WatchedSegment segment : due) {
+            AudienceSegment found = byId.get(segment.id);
+            if (found != null) {
+                update(segment, found);
+            } else {
+                poll(segment);
+            }
+        }
+    }// pollAccount()
+
+    private void poll(WatchedSegment segment) {
+        try {
+            acquire();
+            Optional<AudienceSegment> found = snapAudienceSegment.getSpecificAudienceSegment(oAuthAccessToken, segment.id);
+            if (found.isPresent()) {
+                update(segment, found.get());
+            } else {
+                segment.future.completeExceptionally(new SnapExecutionException("Segment not found : " + segment.id, null));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            segment.polling.set(false);
+        } catch (SnapResponseErrorException | SnapExecutionException | SnapArgumentException | SnapOAuthAccessTokenException e) {
+            LOGGER.warn("Impossible to poll segment {}", segment.id, e);
+            backOff(segment);
+        } catch (RuntimeException e) {
+            LOGGER.error("Unexpected error while polling segment {}", segment.id, e);
+            backOff(segment);
+        }
+    }// poll()
+
+    private void acquire() throws InterruptedException {
+        if (rateLimiter != null) {
+            rateLimiter.acquire();
+        }
+    }// acquire()
+
+    private void update(WatchedSegment segment, AudienceSegment current) {
+        AudienceSegment previous = segment.last;
+        boolean changed = previous == null || previous.getStatus() != current.getStatus()
+                || previous.getUploadStatus() != current.getUploadStatus()
+                || previous.getTargetableStatus() != current.getTargetableStatus()
+                || previous.getApproximateNumberUsers() != current.getApproximateNumberUsers();
+        segment.last = current;
+        boolean ready;
+        try {
+            ready = !changed && segment.ready.test(current);
+        } catch (RuntimeException e) {
+            segment.future.completeExceptionally(e);
+            return;
+        }
+        if (ready) {
+            segment.future.complete(current);
+            return;
+        }
+        segment.intervalMillis = changed ? minIntervalMillis : Math.min(maxIntervalMillis, segment.intervalMillis * 2);
+        reschedule(segment);
+    }// update()
+
+    private void backOff(WatchedSegment segment) {
+        segment.intervalMillis = Math.min(maxIntervalMillis, segment.intervalMillis * 2);
+        reschedule(segment);
+    }// backOff()
+
+    private void reschedule(WatchedSegment segment) {
+        segment.nextPollMillis = clock.getAsLong() + segment.intervalMillis;
+        segment.polling.set(false);
+    }// reschedule()
+
+    /**
+     * Used to build SegmentReadinessWatcher instance ({@link SegmentReadinessWatcher})
+     *
+     * @author Yassine
+     */
+    public static class Builder {
+
+        private SnapAudienceSegmentInterface snapAudienceSegment;
+
+        private String oAuthAccessToken;
+
+        private RateLimiter rateLimiter;
+
+        private long minIntervalMillis = TimeUnit.SECONDS.toMillis(10);
+
+        private long maxIntervalMillis = TimeUnit.MINUTES.toMillis(10);
+
+        private long tickMillis = TimeUnit.SECONDS.toMillis(1);
+
+        private long timeoutMillis;
+
+        private int batchThreshold = 3;
+
+        private int pageLimit = 1000;
+
+        private int threads = 2;
+
+        private Executor executor;
+
+        private LongSupplier clock = System::currentTimeMillis;
+
+        public Builder setSnapAudienceSegment(SnapAudienceSegmentInterface snapAudienceSegment) {
+            this.snapAudienceSegment = snapAudienceSegment;
+            return this;
+        }// setSnapAudienceSegment()
+
+        public Builder setOAuthAccessToken(String oAuthAccessToken) {
+            this.oAuthAccessToken = oAuthAccessToken;
+            return this;
+        }// setOAuthAccessToken()
+
+        /**
+         * @param rateLimiter Rate limiter shared with the other API callers (null for no limit)
+         * @return builder
+         */
+        public Builder setRateLimiter(RateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }// setRateLimiter()
+
+        public Builder setMinIntervalMillis(long minIntervalMillis) {
+            this.minIntervalMillis = minIntervalMillis;
+            return this;
+        }// setMinIntervalMillis()
+
+        public Builder setMaxIntervalMillis(long maxIntervalMillis) {
+            this.maxIntervalMillis = maxIntervalMillis;
+            return this;
+        }// setMaxIntervalMillis()
+
+        public Builder setTickMillis(long tickMillis) {
+            this.tickMillis = tickMillis;
+            return this;
+        }// setTickMillis()
+
+        /**
+         * @param timeoutMillis Time after which the future of a segment not ready fails (0 for none)
+         * @return builder
+         */
+        public Builder setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+            return this;
+        }// setTimeoutMillis()
+
+        /**
+         * @param batchThreshold Number of segments of an ad account due at once from which all the segments of the
+         *                       ad account are read in one call (3 by default)
+         * @return builder
+         */
+        public Builder setBatchThreshold(int batchThreshold) {
+            this.batchThreshold = batchThreshold;
+            return this;
+        }// setBatchThreshold()
+
+        /**
+         * @param pageLimit Number of segments by page when all the segments of an ad account are read (50 to 1000)
+         * @return builder
+         */
+        public Builder setPageLimit(int pageLimit) {
+            this.pageLimit = pageLimit;
+            return this;
+        }// setPageLimit()
+
+        /**
+         * @param threads Number of polling threads (ignored if an executor is given)
+         * @return builder
+         */
+        public Builder setThreads(int threads) {
+            this.threads = threads;
+            return this;
+        }// setThreads()
+
+        /**
+         * @param executor Executor of the polls, not shut down by the watcher
+         * @return builder
+         */
+        public Builder setExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }// setExecutor()
+
+        Builder setClock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }// setClock()
+
+        public SegmentReadinessWatcher build() throws SnapArgumentException {
+            StringBuilder sb = new StringBuilder();
+            if (snapAudienceSegment == null) {
+                sb.append("SnapAudienceSegment is required,");
+            }
+            if (tickMillis <= 0) {
+                sb.append("Tick must be positive,");
+            }
+            if (minIntervalMillis < tickMillis) {
+                sb.append("Minimum interval must be at least one tick,");
+            }
+            if (maxIntervalMillis < minIntervalMillis) {
+                sb.append("Maximum interval must be greater than minimum interval,");
+            }
+            if (timeoutMillis < 0) {
+                sb.append("Timeout must be positive,");
+            }
+            if (batchThreshold < 1) {
+                sb.append("Batch threshold must be positive,");
+            }
+            if (pageLimit < MIN_PAGE_LIMIT) {
+                sb.append("Minimum page limit is " + MIN_PAGE_LIMIT + ",");
+            }
+            if (pageLimit > MAX_PAGE_LIMIT) {
+                sb.append("Maximum page limit is " + MAX_PAGE_LIMIT + ",");
+            }
+            if (executor == null && threads < 1) {
+                sb.append("At least one thread is required,");
+            }
+            String finalErrors = sb.toString();
+            if (!StringUtils.isEmpty(finalErrors)) {
+                throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+            }
+            return new SegmentReadinessWatcher(this);
+        }// build()
+
+    }// Builder
+
+}// SegmentReadinessWatcher
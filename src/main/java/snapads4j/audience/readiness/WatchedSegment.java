@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.readiness;
+
+import snapads4j.model.audience.match.AudienceSegment;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Watching state of a segment. A segment has at most one poll in flight.
+ *
+ * @author Yassine
+ */
+final class WatchedSegment {
+
+    final String adAccountId;
+
+    final String id;
+
+    final Predicate<AudienceSegment> ready;
+
+    final CompletableFuture<AudienceSegment> future = new CompletableFuture<>();
+
+    /**
+     * Time after which the future fails (millis), Long.MAX_VALUE for none
+     */
+    final long deadline;
+
+    /**
+     * True while a poll is in flight
+     */
+    final AtomicBoolean polling = new AtomicBoolean();
+
+    /**
+     * Current delay between polls, only updated by the poll in flight
+     */
+    volatile long intervalMillis;
+
+    volatile long nextPollMillis;
+
+    /**
+     * Segment at the previous poll
+     */
+    volatile AudienceSegment last;
+
+    WatchedSegment(String adAccountId, String id, Predicate<AudienceSegment> ready, long intervalMillis, long now,
+                   long deadline) {
+        this.adAccountId = adAccountId;
+        this.id = id;
+        this.ready = ready;
+        this.intervalMillis = intervalMillis;
+        this.nextPollMillis = now;
+        this.deadline = deadline;
+    }// WatchedSegment()
+
+}// WatchedSegment
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.sync;
+
+import snapads4j.audience.match.HashArray;
+import snapads4j.utils.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Local snapshots of the hashes last uploaded to audience segments, one file by segment in a directory.
+ * <p>
+ * A snapshot is a file of sorted raw hashes (32 bytes each, see {@link HashArray}), it's replaced atomically and
+ * memory-mapped when loaded.
+ *
+ * @author Yassine
+ */
+public class SegmentSnapshotStore {
+
+    private static final String EXTENSION = ".sha256";
+
+    private final Path directory;
+
+    /**
+     * Constructor
+     *
+     * @param directory Directory of the snapshots (created if needed)
+     * @throws IOException If the directory can't be created
+     */
+    public SegmentSnapshotStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }// SegmentSnapshotStore()
+
+    public boolean exists(String segmentID) {
+        return Files.isRegularFile(path(segmentID));
+    }// exists()
+
+    /**
+     * Load the snapshot of a segment
+     *
+     * @param segmentID ID of the segment
+     * @return sorted hashes (read only), empty if the segment has no snapshot
+     * @throws IOException If the snapshot can't be read
+     */
+    public HashArray load(String segmentID) throws IOException {
+        Path path = path(segmentID);
+        return Files.isRegularFile(path) ? HashArray.open(path) : HashArray.allocate(0);
+    }// load()
+
+    /**
+     * Replace the snapshot of a segment
+     *
+     * @param segmentID ID of the segment
+     * @param hashes    Sorted hashes
+     * @throws IOException If the snapshot can't be written
+     */
+    public void save(String segmentID, HashArray hashes) throws IOException {
+        Path path = path(segmentID);
+        Path tmp = Files.createTempFile(directory, segmentID, ".tmp");
+        try {
+            hashes.write(tmp);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }// save()
+
+    public void delete(String segmentID) throws IOException {
+        Files.deleteIfExists(path(segmentID));
+    }// delete()
+
+    private Path path(String segmentID) {
+        return FileUtils.getSegmentFile(directory, segmentID, EXTENSION);
+    }// path()
+
+}// SegmentSnapshotStore
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.sync;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import snapads4j.audience.match.HashArray;
+import snapads4j.audience.match.SnapAudienceSegmentInterface;
+import snapads4j.audience.upload.AudienceUploadPipeline;
+import snapads4j.enums.SchemaEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapExecutionException;
+import snapads4j.exceptions.SnapOAuthAccessTokenException;
+import snapads4j.model.audience.match.FormUserForAudienceSegment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Sync an audience segment with a list of identifiers by sending only what changed since the last sync.
+ * <p>
+ * The hashes last uploaded to each segment are kept in a {@link SegmentSnapshotStore}, the new list is hashed
+ * into a {@link HashArray} (32 bytes by identifier, out of the heap), sorted and merged with the snapshot :
+ * removed hashes go through {@link SnapAudienceSegmentInterface#deleteHashedUsersFromSegment}, new ones through
+ * {@link SnapAudienceSegmentInterface#addHashedUsersToSegment}. The segment is never emptied.
+ * <p>
+ * The snapshot is updated with what Snap API accepted only : a batch which fails is sent again by the next sync.
+ * The first sync of a segment (no snapshot) adds the whole list, users uploaded before aren't removed.
+ * <pre>
+ * SegmentSync sync = new SegmentSync.Builder().setSnapAudienceSegment(segments)
+ *     .setSnapshotStore(new SegmentSnapshotStore(Paths.get("snapshots"))).build();
+ * SegmentSyncResult result = sync.sync(token, segmentID, SchemaEnum.EMAIL_SHA256, emails);
+ * </pre>
+ *
+ * @author Yassine
+ */
+public class SegmentSync {
+
+    private static final Logger LOGGER = LogManager.getLogger(SegmentSync.class);
+
+    private final SnapAudienceSegmentInterface snapAudienceSegment;
+
+    private final SegmentSnapshotStore snapshotStore;
+
+    private final int batchSize;
+
+    private final int sortThreads;
+
+    private SegmentSync(Builder builder) {
+        this.snapAudienceSegment = builder.snapAudienceSegment;
+        this.snapshotStore = builder.snapshotStore;
+        this.batchSize = builder.batchSize;
+        this.sortThreads = builder.sortThreads;
+    }// SegmentSync()
+
+    /**
+     * Sync a segment with a list of identifiers
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param segmentID        ID of the segment
+     * @param schema           Schema of the identifiers
+     * @param identifiers      Identifiers (not normalized), the whole list of users of the segment
+     * @return result of the sync
+     * @throws SnapOAuthAccessTokenException If the token is missing
+     * @throws SnapArgumentException         If an argument is missing
+     * @throws SnapExecutionException        If the snapshot can't be read or written
+     */
+    public SegmentSyncResult sync(String oAuthAccessToken, String segmentID, SchemaEnum schema,
+                                  Collection<? extends CharSequence> identifiers)
+            throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException {
+        if (StringUtils.isEmpty(oAuthAccessToken)) {
+            throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
+        }
+        StringBuilder sb = new StringBuilder();
+        if (StringUtils.isEmpty(segmentID)) {
+            sb.append("Segment ID is required,");
+        }
+        if (schema == null) {
+            sb.append("Schema is required,");
+        }
+        if (identifiers == null) {
+            sb.append("Identifiers are required,");
+        }
+        String finalErrors = sb.toString();
+        if (!StringUtils.isEmpty(finalErrors)) {
+            throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+        }
+        HashArray current = HashArray.allocate(identifiers.size());
+        long invalid = 0;
+        for (CharSequence identifier : identifiers) {
+            if (identifier == null || !current.addHashed(schema, identifier)) {
+                invalid++;
+            }
+        }
+        current.sort(sortThreads);
+        current.removeDuplicates();
+
+        boolean hasSnapshot = snapshotStore.exists(segmentID);
+        try (HashArray previous = snapshotStore.load(segmentID)) {
+            Sender removals = new Sender(oAuthAccessToken, segmentID, schema, false);
+            Sender additions = new Sender(oAuthAccessToken, segmentID, schema, true);
+            HashArray.diff(previous, current, additions::add, removals::add);
+            removals.flush();
+            additions.flush();
+
+            if (additions.count > 0 || removals.count > 0 || !hasSnapshot) {
+                if (additions.failedCount > 0 || removals.failedCount > 0) {
+                    try (HashArray snapshot = applied(previous, current, additions, removals)) {
+                        snapshotStore.save(segmentID, snapshot);
+                    }
+                } else {
+                    snapshotStore.save(segmentID, current);
+                }
+            }
+            return new SegmentSyncResult(segmentID, current.size(), invalid, additions.count, removals.count,
+                    additions.failedCount, removals.failedCount);
+        } catch (IOException e) {
+            throw new SnapExecutionException("Impossible to read or write the snapshot of segment " + segmentID, e);
+        } finally {
+            current.close();
+        }
+    }// sync()
+
+    /**
+     * Hashes Snap API has after the sync : current ones without the failed additions, with the failed removals
+     */
+    private static HashArray applied(HashArray previous, HashArray current, Sender additions, Sender removals) {
+        HashArray snapshot = HashArray.allocate(current.size() - additions.failedCount + removals.failedCount);
+        int a = 0;
+        int r = 0;
+        for (long i = 0; i < current.size(); i++) {
+            if (a < additions.failedCount && additions.failed[a] == i) {
+                a++;
+                continue;
+            }
+            while (r < removals.failedCount && HashArray.compare(previous, removals.failed[r], current, i) < 0) {
+                snapshot.add(previous, removals.failed[r++]);
+            }
+            snapshot.add(current, i);
+        }
+        while (r < removals.failedCount) {
+            snapshot.add(previous, removals.failed[r++]);
+        }
+        return snapshot;
+    }// applied()
+
+    /**
+     * Send hashes by batch, hex is computed when a batch is sent. Indexes of the hashes which couldn't be sent
+     * are kept (in order).
+     */
+    private class Sender {
+
+        private final String oAuthAccessToken;
+
+        private final String segmentID;
+
+        private final SchemaEnum schema;
+
+        private final boolean add;
+
+        private final long[] batch = new long[batchSize];
+
+        private HashArray hashes;
+
+        private int batchCount;
+
+        private long count;
+
+        private long[] failed = new long[16];
+
+        private int failedCount;
+
+        private Sender(String oAuthAccessToken, String segmentID, SchemaEnum schema, boolean add) {
+            this.oAuthAccessToken = oAuthAccessToken;
+            this.segmentID = segmentID;
+            this.schema = schema;
+            this.add = add;
+        }// Sender()
+
+        private void add(HashArray hashes, long index) {
+            this.hashes = hashes;
+            batch[batchCount++] = index;
+            count++;
+            if (batchCount == batch.length) {
+                flush();
+            }
+        }// add()
+
+        private void flush() {
+            if (batchCount == 0) {
+                return;
+            }
+            List<String> data = new ArrayList<>(batchCount);
+            for (int i = 0; i < batchCount; i++) {
+                data.add(hashes.hex(batch[i]));
+            }
+            FormUserForAudienceSegment form = new FormUserForAudienceSegment();
+            form.setId(segmentID);
+            form.setSchema(schema);
+            form.setData(data);
+            try {
+                if (add) {
+                    snapAudienceSegment.addHashedUsersToSegment(oAuthAccessToken, form);
+                } else {
+                    snapAudienceSegment.deleteHashedUsersFromSegment(oAuthAccessToken, form);
+                }
+            } catch (Exception e) {
+                LOGGER.warn("Impossible to {} {} users, segmentID = {}", add ? "add" : "remove", batchCount, segmentID, e);
+                if (failed.length < failedCount + batchCount) {
+                    failed = Arrays.copyOf(failed, Math.max(failedCount + batchCount, failed.length << 1));
+                }
+                System.arraycopy(batch, 0, failed, failedCount, batchCount);
+                failedCount += batchCount;
+            }
+            batchCount = 0;
+        }// flush()
+
+    }// Sender
+
+    /**
+     * Used to build SegmentSync instance ({@link SegmentSync})
+     *
+     * @author Yassine
+     */
+    public static class Builder {
+
+        private SnapAudienceSegmentInterface snapAudienceSegment;
+
+        private SegmentSnapshotStore snapshotStore;
+
+        private int batchSize = AudienceUploadPipeline.MAX_BATCH_SIZE;
+
+        private int sortThreads = Runtime.getRuntime().availableProcessors();
+
+        public Builder setSnapAudienceSegment(SnapAudienceSegmentInterface snapAudienceSegment) {
+            this.snapAudienceSegment = snapAudienceSegment;
+            return this;
+        }// setSnapAudienceSegment()
+
+        public Builder setSnapshotStore(SegmentSnapshotStore snapshotStore) {
+            this.snapshotStore = snapshotStore;
+            return this;
+        }// setSnapshotStore()
+
+        /**
+         * @param batchSize Number of identifiers by request (max 100 000)
+         * @return builder
+         */
+        public Builder setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }// setBatchSize()
+
+        /**
+         * @param sortThreads Number of threads sorting the hashes of the new list
+         * @return builder
+         */
+        public Builder setSortThreads(int sortThreads) {
+            this.sortThreads = sortThreads;
+            return this;
+        }// setSortThreads()
+
+        public SegmentSync build() throws SnapArgumentException {
+            StringBuilder sb = new StringBuilder();
+            if (snapAudienceSegment == null) {
+                sb.append("SnapAudienceSegment is required,");
+            }
+            if (snapshotStore == null) {
+                sb.append("Snapshot store is required,");
+            }
+            if (batchSize < 1 || batchSize > AudienceUploadPipeline.MAX_BATCH_SIZE) {
+                sb.append("Batch size must be between 1 and 100000,");
+            }
+            String finalErrors = sb.toString();
+            if (!StringUtils.isEmpty(finalErrors)) {
+                throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+            }
+            return new SegmentSync(this);
+        }// build()
+
+    }// Builder
+
+}// SegmentSync
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.sync;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Result of the sync of a segment
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public class SegmentSyncResult {
+
+    private final String segmentId;
+
+    /**
+     * Number of distinct valid identifiers in the new list
+     */
+    private final long identifiers;
+
+    /**
+     * Number of identifiers skipped because they aren't valid for the schema
+     */
+    private final long invalidIdentifiers;
+
+    private final long additions;
+
+    private final long removals;
+
+    /**
+     * Additions which couldn't be sent (they'll be sent again by the next sync)
+     */
+    private final long failedAdditions;
+
+    /**
+     * Removals which couldn't be sent (they'll be sent again by the next sync)
+     */
+    private final long failedRemovals;
+
+    SegmentSyncResult(String segmentId, long identifiers, long invalidIdentifiers, long additions, long removals,
+                      long failedAdditions, long failedRemovals) {
+        this.segmentId = segmentId;
+        this.identifiers = identifiers;
+        this.invalidIdentifiers = invalidIdentifiers;
+        this.additions = additions;
+        this.removals = removals;
+        this.failedAdditions = failedAdditions;
+        this.failedRemovals = failedRemovals;
+    }// SegmentSyncResult()
+
+    public boolean isComplete() {
+        return failedAdditions == 0 && failedRemovals == 0;
+    }// isComplete()
+
+}// SegmentSyncResult
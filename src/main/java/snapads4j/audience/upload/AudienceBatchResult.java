@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.upload;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Result of the upload of one batch of identifiers
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public class AudienceBatchResult {
+
+    /**
+     * ID of the segment
+     */
+    private final String segmentId;
+
+    /**
+     * Number of the batch (from 1)
+     */
+    private final long batchNumber;
+
+    /**
+     * Offset of the first line of the batch in the file
+     */
+    private final long startOffset;
+
+    /**
+     * Offset of the end of the last line of the batch in the file
+     */
+    private final long endOffset;
+
+    /**
+     * Number of identifiers read
+     */
+    private final int identifiers;
+
+    /**
+     * Number of identifiers skipped because they aren't valid for the schema
+     */
+    private final int invalid;
+
+    /**
+     * Number of identifiers skipped because they were already uploaded by the same upload
+     */
+    private final int duplicates;
+
+    /**
+     * Number of users uploaded according to Snap API
+     */
+    private final int uploadedUsers;
+
+    /**
+     * Error of the upload, null if the batch is uploaded
+     */
+    private final Exception error;
+
+    AudienceBatchResult(String segmentId, long batchNumber, long startOffset, long endOffset, int identifiers, int invalid,
+                        int duplicates, int uploadedUsers, Exception error) {
+        this.segmentId = segmentId;
+        this.batchNumber = batchNumber;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.identifiers = identifiers;
+        this.invalid = invalid;
+        this.duplicates = duplicates;
+        this.uploadedUsers = uploadedUsers;
+        this.error = error;
+    }// AudienceBatchResult()
+
+    public boolean isSuccess() {
+        return error == null;
+    }// isSuccess()
+
+}// AudienceBatchResult
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.upload;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read identifiers from a file (one by line, or one column of a CSV) in fixed size chunks.
+ * <p>
+ * The byte offset of the end of the last line read is tracked, so reading can be resumed later from it.
+ *
+ * @author Yassine
+ */
+final class AudienceFileReader implements Closeable {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+
+    /**
+     * Column of the identifier, -1 for the whole line
+     */
+    private final int column;
+
+    private final char delimiter;
+
+    private byte[] line = new byte[256];
+
+    /**
+     * Offset of the end of the last line read
+     */
+    private long offset;
+
+    /**
+     * Constructor
+     *
+     * @param path        File
+     * @param startOffset Offset to start from (the beginning of a line)
+     * @param column      Column of the identifier, -1 for the whole line
+     * @param delimiter   Delimiter of the columns
+     * @throws IOException If the file can't be opened
+     */
+    AudienceFileReader(Path path, long startOffset, int column, char delimiter) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.channel.position(startOffset);
+        this.offset = startOffset;
+        this.column = column;
+        this.delimiter = delimiter;
+        this.chunk.flip();
+    }// AudienceFileReader()
+
+    /**
+     * Read the next line
+     *
+     * @return line without line break, null at the end of the file
+     * @throws IOException If the file can't be read
+     */
+    String nextLine() throws IOException {
+        int length = 0;
+        boolean read = false;
+        while (true) {
+            if (!chunk.hasRemaining()) {
+                chunk.clear();
+                int n = channel.read(chunk);
+                chunk.flip();
+                if (n < 0) {
+                    break;
+                }
+                continue;
+            }
+            byte b = chunk.get();
+            offset++;
+            read = true;
+            if (b == '\n') {
+                break;
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length << 1);
+            }
+            line[length++] = b;
+        }
+        if (!read) {
+            return null;
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }// nextLine()
+
+    /**
+     * Read the next identifier, empty lines are skipped
+     *
+     * @return identifier (not normalized), null at the end of the file
+     * @throws IOException If the file can't be read
+     */
+    String next() throws IOException {
+        String current;
+        while ((current = nextLine()) != null) {
+            String identifier = column < 0 ? current : field(current, column, delimiter);
+            if (identifier != null && !identifier.trim().isEmpty()) {
+                return identifier;
+            }
+        }
+        return null;
+    }// next()
+
+    /**
+     * @return offset of the end of the last line read
+     */
+    long getOffset() {
+        return offset;
+    }// getOffset()
+
+    long size() throws IOException {
+        return channel.size();
+    }// size()
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }// close()
+
+    /**
+     * Extract a field of a CSV line, fields may be quoted ("" for a quote inside a quoted field)
+     *
+     * @param line      CSV line
+     * @param index     Index of the field
+     * @param delimiter Delimiter
+     * @return field, null if the line has fewer fields
+     */
+    static String field(String line, int index, char delimiter) {
+        int current = 0;
+        int i = 0;
+        int length = line.length();
+        while (i <= length) {
+            StringBuilder sb = current == index ? new StringBuilder() : null;
+            boolean quoted = i < length && line.charAt(i) == '"';
+            if (quoted) {
+                i++;
+                while (i < length) {
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < length && line.charAt(i) == '"') {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                    if (sb != null) {
+                        sb.append(c);
+                    }
+                }
+            }
+            while (i < length && line.charAt(i) != delimiter) {
+                if (sb != null) {
+                    sb.append(line.charAt(i));
+                }
+                i++;
+            }
+            if (sb != null) {
+                return sb.toString();
+            }
+            current++;
+            i++;
+        }
+        return null;
+    }// field()
+
+}// AudienceFileReader
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.upload;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import snapads4j.enums.SchemaEnum;
+import snapads4j.utils.FileUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local journals of the audience uploads, one append-only file by segment in a directory.
+ * <p>
+ * The first line of a journal identifies the upload (size and modification date of the file, schema, batch size,
+ * column), then each batch acknowledged by Snap API is appended (number, offsets in the file, uploaded users) and
+ * forced to the disk. An upload of the same file started again with the same journal resumes from the first
+ * batch which isn't acknowledged and doesn't send again the batches already acknowledged after it. A journal of
+ * another upload is replaced.
+ * <p>
+ * The journal of a segment is deleted once an upload is complete.
+ *
+ * @author Yassine
+ */
+public class AudienceUploadJournal {
+
+    private static final Logger LOGGER = LogManager.getLogger(AudienceUploadJournal.class);
+
+    private static final String EXTENSION = ".journal";
+
+    private final Path directory;
+
+    /**
+     * Constructor
+     *
+     * @param directory Directory of the journals (created if needed)
+     * @throws IOException If the directory can't be created
+     */
+    public AudienceUploadJournal(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }// AudienceUploadJournal()
+
+    public boolean exists(String segmentID) {
+        return Files.isRegularFile(path(segmentID));
+    }// exists()
+
+    public void delete(String segmentID) throws IOException {
+        Files.deleteIfExists(path(segmentID));
+    }// delete()
+
+    /**
+     * Open the journal of an upload, create it (or replace the journal of another upload) if needed
+     *
+     * @param segmentID   ID of the segment
+     * @param file        File uploaded
+     * @param schema      Schema of the identifiers
+     * @param batchSize   Number of identifiers by batch
+     * @param column      Column of the identifiers (-1 for the whole line)
+     * @param startOffset Offset of the first batch in the file (after the header)
+     * @return journal of the upload
+     * @throws IOException If the journal can't be read or written
+     */
+    Entry open(String segmentID, Path file, SchemaEnum schema, int batchSize, int column, long startOffset)
+            throws IOException {
+        Path path = path(segmentID);
+        String header = "# size=" + Files.size(file) + " modified=" + Files.getLastModifiedTime(file).toMillis()
+                + " schema=" + schema + " batch=" + batchSize + " column=" + column + " start=" + startOffset + "\n";
+        Map<Long, long[]> acknowledged = new HashMap<>();
+        long validLength = 0;
+        if (Files.isRegularFile(path)) {
+            String content = new String(Files.readAllBytes(path), StandardCharsets.US_ASCII);
+            if (content.startsWith(header)) {
+                // A line cut by a crash is dropped
+                validLength = content.lastIndexOf('\n') + 1;
+                for (String line : content.substring(header.length(), (int) validLength).split("\n")) {
+                    long[] record = parse(line);
+                    if (record != null) {
+                        acknowledged.put(record[1], record);
+                    }
+                }
+            } else {
+                LOGGER.warn("Journal of segment {} belongs to another upload, it's replaced", segmentID);
+            }
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            channel.truncate(validLength);
+            channel.position(validLength);
+            if (validLength == 0) {
+                write(channel, header);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new Entry(channel, acknowledged, startOffset);
+    }// open()
+
+    private static long[] parse(String line) {
+        String[] values = line.split(" ");
+        if (values.length != 4) {
+            return null;
+        }
+        try {
+            return new long[]{Long.parseLong(values[0]), Long.parseLong(values[1]), Long.parseLong(values[2]),
+                    Long.parseLong(values[3])};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }// parse()
+
+    private static void write(FileChannel channel, String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }// write()
+
+    private Path path(String segmentID) {
+        return FileUtils.getSegmentFile(directory, segmentID, EXTENSION);
+    }// path()
+
+    /**
+     * Journal of an upload opened for append
+     */
+    static final class Entry implements Closeable {
+
+        private final FileChannel channel;
+
+        /**
+         * Acknowledged batches by start offset : number, start offset, end offset, uploaded users
+         */
+        private final Map<Long, long[]> acknowledged;
+
+        private final long resumeOffset;
+
+        private final long resumeBatchNumber;
+
+        private Entry(FileChannel channel, Map<Long, long[]> acknowledged, long startOffset) {
+            this.channel = channel;
+            this.acknowledged = acknowledged;
+            long offset = startOffset;
+            long batchNumber = 0;
+            long[] record;
+            while ((record = acknowledged.get(offset)) != null && record[2] > offset) {
+                offset = record[2];
+                batchNumber = record[0];
+            }
+            this.resumeOffset = offset;
+            this.resumeBatchNumber = batchNumber;
+        }// Entry()
+
+        /**
+         * @return offset of the first batch which isn't acknowledged
+         */
+        long getResumeOffset() {
+            return resumeOffset;
+        }// getResumeOffset()
+
+        /**
+         * @return number of the last batch acknowledged before the resume offset (0 if none)
+         */
+        long getResumeBatchNumber() {
+            return resumeBatchNumber;
+        }// getResumeBatchNumber()
+
+        boolean isAcknowledged(long startOffset, long endOffset) {
+            long[] record = acknowledged.get(startOffset);
+            return record != null && record[2] == endOffset;
+        }// isAcknowledged()
+
+        synchronized void acknowledge(long batchNumber, long startOffset, long endOffset, long uploadedUsers)
+                throws IOException {
+            write(channel, batchNumber + " " + startOffset + " " + endOffset + " " + uploadedUsers + "\n");
+        }// acknowledge()
+
+        @Override
+        public synchronized void close() throws IOException {
+            channel.close();
+        }// close()
+
+    }// Entry
+
+}// AudienceUploadJournal
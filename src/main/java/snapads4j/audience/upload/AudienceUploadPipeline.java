@@ -0,0 +1,684 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.upload;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import snapads4j.audience.match.HashDeduplicator;
+import snapads4j.audience.match.IdentifierHasher;
+import snapads4j.audience.match.SnapAudienceSegmentInterface;
+import snapads4j.enums.SchemaEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapExecutionException;
+import snapads4j.exceptions.SnapOAuthAccessTokenException;
+import snapads4j.model.audience.match.FormUserForAudienceSegment;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Upload a file of identifiers (one by line, or one column of a CSV) to an audience segment.
+ * <p>
+ * The file is read in chunks by the calling thread and cut into batches of {@link #getBatchSize()} identifiers,
+ * each batch is normalized and hashed on the hash threads then uploaded on the upload threads, so reading,
+ * hashing and uploading overlap. The number of batches in flight is bounded (hash threads + upload threads),
+ * the memory used doesn't depend on the size of the file.
+ * <p>
+ * Identifiers are normalized and hashed by {@link IdentifierHasher}, those which aren't valid for the schema are
+ * skipped (and counted). A batch which can't be uploaded doesn't stop the others : it's reported with its offsets
+ * in the file so it can be sent again.
+ * <p>
+ * With an {@link AudienceUploadJournal}, acknowledged batches are journaled so an upload which died can be started
+ * again : it resumes from the first batch which isn't acknowledged. With deduplication, the file is read again from
+ * the start and the acknowledged batches are hashed (not sent) to fill the deduplicator.
+ * <p>
+ * The same file can be uploaded to several segments at once : it's read and hashed once, then each batch is sent to
+ * every segment (see {@link #uploadToSegments(String, Collection, SchemaEnum, Path)}).
+ * <p>
+ * Uploads go through the HTTP client of the {@link SnapAudienceSegmentInterface}, its connection pool (2 connections
+ * by route for the default client) bounds the number of uploads really running at once.
+ * <pre>
+ * try (AudienceUploadPipeline pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(segments).build()) {
+ *     AudienceUploadResult result = pipeline.upload(token, segmentID, SchemaEnum.EMAIL_SHA256, Paths.get("emails.csv"));
+ * }
+ * </pre>
+ *
+ * @author Yassine
+ */
+public class AudienceUploadPipeline implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger(AudienceUploadPipeline.class);
+
+    /**
+     * Max number of identifiers by request accepted by Snap API
+     */
+    public static final int MAX_BATCH_SIZE = 100_000;
+
+    private final SnapAudienceSegmentInterface snapAudienceSegment;
+
+    private final int batchSize;
+
+    private final int maxInFlight;
+
+    private final Executor hashExecutor;
+
+    private final Executor uploadExecutor;
+
+    private final boolean ownExecutors;
+
+    private final AudienceUploadListener listener;
+
+    private final int csvColumn;
+
+    private final char delimiter;
+
+    private final boolean header;
+
+    private final boolean deduplicate;
+
+    private final AudienceUploadJournal journal;
+
+    private AudienceUploadPipeline(Builder builder) {
+        this.snapAudienceSegment = builder.snapAudienceSegment;
+        this.batchSize = builder.batchSize;
+        this.maxInFlight = builder.hashThreads + builder.uploadThreads;
+        this.ownExecutors = builder.hashExecutor == null;
+        this.hashExecutor = ownExecutors ? Executors.newFixedThreadPool(builder.hashThreads) : builder.hashExecutor;
+        this.uploadExecutor = ownExecutors ? Executors.newFixedThreadPool(builder.uploadThreads) : builder.uploadExecutor;
+        this.listener = builder.listener;
+        this.csvColumn = builder.csvColumn;
+        this.delimiter = builder.delimiter;
+        this.header = builder.header;
+        this.deduplicate = builder.deduplicate;
+        this.journal = builder.journal;
+    }// AudienceUploadPipeline()
+
+    public int getBatchSize() {
+        return batchSize;
+    }// getBatchSize()
+
+    /**
+     * Upload all the identifiers of a file to a segment
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param segmentID        ID of the segment
+     * @param schema           Schema of the identifiers
+     * @param path             File of the identifiers
+     * @return result of the upload
+     * @throws SnapOAuthAccessTokenException If the token is missing
+     * @throws SnapArgumentException         If an argument is missing or the file doesn't exist
+     * @throws SnapExecutionException        If the file or the journal can't be read or the thread is interrupted
+     */
+    public AudienceUploadResult upload(String oAuthAccessToken, String segmentID, SchemaEnum schema, Path path)
+            throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException {
+        return uploadToSegments(oAuthAccessToken, Collections.singletonList(segmentID), schema, path).get(segmentID);
+    }// upload()
+
+    /**
+     * Upload all the identifiers of a file to several segments : the file is read and hashed once, each batch is
+     * sent to every segment. Segments are independent, a batch which can't be uploaded to a segment is only reported
+     * in the result of this segment.
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param segmentIDs       IDs of the segments
+     * @param schema           Schema of the identifiers
+     * @param path             File of the identifiers
+     * @return result of the upload by segment ID (in the order of the IDs)
+     * @throws SnapOAuthAccessTokenException If the token is missing
+     * @throws SnapArgumentException         If an argument is missing or the file doesn't exist
+     * @throws SnapExecutionException        If the file or a journal can't be read or the thread is interrupted
+     */
+    public Map<String, AudienceUploadResult> uploadToSegments(String oAuthAccessToken, Collection<String> segmentIDs,
+                                                              SchemaEnum schema, Path path)
+            throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException {
+        if (StringUtils.isEmpty(oAuthAccessToken)) {
+            throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
+        }
+        StringBuilder sb = new StringBuilder();
+        if (segmentIDs == null || segmentIDs.isEmpty() || segmentIDs.stream().anyMatch(StringUtils::isEmpty)) {
+            sb.append("Segment ID is required,");
+        }
+        if (schema == null) {
+            sb.append("Schema is required,");
+        }
+        if (path == null || !Files.isRegularFile(path)) {
+            sb.append("File must exist,");
+        }
+        String finalErrors = sb.toString();
+        if (!StringUtils.isEmpty(finalErrors)) {
+            throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+        }
+        Map<String, Upload> uploads = new LinkedHashMap<>();
+        for (String segmentID : segmentIDs) {
+            uploads.putIfAbsent(segmentID, new Upload(oAuthAccessToken, segmentID, schema));
+        }
+        HashDeduplicator deduplicator = deduplicate ? new HashDeduplicator() : null;
+        long resumeOffset = 0;
+        long batchNumber = 0;
+        try {
+            if (journal != null) {
+                resumeOffset = Long.MAX_VALUE;
+                long startOffset = startOffset(path);
+                for (Upload upload : uploads.values()) {
+                    upload.journalEntry = journal.open(upload.segmentID, path, schema, batchSize, csvColumn, startOffset);
+                    // Read from the segment which is the least advanced, the others skip what they acknowledged
+                    if (upload.journalEntry.getResumeOffset() < resumeOffset) {
+                        resumeOffset = upload.journalEntry.getResumeOffset();
+                        batchNumber = upload.journalEntry.getResumeBatchNumber();
+                    }
+                }
+                if (deduplicator != null) {
+                    // The batches acknowledged are read again (not sent) to fill the deduplicator
+                    resumeOffset = startOffset;
+                    batchNumber = 0;
+                }
+            }
+        } catch (IOException e) {
+            uploads.values().forEach(upload -> closeJournal(upload.journalEntry));
+            throw new SnapExecutionException("Impossible to read the journal", e);
+        }
+        for (Upload upload : uploads.values()) {
+            upload.skippedBatches = batchNumber;
+        }
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        CompletableFuture<Void> deduplicated = CompletableFuture.completedFuture(null);
+        try (AudienceFileReader reader = new AudienceFileReader(path, resumeOffset, csvColumn, delimiter)) {
+            for (Upload upload : uploads.values()) {
+                upload.fileSize = reader.size();
+            }
+            if (header && resumeOffset == 0) {
+                reader.nextLine();
+            }
+            List<String> identifiers = new ArrayList<>(batchSize);
+            long startOffset = reader.getOffset();
+            String identifier;
+            while (true) {
+                identifier = reader.next();
+                if (identifier != null) {
+                    identifiers.add(identifier);
+                }
+                if (identifiers.size() == batchSize || (identifier == null && !identifiers.isEmpty())) {
+                    Batch batch = new Batch(++batchNumber, startOffset, reader.getOffset(), identifiers);
+                    List<Upload> targets = new ArrayList<>(uploads.size());
+                    for (Upload upload : uploads.values()) {
+                        upload.bytesRead = reader.getOffset();
+                        AudienceUploadJournal.Entry entry = upload.journalEntry;
+                        if (entry != null && entry.isAcknowledged(batch.startOffset, batch.endOffset)) {
+                            upload.skip();
+                        } else {
+                            targets.add(upload);
+                        }
+                    }
+                    if (!targets.isEmpty() || deduplicator != null) {
+                        // Even if already uploaded, its hashes must be known before the batches which follow
+                        inFlight.acquire();
+                        deduplicated = submit(batch, schema, deduplicator, deduplicated, targets, inFlight);
+                    }
+                    identifiers = new ArrayList<>(batchSize);
+                    startOffset = reader.getOffset();
+                }
+                if (identifier == null) {
+                    break;
+                }
+            }
+            for (Upload upload : uploads.values()) {
+                upload.bytesRead = reader.getOffset();
+                upload.batches = batchNumber;
+            }
+            // All permits back : every batch is done
+            inFlight.acquire(maxInFlight);
+        } catch (IOException e) {
+            inFlight.acquireUninterruptibly(maxInFlight);
+            throw new SnapExecutionException("Impossible to read the file", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SnapExecutionException("Interrupted while uploading the file", e);
+        } finally {
+            uploads.values().forEach(upload -> closeJournal(upload.journalEntry));
+        }
+        Map<String, AudienceUploadResult> results = new LinkedHashMap<>();
+        for (Upload upload : uploads.values()) {
+            AudienceUploadResult result = upload.result();
+            if (upload.journalEntry != null && result.isComplete()) {
+                try {
+                    journal.delete(upload.segmentID);
+                } catch (IOException e) {
+                    LOGGER.warn("Impossible to delete the journal of segment {}", upload.segmentID, e);
+                }
+            }
+            results.put(upload.segmentID, result);
+        }
+        return results;
+    }// uploadToSegments()
+
+    /**
+     * Stop the threads of the pipeline (if it owns them)
+     */
+    @Override
+    public void close() {
+        if (ownExecutors) {
+            ((ExecutorService) hashExecutor).shutdown();
+            ((ExecutorService) uploadExecutor).shutdown();
+        }
+    }// close()
+
+    /**
+     * @return offset of the first identifier of the file (after the header)
+     */
+    private long startOffset(Path path) throws IOException {
+        if (!header) {
+            return 0;
+        }
+        try (AudienceFileReader reader = new AudienceFileReader(path, 0L, csvColumn, delimiter)) {
+            reader.nextLine();
+            return reader.getOffset();
+        }
+    }// startOffset()
+
+    private static void closeJournal(AudienceUploadJournal.Entry entry) {
+        if (entry != null) {
+            try {
+                entry.close();
+            } catch (IOException e) {
+                LOGGER.warn("Impossible to close the journal", e);
+            }
+        }
+    }// closeJournal()
+
+    /**
+     * Hash the batch once then send it to each segment. Batches are hashed in parallel but deduplicated in the order
+     * of the file, after the previous batch : the first occurrence of an identifier is the one sent.
+     *
+     * @param previous Deduplication of the previous batch
+     * @return deduplication of this batch
+     */
+    private CompletableFuture<Void> submit(Batch batch, SchemaEnum schema, HashDeduplicator deduplicator,
+                                           CompletableFuture<Void> previous, List<Upload> targets, Semaphore inFlight) {
+        CompletableFuture<Void> hashed = CompletableFuture.runAsync(() -> hash(batch, schema, deduplicator != null), hashExecutor);
+        if (deduplicator != null) {
+            // A batch which failed doesn't stop the deduplication of the next ones
+            hashed = hashed.thenCombine(previous.handle((ignored, e) -> null), (ignored, ignoredToo) -> null)
+                    .thenRun(() -> deduplicate(batch, deduplicator));
+        }
+        CompletableFuture<Void> ready = hashed;
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[targets.size()];
+        for (int i = 0; i < sends.length; i++) {
+            Upload upload = targets.get(i);
+            sends[i] = ready.thenRunAsync(() -> send(upload, batch), uploadExecutor)
+                    .whenComplete((ignored, e) -> {
+                        if (e != null) {
+                            LOGGER.error("Unexpected error while uploading batch {} to segment {}", batch.number,
+                                    upload.segmentID, e);
+                            upload.done(batch, 0, e instanceof Exception ? (Exception) e : new SnapExecutionException("Unexpected error", e));
+                        }
+                    });
+        }
+        (sends.length == 0 ? ready : CompletableFuture.allOf(sends)).whenComplete((ignored, e) -> {
+            if (e != null && sends.length == 0) {
+                LOGGER.error("Unexpected error while hashing batch {}", batch.number, e);
+            }
+            batch.identifiers = null;
+            batch.raw = null;
+            batch.hashes = null;
+            inFlight.release();
+        });
+        return ready;
+    }// submit()
+
+    /**
+     * Hash the identifiers of the batch, the raw hashes are kept to be deduplicated
+     */
+    private static void hash(Batch batch, SchemaEnum schema, boolean deduplicate) {
+        byte[] raw = new byte[batch.identifiers.size() * IdentifierHasher.HASH_LENGTH];
+        int count = 0;
+        for (String identifier : batch.identifiers) {
+            if (IdentifierHasher.hash(schema, identifier, raw, count * IdentifierHasher.HASH_LENGTH)) {
+                count++;
+            } else {
+                batch.invalid++;
+            }
+        }
+        batch.raw = raw;
+        batch.rawCount = count;
+        if (!deduplicate) {
+            deduplicate(batch, null);
+        }
+    }// hash()
+
+    /**
+     * Drop the hashes already seen, called in the order of the batches
+     */
+    private static void deduplicate(Batch batch, HashDeduplicator deduplicator) {
+        List<String> hashes = new ArrayList<>(batch.rawCount);
+        char[] hex = new char[IdentifierHasher.HEX_LENGTH];
+        for (int i = 0; i < batch.rawCount; i++) {
+            int offset = i * IdentifierHasher.HASH_LENGTH;
+            if (deduplicator != null && !deduplicator.add(batch.raw, offset)) {
+                batch.duplicates++;
+            } else {
+                IdentifierHasher.toHex(batch.raw, offset, hex, 0);
+                hashes.add(new String(hex));
+            }
+        }
+        batch.raw = null;
+        batch.hashes = hashes;
+    }// deduplicate()
+
+    private void send(Upload upload, Batch batch) {
+        int uploaded = 0;
+        Exception error = null;
+        if (!batch.hashes.isEmpty()) {
+            FormUserForAudienceSegment form = new FormUserForAudienceSegment();
+            form.setId(upload.segmentID);
+            form.setSchema(upload.schema);
+            form.setData(batch.hashes);
+            try {
+                uploaded = snapAudienceSegment.addHashedUsersToSegment(upload.oAuthAccessToken, form);
+            } catch (Exception e) {
+                LOGGER.warn("Impossible to upload batch {} to segment {}", batch.number, upload.segmentID, e);
+                error = e;
+            }
+        }
+        upload.done(batch, uploaded, error);
+    }// send()
+
+    /**
+     * Batch of identifiers, hashes replace the identifiers once computed. Shared by the segments of an upload, it's
+     * released once sent to all of them.
+     */
+    private static class Batch {
+
+        private final long number;
+
+        private final long startOffset;
+
+        private final long endOffset;
+
+        private final int size;
+
+        private List<String> identifiers;
+
+        /**
+         * Hashes of the valid identifiers, before deduplication
+         */
+        private byte[] raw;
+
+        private int rawCount;
+
+        private List<String> hashes;
+
+        private int invalid;
+
+        private int duplicates;
+
+        private Batch(long number, long startOffset, long endOffset, List<String> identifiers) {
+            this.number = number;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.size = identifiers.size();
+            this.identifiers = identifiers;
+        }// Batch()
+
+    }// Batch
+
+    /**
+     * State of the upload to one segment, updated by the upload threads
+     */
+    private class Upload {
+
+        private final String oAuthAccessToken;
+
+        private final String segmentID;
+
+        private final SchemaEnum schema;
+
+        private final List<AudienceBatchResult> failedBatches = new ArrayList<>();
+
+        private AudienceUploadJournal.Entry journalEntry;
+
+        private volatile long bytesRead;
+
+        private long fileSize;
+
+        private long batches;
+
+        private long batchesDone;
+
+        private long skippedBatches;
+
+        private long identifiers;
+
+        private long invalidIdentifiers;
+
+        private long duplicates;
+
+        private long uploadedUsers;
+
+        private Upload(String oAuthAccessToken, String segmentID, SchemaEnum schema) {
+            this.oAuthAccessToken = oAuthAccessToken;
+            this.segmentID = segmentID;
+            this.schema = schema;
+        }// Upload()
+
+        private synchronized void skip() {
+            skippedBatches++;
+        }// skip()
+
+        private synchronized void done(Batch batch, int uploaded, Exception error) {
+            AudienceBatchResult result = new AudienceBatchResult(segmentID, batch.number, batch.startOffset,
+                    batch.endOffset, batch.size, batch.invalid, batch.duplicates, uploaded, error);
+            batchesDone++;
+            identifiers += batch.size;
+            invalidIdentifiers += batch.invalid;
+            duplicates += batch.duplicates;
+            uploadedUsers += uploaded;
+            if (error != null) {
+                failedBatches.add(result);
+            } else if (journalEntry != null) {
+                try {
+                    journalEntry.acknowledge(batch.number, batch.startOffset, batch.endOffset, uploaded);
+                } catch (IOException e) {
+                    LOGGER.warn("Impossible to journal batch {} of segment {}", batch.number, segmentID, e);
+                }
+            }
+            if (listener != null) {
+                try {
+                    listener.onBatch(result, new AudienceUploadProgress(bytesRead, fileSize, batchesDone, failedBatches.size(),
+                            uploadedUsers, invalidIdentifiers, duplicates));
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Listener failed on batch {}", batch.number, e);
+                }
+            }
+        }// done()
+
+        private synchronized AudienceUploadResult result() {
+            List<AudienceBatchResult> failed = new ArrayList<>(failedBatches);
+            failed.sort(Comparator.comparingLong(AudienceBatchResult::getBatchNumber));
+            return new AudienceUploadResult(segmentID, batches, skippedBatches, identifiers, invalidIdentifiers, duplicates,
+                    uploadedUsers, bytesRead, Collections.unmodifiableList(failed));
+        }// result()
+
+    }// Upload
+
+    /**
+     * Used to build AudienceUploadPipeline instance ({@link AudienceUploadPipeline})
+     *
+     * @author Yassine
+     */
+    public static class Builder {
+
+        private SnapAudienceSegmentInterface snapAudienceSegment;
+
+        private int batchSize = MAX_BATCH_SIZE;
+
+        private int hashThreads = Runtime.getRuntime().availableProcessors();
+
+        private int uploadThreads = 2;
+
+        private Executor hashExecutor;
+
+        private Executor uploadExecutor;
+
+        private AudienceUploadListener listener;
+
+        private int csvColumn = -1;
+
+        private char delimiter = ',';
+
+        private boolean header;
+
+        private boolean deduplicate;
+
+        private AudienceUploadJournal journal;
+
+        public Builder setSnapAudienceSegment(SnapAudienceSegmentInterface snapAudienceSegment) {
+            this.snapAudienceSegment = snapAudienceSegment;
+            return this;
+        }// setSnapAudienceSegment()
+
+        /**
+         * @param batchSize Number of identifiers by request (max 100 000)
+         * @return builder
+         */
+        public Builder setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }// setBatchSize()
+
+        /**
+         * @param hashThreads Number of batches hashed at once
+         * @return builder
+         */
+        public Builder setHashThreads(int hashThreads) {
+            this.hashThreads = hashThreads;
+            return this;
+        }// setHashThreads()
+
+        /**
+         * @param uploadThreads Number of batches uploaded at once
+         * @return builder
+         */
+        public Builder setUploadThreads(int uploadThreads) {
+            this.uploadThreads = uploadThreads;
+            return this;
+        }// setUploadThreads()
+
+        /**
+         * Executors of the pipeline, not shut down by the pipeline. The number of threads still sets the number of
+         * batches in flight.
+         *
+         * @param hashExecutor   Executor of the hashing
+         * @param uploadExecutor Executor of the uploads
+         * @return builder
+         */
+        public Builder setExecutors(Executor hashExecutor, Executor uploadExecutor) {
+            this.hashExecutor = hashExecutor;
+            this.uploadExecutor = uploadExecutor;
+            return this;
+        }// setExecutors()
+
+        public Builder setListener(AudienceUploadListener listener) {
+            this.listener = listener;
+            return this;
+        }// setListener()
+
+        /**
+         * Read the identifiers from a column of a CSV file
+         *
+         * @param csvColumn Index of the column (from 0)
+         * @param delimiter Delimiter of the columns
+         * @return builder
+         */
+        public Builder setCsvColumn(int csvColumn, char delimiter) {
+            this.csvColumn = csvColumn;
+            this.delimiter = delimiter;
+            return this;
+        }// setCsvColumn()
+
+        /**
+         * @param header True if the first line of the file must be skipped
+         * @return builder
+         */
+        public Builder setHeader(boolean header) {
+            this.header = header;
+            return this;
+        }// setHeader()
+
+        /**
+         * Upload each distinct identifier once by upload : duplicates (after normalization) are removed by a
+         * {@link HashDeduplicator}, it takes 64 to 128 bytes by distinct identifier out of the heap
+         *
+         * @param deduplicate True to remove duplicates
+         * @return builder
+         */
+        public Builder setDeduplicate(boolean deduplicate) {
+            this.deduplicate = deduplicate;
+            return this;
+        }// setDeduplicate()
+
+        /**
+         * Journal the acknowledged batches, an upload started again resumes where it stopped
+         *
+         * @param journal Journal of the uploads
+         * @return builder
+         */
+        public Builder setJournal(AudienceUploadJournal journal) {
+            this.journal = journal;
+            return this;
+        }// setJournal()
+
+        public AudienceUploadPipeline build() throws SnapArgumentException {
+            StringBuilder sb = new StringBuilder();
+            if (snapAudienceSegment == null) {
+                sb.append("SnapAudienceSegment is required,");
+            }
+            if (batchSize < 1 || batchSize > MAX_BATCH_SIZE) {
+                sb.append("Batch size must be between 1 and 100000,");
+            }
+            if (hashThreads < 1 || uploadThreads < 1) {
+                sb.append("At least one thread is required,");
+            }
+            if ((hashExecutor == null) != (uploadExecutor == null)) {
+                sb.append("Both executors are required,");
+            }
+            if (csvColumn < -1) {
+                sb.append("CSV column must be positive,");
+            }
+            String finalErrors = sb.toString();
+            if (!StringUtils.isEmpty(finalErrors)) {
+                throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+            }
+            return new AudienceUploadPipeline(this);
+        }// build()
+
+    }// Builder
+
+}// AudienceUploadPipeline
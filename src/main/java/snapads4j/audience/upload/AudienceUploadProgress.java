@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.upload;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Progress of an upload when a batch is done
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public class AudienceUploadProgress {
+
+    /**
+     * Bytes of the file read so far
+     */
+    private final long bytesRead;
+
+    private final long fileSize;
+
+    private final long batchesDone;
+
+    private final long batchesFailed;
+
+    private final long uploadedUsers;
+
+    private final long invalidIdentifiers;
+
+    private final long duplicates;
+
+    AudienceUploadProgress(long bytesRead, long fileSize, long batchesDone, long batchesFailed, long uploadedUsers,
+                           long invalidIdentifiers, long duplicates) {
+        this.bytesRead = bytesRead;
+        this.fileSize = fileSize;
+        this.batchesDone = batchesDone;
+        this.batchesFailed = batchesFailed;
+        this.uploadedUsers = uploadedUsers;
+        this.invalidIdentifiers = invalidIdentifiers;
+        this.duplicates = duplicates;
+    }// AudienceUploadProgress()
+
+    /**
+     * @return part of the file read (between 0 and 1)
+     */
+    public double getRatio() {
+        return fileSize == 0 ? 1d : Math.min(1d, (double) bytesRead / fileSize);
+    }// getRatio()
+
+}// AudienceUploadProgress
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.upload;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Result of the upload of a file
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public class AudienceUploadResult {
+
+    private final String segmentId;
+
+    private final long batches;
+
+    /**
+     * Batches not sent because the journal shows them already acknowledged (included in batches)
+     */
+    private final long skippedBatches;
+
+    private final long identifiers;
+
+    private final long invalidIdentifiers;
+
+    /**
+     * Number of duplicates removed (0 if duplicates aren't removed)
+     */
+    private final long duplicates;
+
+    private final long uploadedUsers;
+
+    /**
+     * Offset of the end of the last line read
+     */
+    private final long endOffset;
+
+    /**
+     * Batches which couldn't be uploaded (sorted by batch number)
+     */
+    private final List<AudienceBatchResult> failedBatches;
+
+    AudienceUploadResult(String segmentId, long batches, long skippedBatches, long identifiers, long invalidIdentifiers,
+                         long duplicates, long uploadedUsers, long endOffset, List<AudienceBatchResult> failedBatches) {
+        this.segmentId = segmentId;
+        this.batches = batches;
+        this.skippedBatches = skippedBatches;
+        this.identifiers = identifiers;
+        this.invalidIdentifiers = invalidIdentifiers;
+        this.duplicates = duplicates;
+        this.uploadedUsers = uploadedUsers;
+        this.endOffset = endOffset;
+        this.failedBatches = failedBatches;
+    }// AudienceUploadResult()
+
+    public boolean isComplete() {
+        return failedBatches.isEmpty();
+    }// isComplete()
+
+}// AudienceUploadResult
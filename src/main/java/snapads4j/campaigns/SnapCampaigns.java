@@ -28,6 +28,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import snapads4j.enums.CheckCampaignEnum;
 import snapads4j.exceptions.*;
+import snapads4j.model.PageConsumer;
 import snapads4j.model.Pagination;
 import snapads4j.model.campaigns.Campaign;
 import snapads4j.model.campaigns.SnapHttpRequestCampaign;
@@ -185,19 +186,29 @@ public class SnapCampaigns implements SnapCampaignsInterface {
     @Override
     public List<Pagination<Campaign>> getAllCampaigns(String oAuthAccessToken, String adAccountId, int limit)
             throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException {
+        List<Pagination<Campaign>> campaigns = new ArrayList<>();
+        this.streamAllCampaigns(oAuthAccessToken, adAccountId, limit, campaigns::add);
+        return campaigns;
+    } // getAllCampaigns()
+
+    @Override
+    public void streamAllCampaigns(String oAuthAccessToken, String adAccountId, int limit, PageConsumer<Campaign> consumer)
+            throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException {
         if (StringUtils.isEmpty(oAuthAccessToken)) {
             throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
         }
         if (StringUtils.isEmpty(adAccountId)) {
             throw new SnapArgumentException("The Ad Account ID is required");
         }
+        if (consumer == null) {
+            throw new SnapArgumentException("Consumer is required");
+        }
         if(limit < minLimitPagination){
             throw new SnapArgumentException("Minimum limit is " + minLimitPagination);
         }
         if(limit > maxLimitPagination){
             throw new SnapArgumentException("Maximum limit is " + maxLimitPagination);
         }
-        List<Pagination<Campaign>> campaigns = new ArrayList<>();
         String url = this.endpointAllCampaigns.replace("{ad_account_id}", adAccountId);
         url += "?limit=" + limit;
         boolean hasNextPage = true;
@@ -216,7 +227,7 @@ public class SnapCampaigns implements SnapCampaignsInterface {
                     ObjectMapper mapper = JsonUtils.initMapper();
                     SnapHttpResponseCampaign responseFromJson = mapper.readValue(body, SnapHttpResponseCampaign.class);
                     if (responseFromJson != null) {
-                        campaigns.add(new Pagination<>(numberPage++,responseFromJson.getAllCampaigns()));
+                        consumer.accept(new Pagination<>(numberPage++,responseFromJson.getAllCampaigns()));
                         hasNextPage = responseFromJson.hasPaging();
                         if(hasNextPage){
                             url = responseFromJson.getPaging().getNextLink();
@@ -229,8 +240,7 @@ public class SnapCampaigns implements SnapCampaignsInterface {
                 throw new SnapExecutionException("Impossible to get all campaigns", e);
             }
         }
-        return campaigns;
-    } // getAllCampaigns()
+    } // streamAllCampaigns()
 
     @Override
     public Optional<Campaign> getSpecificCampaign(String oAuthAccessToken, String id)
@@ -20,6 +20,7 @@ import snapads4j.exceptions.SnapArgumentException;
 import snapads4j.exceptions.SnapExecutionException;
 import snapads4j.exceptions.SnapOAuthAccessTokenException;
 import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.PageConsumer;
 import snapads4j.model.Pagination;
 import snapads4j.model.campaigns.Campaign;
 
@@ -91,6 +92,19 @@ public interface SnapCampaignsInterface {
     List<Pagination<Campaign>> getAllCampaigns(String oAuthAccessToken, String adAccountId, int limit)
             throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException;
 
+    /**
+     * Get all campaigns of an ad account, each page is handed to the consumer as soon as it is fetched
+     * instead of keeping all pages in memory.
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param adAccountId      AD Account ID
+     * @param limit            Number of results per page
+     * @param consumer         Consumer of the pages
+     * @see #getAllCampaigns(String, String, int)
+     */
+    void streamAllCampaigns(String oAuthAccessToken, String adAccountId, int limit, PageConsumer<Campaign> consumer)
+            throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException;
+
     /**
      * Get specific campaign.
      *
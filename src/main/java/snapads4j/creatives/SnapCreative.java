@@ -32,6 +32,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import snapads4j.enums.CheckAdEnum;
 import snapads4j.exceptions.*;
+import snapads4j.model.PageConsumer;
 import snapads4j.model.Pagination;
 import snapads4j.model.creatives.*;
 import snapads4j.utils.EntityUtilsWrapper;
@@ -206,19 +207,30 @@ public class SnapCreative implements SnapCreativeInterface {
     public List<Pagination<Creative>> getAllCreative(String oAuthAccessToken, String adAccountId, int limit)
             throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException,
             SnapExecutionException {
+        List<Pagination<Creative>> results = new ArrayList<>();
+        this.streamAllCreative(oAuthAccessToken, adAccountId, limit, results::add);
+        return results;
+    }// getAllCreative()
+
+    @Override
+    public void streamAllCreative(String oAuthAccessToken, String adAccountId, int limit, PageConsumer<Creative> consumer)
+            throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException,
+            SnapExecutionException {
         if (StringUtils.isEmpty(oAuthAccessToken)) {
             throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
         }
         if (StringUtils.isEmpty(adAccountId)) {
             throw new SnapArgumentException("The AdAccount ID is required");
         }
+        if (consumer == null) {
+            throw new SnapArgumentException("Consumer is required");
+        }
         if(limit < minLimitPagination){
             throw new SnapArgumentException("Minimum limit is " + minLimitPagination);
         }
         if(limit > maxLimitPagination){
             throw new SnapArgumentException("Maximum limit is " + maxLimitPagination);
         }
-        List<Pagination<Creative>> results = new ArrayList<>();
         String url = this.endpointAllCreatives.replace("{ad_account_id}", adAccountId);
         url += "?limit=" + limit;
         boolean hasNextPage = true;
@@ -236,7 +248,7 @@ public class SnapCreative implements SnapCreativeInterface {
                     ObjectMapper mapper = JsonUtils.initMapper();
                     SnapHttpResponseCreative responseFromJson = mapper.readValue(body, SnapHttpResponseCreative.class);
                     if (responseFromJson != null) {
-                        results.add(new Pagination<>(numberPage++, responseFromJson.getAllCreatives()));
+                        consumer.accept(new Pagination<>(numberPage++, responseFromJson.getAllCreatives()));
                         hasNextPage = responseFromJson.hasPaging();
                         if(hasNextPage){
                             url = responseFromJson.getPaging().getNextLink();
@@ -249,8 +261,7 @@ public class SnapCreative implements SnapCreativeInterface {
                 throw new SnapExecutionException("Impossible to get all creatives", e);
             }
         }
-        return results;
-    }// getAllCreative()
+    }// streamAllCreative()
 
     @Override
     public Map<String, Object> getPreviewCreative(String oAuthAccessToken, String creativeID)
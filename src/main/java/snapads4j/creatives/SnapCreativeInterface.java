@@ -20,6 +20,7 @@ import snapads4j.exceptions.SnapArgumentException;
 import snapads4j.exceptions.SnapExecutionException;
 import snapads4j.exceptions.SnapOAuthAccessTokenException;
 import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.PageConsumer;
 import snapads4j.model.Pagination;
 import snapads4j.model.creatives.Creative;
 
@@ -93,6 +94,19 @@ public interface SnapCreativeInterface {
             throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException,
             SnapExecutionException;
 
+    /**
+     * Get all creatives of an ad account, each page is handed to the consumer as soon as it is fetched
+     * instead of keeping all pages in memory.
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param adAccountId      AD Account ID
+     * @param limit            Number of results per page
+     * @param consumer         Consumer of the pages
+     * @see #getAllCreative(String, String, int)
+     */
+    void streamAllCreative(String oAuthAccessToken, String adAccountId, int limit, PageConsumer<Creative> consumer)
+            throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException;
+
     /**
      * @param oAuthAccessToken
      * @param creativeID
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.enums;
+
+/**
+ * Metrics derived from two metrics of a {@link snapads4j.model.stats.Stat} : numerator / denominator * scale.
+ * <p>
+ * Spend and purchase values are returned by the Snap API in micro-currency (1 000 000 = 1 unit),
+ * scales convert costs into currency units. A derived metric is NaN when its denominator is 0.
+ *
+ * @author Yassine
+ */
+public enum DerivedMetricEnum {
+    /**
+     * Cost per 1000 impressions (currency)
+     */
+    CPM(StatMetricEnum.SPEND, StatMetricEnum.IMPRESSIONS, 1000. / 1_000_000.),
+    /**
+     * Cost per swipe (currency)
+     */
+    CPC(StatMetricEnum.SPEND, StatMetricEnum.SWIPES, 1. / 1_000_000.),
+    /**
+     * Effective cost per install (currency)
+     */
+    ECPI(StatMetricEnum.SPEND, StatMetricEnum.TOTAL_INSTALLS, 1. / 1_000_000.),
+    /**
+     * Effective cost per video view (currency)
+     */
+    ECPV(StatMetricEnum.SPEND, StatMetricEnum.VIDEO_VIEWS, 1. / 1_000_000.),
+    /**
+     * Cost per purchase (currency)
+     */
+    CPA_PURCHASE(StatMetricEnum.SPEND, StatMetricEnum.CONVERSION_PURCHASES, 1. / 1_000_000.),
+    /**
+     * Return on ad spend : purchases value / spend (both in micro-currency)
+     */
+    ROAS(StatMetricEnum.CONVERSION_PURCHASES_VALUE, StatMetricEnum.SPEND, 1.),
+    /**
+     * Swipe up rate : swipes / impressions
+     */
+    SWIPE_UP_RATE(StatMetricEnum.SWIPES, StatMetricEnum.IMPRESSIONS, 1.),
+    /**
+     * Rate of impressions played to 25%
+     */
+    QUARTILE_1_RATE(StatMetricEnum.QUARTILE_1, StatMetricEnum.IMPRESSIONS, 1.),
+    /**
+     * Rate of impressions played to 50%
+     */
+    QUARTILE_2_RATE(StatMetricEnum.QUARTILE_2, StatMetricEnum.IMPRESSIONS, 1.),
+    /**
+     * Rate of impressions played to 75%
+     */
+    QUARTILE_3_RATE(StatMetricEnum.QUARTILE_3, StatMetricEnum.IMPRESSIONS, 1.),
+    /**
+     * Rate of impressions played to completion
+     */
+    COMPLETION_RATE(StatMetricEnum.VIEW_COMPLETION, StatMetricEnum.IMPRESSIONS, 1.);
+
+    private final StatMetricEnum numerator;
+
+    private final StatMetricEnum denominator;
+
+    private final double scale;
+
+    DerivedMetricEnum(StatMetricEnum numerator, StatMetricEnum denominator, double scale) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+        this.scale = scale;
+    }// DerivedMetricEnum()
+
+    public StatMetricEnum getNumerator() {
+        return numerator;
+    }// getNumerator()
+
+    public StatMetricEnum getDenominator() {
+        return denominator;
+    }// getDenominator()
+
+    public double getScale() {
+        return scale;
+    }// getScale()
+
+    /**
+     * Compute the metric from raw values.
+     *
+     * @param numerator   Numerator value
+     * @param denominator Denominator value
+     * @return derived value, NaN if denominator is 0
+     */
+    public double compute(long numerator, long denominator) {
+        return denominator == 0L ? Double.NaN : numerator * scale / denominator;
+    }// compute()
+
+}// DerivedMetricEnum
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.enums;
+
+/**
+ * Formats available to export entities
+ *
+ * @author Yassine
+ */
+public enum ExportFormatEnum {
+    /**
+     * One JSON object per line, same representation as the Snap API
+     */
+    NDJSON,
+    /**
+     * RFC 4180 CSV with a header line, nested objects and lists are written as JSON in their cell
+     */
+    CSV
+}// ExportFormatEnum
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.enums;
+
+/**
+ * Action of a stats rule on the entity which matched
+ *
+ * @author Yassine
+ */
+public enum RuleActionEnum {
+    /**
+     * Set the status to PAUSED
+     */
+    PAUSE(StatusEnum.PAUSED),
+    /**
+     * Set the status to ACTIVE
+     */
+    ACTIVATE(StatusEnum.ACTIVE);
+
+    private final StatusEnum status;
+
+    RuleActionEnum(StatusEnum status) {
+        this.status = status;
+    }// RuleActionEnum()
+
+    public StatusEnum getStatus() {
+        return status;
+    }// getStatus()
+
+}// RuleActionEnum
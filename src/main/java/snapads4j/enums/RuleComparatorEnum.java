@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.enums;
+
+/**
+ * Comparison of a stats rule between the value of the window and the threshold.
+ * A NaN value (no data) never matches.
+ *
+ * @author Yassine
+ */
+public enum RuleComparatorEnum {
+    GREATER_THAN,
+    GREATER_THAN_OR_EQUAL,
+    LESS_THAN,
+    LESS_THAN_OR_EQUAL;
+
+    public boolean compare(double value, double threshold) {
+        if (Double.isNaN(value)) {
+            return false;
+        }
+        switch (this) {
+            case GREATER_THAN:
+                return value > threshold;
+            case GREATER_THAN_OR_EQUAL:
+                return value >= threshold;
+            case LESS_THAN:
+                return value < threshold;
+            default:
+                return value <= threshold;
+        }
+    }// compare()
+
+}// RuleComparatorEnum
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.enums;
+
+import snapads4j.model.stats.Stat;
+
+import java.util.function.Function;
+
+/**
+ * Numeric metrics carried by a {@link Stat}, bound to their field name in the Snap API.
+ *
+ * @author Yassine
+ */
+public enum StatMetricEnum {
+    IMPRESSIONS("impressions", Stat::getImpressions),
+    SWIPES("swipes", Stat::getSwipes),
+    VIEW_TIME_MILLIS("view_time_millis", Stat::getViewTimeMillis),
+    CONVERSION_PURCHASES("conversion_purchases", Stat::getConversionPurchases),
+    CONVERSION_PURCHASES_VALUE("conversion_purchases_value", Stat::getConversionPurchasesValue),
+    CONVERSION_PURCHASES_APP("conversion_purchases_app", Stat::getConversionPurchasesApp),
+    CONVERSION_PURCHASES_WEB("conversion_purchases_web", Stat::getConversionPurchasesWeb),
+    CONVERSION_SAVE("conversion_save", Stat::getConversionSave),
+    CONVERSION_START_CHECKOUT("conversion_start_checkout", Stat::getConversionStartCheckout),
+    CONVERSION_ADD_CART("conversion_add_cart", Stat::getConversionAddCart),
+    CONVERSION_VIEW_CONTENT("conversion_view_content", Stat::getConversionViewContent),
+    CONVERSION_ADD_BILLING("conversion_add_billing", Stat::getConversionAddBilling),
+    CONVERSION_SIGN_UPS("conversion_sign_ups", Stat::getConversionSignUps),
+    CONVERSION_SEARCHES("conversion_searches", Stat::getConversionSearches),
+    CONVERSION_LEVEL_COMPLETES("conversion_level_completes", Stat::getConversionLevelCompletes),
+    CONVERSION_APP_OPENS("conversion_app_opens", Stat::getConversionAppOpens),
+    CONVERSION_PAGE_VIEWS("conversion_page_views", Stat::getConversionPageViews),
+    CONVERSION_SUBSCRIBE("conversion_subscribe", Stat::getConversionSubscribe),
+    CONVERSION_AD_CLICK("conversion_ad_click", Stat::getConversionAdClick),
+    CONVERSION_AD_VIEW("conversion_ad_view", Stat::getConversionAdView),
+    CONVERSION_COMPLETE_TUTORIAL("conversion_complete_tutorial", Stat::getConversionCompleteTutorial),
+    CONVERSION_INVITE("conversion_invite", Stat::getConversionInvite),
+    CONVERSION_LOGIN("conversion_login", Stat::getConversionLogin),
+    CONVERSION_SHARE("conversion_share", Stat::getConversionShare),
+    CONVERSION_RESERVE("conversion_reserve", Stat::getConversionReserve),
+    CONVERSION_ACHIEVEMENT_UNLOCKED("conversion_achievement_unlocked", Stat::getConversionAchievementUnlocked),
+    CONVERSION_ADD_TO_WISHLIST("conversion_add_to_wishlist", Stat::getConversionAddToWishlist),
+    CONVERSION_SPEND_CREDITS("conversion_spend_credits", Stat::getConversionSpendCredits),
+    CONVERSION_RATE("conversion_rate", Stat::getConversionRate),
+    CONVERSION_START_TRIAL("conversion_start_trial", Stat::getConversionStartTrial),
+    CONVERSION_LIST_VIEW("conversion_list_view", Stat::getConversionListView),
+    CUSTOM_EVENT_1("custom_event_1", Stat::getCustom_event_1),
+    CUSTOM_EVENT_2("custom_event_2", Stat::getCustom_event_2),
+    CUSTOM_EVENT_3("custom_event_3", Stat::getCustom_event_3),
+    CUSTOM_EVENT_4("custom_event_4", Stat::getCustom_event_4),
+    CUSTOM_EVENT_5("custom_event_5", Stat::getCustom_event_5),
+    SPEND("spend", Stat::getSpend),
+    QUARTILE_1("quartile_1", Stat::getQuartile1),
+    QUARTILE_2("quartile_2", Stat::getQuartile2),
+    QUARTILE_3("quartile_3", Stat::getQuartile3),
+    VIEW_COMPLETION("view_completion", Stat::getViewCompletion),
+    SCREEN_TIME_MILLIS("screen_time_millis", Stat::getScreenTimeMillis),
+    VIDEO_VIEWS("video_views", Stat::getVideoViews),
+    ANDROID_INSTALLS("android_installs", Stat::getAndroidInstalls),
+    ATTACHMENT_AVG_VIEW_TIME_MILLIS("attachment_avg_view_time_millis", Stat::getAttachmentAvgViewTimeMillis),
+    ATTACHMENT_FREQUENCY("attachment_frequency", Stat::getAttachmentFrequency),
+    ATTACHMENT_QUARTILE_1("attachment_quartile_1", Stat::getAttachmentQuartile1),
+    ATTACHMENT_QUARTILE_2("attachment_quartile_2", Stat::getAttachmentQuartile2),
+    ATTACHMENT_QUARTILE_3("attachment_quartile_3", Stat::getAttachmentQuartile3),
+    ATTACHMENT_TOTAL_VIEW_TIME_MILLIS("attachment_total_view_time_millis", Stat::getAttachmentTotalViewTimeMillis),
+    ATTACHMENT_UNIQUES("attachment_uniques", Stat::getAttachmentUniques),
+    ATTACHMENT_VIEW_COMPLETION("attachment_view_completion", Stat::getAttachmentViewCompletion),
+    ATTACHMENT_VIDEO_VIEWS("attachment_video_views", Stat::getAttachmentVideoViews),
+    AVG_VIEW_TIME_MILLIS("avg_view_time_millis", Stat::getAvgViewTimeMillis),
+    AVG_SCREEN_TIME_MILLIS("avg_screen_time_millis", Stat::getAvgScreenTimeMillis),
+    FREQUENCY("frequency", Stat::getFrequency),
+    IOS_INSTALLS("ios_installs", Stat::getIosInstalls),
+    SWIPE_UP_PERCENT("swipe_up_percent", Stat::getSwipeUpPercent),
+    TOTAL_INSTALLS("total_installs", Stat::getTotalInstalls),
+    UNIQUES("uniques", Stat::getUniques),
+    VIDEO_VIEWS_TIME_BASED("video_views_time_based", Stat::getVideoViewsTimeBased),
+    VIDEO_VIEWS_15S("video_views_15s", Stat::getVideoViews15s),
+    STORY_OPENS("story_opens", Stat::getStoryOpens),
+    STORY_COMPLETES("story_completes", Stat::getStoryCompletes),
+    POSITION_IMPRESSIONS("position_impressions", Stat::getPositionImpressions),
+    POSITION_UNIQUES("position_uniques", Stat::getPositionUniques),
+    POSITION_FREQUENCY("position_frequency", Stat::getPositionFrequency),
+    POSITION_SCREEN_TIME_MILLIS("position_screen_time_millis", Stat::getPositionScreenTimeMillis),
+    POSITION_SWIPE_UP_PERCENT("position_swipe_up_percent", Stat::getPositionSwipeUpPercent),
+    AVG_POSITION_SCREEN_TIME_MILLIS("avg_position_screen_time_millis", Stat::getAvgPositionScreenTimeMillis),
+    SHARES("shares", Stat::getShares),
+    SAVES("saves", Stat::getSaves);
+
+    /**
+     * Field name used by the Snap API (fields parameter and JSON payload)
+     */
+    private final String field;
+
+    private final Function<Stat, Number> accessor;
+
+    StatMetricEnum(String field, Function<Stat, Number> accessor) {
+        this.field = field;
+        this.accessor = accessor;
+    }// StatMetricEnum()
+
+    public String getField() {
+        return field;
+    }// getField()
+
+    /**
+     * Read the metric from a stat, missing values are read as 0.
+     *
+     * @param stat Stat (may be null)
+     * @return metric value
+     */
+    public long valueOf(Stat stat) {
+        if (stat == null) {
+            return 0L;
+        }
+        Number value = accessor.apply(stat);
+        return value == null ? 0L : value.longValue();
+    }// valueOf()
+
+    /**
+     * Read the metric from a stat, missing values are kept as null.
+     *
+     * @param stat Stat (may be null)
+     * @return metric value or null
+     */
+    public Number rawValueOf(Stat stat) {
+        return stat == null ? null : accessor.apply(stat);
+    }// rawValueOf()
+
+}// StatMetricEnum
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.enums;
+
+/**
+ * Dimensions used to group locally cached stats
+ *
+ * @author Yassine
+ */
+public enum StatsGroupByEnum {
+    /**
+     * Entity which owns the stats (ad, ad squad, campaign...)
+     */
+    ENTITY,
+    /**
+     * Campaign of the entity
+     */
+    CAMPAIGN,
+    /**
+     * Ad squad of the entity
+     */
+    AD_SQUAD,
+    /**
+     * Day of the time bucket
+     */
+    DAY
+}// StatsGroupByEnum
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import lombok.Getter;
+import snapads4j.enums.ExportFormatEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.PageConsumer;
+import snapads4j.model.Pagination;
+import snapads4j.utils.JsonUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export entities (campaigns, ad squads, ads, creatives, medias...) as NDJSON or CSV.
+ * <p>
+ * Entities are written through a buffer as soon as their page is received, so memory doesn't
+ * depend on the number of entities. The exporter is a {@link PageConsumer} and can be given
+ * directly to the stream methods :
+ * <pre>
+ * try (EntityExporter&lt;Campaign&gt; exporter = new EntityExporter&lt;&gt;(channel, Campaign.class, ExportFormatEnum.NDJSON, true)) {
+ *     snapCampaigns.streamAllCampaigns(token, adAccountId, 200, exporter);
+ * }
+ * </pre>
+ * CSV columns are the JSON properties of the entity class, in the order used by the NDJSON export.
+ *
+ * @param <T> Type of entity
+ * @author Yassine
+ */
+public class EntityExporter<T> implements PageConsumer<T>, Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final char CSV_SEPARATOR = ',';
+
+    private static final String NDJSON_LINE_SEPARATOR = "\n";
+
+    /**
+     * CSV records end with CRLF (RFC 4180), line breaks inside a quoted value are kept as is
+     */
+    private static final String CSV_LINE_SEPARATOR = "\r\n";
+
+    private final ExportFormatEnum format;
+
+    private final ObjectMapper mapper;
+
+    private final OutputStream out;
+
+    private JsonGenerator generator;
+
+    private ObjectWriter objectWriter;
+
+    private Writer csvWriter;
+
+    private List<String> columns;
+
+    /**
+     * Number of entities written
+     */
+    @Getter
+    private long count;
+
+    private boolean closed;
+
+    public EntityExporter(WritableByteChannel channel, Class<T> type, ExportFormatEnum format, boolean gzip) throws SnapArgumentException, IOException {
+        if (channel == null) {
+            throw new SnapArgumentException("Channel is required");
+        }
+        if (type == null) {
+            throw new SnapArgumentException("Entity type is required");
+        }
+        if (format == null) {
+            throw new SnapArgumentException("Export format is required");
+        }
+        this.format = format;
+        this.mapper = JsonUtils.initMapper();
+        OutputStream stream = Channels.newOutputStream(channel);
+        if (gzip) {
+            stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+        }
+        this.out = new BufferedOutputStream(stream, BUFFER_SIZE);
+        if (format == ExportFormatEnum.NDJSON) {
+            this.generator = mapper.getFactory().createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+            this.objectWriter = mapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        } else {
+            this.csvWriter = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            this.columns = findColumns(type);
+            writeCsvLine(columns);
+        }
+    }// EntityExporter()
+
+    /**
+     * Write all pages
+     *
+     * @param pages Pages of entities
+     * @throws IOException if entities can't be written
+     */
+    public void writeAll(List<Pagination<T>> pages) throws IOException {
+        if (pages != null) {
+            for (Pagination<T> page : pages) {
+                accept(page);
+            }
+        }
+    }// writeAll()
+
+    /**
+     * Write entities of a page
+     *
+     * @param page Page of entities
+     * @throws IOException if entities can't be written
+     */
+    @Override
+    public void accept(Pagination<T> page) throws IOException {
+        if (page != null && page.getResults() != null) {
+            for (T entity : page.getResults()) {
+                write(entity);
+            }
+        }
+    }// accept()
+
+    /**
+     * Write an entity, null entities are ignored
+     *
+     * @param entity Entity
+     * @throws IOException if the entity can't be written
+     */
+    public void write(T entity) throws IOException {
+        if (closed) {
+            throw new IOException("Exporter is closed");
+        }
+        if (entity == null) {
+            return;
+        }
+        if (format == ExportFormatEnum.NDJSON) {
+            objectWriter.writeValue(generator, entity);
+            generator.writeRaw(NDJSON_LINE_SEPARATOR);
+        } else {
+            JsonNode node = mapper.valueToTree(entity);
+            List<String> values = new ArrayList<>(columns.size());
+            for (String column : columns) {
+                JsonNode value = node.get(column);
+                if (value == null || value.isNull()) {
+                    values.add(null);
+                } else if (value.isContainerNode()) {
+                    values.add(mapper.writeValueAsString(value));
+                } else {
+                    values.add(value.asText());
+                }
+            }
+            writeCsvLine(values);
+        }
+        ++count;
+    }// write()
+
+    /**
+     * Flush buffered entities, end the gzip stream if any and close the channel.
+     *
+     * @throws IOException if the output can't be flushed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (generator != null) {
+                generator.close();
+            }
+            if (csvWriter != null) {
+                csvWriter.flush();
+            }
+        } finally {
+            out.close();
+        }
+    }// close()
+
+    private void writeCsvLine(List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); ++i) {
+            if (i > 0) {
+                csvWriter.write(CSV_SEPARATOR);
+            }
+            writeCsvValue(values.get(i));
+        }
+        csvWriter.write(CSV_LINE_SEPARATOR);
+    }// writeCsvLine()
+
+    private void writeCsvValue(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; ++i) {
+            char c = value.charAt(i);
+            quoted = c == CSV_SEPARATOR || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            csvWriter.write(value);
+            return;
+        }
+        csvWriter.write('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                csvWriter.write('"');
+            }
+            csvWriter.write(c);
+        }
+        csvWriter.write('"');
+    }// writeCsvValue()
+
+    private List<String> findColumns(Class<T> type) {
+        BeanDescription description = mapper.getSerializationConfig().introspect(mapper.constructType(type));
+        List<String> results = new ArrayList<>();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            if (property.couldSerialize()) {
+                results.add(property.getName());
+            }
+        }
+        return results;
+    }// findColumns()
+
+}// EntityExporter<T>
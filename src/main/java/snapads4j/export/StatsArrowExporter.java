@@ -0,0 +1,342 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.export;
+
+import lombok.Getter;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.message.ArrowDictionaryBatch;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.Stat;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Export stats as an Arrow IPC stream.
+ * <p>
+ * Each time bucket of each entity becomes a row : entity_id (dictionary encoded), entity_type,
+ * start_time, end_time (UTC timestamps) then one nullable 64 bits column per metric, named after the
+ * Snap API field. Pages are written as record batches as soon as they are received, only the entity
+ * dictionary is kept between pages : new entity IDs are sent as dictionary deltas before each batch.
+ * <p>
+ * Can be plugged directly to the stream methods of {@link snapads4j.stats.SnapStats} :
+ * <pre>
+ * try (StatsArrowExporter exporter = new StatsArrowExporter(channel)) {
+ *     snapStats.streamAdAccountStats(token, 200, adAccountID, start, end, GranularityEnum.DAY, exporter::writePage);
+ * }
+ * </pre>
+ * Arrow dependencies are optional, they must be added by the application using this exporter.
+ *
+ * @author Yassine
+ */
+public class StatsArrowExporter implements Closeable {
+
+    public static final String ENTITY_ID = "entity_id";
+
+    public static final String ENTITY_TYPE = "entity_type";
+
+    public static final String START_TIME = "start_time";
+
+    public static final String END_TIME = "end_time";
+
+    private static final long ENTITY_DICTIONARY_ID = 0L;
+
+    private static final String TIME_ZONE = "UTC";
+
+    private final WritableByteChannel channel;
+
+    private final List<StatMetricEnum> metrics;
+
+    private final BufferAllocator allocator;
+
+    private final VarCharVector dictionaryVector;
+
+    private final Map<String, Integer> entityCodes;
+
+    private final DictionaryProvider.MapDictionaryProvider provider;
+
+    private final VectorSchemaRoot root;
+
+    private final IntVector entityVector;
+
+    private final VarCharVector typeVector;
+
+    private final TimeStampMilliTZVector startTimeVector;
+
+    private final TimeStampMilliTZVector endTimeVector;
+
+    private final BigIntVector[] metricVectors;
+
+    private DeltaStreamWriter writer;
+
+    /**
+     * Number of dictionary entries already sent
+     */
+    private int dictionaryWritten;
+
+    /**
+     * Number of rows written
+     */
+    @Getter
+    private long rowCount;
+
+    private boolean closed;
+
+    public StatsArrowExporter(WritableByteChannel channel) throws SnapArgumentException {
+        this(channel, Arrays.asList(StatMetricEnum.values()));
+    }// StatsArrowExporter()
+
+    public StatsArrowExporter(WritableByteChannel channel, Collection<StatMetricEnum> metrics) throws SnapArgumentException {
+        if (channel == null) {
+            throw new SnapArgumentException("Channel is required");
+        }
+        if (CollectionUtils.isEmpty(metrics)) {
+            throw new SnapArgumentException("At least one metric is required");
+        }
+        this.channel = channel;
+        this.metrics = new ArrayList<>(metrics);
+        this.allocator = new RootAllocator();
+        this.entityCodes = new HashMap<>();
+        ArrowType.Int indexType = new ArrowType.Int(32, true);
+        DictionaryEncoding encoding = new DictionaryEncoding(ENTITY_DICTIONARY_ID, false, indexType);
+        this.dictionaryVector = new VarCharVector(new Field(ENTITY_ID, FieldType.notNullable(ArrowType.Utf8.INSTANCE), null), allocator);
+        this.provider = new DictionaryProvider.MapDictionaryProvider(new Dictionary(dictionaryVector, encoding));
+        this.root = VectorSchemaRoot.create(buildSchema(this.metrics, encoding), allocator);
+        this.entityVector = (IntVector) root.getVector(ENTITY_ID);
+        this.typeVector = (VarCharVector) root.getVector(ENTITY_TYPE);
+        this.startTimeVector = (TimeStampMilliTZVector) root.getVector(START_TIME);
+        this.endTimeVector = (TimeStampMilliTZVector) root.getVector(END_TIME);
+        this.metricVectors = new BigIntVector[this.metrics.size()];
+        for (int i = 0; i < metricVectors.length; ++i) {
+            metricVectors[i] = (BigIntVector) root.getVector(this.metrics.get(i).getField());
+        }
+    }// StatsArrowExporter()
+
+    /**
+     * Schema of the stream
+     *
+     * @return schema
+     */
+    public Schema getSchema() {
+        return root.getSchema();
+    }// getSchema()
+
+    /**
+     * Write all pages returned by {@link snapads4j.stats.SnapStats}.
+     *
+     * @param pages Pages of stats
+     * @throws IOException if the stream can't be written
+     */
+    public void writeAll(List<Pagination<TimeSerieStat>> pages) throws IOException {
+        if (pages != null) {
+            for (Pagination<TimeSerieStat> page : pages) {
+                writePage(page);
+            }
+        }
+    }// writeAll()
+
+    /**
+     * Write a page as a record batch. Stats without ID are ignored.
+     *
+     * @param page Page of stats
+     * @throws IOException if the stream can't be written
+     */
+    public void writePage(Pagination<TimeSerieStat> page) throws IOException {
+        if (closed) {
+            throw new IOException("Exporter is closed");
+        }
+        if (page == null || CollectionUtils.isEmpty(page.getResults())) {
+            return;
+        }
+        root.allocateNew();
+        int row = 0;
+        for (TimeSerieStat stat : page.getResults()) {
+            if (stat == null || StringUtils.isEmpty(stat.getId())) {
+                continue;
+            }
+            int entity = encode(stat.getId());
+            String type = stat.getType() == null ? null : stat.getType().toString();
+            if (CollectionUtils.isNotEmpty(stat.getTimeseries())) {
+                for (TimeSerie serie : stat.getTimeseries()) {
+                    setRow(row++, entity, type, serie.getStartTime(), serie.getEndTime(), serie.getStats());
+                }
+            } else if (stat.getStats() != null) {
+                setRow(row++, entity, type, stat.getStartTime(), stat.getEndTime(), stat.getStats());
+            }
+        }
+        if (row > 0) {
+            root.setRowCount(row);
+            dictionaryVector.setValueCount(entityCodes.size());
+            if (writer == null) {
+                // The first dictionary batch is the dictionary content at writer creation
+                startWriter();
+            } else if (dictionaryWritten < entityCodes.size()) {
+                writeDictionaryDelta(dictionaryWritten, entityCodes.size());
+            }
+            dictionaryWritten = entityCodes.size();
+            writer.writeBatch();
+            rowCount += row;
+        }
+        root.clear();
+    }// writePage()
+
+    /**
+     * End the stream, close the channel and release memory.
+     *
+     * @throws IOException if the end of the stream can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (writer == null) {
+                startWriter();
+            }
+            try {
+                writer.end();
+            } finally {
+                writer.close();
+            }
+        } finally {
+            root.close();
+            dictionaryVector.close();
+            allocator.close();
+        }
+    }// close()
+
+    private void startWriter() throws IOException {
+        writer = new DeltaStreamWriter(root, provider, channel);
+        writer.start();
+    }// startWriter()
+
+    private int encode(String id) {
+        Integer code = entityCodes.get(id);
+        if (code == null) {
+            code = entityCodes.size();
+            entityCodes.put(id, code);
+            dictionaryVector.setSafe(code, id.getBytes(StandardCharsets.UTF_8));
+        }
+        return code;
+    }// encode()
+
+    private void setRow(int row, int entity, String type, Date startTime, Date endTime, Stat stats) {
+        entityVector.setSafe(row, entity);
+        if (type == null) {
+            typeVector.setNull(row);
+        } else {
+            typeVector.setSafe(row, type.getBytes(StandardCharsets.UTF_8));
+        }
+        setTime(startTimeVector, row, startTime);
+        setTime(endTimeVector, row, endTime);
+        for (int i = 0; i < metricVectors.length; ++i) {
+            Number value = metrics.get(i).rawValueOf(stats);
+            if (value == null) {
+                metricVectors[i].setNull(row);
+            } else {
+                metricVectors[i].setSafe(row, value.longValue());
+            }
+        }
+    }// setRow()
+
+    private static void setTime(TimeStampMilliTZVector vector, int row, Date date) {
+        if (date == null) {
+            vector.setNull(row);
+        } else {
+            vector.setSafe(row, date.getTime());
+        }
+    }// setTime()
+
+    private void writeDictionaryDelta(int from, int to) throws IOException {
+        try (VarCharVector delta = new VarCharVector(dictionaryVector.getField(), allocator)) {
+            delta.allocateNew(to - from);
+            for (int i = from; i < to; ++i) {
+                delta.copyFromSafe(i, i - from, dictionaryVector);
+            }
+            delta.setValueCount(to - from);
+            VectorSchemaRoot deltaRoot = new VectorSchemaRoot(Collections.singletonList(delta.getField()), Collections.singletonList(delta), to - from);
+            ArrowRecordBatch batch = new VectorUnloader(deltaRoot).getRecordBatch();
+            try (ArrowDictionaryBatch dictionaryBatch = new ArrowDictionaryBatch(ENTITY_DICTIONARY_ID, batch, true)) {
+                writer.writeDelta(dictionaryBatch);
+            }
+        }
+    }// writeDictionaryDelta()
+
+    private static Schema buildSchema(List<StatMetricEnum> metrics, DictionaryEncoding encoding) {
+        List<Field> fields = new ArrayList<>();
+        fields.add(new Field(ENTITY_ID, new FieldType(false, encoding.getIndexType(), encoding), null));
+        fields.add(new Field(ENTITY_TYPE, FieldType.nullable(ArrowType.Utf8.INSTANCE), null));
+        ArrowType timestamp = new ArrowType.Timestamp(TimeUnit.MILLISECOND, TIME_ZONE);
+        fields.add(new Field(START_TIME, FieldType.nullable(timestamp), null));
+        fields.add(new Field(END_TIME, FieldType.nullable(timestamp), null));
+        ArrowType int64 = new ArrowType.Int(64, true);
+        for (StatMetricEnum metric : metrics) {
+            fields.add(new Field(metric.getField(), FieldType.nullable(int64), null));
+        }
+        return new Schema(fields);
+    }// buildSchema()
+
+    /**
+     * Stream writer able to send dictionary deltas between record batches
+     */
+    private static final class DeltaStreamWriter extends ArrowStreamWriter {
+
+        DeltaStreamWriter(VectorSchemaRoot root, DictionaryProvider provider, WritableByteChannel out) {
+            super(root, provider, out);
+        }// DeltaStreamWriter()
+
+        void writeDelta(ArrowDictionaryBatch batch) throws IOException {
+            writeDictionaryBatch(batch);
+        }// writeDelta()
+
+    }// DeltaStreamWriter
+
+}// StatsArrowExporter
@@ -33,6 +33,7 @@ import org.apache.logging.log4j.Logger;
 import snapads4j.enums.MediaTypeEnum;
 import snapads4j.enums.MediaTypeImageEnum;
 import snapads4j.exceptions.*;
+import snapads4j.model.PageConsumer;
 import snapads4j.model.Pagination;
 import snapads4j.model.media.*;
 import snapads4j.utils.*;
@@ -309,19 +310,29 @@ public class SnapMedia implements SnapMediaInterface {
     @Override
     public List<Pagination<CreativeMedia>> getAllMedia(String oAuthAccessToken, String adAccountId, int limit)
             throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException {
+        List<Pagination<CreativeMedia>> results = new ArrayList<>();
+        this.streamAllMedia(oAuthAccessToken, adAccountId, limit, results::add);
+        return results;
+    }// getAllMedia()
+
+    @Override
+    public void streamAllMedia(String oAuthAccessToken, String adAccountId, int limit, PageConsumer<CreativeMedia> consumer)
+            throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException {
         if (StringUtils.isEmpty(oAuthAccessToken)) {
             throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
         }
         if (StringUtils.isEmpty(adAccountId)) {
             throw new SnapArgumentException("The Ad Account ID is required");
         }
+        if (consumer == null) {
+            throw new SnapArgumentException("Consumer is required");
+        }
         if(limit < minLimitPagination){
             throw new SnapArgumentException("Minimum limit is " + minLimitPagination);
         }
         if(limit > maxLimitPagination){
             throw new SnapArgumentException("Maximum limit is " + maxLimitPagination);
         }
-        List<Pagination<CreativeMedia>> results = new ArrayList<>();
         String url = this.endpointAllMedias.replace("{ad_account_id}", adAccountId);
         url += "?limit=" + limit;
         boolean hasNextPage = true;
@@ -339,7 +350,7 @@ public class SnapMedia implements SnapMediaInterface {
                     ObjectMapper mapper = JsonUtils.initMapper();
                     SnapHttpResponseMedia responseFromJson = mapper.readValue(body, SnapHttpResponseMedia.class);
                     if (responseFromJson != null) {
-                        results.add(new Pagination<>(numberPage++,responseFromJson.getAllMedia()));
+                        consumer.accept(new Pagination<>(numberPage++,responseFromJson.getAllMedia()));
                         hasNextPage = responseFromJson.hasPaging();
                         if(hasNextPage){
                             url = responseFromJson.getPaging().getNextLink();
@@ -352,8 +363,7 @@ public class SnapMedia implements SnapMediaInterface {
                 throw new SnapExecutionException("Impossible to get all medias", e);
             }
         }
-        return results;
-    }// getAllMedia()
+    }// streamAllMedia()
 
     @Override
     public Optional<CreativeMedia> getSpecificMedia(String oAuthAccessToken, String mediaId)
@@ -21,6 +21,7 @@ import snapads4j.exceptions.SnapArgumentException;
 import snapads4j.exceptions.SnapExecutionException;
 import snapads4j.exceptions.SnapOAuthAccessTokenException;
 import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.PageConsumer;
 import snapads4j.model.Pagination;
 import snapads4j.model.media.CreativeMedia;
 
@@ -105,6 +106,19 @@ public interface SnapMediaInterface {
     List<Pagination<CreativeMedia>> getAllMedia(String oAuthAccessToken, String adAccountId, int limit)
             throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException;
 
+    /**
+     * Get all medias of an ad account, each page is handed to the consumer as soon as it is fetched
+     * instead of keeping all pages in memory.
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param adAccountId      AD Account ID
+     * @param limit            Number of results per page
+     * @param consumer         Consumer of the pages
+     * @see #getAllMedia(String, String, int)
+     */
+    void streamAllMedia(String oAuthAccessToken, String adAccountId, int limit, PageConsumer<CreativeMedia> consumer)
+            throws SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException;
+
     /**
      * @param oAuthAccessToken
      * @param mediaId
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.model;
+
+import java.io.IOException;
+
+/**
+ * Callback receiving the pages of a paginated result one by one, as soon as they are fetched.
+ * It lets callers process huge results without keeping all pages in memory.
+ *
+ * @param <T> Type of the page's results
+ * @author Yassine
+ */
+@FunctionalInterface
+public interface PageConsumer<T> {
+
+    /**
+     * Consume a page
+     *
+     * @param page Page fetched
+     * @throws IOException If the page can't be processed
+     */
+    void accept(Pagination<T> page) throws IOException;
+
+}// PageConsumer<T>
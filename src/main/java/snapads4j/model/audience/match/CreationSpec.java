@@ -18,6 +18,7 @@ package snapads4j.model.audience.match;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -27,6 +28,7 @@ import snapads4j.enums.TypeCreationSpecDetails;
 @Setter
 @JsonInclude(Include.NON_EMPTY)
 @ToString
+@EqualsAndHashCode
 public class CreationSpec {
 
     /**
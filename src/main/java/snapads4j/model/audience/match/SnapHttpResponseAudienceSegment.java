@@ -44,7 +44,7 @@ public class SnapHttpResponseAudienceSegment extends SnapHttpResponse implements
     } // getSpecificAudienceSegment()
 
     public List<AudienceSegment> getAllAudienceSegment() {
-        return segments.stream().map(SnapInnerAudienceSegment::getSegment).collect(Collectors.toList());
+        return segments.stream().map(s -> s != null ? s.getSegment() : null).collect(Collectors.toList());
     } // getAllAudienceSegment()
 
     @Override
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.model.stats;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import snapads4j.enums.BreakdownEnum;
+
+import java.util.List;
+
+/**
+ * Stats of the children of an entity, returned when stats are requested with a breakdown
+ *
+ * @author Yassine
+ */
+@Getter
+@Setter
+@ToString
+@JsonInclude(Include.NON_EMPTY)
+public class BreakdownStats {
+
+    @JsonProperty("ad")
+    private List<TimeSerieStat> ad;
+
+    @JsonProperty("adsquad")
+    private List<TimeSerieStat> adsquad;
+
+    @JsonProperty("campaign")
+    private List<TimeSerieStat> campaign;
+
+    /**
+     * Get children stats of a breakdown
+     *
+     * @param breakdown Breakdown
+     * @return children stats (may be null)
+     */
+    public List<TimeSerieStat> get(BreakdownEnum breakdown) {
+        switch (breakdown) {
+            case AD:
+                return ad;
+            case ADSQUAD:
+                return adsquad;
+            default:
+                return campaign;
+        }
+    }// get()
+
+}// BreakdownStats
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.model.stats;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import lombok.ToString;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stats of a dimension value, returned when stats are requested with a report dimension
+ * (example : {"country": "us", "impressions": 100, ...}).
+ * Textual properties which aren't metrics are the dimension values.
+ *
+ * @author Yassine
+ */
+@ToString(callSuper = true)
+@JsonInclude(Include.NON_EMPTY)
+public class DimensionStat extends Stat {
+
+    private Map<String, String> dimensions = new TreeMap<>();
+
+    /**
+     * Dimension values, sorted by dimension name
+     *
+     * @return dimensions
+     */
+    @JsonAnyGetter
+    public Map<String, String> getDimensions() {
+        return dimensions;
+    }// getDimensions()
+
+    @JsonAnySetter
+    public void setDimension(String name, Object value) {
+        if (value instanceof String) {
+            dimensions.put(name, (String) value);
+        }
+    }// setDimension()
+
+}// DimensionStat
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.model.stats;
+
+import java.io.IOException;
+
+/**
+ * Callback receiving the domains of a pixel one by one, as soon as they are decoded.
+ * Only the domain being handed over is held in memory.
+ *
+ * @author Yassine
+ */
+@FunctionalInterface
+public interface DomainConsumer {
+
+    /**
+     * Consume a domain
+     *
+     * @param domain Domain decoded
+     * @throws IOException If the domain can't be processed
+     */
+    void accept(Domain domain) throws IOException;
+
+}// DomainConsumer
@@ -24,6 +24,7 @@ import lombok.Setter;
 import lombok.ToString;
 
 import java.util.Date;
+import java.util.List;
 
 @Getter
 @Setter
@@ -53,4 +54,10 @@ public class TimeSerie {
     @JsonProperty("browser_type_breakdown")
     private BrowserTypeBreakdown browserTypeBreakdown;
 
+    /**
+     * Stats by dimension value, set when stats are requested with a report dimension
+     */
+    @JsonProperty("dimension_stats")
+    private List<DimensionStat> dimensionStats;
+
 }// TimeSerieStat
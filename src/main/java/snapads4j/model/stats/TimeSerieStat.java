@@ -71,4 +71,16 @@ public class TimeSerieStat {
 
     private String domain;
 
+    /**
+     * Children stats, set when stats are requested with a breakdown
+     */
+    @JsonProperty("breakdown_stats")
+    private BreakdownStats breakdownStats;
+
+    /**
+     * Stats by dimension value, set when total stats are requested with a report dimension
+     */
+    @JsonProperty("dimension_stats")
+    private List<DimensionStat> dimensionStats;
+
 }// TimeSerieStat
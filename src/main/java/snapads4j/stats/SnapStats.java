@@ -15,10 +15,11 @@
  */
 package snapads4j.stats;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Getter;
 import lombok.Setter;
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -29,7 +30,11 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import snapads4j.enums.*;
 import snapads4j.exceptions.*;
+import snapads4j.model.PageConsumer;
 import snapads4j.model.Pagination;
+import snapads4j.model.Paging;
+import snapads4j.model.stats.Domain;
+import snapads4j.model.stats.DomainConsumer;
 import snapads4j.model.stats.SnapHttpResponseTimeseriesStat;
 import snapads4j.model.stats.SnapHttpResponseTotalStat;
 import snapads4j.model.stats.TimeSerieStat;
@@ -37,9 +42,11 @@ import snapads4j.utils.EntityUtilsWrapper;
 import snapads4j.utils.FileProperties;
 import snapads4j.utils.HttpUtils;
 import snapads4j.utils.JsonUtils;
+import snapads4j.utils.RateLimiter;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.util.*;
 
 /**
@@ -75,10 +82,18 @@ public class SnapStats implements SnapStatsInterface {
 
     private EntityUtilsWrapper entityUtilsWrapper;
 
-    private final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX");
+    /**
+     * Rate limiter shared by every request of this instance (null for no limit), one permit is taken by page
+     */
+    private RateLimiter rateLimiter;
 
     private static final Logger LOGGER = LogManager.getLogger(SnapStats.class);
 
+    /**
+     * Mapper shared by every request, configured once
+     */
+    private static final ObjectMapper MAPPER = JsonUtils.initMapper();
+
     public SnapStats() throws IOException{
         this.fp = new FileProperties();
         this.apiUrl = (String) fp.getProperties().get("api.url");
@@ -103,56 +118,45 @@ public class SnapStats implements SnapStatsInterface {
     public List<Pagination<TimeSerieStat>> getCampaignStats(String oAuthAccessToken, int limit, String campaignID, Date startTime, Date endTime, GranularityEnum granularity, List<String> fields, BreakdownEnum breakdown, Boolean test, String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow,
                                                     ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
                                                     Boolean omitEmpty, List<String> conversionSourceTypes) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
-        checkParams(oAuthAccessToken, startTime, endTime, granularity, limit);
+        List<Pagination<TimeSerieStat>> results = new ArrayList<>();
+        this.streamCampaignStats(oAuthAccessToken, limit, campaignID, startTime, endTime, granularity, fields, breakdown, test, reportDimension, swipeUpAttributionWindow, viewAttributionWindow, positionStats, omitEmpty, conversionSourceTypes, results::add);
+        return results;
+    }// getCampaignStats()
+
+    @Override
+    public void streamCampaignStats(String oAuthAccessToken, int limit, String campaignID, Date startTime, Date endTime, GranularityEnum granularity, PageConsumer<TimeSerieStat> consumer) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        this.streamCampaignStats(oAuthAccessToken, limit, campaignID, startTime, endTime, granularity, null, null, null, null, null, null, null, null, null, consumer);
+    }// streamCampaignStats()
+
+    @Override
+    public void streamCampaignStats(String oAuthAccessToken, int limit, String campaignID, Date startTime, Date endTime, GranularityEnum granularity, List<String> fields, BreakdownEnum breakdown, Boolean test, String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow,
+                                                    ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
+                                                    Boolean omitEmpty, List<String> conversionSourceTypes, PageConsumer<TimeSerieStat> consumer) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        StatsQuery query = toQuery(oAuthAccessToken, limit, startTime, endTime, granularity, fields, breakdown, test, reportDimension, swipeUpAttributionWindow, viewAttributionWindow, positionStats, omitEmpty, conversionSourceTypes);
+        this.streamCampaignStats(oAuthAccessToken, campaignID, query, consumer);
+    }// streamCampaignStats()
+
+    @Override
+    public List<Pagination<TimeSerieStat>> getCampaignStats(String oAuthAccessToken, String campaignID, StatsQuery query) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        List<Pagination<TimeSerieStat>> results = new ArrayList<>();
+        this.streamCampaignStats(oAuthAccessToken, campaignID, query, results::add);
+        return results;
+    }// getCampaignStats()
+
+    @Override
+    public void streamCampaignStats(String oAuthAccessToken, String campaignID, StatsQuery query, PageConsumer<TimeSerieStat> consumer) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        checkQuery(oAuthAccessToken, query);
         if (StringUtils.isEmpty(campaignID)) {
             throw new SnapArgumentException("Campaign ID is required");
         }
-        List<Pagination<TimeSerieStat>> results = new ArrayList<>();
-        String url = this.endpointCampaignStats.replace("{campaign_id}", campaignID);
-        url = prepareFinalUrl(url, startTime, endTime, granularity, fields, breakdown, test, reportDimension, swipeUpAttributionWindow, viewAttributionWindow, positionStats, omitEmpty, conversionSourceTypes, null);
-        url += "&limit=" + limit;
-        boolean hasNextPage = true;
-        int numberPage = 1;
-        while(hasNextPage) {
-            HttpGet request = HttpUtils.prepareGetRequest(url, oAuthAccessToken);
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                int statusCode = response.getStatusLine().getStatusCode();
-                HttpEntity entity = response.getEntity();
-                if (entity != null) {
-                    String body = entityUtilsWrapper.toString(entity);
-                    if (statusCode >= 300) {
-                        throw SnapExceptionsUtils.getResponseExceptionByStatusCode(statusCode);
-                    }
-                    ObjectMapper mapper = JsonUtils.initMapper();
-                    if (granularity == GranularityEnum.TOTAL) {
-                        SnapHttpResponseTotalStat responseFromJson = mapper.readValue(body, SnapHttpResponseTotalStat.class);
-                        if (responseFromJson != null) {
-                            results.add(new Pagination<>(numberPage++, responseFromJson.getTotalStats()));
-                            hasNextPage = responseFromJson.hasPaging();
-                            if(hasNextPage){
-                                url = responseFromJson.getPaging().getNextLink();
-                                LOGGER.info("Next url page pagination is {}", url);
-                            }
-                        }
-                    } else {
-                        SnapHttpResponseTimeseriesStat responseFromJson = mapper.readValue(body, SnapHttpResponseTimeseriesStat.class);
-                        if (responseFromJson != null) {
-                            results.add(new Pagination<>(numberPage++,responseFromJson.getTimeseriesStats()));
-                            hasNextPage = responseFromJson.hasPaging();
-                            if(hasNextPage){
-                                url = responseFromJson.getPaging().getNextLink();
-                                LOGGER.info("Next url page pagination is {}", url);
-                            }
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                LOGGER.error("Impossible to get campaign stats, campaignId = {}", campaignID, e);
-                throw new SnapExecutionException("Impossible to get campaign stats", e);
-            }
+        String url = statsUrl(this.endpointCampaignStats, "{campaign_id}", campaignID, query);
+        try {
+            fetchStats(url, oAuthAccessToken, query.getGranularity(), consumer);
+        } catch (IOException e) {
+            LOGGER.error("Impossible to get campaign stats, campaignId = {}", campaignID, e);
+            throw new SnapExecutionException("Impossible to get campaign stats", e);
         }
-        return results;
-    }// getCampaignStats()
+    }// streamCampaignStats()
 
     @Override
     public List<Pagination<TimeSerieStat>> getAdAccountStats(String oAuthAccessToken, int limit, String adAccountID, Date startTime, Date endTime, GranularityEnum granularity) throws SnapExecutionException, SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException {
@@ -164,56 +168,46 @@ public class SnapStats implements SnapStatsInterface {
                                                      String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow,
                                                      ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
                                                      Boolean omitEmpty, List<String> conversionSourceTypes) throws SnapExecutionException, SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException {
-        checkParams(oAuthAccessToken, startTime, endTime, granularity, limit);
+        List<Pagination<TimeSerieStat>> results = new ArrayList<>();
+        this.streamAdAccountStats(oAuthAccessToken, limit, adAccountID, startTime, endTime, granularity, breakdown, test, reportDimension, swipeUpAttributionWindow, viewAttributionWindow, positionStats, omitEmpty, conversionSourceTypes, results::add);
+        return results;
+    }// getAdAccountStats()
+
+    @Override
+    public void streamAdAccountStats(String oAuthAccessToken, int limit, String adAccountID, Date startTime, Date endTime, GranularityEnum granularity, PageConsumer<TimeSerieStat> consumer) throws SnapExecutionException, SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException {
+        this.streamAdAccountStats(oAuthAccessToken, limit, adAccountID, startTime, endTime, granularity, null, null, null, null, null, null, null, null, consumer);
+    }// streamAdAccountStats()
+
+    @Override
+    public void streamAdAccountStats(String oAuthAccessToken, int limit, String adAccountID, Date startTime, Date endTime, GranularityEnum granularity, BreakdownEnum breakdown, Boolean test,
+                                                     String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow,
+                                                     ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
+                                                     Boolean omitEmpty, List<String> conversionSourceTypes, PageConsumer<TimeSerieStat> consumer) throws SnapExecutionException, SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException {
+        StatsQuery query = toQuery(oAuthAccessToken, limit, startTime, endTime, granularity, null, breakdown, test, reportDimension, swipeUpAttributionWindow, viewAttributionWindow, positionStats, omitEmpty, conversionSourceTypes);
+        this.streamAdAccountStats(oAuthAccessToken, adAccountID, query, consumer);
+    }// streamAdAccountStats()
+
+    @Override
+    public List<Pagination<TimeSerieStat>> getAdAccountStats(String oAuthAccessToken, String adAccountID, StatsQuery query) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        List<Pagination<TimeSerieStat>> results = new ArrayList<>();
+        this.streamAdAccountStats(oAuthAccessToken, adAccountID, query, results::add);
+        return results;
+    }// getAdAccountStats()
+
+    @Override
+    public void streamAdAccountStats(String oAuthAccessToken, String adAccountID, StatsQuery query, PageConsumer<TimeSerieStat> consumer) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        checkQuery(oAuthAccessToken, query);
         if (StringUtils.isEmpty(adAccountID)) {
             throw new SnapArgumentException("AdAccount ID is required");
         }
-        List<Pagination<TimeSerieStat>> results = new ArrayList<>();
-        String url = this.endpointAdAccountStats.replace("{ad_account_id}", adAccountID);
-        url = prepareFinalUrl(url, startTime, endTime, granularity, null, breakdown, test, reportDimension, swipeUpAttributionWindow, viewAttributionWindow, positionStats, omitEmpty, conversionSourceTypes, null);
-        url += "&limit=" + limit;
-        boolean hasNextPage = true;
-        int numberPage = 1;
-        while(hasNextPage) {
-            HttpGet request = HttpUtils.prepareGetRequest(url, oAuthAccessToken);
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                int statusCode = response.getStatusLine().getStatusCode();
-                HttpEntity entity = response.getEntity();
-                if (entity != null) {
-                    String body = entityUtilsWrapper.toString(entity);
-                    if (statusCode >= 300) {
-                        throw SnapExceptionsUtils.getResponseExceptionByStatusCode(statusCode);
-                    }
-                    ObjectMapper mapper = JsonUtils.initMapper();
-                    if (granularity == GranularityEnum.TOTAL) {
-                        SnapHttpResponseTotalStat responseFromJson = mapper.readValue(body, SnapHttpResponseTotalStat.class);
-                        if (responseFromJson != null) {
-                            results.add(new Pagination<>(numberPage++, responseFromJson.getTotalStats()));
-                            hasNextPage = responseFromJson.hasPaging();
-                            if(hasNextPage){
-                                url = responseFromJson.getPaging().getNextLink();
-                                LOGGER.info("Next url page pagination is {}", url);
-                            }
-                        }
-                    } else {
-                        SnapHttpResponseTimeseriesStat responseFromJson = mapper.readValue(body, SnapHttpResponseTimeseriesStat.class);
-                        if (responseFromJson != null) {
-                            results.add(new Pagination<>(numberPage++,responseFromJson.getTimeseriesStats()));
-                            hasNextPage = responseFromJson.hasPaging();
-                            if(hasNextPage){
-                                url = responseFromJson.getPaging().getNextLink();
-                                LOGGER.info("Next url page pagination is {}", url);
-                            }
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                LOGGER.error("Impossible to get ad account stats, adAccountID = {}", adAccountID, e);
-                throw new SnapExecutionException("Impossible to get ad account stats", e);
-            }
+        String url = statsUrl(this.endpointAdAccountStats, "{ad_account_id}", adAccountID, query);
+        try {
+            fetchStats(url, oAuthAccessToken, query.getGranularity(), consumer);
+        } catch (IOException e) {
+            LOGGER.error("Impossible to get ad account stats, adAccountID = {}", adAccountID, e);
+            throw new SnapExecutionException("Impossible to get ad account stats", e);
         }
-        return results;
-    }// getAdAccountStats()
+    }// streamAdAccountStats()
 
     @Override
     public List<Pagination<TimeSerieStat>> getAdSquadStats(String oAuthAccessToken, int limit, String adSquadID, Date startTime, Date endTime, GranularityEnum granularity) throws SnapExecutionException, SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException {
@@ -222,56 +216,43 @@ public class SnapStats implements SnapStatsInterface {
 
     @Override
     public List<Pagination<TimeSerieStat>> getAdSquadStats(String oAuthAccessToken, int limit, String adSquadID, Date startTime, Date endTime, GranularityEnum granularity, List<String> fields, BreakdownEnum breakdown, Boolean test, String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow, ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats, Boolean omitEmpty, List<String> conversionSourceTypes) throws SnapExecutionException, SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException {
-        checkParams(oAuthAccessToken, startTime, endTime, granularity, limit);
+        List<Pagination<TimeSerieStat>> results = new ArrayList<>();
+        this.streamAdSquadStats(oAuthAccessToken, limit, adSquadID, startTime, endTime, granularity, fields, breakdown, test, reportDimension, swipeUpAttributionWindow, viewAttributionWindow, positionStats, omitEmpty, conversionSourceTypes, results::add);
+        return results;
+    }// getAdSquadStats()
+
+    @Override
+    public void streamAdSquadStats(String oAuthAccessToken, int limit, String adSquadID, Date startTime, Date endTime, GranularityEnum granularity, PageConsumer<TimeSerieStat> consumer) throws SnapExecutionException, SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException {
+        this.streamAdSquadStats(oAuthAccessToken, limit, adSquadID, startTime, endTime, granularity, null, null, null, null, null, null, null, null, null, consumer);
+    }// streamAdSquadStats()
+
+    @Override
+    public void streamAdSquadStats(String oAuthAccessToken, int limit, String adSquadID, Date startTime, Date endTime, GranularityEnum granularity, List<String> fields, BreakdownEnum breakdown, Boolean test, String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow, ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats, Boolean omitEmpty, List<String> conversionSourceTypes, PageConsumer<TimeSerieStat> consumer) throws SnapExecutionException, SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException {
+        StatsQuery query = toQuery(oAuthAccessToken, limit, startTime, endTime, granularity, fields, breakdown, test, reportDimension, swipeUpAttributionWindow, viewAttributionWindow, positionStats, omitEmpty, conversionSourceTypes);
+        this.streamAdSquadStats(oAuthAccessToken, adSquadID, query, consumer);
+    }// streamAdSquadStats()
+
+    @Override
+    public List<Pagination<TimeSerieStat>> getAdSquadStats(String oAuthAccessToken, String adSquadID, StatsQuery query) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        List<Pagination<TimeSerieStat>> results = new ArrayList<>();
+        this.streamAdSquadStats(oAuthAccessToken, adSquadID, query, results::add);
+        return results;
+    }// getAdSquadStats()
+
+    @Override
+    public void streamAdSquadStats(String oAuthAccessToken, String adSquadID, StatsQuery query, PageConsumer<TimeSerieStat> consumer) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        checkQuery(oAuthAccessToken, query);
         if (StringUtils.isEmpty(adSquadID)) {
             throw new SnapArgumentException("AdSquad ID is required");
         }
-        List<Pagination<TimeSerieStat>> results = new ArrayList<>();
-        String url = this.endpointAdSquadStats.replace("{adsquad_id}", adSquadID);
-        url = prepareFinalUrl(url, startTime, endTime, granularity, fields, breakdown, test, reportDimension, swipeUpAttributionWindow, viewAttributionWindow, positionStats, omitEmpty, conversionSourceTypes, null);
-        url += "&limit=" + limit;
-        boolean hasNextPage = true;
-        int numberPage = 1;
-        while(hasNextPage) {
-            HttpGet request = HttpUtils.prepareGetRequest(url, oAuthAccessToken);
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                int statusCode = response.getStatusLine().getStatusCode();
-                HttpEntity entity = response.getEntity();
-                if (entity != null) {
-                    String body = entityUtilsWrapper.toString(entity);
-                    if (statusCode >= 300) {
-                        throw SnapExceptionsUtils.getResponseExceptionByStatusCode(statusCode);
-                    }
-                    ObjectMapper mapper = JsonUtils.initMapper();
-                    if (granularity == GranularityEnum.TOTAL) {
-                        SnapHttpResponseTotalStat responseFromJson = mapper.readValue(body, SnapHttpResponseTotalStat.class);
-                        if (responseFromJson != null) {
-                            results.add(new Pagination<>(numberPage++, responseFromJson.getTotalStats()));
-                            hasNextPage = responseFromJson.hasPaging();
-                            if(hasNextPage){
-                                url = responseFromJson.getPaging().getNextLink();
-                                LOGGER.info("Next url page pagination is {}", url);
-                            }
-                        }
-                    } else {
-                        SnapHttpResponseTimeseriesStat responseFromJson = mapper.readValue(body, SnapHttpResponseTimeseriesStat.class);
-                        if (responseFromJson != null) {
-                            results.add(new Pagination<>(numberPage++,responseFromJson.getTimeseriesStats()));
-                            hasNextPage = responseFromJson.hasPaging();
-                            if(hasNextPage){
-                                url = responseFromJson.getPaging().getNextLink();
-                                LOGGER.info("Next url page pagination is {}", url);
-                            }
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                LOGGER.error("Impossible to get ad squad stats, adSquadID = {}", adSquadID, e);
-                throw new SnapExecutionException("Impossible to get ad squad stats", e);
-            }
+        String url = statsUrl(this.endpointAdSquadStats, "{adsquad_id}", adSquadID, query);
+        try {
+            fetchStats(url, oAuthAccessToken, query.getGranularity(), consumer);
+        } catch (IOException e) {
+            LOGGER.error("Impossible to get ad squad stats, adSquadID = {}", adSquadID, e);
+            throw new SnapExecutionException("Impossible to get ad squad stats", e);
         }
-        return results;
-    }// getAdSquadStats()
+    }// streamAdSquadStats()
 
     @Override
     public List<Pagination<TimeSerieStat>> getAdStats(String oAuthAccessToken, int limit, String adID, Date startTime, Date endTime, GranularityEnum granularity) throws SnapExecutionException, SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException {
@@ -283,105 +264,76 @@ public class SnapStats implements SnapStatsInterface {
                                               String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow,
                                               ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
                                               Boolean omitEmpty, List<String> conversionSourceTypes) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException {
-        checkParams(oAuthAccessToken, startTime, endTime, granularity, limit);
-        if (StringUtils.isEmpty(adID)) {
-            throw new SnapArgumentException("Ad ID is required");
-        }
         List<Pagination<TimeSerieStat>> results = new ArrayList<>();
-        String url = this.endpointAdStats.replace("{ad_id}", adID);
-        url = prepareFinalUrl(url, startTime, endTime, granularity, fields, breakdown, test, reportDimension, swipeUpAttributionWindow, viewAttributionWindow, positionStats, omitEmpty, conversionSourceTypes, null);
-        url += "&limit=" + limit;
-        boolean hasNextPage = true;
-        int numberPage = 1;
-        while(hasNextPage) {
-            HttpGet request = HttpUtils.prepareGetRequest(url, oAuthAccessToken);
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                int statusCode = response.getStatusLine().getStatusCode();
-                HttpEntity entity = response.getEntity();
-                if (entity != null) {
-                    String body = entityUtilsWrapper.toString(entity);
-                    if (statusCode >= 300) {
-                        throw SnapExceptionsUtils.getResponseExceptionByStatusCode(statusCode);
-                    }
-                    ObjectMapper mapper = JsonUtils.initMapper();
-                    if (granularity == GranularityEnum.TOTAL) {
-                        SnapHttpResponseTotalStat responseFromJson = mapper.readValue(body, SnapHttpResponseTotalStat.class);
-                        if (responseFromJson != null) {
-                            results.add(new Pagination<>(numberPage++, responseFromJson.getTotalStats()));
-                            hasNextPage = responseFromJson.hasPaging();
-                            if(hasNextPage){
-                                url = responseFromJson.getPaging().getNextLink();
-                                LOGGER.info("Next url page pagination is {}", url);
-                            }
-                        }
-                    } else {
-                        SnapHttpResponseTimeseriesStat responseFromJson = mapper.readValue(body, SnapHttpResponseTimeseriesStat.class);
-                        if (responseFromJson != null) {
-                            results.add(new Pagination<>(numberPage++,responseFromJson.getTimeseriesStats()));
-                            hasNextPage = responseFromJson.hasPaging();
-                            if(hasNextPage){
-                                url = responseFromJson.getPaging().getNextLink();
-                                LOGGER.info("Next url page pagination is {}", url);
-                            }
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                LOGGER.error("Impossible to get ad stats, adID = {}", adID, e);
-                throw new SnapExecutionException("Impossible to get ad stats", e);
-            }
-        }
+        this.streamAdStats(oAuthAccessToken, limit, adID, startTime, endTime, granularity, fields, breakdown, test, reportDimension, swipeUpAttributionWindow, viewAttributionWindow, positionStats, omitEmpty, conversionSourceTypes, results::add);
         return results;
     }// getAdStats()
 
     @Override
-    public List<Pagination<TimeSerieStat>> getPixelDomainsStats(String oAuthAccessToken, int limit, String pixelID) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException {
-        if (StringUtils.isEmpty(oAuthAccessToken)) {
-            throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
-        }
-        if(limit < minLimitPagination){
-            throw new SnapArgumentException("Minimum limit is " + minLimitPagination);
-        }
-        if(limit > maxLimitPagination){
-            throw new SnapArgumentException("Maximum limit is " + maxLimitPagination);
+    public void streamAdStats(String oAuthAccessToken, int limit, String adID, Date startTime, Date endTime, GranularityEnum granularity, PageConsumer<TimeSerieStat> consumer) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException {
+        this.streamAdStats(oAuthAccessToken, limit, adID, startTime, endTime, granularity, null, null, null, null, null, null, null, null, null, consumer);
+    }// streamAdStats()
+
+    @Override
+    public void streamAdStats(String oAuthAccessToken, int limit, String adID, Date startTime, Date endTime, GranularityEnum granularity, List<String> fields, BreakdownEnum breakdown, Boolean test,
+                                              String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow,
+                                              ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
+                                              Boolean omitEmpty, List<String> conversionSourceTypes, PageConsumer<TimeSerieStat> consumer) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException {
+        StatsQuery query = toQuery(oAuthAccessToken, limit, startTime, endTime, granularity, fields, breakdown, test, reportDimension, swipeUpAttributionWindow, viewAttributionWindow, positionStats, omitEmpty, conversionSourceTypes);
+        this.streamAdStats(oAuthAccessToken, adID, query, consumer);
+    }// streamAdStats()
+
+    @Override
+    public List<Pagination<TimeSerieStat>> getAdStats(String oAuthAccessToken, String adID, StatsQuery query) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        List<Pagination<TimeSerieStat>> results = new ArrayList<>();
+        this.streamAdStats(oAuthAccessToken, adID, query, results::add);
+        return results;
+    }// getAdStats()
+
+    @Override
+    public void streamAdStats(String oAuthAccessToken, String adID, StatsQuery query, PageConsumer<TimeSerieStat> consumer) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        checkQuery(oAuthAccessToken, query);
+        if (StringUtils.isEmpty(adID)) {
+            throw new SnapArgumentException("Ad ID is required");
         }
-        if (StringUtils.isEmpty(pixelID)) {
-            throw new SnapArgumentException("Pixel ID is required");
+        String url = statsUrl(this.endpointAdStats, "{ad_id}", adID, query);
+        try {
+            fetchStats(url, oAuthAccessToken, query.getGranularity(), consumer);
+        } catch (IOException e) {
+            LOGGER.error("Impossible to get ad stats, adID = {}", adID, e);
+            throw new SnapExecutionException("Impossible to get ad stats", e);
         }
+    }// streamAdStats()
+
+    @Override
+    public List<Pagination<TimeSerieStat>> getPixelDomainsStats(String oAuthAccessToken, int limit, String pixelID) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException {
+        checkPixelDomains(oAuthAccessToken, limit, pixelID);
         List<Pagination<TimeSerieStat>> results = new ArrayList<>();
-        String url = this.endpointPixelDomains.replace("{pixel_id}", pixelID);
-        url += "?limit=" + limit;
-        boolean hasNextPage = true;
-        int numberPage = 1;
-        HttpGet request = HttpUtils.prepareGetRequest(url, oAuthAccessToken);
-        while(hasNextPage) {
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                int statusCode = response.getStatusLine().getStatusCode();
-                HttpEntity entity = response.getEntity();
-                if (entity != null) {
-                    String body = entityUtilsWrapper.toString(entity);
-                    if (statusCode >= 300) {
-                        throw SnapExceptionsUtils.getResponseExceptionByStatusCode(statusCode);
-                    }
-                    ObjectMapper mapper = JsonUtils.initMapper();
-                    SnapHttpResponseTimeseriesStat responseFromJson = mapper.readValue(body, SnapHttpResponseTimeseriesStat.class);
-                    if (responseFromJson != null) {
-                        results.add(new Pagination<>(numberPage++,responseFromJson.getTimeseriesStats()));
-                        hasNextPage = responseFromJson.hasPaging();
-                        if(hasNextPage){
-                            url = responseFromJson.getPaging().getNextLink();
-                            LOGGER.info("Next url page pagination is {}", url);
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                LOGGER.error("Impossible to get pixel domains stats stats, pixelID = {}", pixelID, e);
-                throw new SnapExecutionException("Impossible to get pixel domains stats", e);
-            }
+        String url = this.endpointPixelDomains.replace("{pixel_id}", pixelID) + "?limit=" + limit;
+        try {
+            fetchStats(url, oAuthAccessToken, null, results::add);
+        } catch (IOException e) {
+            LOGGER.error("Impossible to get pixel domains stats stats, pixelID = {}", pixelID, e);
+            throw new SnapExecutionException("Impossible to get pixel domains stats", e);
         }
         return results;
     }// getPixelDomainsStats()
 
+    @Override
+    public void streamPixelDomains(String oAuthAccessToken, int limit, String pixelID, DomainConsumer consumer) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException {
+        checkPixelDomains(oAuthAccessToken, limit, pixelID);
+        if (consumer == null) {
+            throw new SnapArgumentException("Consumer is required");
+        }
+        String url = this.endpointPixelDomains.replace("{pixel_id}", pixelID) + "?limit=" + limit;
+        try {
+            fetchDomains(url, oAuthAccessToken, consumer);
+        } catch (IOException e) {
+            LOGGER.error("Impossible to stream pixel domains, pixelID = {}", pixelID, e);
+            throw new SnapExecutionException("Impossible to stream pixel domains", e);
+        }
+    }// streamPixelDomains()
+
     @Override
     public List<Pagination<TimeSerieStat>> getPixelSpecificDomainStats(String oAuthAccessToken, int limit, String pixelID, String domain, Date startTime, Date endTime, GranularityEnum granularity) throws SnapExecutionException, SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException {
         return this.getPixelSpecificDomainStats(oAuthAccessToken, limit, pixelID, domain, startTime, endTime, granularity, null, null, null, null, null, null, null, null, null);
@@ -392,17 +344,51 @@ public class SnapStats implements SnapStatsInterface {
                                                                String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow,
                                                                ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
                                                                Boolean omitEmpty, List<String> conversionSourceTypes) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException {
-        checkParams(oAuthAccessToken, startTime, endTime, granularity, domain, limit);
+        StatsQuery query = toQuery(oAuthAccessToken, limit, startTime, endTime, granularity, fields, breakdown, test, reportDimension, swipeUpAttributionWindow, viewAttributionWindow, positionStats, omitEmpty, conversionSourceTypes);
+        return this.getPixelSpecificDomainStats(oAuthAccessToken, pixelID, domain, query);
+    }// getPixelSpecificDomainStats()
+
+    @Override
+    public List<Pagination<TimeSerieStat>> getPixelSpecificDomainStats(String oAuthAccessToken, String pixelID, String domain, StatsQuery query) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        List<Pagination<TimeSerieStat>> results = new ArrayList<>();
+        this.streamPixelSpecificDomainStats(oAuthAccessToken, pixelID, domain, query, results::add);
+        return results;
+    }// getPixelSpecificDomainStats()
+
+    @Override
+    public void streamPixelSpecificDomainStats(String oAuthAccessToken, String pixelID, String domain, StatsQuery query, PageConsumer<TimeSerieStat> consumer) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        checkQuery(oAuthAccessToken, query);
+        if (StringUtils.isEmpty(domain)) {
+            throw new SnapArgumentException("Domain is required");
+        }
         if (StringUtils.isEmpty(pixelID)) {
             throw new SnapArgumentException("Pixel ID is required");
         }
-        List<Pagination<TimeSerieStat>> results = new ArrayList<>();
-        String url = this.endpointPixelSpecificDomain.replace("{pixel_id}", pixelID);
-        url = prepareFinalUrl(url, startTime, endTime, granularity, fields, breakdown, test, reportDimension, swipeUpAttributionWindow, viewAttributionWindow, positionStats, omitEmpty, conversionSourceTypes, domain);
-        url += "&limit=" + limit;
+        String url = statsUrl(this.endpointPixelSpecificDomain, "{pixel_id}", pixelID, query) + "&domain=" + StatsQuery.encode(domain);
+        try {
+            fetchStats(url, oAuthAccessToken, query.getGranularity(), consumer);
+        } catch (IOException e) {
+            LOGGER.error("Impossible to get pixel specific domain stats, pixelID = {}", pixelID, e);
+            throw new SnapExecutionException("Impossible to get pixel specific domain stats", e);
+        }
+    }// streamPixelSpecificDomainStats()
+
+    /**
+     * Fetch every page of a stats request and hand them to the consumer as soon as they are received
+     *
+     * @param url First page URL
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param granularity Granularity of the stats requested
+     * @param consumer Consumer of the pages
+     * @throws IOException If a page can't be fetched or consumed
+     * @throws SnapResponseErrorException If the API responds with an error
+     */
+    private void fetchStats(String url, String oAuthAccessToken, GranularityEnum granularity, PageConsumer<TimeSerieStat> consumer) throws IOException, SnapResponseErrorException {
         boolean hasNextPage = true;
         int numberPage = 1;
         while(hasNextPage) {
+            hasNextPage = false;
+            acquirePermit();
             HttpGet request = HttpUtils.prepareGetRequest(url, oAuthAccessToken);
             try (CloseableHttpResponse response = httpClient.execute(request)) {
                 int statusCode = response.getStatusLine().getStatusCode();
@@ -412,11 +398,10 @@ public class SnapStats implements SnapStatsInterface {
                     if (statusCode >= 300) {
                         throw SnapExceptionsUtils.getResponseExceptionByStatusCode(statusCode);
                     }
-                    ObjectMapper mapper = JsonUtils.initMapper();
                     if (granularity == GranularityEnum.TOTAL) {
-                        SnapHttpResponseTotalStat responseFromJson = mapper.readValue(body, SnapHttpResponseTotalStat.class);
+                        SnapHttpResponseTotalStat responseFromJson = MAPPER.readValue(body, SnapHttpResponseTotalStat.class);
                         if (responseFromJson != null) {
-                            results.add(new Pagination<>(numberPage++, responseFromJson.getTotalStats()));
+                            consumer.accept(new Pagination<>(numberPage++, responseFromJson.getTotalStats()));
                             hasNextPage = responseFromJson.hasPaging();
                             if(hasNextPage){
                                 url = responseFromJson.getPaging().getNextLink();
@@ -424,9 +409,9 @@ public class SnapStats implements SnapStatsInterface {
                             }
                         }
                     } else {
-                        SnapHttpResponseTimeseriesStat responseFromJson = mapper.readValue(body, SnapHttpResponseTimeseriesStat.class);
+                        SnapHttpResponseTimeseriesStat responseFromJson = MAPPER.readValue(body, SnapHttpResponseTimeseriesStat.class);
                         if (responseFromJson != null) {
-                            results.add(new Pagination<>(numberPage++,responseFromJson.getTimeseriesStats()));
+                            consumer.accept(new Pagination<>(numberPage++, responseFromJson.getTimeseriesStats()));
                             hasNextPage = responseFromJson.hasPaging();
                             if(hasNextPage){
                                 url = responseFromJson.getPaging().getNextLink();
@@ -435,15 +420,110 @@ public class SnapStats implements SnapStatsInterface {
                         }
                     }
                 }
-            } catch (IOException e) {
-                LOGGER.error("Impossible to get pixel specific domain stats, pixelID = {}", pixelID, e);
-                throw new SnapExecutionException("Impossible to get pixel specific domain stats", e);
             }
         }
-        return results;
-    }// getPixelSpecificDomainStats()
+    }// fetchStats()
 
-    private void checkParams(String oAuthAccessToken, Date startTime, Date endTime, GranularityEnum granularity, int limit) throws SnapOAuthAccessTokenException, SnapArgumentException {
+    /**
+     * Fetch every page of pixel domains, the domains are decoded from the response stream one by one
+     *
+     * @param url First page URL
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param consumer Consumer of the domains
+     * @throws IOException If a page can't be fetched or a domain consumed
+     * @throws SnapResponseErrorException If the API responds with an error
+     */
+    private void fetchDomains(String url, String oAuthAccessToken, DomainConsumer consumer) throws IOException, SnapResponseErrorException {
+        while (url != null) {
+            acquirePermit();
+            HttpGet request = HttpUtils.prepareGetRequest(url, oAuthAccessToken);
+            url = null;
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                int statusCode = response.getStatusLine().getStatusCode();
+                HttpEntity entity = response.getEntity();
+                if (entity != null) {
+                    if (statusCode >= 300) {
+                        throw SnapExceptionsUtils.getResponseExceptionByStatusCode(statusCode);
+                    }
+                    try (InputStream content = entityUtilsWrapper.getContent(entity);
+                         JsonParser parser = MAPPER.getFactory().createParser(content)) {
+                        url = readDomains(parser, consumer);
+                        if (url != null) {
+                            LOGGER.info("Next url page pagination is {}", url);
+                        }
+                    }
+                }
+            }
+        }
+    }// fetchDomains()
+
+    /**
+     * Walk a page of pixel domains token by token, only the current domain is materialized
+     *
+     * @param parser Parser of the page
+     * @param consumer Consumer of the domains
+     * @return next page URL, null if it's the last page
+     * @throws IOException If the page can't be decoded or a domain consumed
+     */
+    static String readDomains(JsonParser parser, DomainConsumer consumer) throws IOException {
+        String nextLink = null;
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("paging".equals(field) && value == JsonToken.START_OBJECT) {
+                Paging paging = MAPPER.readValue(parser, Paging.class);
+                nextLink = paging == null ? null : StringUtils.defaultIfEmpty(paging.getNextLink(), null);
+            } else if ("timeseries_stats".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String subField = parser.getCurrentName();
+                        if (parser.nextToken() == JsonToken.START_OBJECT && "timeseries_stat".equals(subField)) {
+                            readStatDomains(parser, consumer);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return nextLink;
+    }// readDomains()
+
+    private static void readStatDomains(JsonParser parser, DomainConsumer consumer) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.START_ARRAY && "domains".equals(field)) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    consumer.accept(MAPPER.readValue(parser, Domain.class));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }// readStatDomains()
+
+    /**
+     * Wait for a permit of the rate limiter (if any)
+     *
+     * @throws InterruptedIOException If the thread is interrupted while waiting
+     */
+    private void acquirePermit() throws InterruptedIOException {
+        if (rateLimiter != null) {
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a permit");
+            }
+        }
+    }// acquirePermit()
+
+    private void checkPixelDomains(String oAuthAccessToken, int limit, String pixelID) throws SnapOAuthAccessTokenException, SnapArgumentException {
         if (StringUtils.isEmpty(oAuthAccessToken)) {
             throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
         }
@@ -453,117 +533,77 @@ public class SnapStats implements SnapStatsInterface {
         if(limit > maxLimitPagination){
             throw new SnapArgumentException("Maximum limit is " + maxLimitPagination);
         }
-        if (granularity == null) {
-            throw new SnapArgumentException("Granularity is required");
-        }
-        if (startTime == null && (granularity == GranularityEnum.DAY || granularity == GranularityEnum.HOUR)) {
-            throw new SnapArgumentException("StartTime is required");
-        }
-        if (endTime == null && (granularity == GranularityEnum.DAY || granularity == GranularityEnum.HOUR)) {
-            throw new SnapArgumentException("EndTime is required");
-        }
-        if(startTime == null && endTime != null || startTime != null && endTime == null){
-            throw new SnapArgumentException("StartTime and EndTime are required");
-        }
-        Calendar cal = Calendar.getInstance();
-        if(startTime != null) {
-            cal.setTime(startTime);
-        }
-        if(cal.get(Calendar.MINUTE) != 0){
-            throw new SnapArgumentException("StarTime must be set to the top of the hour (Example : 22:00:00 not 22:45:11)");
-        }
-        if(cal.get(Calendar.SECOND) != 0){
-            throw new SnapArgumentException("StarTime must be set to the top of the hour (Example : 22:00:00 not 22:45:11)");
+        if (StringUtils.isEmpty(pixelID)) {
+            throw new SnapArgumentException("Pixel ID is required");
         }
-        if(endTime != null) {
-            cal.setTime(endTime);
+    }// checkPixelDomains()
+
+    private void checkQuery(String oAuthAccessToken, StatsQuery query) throws SnapOAuthAccessTokenException, SnapArgumentException {
+        if (StringUtils.isEmpty(oAuthAccessToken)) {
+            throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
         }
-        if(cal.get(Calendar.MINUTE) != 0){
-            throw new SnapArgumentException("EndTime must be set to the top of the hour (Example : 22:00:00 not 22:45:11)");
+        if (query == null) {
+            throw new SnapArgumentException("Stats query is required");
         }
-        if(cal.get(Calendar.SECOND) != 0){
-            throw new SnapArgumentException("EndTime must be set to the top of the hour (Example : 22:00:00 not 22:45:11)");
+        if(query.getLimit() < minLimitPagination){
+            throw new SnapArgumentException("Minimum limit is " + minLimitPagination);
         }
-    }// checkParams()
-
-    private void checkParams(String oAuthAccessToken, Date startTime, Date endTime, GranularityEnum granularity, String domain, int limit) throws SnapOAuthAccessTokenException, SnapArgumentException {
-        checkParams(oAuthAccessToken, startTime, endTime, granularity, limit);
-        if (StringUtils.isEmpty(domain)) {
-            throw new SnapOAuthAccessTokenException("Domain is required");
+        if(query.getLimit() > maxLimitPagination){
+            throw new SnapArgumentException("Maximum limit is " + maxLimitPagination);
         }
-    }// checkParams()
+    }// checkQuery()
 
     /**
-     * Convert String Date to Date by follow ISO 8601 pattern
+     * Build the query of a legacy stats method, checks are done in the same order as before and the first error is
+     * thrown
      *
-     * @param date Date
-     * @return String Date
+     * @return query validated
      */
-    private String convertStringDateToISO8601(Date date) {
-        if (date == null) {
-            return "";
+    private StatsQuery toQuery(String oAuthAccessToken, int limit, Date startTime, Date endTime, GranularityEnum granularity, List<String> fields, BreakdownEnum breakdown, Boolean test, String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow, ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats, Boolean omitEmpty, List<String> conversionSourceTypes) throws SnapOAuthAccessTokenException, SnapArgumentException {
+        if (StringUtils.isEmpty(oAuthAccessToken)) {
+            throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
+        }
+        if(limit < minLimitPagination){
+            throw new SnapArgumentException("Minimum limit is " + minLimitPagination);
         }
-        return sdf.format(date);
-    }// convertStringDateToISO8601()
+        if(limit > maxLimitPagination){
+            throw new SnapArgumentException("Maximum limit is " + maxLimitPagination);
+        }
+        return new StatsQuery.Builder().setLimit(limit)
+                .setGranularity(granularity)
+                .setStartTime(startTime)
+                .setEndTime(endTime)
+                .setFields(fields)
+                .setBreakdown(breakdown)
+                .setTest(test)
+                .setReportDimension(reportDimension)
+                .setSwipeUpAttributionWindow(swipeUpAttributionWindow)
+                .setViewAttributionWindow(viewAttributionWindow)
+                .setPositionStats(positionStats)
+                .setOmitEmpty(omitEmpty)
+                .setConversionSourceTypes(conversionSourceTypes)
+                .buildFirstError();
+    }// toQuery()
 
     /**
-     * Prepare final URL
+     * Substitute the entity ID in the endpoint and append the query string (no regex, no re-encoding)
      *
-     * @param url
-     * @param startTime
-     * @param endTime
-     * @param granularity
-     * @param fields
-     * @param breakdown
-     * @param test
-     * @param reportDimension
-     * @param swipeUpAttributionWindow
-     * @param viewAttributionWindow
-     * @param positionStats
-     * @param omitEmpty
-     * @param conversionSourceTypes
-     * @return
+     * @param endpoint    Endpoint
+     * @param placeholder Placeholder of the entity ID
+     * @param id          Entity ID
+     * @param query       Query
+     * @return URL
      */
-    private String prepareFinalUrl(String url, Date startTime, Date endTime, GranularityEnum granularity, List<String> fields, BreakdownEnum breakdown, Boolean test, String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow, ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats, Boolean omitEmpty, List<String> conversionSourceTypes, String domain) {
-        StringBuilder sbUrl = new StringBuilder(url);
-        sbUrl.append("?granularity=").append(granularity);
-        if(startTime != null && endTime != null) {
-            sbUrl.append("&start_time=").append(convertStringDateToISO8601(startTime))
-                    .append("&end_time=").append(convertStringDateToISO8601(endTime));
-        }
-        if (CollectionUtils.isNotEmpty(fields)) {
-            sbUrl.append("&fields=").append(String.join(",", fields));
-        }
-        if (CollectionUtils.isNotEmpty(conversionSourceTypes)) {
-            sbUrl.append("&conversion_source_types=").append(String.join(",", conversionSourceTypes));
-        }
-        if (breakdown != null) {
-            sbUrl.append("&breakdown=").append(breakdown);
-        }
-        if (test != null) {
-            sbUrl.append("&test=").append(test);
-        }
-        if (StringUtils.isNotEmpty(reportDimension)) {
-            sbUrl.append("&report_dimension=").append(reportDimension);
-        }
-        if (swipeUpAttributionWindow != null) {
-            sbUrl.append("&swipe_up_attribution_window=").append(swipeUpAttributionWindow);
-        }
-        if (viewAttributionWindow != null) {
-            sbUrl.append("&view_attribution_window=").append(viewAttributionWindow);
-        }
-        if (positionStats != null) {
-            sbUrl.append("&positionStats=").append(positionStats);
-        }
-        if (omitEmpty != null) {
-            sbUrl.append("&omitEmpty=").append(omitEmpty);
-        }
-        if(StringUtils.isNotEmpty(domain)){
-            sbUrl.append("&domain=").append(domain);
-        }
-        String results = sbUrl.toString();
-        LOGGER.info("Url prepared for stats : {}", results);
-        return results;
-    }// prepareFinalUrl()
+    private static String statsUrl(String endpoint, String placeholder, String id, StatsQuery query) {
+        String queryString = query.getQueryString();
+        StringBuilder sb = new StringBuilder(endpoint.length() + id.length() + queryString.length() + 1);
+        int index = endpoint.indexOf(placeholder);
+        if (index < 0) {
+            sb.append(endpoint);
+        } else {
+            sb.append(endpoint, 0, index).append(id).append(endpoint, index + placeholder.length(), endpoint.length());
+        }
+        return sb.append('?').append(queryString).toString();
+    }// statsUrl()
 
 }// SnapStats
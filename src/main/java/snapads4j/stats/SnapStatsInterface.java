@@ -20,7 +20,9 @@ import snapads4j.exceptions.SnapArgumentException;
 import snapads4j.exceptions.SnapExecutionException;
 import snapads4j.exceptions.SnapOAuthAccessTokenException;
 import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.PageConsumer;
 import snapads4j.model.Pagination;
+import snapads4j.model.stats.DomainConsumer;
 import snapads4j.model.stats.TimeSerieStat;
 
 import java.util.Date;
@@ -37,6 +39,25 @@ public interface SnapStatsInterface {
                                              ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
                                              Boolean omitEmpty, List<String> conversionSourceTypes) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException;
 
+    /**
+     * Same as {@link #getCampaignStats} but hands each page to the consumer as soon as it is fetched instead of keeping them all in memory
+     */
+    void streamCampaignStats(String oAuthAccessToken, int limit, String campaignID, Date startTime, Date endTime,
+                GranularityEnum granularity, PageConsumer<TimeSerieStat> consumer) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException;
+
+    void streamCampaignStats(String oAuthAccessToken, int limit, String campaignID, Date startTime, Date endTime,
+                GranularityEnum granularity, List<String> fields,
+                BreakdownEnum breakdown, Boolean test, String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow,
+                ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
+                Boolean omitEmpty, List<String> conversionSourceTypes, PageConsumer<TimeSerieStat> consumer) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException;
+
+    /**
+     * Get campaign stats of a {@link StatsQuery}, the query can be reused for many entities
+     */
+    List<Pagination<TimeSerieStat>> getCampaignStats(String oAuthAccessToken, String campaignID, StatsQuery query) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException;
+
+    void streamCampaignStats(String oAuthAccessToken, String campaignID, StatsQuery query, PageConsumer<TimeSerieStat> consumer) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException;
+
     List<Pagination<TimeSerieStat>> getAdAccountStats(String oAuthAccessToken, int limit, String adAccountID, Date startTime, Date endTime,
                                               GranularityEnum granularity) throws SnapExecutionException, SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException;
 
@@ -45,6 +66,24 @@ public interface SnapStatsInterface {
                                               ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
                                               Boolean omitEmpty, List<String> conversionSourceTypes) throws SnapExecutionException, SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException;
 
+    /**
+     * Same as {@link #getAdAccountStats} but hands each page to the consumer as soon as it is fetched instead of keeping them all in memory
+     */
+    void streamAdAccountStats(String oAuthAccessToken, int limit, String adAccountID, Date startTime, Date endTime,
+                GranularityEnum granularity, PageConsumer<TimeSerieStat> consumer) throws SnapExecutionException, SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException;
+
+    void streamAdAccountStats(String oAuthAccessToken, int limit, String adAccountID, Date startTime, Date endTime,
+                GranularityEnum granularity, BreakdownEnum breakdown, Boolean test, String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow,
+                ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
+                Boolean omitEmpty, List<String> conversionSourceTypes, PageConsumer<TimeSerieStat> consumer) throws SnapExecutionException, SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException;
+
+    /**
+     * Get ad account stats of a {@link StatsQuery}, the query can be reused for many entities
+     */
+    List<Pagination<TimeSerieStat>> getAdAccountStats(String oAuthAccessToken, String adAccountID, StatsQuery query) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException;
+
+    void streamAdAccountStats(String oAuthAccessToken, String adAccountID, StatsQuery query, PageConsumer<TimeSerieStat> consumer) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException;
+
     List<Pagination<TimeSerieStat>> getAdSquadStats(String oAuthAccessToken, int limit, String adSquadID, Date startTime, Date endTime,
                                             GranularityEnum granularity) throws SnapExecutionException, SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException;
 
@@ -54,6 +93,25 @@ public interface SnapStatsInterface {
                                             ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
                                             Boolean omitEmpty, List<String> conversionSourceTypes) throws SnapExecutionException, SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException;
 
+    /**
+     * Same as {@link #getAdSquadStats} but hands each page to the consumer as soon as it is fetched instead of keeping them all in memory
+     */
+    void streamAdSquadStats(String oAuthAccessToken, int limit, String adSquadID, Date startTime, Date endTime,
+                GranularityEnum granularity, PageConsumer<TimeSerieStat> consumer) throws SnapExecutionException, SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException;
+
+    void streamAdSquadStats(String oAuthAccessToken, int limit, String adSquadID, Date startTime, Date endTime,
+                GranularityEnum granularity, List<String> fields,
+                BreakdownEnum breakdown, Boolean test, String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow,
+                ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
+                Boolean omitEmpty, List<String> conversionSourceTypes, PageConsumer<TimeSerieStat> consumer) throws SnapExecutionException, SnapArgumentException, SnapOAuthAccessTokenException, SnapResponseErrorException;
+
+    /**
+     * Get ad squad stats of a {@link StatsQuery}, the query can be reused for many entities
+     */
+    List<Pagination<TimeSerieStat>> getAdSquadStats(String oAuthAccessToken, String adSquadID, StatsQuery query) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException;
+
+    void streamAdSquadStats(String oAuthAccessToken, String adSquadID, StatsQuery query, PageConsumer<TimeSerieStat> consumer) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException;
+
     List<Pagination<TimeSerieStat>> getAdStats(String oAuthAccessToken, int limit, String adID, Date startTime, Date endTime,
                                        GranularityEnum granularity) throws SnapExecutionException, SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException;
 
@@ -63,9 +121,34 @@ public interface SnapStatsInterface {
                                        ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
                                        Boolean omitEmpty, List<String> conversionSourceTypes) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException;
 
+    /**
+     * Same as {@link #getAdStats} but hands each page to the consumer as soon as it is fetched instead of keeping them all in memory
+     */
+    void streamAdStats(String oAuthAccessToken, int limit, String adID, Date startTime, Date endTime,
+                GranularityEnum granularity, PageConsumer<TimeSerieStat> consumer) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException;
+
+    void streamAdStats(String oAuthAccessToken, int limit, String adID, Date startTime, Date endTime,
+                GranularityEnum granularity, List<String> fields,
+                BreakdownEnum breakdown, Boolean test, String reportDimension, SwipeUpAttributionWindowEnum swipeUpAttributionWindow,
+                ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
+                Boolean omitEmpty, List<String> conversionSourceTypes, PageConsumer<TimeSerieStat> consumer) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException;
+
+    /**
+     * Get ad stats of a {@link StatsQuery}, the query can be reused for many entities
+     */
+    List<Pagination<TimeSerieStat>> getAdStats(String oAuthAccessToken, String adID, StatsQuery query) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException;
+
+    void streamAdStats(String oAuthAccessToken, String adID, StatsQuery query, PageConsumer<TimeSerieStat> consumer) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException;
+
     List<Pagination<TimeSerieStat>> getPixelDomainsStats(String oAuthAccessToken, int limit, String pixelID) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException
     ;
 
+    /**
+     * Same as {@link #getPixelDomainsStats} but decodes the domains while the response is received and hands them
+     * one by one to the consumer, whatever the number of domains the memory used stays bounded
+     */
+    void streamPixelDomains(String oAuthAccessToken, int limit, String pixelID, DomainConsumer consumer) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException;
+
     List<Pagination<TimeSerieStat>> getPixelSpecificDomainStats(String oAuthAccessToken, int limit, String pixelID, String domain, Date startTime, Date endTime, GranularityEnum granularity) throws SnapExecutionException, SnapResponseErrorException, SnapOAuthAccessTokenException, SnapArgumentException
     ;
 
@@ -73,4 +156,11 @@ public interface SnapStatsInterface {
                                                         ViewAttributionWindowEnum viewAttributionWindow, Boolean positionStats,
                                                         Boolean omitEmpty, List<String> conversionSourceTypes) throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException
     ;
+
+    /**
+     * Get pixel stats of a domain for a {@link StatsQuery}, the query can be reused for many pixels or domains
+     */
+    List<Pagination<TimeSerieStat>> getPixelSpecificDomainStats(String oAuthAccessToken, String pixelID, String domain, StatsQuery query) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException;
+
+    void streamPixelSpecificDomainStats(String oAuthAccessToken, String pixelID, String domain, StatsQuery query, PageConsumer<TimeSerieStat> consumer) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException;
 }// SnapStatsInterface
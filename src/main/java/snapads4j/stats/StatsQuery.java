@@ -0,0 +1,486 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+import snapads4j.enums.BreakdownEnum;
+import snapads4j.enums.DerivedMetricEnum;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.SwipeUpAttributionWindowEnum;
+import snapads4j.enums.ViewAttributionWindowEnum;
+import snapads4j.exceptions.SnapArgumentException;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable stats request which can be reused for many entities.
+ * <p>
+ * The query is validated once when it is built and its query string is encoded once, a request for an
+ * entity only substitutes the entity ID in the endpoint. Only the fields needed by the declared metrics are
+ * requested (inputs of derived metrics included), so metric-light requests get much smaller responses.
+ * <pre>
+ * StatsQuery query = new StatsQuery.Builder()
+ *     .setGranularity(GranularityEnum.HOUR).setStartTime(start).setEndTime(end)
+ *     .addMetric(StatMetricEnum.IMPRESSIONS).addDerivedMetric(DerivedMetricEnum.CPM)
+ *     .setSwipeUpAttributionWindow(SwipeUpAttributionWindowEnum.SEVEN_DAY)
+ *     .build(); // fields=impressions,spend
+ * for (String campaignID : campaignIDs) {
+ *     snapStats.getCampaignStats(token, campaignID, query);
+ * }
+ * </pre>
+ * A variant of a query (another window, another attribution window...) is built with
+ * {@link Builder#Builder(StatsQuery)}.
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public final class StatsQuery {
+
+    private final GranularityEnum granularity;
+
+    private final Date startTime;
+
+    private final Date endTime;
+
+    private final Set<StatMetricEnum> metrics;
+
+    private final Set<DerivedMetricEnum> derivedMetrics;
+
+    /**
+     * Fields declared explicitly, in addition to the fields of the metrics
+     */
+    private final List<String> extraFields;
+
+    private final BreakdownEnum breakdown;
+
+    private final Boolean test;
+
+    private final String reportDimension;
+
+    private final SwipeUpAttributionWindowEnum swipeUpAttributionWindow;
+
+    private final ViewAttributionWindowEnum viewAttributionWindow;
+
+    private final Boolean positionStats;
+
+    private final Boolean omitEmpty;
+
+    private final List<String> conversionSourceTypes;
+
+    /**
+     * Number of results per page
+     */
+    private final int limit;
+
+    /**
+     * Fields requested, empty means all fields
+     */
+    private final List<String> fields;
+
+    /**
+     * Query string (without '?') built once
+     */
+    private final String queryString;
+
+    private StatsQuery(Builder builder) {
+        this.granularity = builder.granularity;
+        this.startTime = copy(builder.startTime);
+        this.endTime = copy(builder.endTime);
+        this.metrics = Collections.unmodifiableSet(EnumSet.copyOf(builder.metrics));
+        this.derivedMetrics = Collections.unmodifiableSet(EnumSet.copyOf(builder.derivedMetrics));
+        this.extraFields = Collections.unmodifiableList(new ArrayList<>(builder.extraFields));
+        this.breakdown = builder.breakdown;
+        this.test = builder.test;
+        this.reportDimension = builder.reportDimension;
+        this.swipeUpAttributionWindow = builder.swipeUpAttributionWindow;
+        this.viewAttributionWindow = builder.viewAttributionWindow;
+        this.positionStats = builder.positionStats;
+        this.omitEmpty = builder.omitEmpty;
+        this.conversionSourceTypes = Collections.unmodifiableList(new ArrayList<>(builder.conversionSourceTypes));
+        this.limit = builder.limit;
+        this.fields = planFields(this.metrics, this.derivedMetrics, this.extraFields);
+        this.queryString = buildQueryString(this);
+    }// StatsQuery()
+
+    public Date getStartTime() {
+        return copy(startTime);
+    }// getStartTime()
+
+    public Date getEndTime() {
+        return copy(endTime);
+    }// getEndTime()
+
+    /**
+     * Used to build StatsQuery instance ({@link StatsQuery})
+     *
+     * @author Yassine
+     */
+    public static class Builder {
+
+        private GranularityEnum granularity;
+
+        private Date startTime;
+
+        private Date endTime;
+
+        private final Set<StatMetricEnum> metrics = EnumSet.noneOf(StatMetricEnum.class);
+
+        private final Set<DerivedMetricEnum> derivedMetrics = EnumSet.noneOf(DerivedMetricEnum.class);
+
+        private final List<String> extraFields = new ArrayList<>();
+
+        private BreakdownEnum breakdown;
+
+        private Boolean test;
+
+        private String reportDimension;
+
+        private SwipeUpAttributionWindowEnum swipeUpAttributionWindow;
+
+        private ViewAttributionWindowEnum viewAttributionWindow;
+
+        private Boolean positionStats;
+
+        private Boolean omitEmpty;
+
+        private final List<String> conversionSourceTypes = new ArrayList<>();
+
+        private int limit = 200;
+
+        /**
+         * Constructor
+         */
+        public Builder() {
+        }// Builder()
+
+        /**
+         * Constructor initialized with the parameters of an existing query
+         *
+         * @param query Query to copy
+         */
+        public Builder(StatsQuery query) {
+            this.granularity = query.granularity;
+            this.startTime = query.startTime;
+            this.endTime = query.endTime;
+            this.metrics.addAll(query.metrics);
+            this.derivedMetrics.addAll(query.derivedMetrics);
+            this.extraFields.addAll(query.extraFields);
+            this.breakdown = query.breakdown;
+            this.test = query.test;
+            this.reportDimension = query.reportDimension;
+            this.swipeUpAttributionWindow = query.swipeUpAttributionWindow;
+            this.viewAttributionWindow = query.viewAttributionWindow;
+            this.positionStats = query.positionStats;
+            this.omitEmpty = query.omitEmpty;
+            this.conversionSourceTypes.addAll(query.conversionSourceTypes);
+            this.limit = query.limit;
+        }// Builder()
+
+        public Builder setGranularity(GranularityEnum granularity) {
+            this.granularity = granularity;
+            return this;
+        }// setGranularity()
+
+        public Builder setStartTime(Date startTime) {
+            this.startTime = startTime;
+            return this;
+        }// setStartTime()
+
+        public Builder setEndTime(Date endTime) {
+            this.endTime = endTime;
+            return this;
+        }// setEndTime()
+
+        /**
+         * Request a metric. Without metric nor field, all metrics are requested.
+         *
+         * @param metric Metric
+         * @return builder
+         */
+        public Builder addMetric(StatMetricEnum metric) {
+            this.metrics.add(metric);
+            return this;
+        }// addMetric()
+
+        public Builder addMetrics(Collection<StatMetricEnum> metrics) {
+            this.metrics.addAll(metrics);
+            return this;
+        }// addMetrics()
+
+        /**
+         * Request the inputs of a derived metric
+         *
+         * @param metric Derived metric
+         * @return builder
+         */
+        public Builder addDerivedMetric(DerivedMetricEnum metric) {
+            this.derivedMetrics.add(metric);
+            return this;
+        }// addDerivedMetric()
+
+        /**
+         * Request raw fields, requested after the fields of the metrics
+         *
+         * @param fields Fields (null to clear)
+         * @return builder
+         */
+        public Builder setFields(List<String> fields) {
+            this.extraFields.clear();
+            if (fields != null) {
+                this.extraFields.addAll(fields);
+            }
+            return this;
+        }// setFields()
+
+        public Builder setBreakdown(BreakdownEnum breakdown) {
+            this.breakdown = breakdown;
+            return this;
+        }// setBreakdown()
+
+        public Builder setTest(Boolean test) {
+            this.test = test;
+            return this;
+        }// setTest()
+
+        public Builder setReportDimension(String reportDimension) {
+            this.reportDimension = reportDimension;
+            return this;
+        }// setReportDimension()
+
+        public Builder setSwipeUpAttributionWindow(SwipeUpAttributionWindowEnum swipeUpAttributionWindow) {
+            this.swipeUpAttributionWindow = swipeUpAttributionWindow;
+            return this;
+        }// setSwipeUpAttributionWindow()
+
+        public Builder setViewAttributionWindow(ViewAttributionWindowEnum viewAttributionWindow) {
+            this.viewAttributionWindow = viewAttributionWindow;
+            return this;
+        }// setViewAttributionWindow()
+
+        public Builder setPositionStats(Boolean positionStats) {
+            this.positionStats = positionStats;
+            return this;
+        }// setPositionStats()
+
+        public Builder setOmitEmpty(Boolean omitEmpty) {
+            this.omitEmpty = omitEmpty;
+            return this;
+        }// setOmitEmpty()
+
+        /**
+         * @param conversionSourceTypes Conversion source types (null to clear)
+         * @return builder
+         */
+        public Builder setConversionSourceTypes(List<String> conversionSourceTypes) {
+            this.conversionSourceTypes.clear();
+            if (conversionSourceTypes != null) {
+                this.conversionSourceTypes.addAll(conversionSourceTypes);
+            }
+            return this;
+        }// setConversionSourceTypes()
+
+        public Builder setLimit(int limit) {
+            this.limit = limit;
+            return this;
+        }// setLimit()
+
+        public StatsQuery build() throws SnapArgumentException {
+            List<String> errors = errors();
+            if (!errors.isEmpty()) {
+                throw new SnapArgumentException(String.join(",", errors));
+            }
+            return new StatsQuery(this);
+        }// build()
+
+        /**
+         * Build the query of a legacy stats method of {@link SnapStats} : only the first error is thrown, as these
+         * methods always did
+         *
+         * @return query
+         * @throws SnapArgumentException First error found
+         */
+        StatsQuery buildFirstError() throws SnapArgumentException {
+            List<String> errors = errors();
+            if (!errors.isEmpty()) {
+                throw new SnapArgumentException(errors.get(0));
+            }
+            return new StatsQuery(this);
+        }// buildFirstError()
+
+        private List<String> errors() {
+            List<String> errors = new ArrayList<>();
+            if (granularity == null) {
+                errors.add("Granularity is required");
+            }
+            boolean timeBased = granularity == GranularityEnum.DAY || granularity == GranularityEnum.HOUR;
+            boolean missingTime = false;
+            if (startTime == null && timeBased) {
+                errors.add("StartTime is required");
+                missingTime = true;
+            }
+            if (endTime == null && timeBased) {
+                errors.add("EndTime is required");
+                missingTime = true;
+            }
+            if (!missingTime && (startTime == null ^ endTime == null)) {
+                errors.add("StartTime and EndTime are required");
+            }
+            if (startTime != null && endTime != null && !startTime.before(endTime)) {
+                errors.add("StartTime must be before EndTime");
+            }
+            if (!isTopOfHour(startTime)) {
+                errors.add("StarTime must be set to the top of the hour (Example : 22:00:00 not 22:45:11)");
+            }
+            if (!isTopOfHour(endTime)) {
+                errors.add("EndTime must be set to the top of the hour (Example : 22:00:00 not 22:45:11)");
+            }
+            if (metrics.contains(null) || derivedMetrics.contains(null)) {
+                errors.add("Metrics can't be null");
+            }
+            if (extraFields.contains(null) || conversionSourceTypes.contains(null)) {
+                errors.add("Fields can't be null");
+            }
+            return errors;
+        }// errors()
+
+    }// Builder
+
+    /**
+     * Minimal fields needed by the metrics, sorted like {@link StatMetricEnum}
+     *
+     * @param metrics        Metrics
+     * @param derivedMetrics Derived metrics
+     * @return fields (empty if no metric is declared)
+     */
+    static List<String> planFields(Set<StatMetricEnum> metrics, Set<DerivedMetricEnum> derivedMetrics) {
+        return planFields(metrics, derivedMetrics, Collections.emptyList());
+    }// planFields()
+
+    /**
+     * Minimal fields needed by the metrics, sorted like {@link StatMetricEnum}, followed by the extra fields
+     *
+     * @param metrics        Metrics
+     * @param derivedMetrics Derived metrics
+     * @param extraFields    Fields declared explicitly
+     * @return fields (empty if neither metric nor field is declared)
+     */
+    static List<String> planFields(Set<StatMetricEnum> metrics, Set<DerivedMetricEnum> derivedMetrics, List<String> extraFields) {
+        Set<StatMetricEnum> required = EnumSet.noneOf(StatMetricEnum.class);
+        required.addAll(metrics);
+        for (DerivedMetricEnum derived : derivedMetrics) {
+            required.add(derived.getNumerator());
+            required.add(derived.getDenominator());
+        }
+        Set<String> results = new LinkedHashSet<>();
+        for (StatMetricEnum metric : required) {
+            results.add(metric.getField());
+        }
+        results.addAll(extraFields);
+        return Collections.unmodifiableList(new ArrayList<>(results));
+    }// planFields()
+
+    private static String buildQueryString(StatsQuery query) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("granularity=").append(apiValue(query.granularity));
+        if (query.startTime != null && query.endTime != null) {
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX");
+            sb.append("&start_time=").append(encode(sdf.format(query.startTime)))
+                    .append("&end_time=").append(encode(sdf.format(query.endTime)));
+        }
+        if (!query.fields.isEmpty()) {
+            sb.append("&fields=").append(String.join(",", query.fields));
+        }
+        if (!query.conversionSourceTypes.isEmpty()) {
+            sb.append("&conversion_source_types=").append(String.join(",", query.conversionSourceTypes));
+        }
+        if (query.breakdown != null) {
+            sb.append("&breakdown=").append(apiValue(query.breakdown));
+        }
+        if (query.test != null) {
+            sb.append("&test=").append(query.test);
+        }
+        if (StringUtils.isNotEmpty(query.reportDimension)) {
+            sb.append("&report_dimension=").append(encode(query.reportDimension));
+        }
+        if (query.swipeUpAttributionWindow != null) {
+            sb.append("&swipe_up_attribution_window=").append(apiValue(query.swipeUpAttributionWindow));
+        }
+        if (query.viewAttributionWindow != null) {
+            sb.append("&view_attribution_window=").append(apiValue(query.viewAttributionWindow));
+        }
+        if (query.positionStats != null) {
+            sb.append("&positionStats=").append(query.positionStats);
+        }
+        if (query.omitEmpty != null) {
+            sb.append("&omitEmpty=").append(query.omitEmpty);
+        }
+        sb.append("&limit=").append(query.limit);
+        return sb.toString();
+    }// buildQueryString()
+
+    /**
+     * Value of an enum expected by the API (value of its {@link JsonProperty}, 1_DAY and not ONE_DAY)
+     *
+     * @param value Enum value
+     * @return value sent
+     */
+    static String apiValue(Enum<?> value) {
+        try {
+            JsonProperty property = value.getDeclaringClass().getField(value.name()).getAnnotation(JsonProperty.class);
+            return property == null ? value.name() : property.value();
+        } catch (NoSuchFieldException e) {
+            return value.name();
+        }
+    }// apiValue()
+
+    static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }// encode()
+
+    private static Date copy(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }// copy()
+
+    private static boolean isTopOfHour(Date date) {
+        if (date == null) {
+            return true;
+        }
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(date);
+        return cal.get(Calendar.MINUTE) == 0 && cal.get(Calendar.SECOND) == 0;
+    }// isTopOfHour()
+
+}// StatsQuery
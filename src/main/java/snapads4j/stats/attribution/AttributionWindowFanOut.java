@@ -0,0 +1,226 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.attribution;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapExecutionException;
+import snapads4j.exceptions.SnapOAuthAccessTokenException;
+import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.TimeSerieStat;
+import snapads4j.stats.SnapStatsInterface;
+import snapads4j.stats.StatsQuery;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Fetch the same stats of an entity under several attribution windows concurrently.
+ * <p>
+ * The query of each pair of windows is a copy of the base query with its attribution windows replaced : each copy is
+ * validated by its builder and gets its own query string. Every walk goes through the same
+ * {@link SnapStatsInterface} so they share its HTTP client, its JSON mapper and its rate limiter
+ * ({@link snapads4j.stats.SnapStats#setRateLimiter}).
+ * <pre>
+ * try (AttributionWindowFanOut fanOut = new AttributionWindowFanOut.Builder().setSnapStats(snapStats).build()) {
+ *     Map&lt;AttributionWindows, List&lt;Pagination&lt;TimeSerieStat&gt;&gt;&gt; stats = fanOut.fetch(token,
+ *         TimeSerieTypeEnum.CAMPAIGN, campaignID, query, windows);
+ * }
+ * </pre>
+ *
+ * @author Yassine
+ */
+public class AttributionWindowFanOut implements Closeable {
+
+    private final SnapStatsInterface snapStats;
+
+    private final Executor executor;
+
+    private final boolean ownExecutor;
+
+    private AttributionWindowFanOut(Builder builder) {
+        this.snapStats = builder.snapStats;
+        this.ownExecutor = builder.executor == null;
+        this.executor = ownExecutor ? Executors.newFixedThreadPool(builder.threads) : builder.executor;
+    }// AttributionWindowFanOut()
+
+    /**
+     * Fetch the stats of an entity for each pair of attribution windows
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param type             Type of the entity (CAMPAIGN, AD_ACCOUNT, AD_SQUAD or AD)
+     * @param id               ID of the entity
+     * @param query            Base query, its attribution windows are replaced
+     * @param windows          Pairs of attribution windows
+     * @return pages by pair of attribution windows, in the order of the pairs
+     */
+    public Map<AttributionWindows, List<Pagination<TimeSerieStat>>> fetch(String oAuthAccessToken, TimeSerieTypeEnum type, String id,
+                                                                          StatsQuery query, Collection<AttributionWindows> windows)
+            throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        if (StringUtils.isEmpty(oAuthAccessToken)) {
+            throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
+        }
+        StringBuilder sb = new StringBuilder();
+        if (type == null || type == TimeSerieTypeEnum.PIXEL) {
+            sb.append("Type must be CAMPAIGN, AD_ACCOUNT, AD_SQUAD or AD,");
+        }
+        if (StringUtils.isEmpty(id)) {
+            sb.append("ID is required,");
+        }
+        if (query == null) {
+            sb.append("Stats query is required,");
+        }
+        if (CollectionUtils.isEmpty(windows) || windows.contains(null)) {
+            sb.append("At least one pair of attribution windows is required,");
+        }
+        String finalErrors = sb.toString();
+        if (!StringUtils.isEmpty(finalErrors)) {
+            throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+        }
+        Map<AttributionWindows, FutureTask<List<Pagination<TimeSerieStat>>>> tasks = new LinkedHashMap<>();
+        for (AttributionWindows pair : new LinkedHashSet<>(windows)) {
+            StatsQuery variant = new StatsQuery.Builder(query)
+                    .setSwipeUpAttributionWindow(pair.getSwipeUpAttributionWindow())
+                    .setViewAttributionWindow(pair.getViewAttributionWindow())
+                    .build();
+            tasks.put(pair, new FutureTask<>(() -> fetch(oAuthAccessToken, type, id, variant)));
+        }
+        tasks.values().forEach(executor::execute);
+        Map<AttributionWindows, List<Pagination<TimeSerieStat>>> results = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<AttributionWindows, FutureTask<List<Pagination<TimeSerieStat>>>> entry : tasks.entrySet()) {
+                results.put(entry.getKey(), entry.getValue().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(tasks.values());
+            throw new SnapExecutionException("Interrupted while fetching attribution windows", e);
+        } catch (ExecutionException e) {
+            cancel(tasks.values());
+            Throwable cause = e.getCause();
+            if (cause instanceof SnapOAuthAccessTokenException) {
+                throw (SnapOAuthAccessTokenException) cause;
+            }
+            if (cause instanceof SnapArgumentException) {
+                throw (SnapArgumentException) cause;
+            }
+            if (cause instanceof SnapExecutionException) {
+                throw (SnapExecutionException) cause;
+            }
+            if (cause instanceof SnapResponseErrorException) {
+                throw (SnapResponseErrorException) cause;
+            }
+            throw new SnapExecutionException("Impossible to fetch attribution windows", cause);
+        }
+        return results;
+    }// fetch()
+
+    /**
+     * Stop the threads of the fan out (if it owns them)
+     */
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }// close()
+
+    private List<Pagination<TimeSerieStat>> fetch(String oAuthAccessToken, TimeSerieTypeEnum type, String id, StatsQuery query)
+            throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        switch (type) {
+            case CAMPAIGN:
+                return snapStats.getCampaignStats(oAuthAccessToken, id, query);
+            case AD_ACCOUNT:
+                return snapStats.getAdAccountStats(oAuthAccessToken, id, query);
+            case AD_SQUAD:
+                return snapStats.getAdSquadStats(oAuthAccessToken, id, query);
+            default:
+                return snapStats.getAdStats(oAuthAccessToken, id, query);
+        }
+    }// fetch()
+
+    private static void cancel(Collection<? extends FutureTask<?>> tasks) {
+        for (FutureTask<?> task : tasks) {
+            task.cancel(true);
+        }
+    }// cancel()
+
+    /**
+     * Used to build AttributionWindowFanOut instance ({@link AttributionWindowFanOut})
+     *
+     * @author Yassine
+     */
+    public static class Builder {
+
+        private SnapStatsInterface snapStats;
+
+        private int threads = 4;
+
+        private Executor executor;
+
+        public Builder setSnapStats(SnapStatsInterface snapStats) {
+            this.snapStats = snapStats;
+            return this;
+        }// setSnapStats()
+
+        /**
+         * @param threads Number of walks running at once (ignored if an executor is given)
+         * @return builder
+         */
+        public Builder setThreads(int threads) {
+            this.threads = threads;
+            return this;
+        }// setThreads()
+
+        /**
+         * @param executor Executor of the walks, not shut down by the fan out
+         * @return builder
+         */
+        public Builder setExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }// setExecutor()
+
+        public AttributionWindowFanOut build() throws SnapArgumentException {
+            StringBuilder sb = new StringBuilder();
+            if (snapStats == null) {
+                sb.append("SnapStats is required,");
+            }
+            if (executor == null && threads < 1) {
+                sb.append("At least one thread is required,");
+            }
+            String finalErrors = sb.toString();
+            if (!StringUtils.isEmpty(finalErrors)) {
+                throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+            }
+            return new AttributionWindowFanOut(this);
+        }// build()
+
+    }// Builder
+
+}// AttributionWindowFanOut
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.attribution;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import snapads4j.enums.SwipeUpAttributionWindowEnum;
+import snapads4j.enums.ViewAttributionWindowEnum;
+
+/**
+ * Pair of attribution windows, null means the default window of the API
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class AttributionWindows {
+
+    private final SwipeUpAttributionWindowEnum swipeUpAttributionWindow;
+
+    private final ViewAttributionWindowEnum viewAttributionWindow;
+
+    public AttributionWindows(SwipeUpAttributionWindowEnum swipeUpAttributionWindow, ViewAttributionWindowEnum viewAttributionWindow) {
+        this.swipeUpAttributionWindow = swipeUpAttributionWindow;
+        this.viewAttributionWindow = viewAttributionWindow;
+    }// AttributionWindows()
+
+}// AttributionWindows
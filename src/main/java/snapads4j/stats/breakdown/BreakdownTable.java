@@ -0,0 +1,305 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.breakdown;
+
+import lombok.Getter;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import snapads4j.enums.BreakdownEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.DimensionStat;
+import snapads4j.model.stats.Stat;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+import snapads4j.stats.cache.StatsDictionary;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Long format table of stats requested with a breakdown and / or a report dimension.
+ * <p>
+ * Each row is (parent entity, child entity, dimension key, start time, end time, metrics) :
+ * one campaign stats request with breakdown=ad gives one row per ad and time bucket, instead
+ * of one request per ad. Entities without breakdown are their own child. Entity IDs and dimension
+ * keys ("country=us", several dimensions are joined with '&amp;') are dictionary encoded, metrics are
+ * stored in primitive columns allocated the first time the metric is seen.
+ * <p>
+ * {@link #addPage(Pagination)} can be given directly to the stream methods of {@link snapads4j.stats.SnapStats}.
+ *
+ * @author Yassine
+ */
+public class BreakdownTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final StatMetricEnum[] METRICS = StatMetricEnum.values();
+
+    private static final BreakdownEnum[] BREAKDOWNS = BreakdownEnum.values();
+
+    @Getter
+    private final StatsDictionary entityDictionary;
+
+    @Getter
+    private final StatsDictionary dimensionDictionary;
+
+    private int size;
+
+    private int[] parents;
+
+    private int[] children;
+
+    private int[] dimensions;
+
+    private long[] startTimes;
+
+    private long[] endTimes;
+
+    private final long[][] metrics;
+
+    public BreakdownTable() {
+        this(new StatsDictionary());
+    }// BreakdownTable()
+
+    /**
+     * @param entityDictionary Dictionary of entity IDs, can be shared with a {@link snapads4j.stats.cache.StatsCache}
+     */
+    public BreakdownTable(StatsDictionary entityDictionary) {
+        this.entityDictionary = entityDictionary;
+        this.dimensionDictionary = new StatsDictionary();
+        this.parents = new int[INITIAL_CAPACITY];
+        this.children = new int[INITIAL_CAPACITY];
+        this.dimensions = new int[INITIAL_CAPACITY];
+        this.startTimes = new long[INITIAL_CAPACITY];
+        this.endTimes = new long[INITIAL_CAPACITY];
+        this.metrics = new long[METRICS.length][];
+    }// BreakdownTable()
+
+    /**
+     * Add all pages returned by {@link snapads4j.stats.SnapStats}.
+     *
+     * @param pages Pages of stats
+     */
+    public synchronized void addAll(List<Pagination<TimeSerieStat>> pages) {
+        if (pages != null) {
+            for (Pagination<TimeSerieStat> page : pages) {
+                addPage(page);
+            }
+        }
+    }// addAll()
+
+    /**
+     * Add a page returned by {@link snapads4j.stats.SnapStats}.
+     *
+     * @param page Page of stats
+     */
+    public synchronized void addPage(Pagination<TimeSerieStat> page) {
+        if (page != null && page.getResults() != null) {
+            for (TimeSerieStat stat : page.getResults()) {
+                add(stat);
+            }
+        }
+    }// addPage()
+
+    /**
+     * Flatten stats of an entity and its breakdown children. Stats without ID are ignored.
+     *
+     * @param stat Stats of an entity
+     */
+    public synchronized void add(TimeSerieStat stat) {
+        if (stat == null || StringUtils.isEmpty(stat.getId())) {
+            return;
+        }
+        int parent = entityDictionary.setType(stat.getId(), stat.getType());
+        boolean hasChildren = false;
+        if (stat.getBreakdownStats() != null) {
+            for (BreakdownEnum breakdown : BREAKDOWNS) {
+                List<TimeSerieStat> childrenStats = stat.getBreakdownStats().get(breakdown);
+                if (childrenStats != null) {
+                    for (TimeSerieStat child : childrenStats) {
+                        if (child != null && StringUtils.isNotEmpty(child.getId())) {
+                            addEntity(parent, entityDictionary.setType(child.getId(), child.getType()), child);
+                            hasChildren = true;
+                        }
+                    }
+                }
+            }
+        }
+        if (!hasChildren) {
+            addEntity(parent, parent, stat);
+        }
+    }// add()
+
+    /**
+     * Number of rows
+     *
+     * @return size
+     */
+    public synchronized int size() {
+        return size;
+    }// size()
+
+    public synchronized String getParentId(int row) {
+        return entityDictionary.decode(parents[checkRow(row)]);
+    }// getParentId()
+
+    public synchronized String getChildId(int row) {
+        return entityDictionary.decode(children[checkRow(row)]);
+    }// getChildId()
+
+    public synchronized TimeSerieTypeEnum getChildType(int row) {
+        return entityDictionary.getType(children[checkRow(row)]);
+    }// getChildType()
+
+    /**
+     * Get dimension key of a row
+     *
+     * @param row Row
+     * @return dimension key (example : "country=us") or null if stats weren't requested with a report dimension
+     */
+    public synchronized String getDimensionKey(int row) {
+        int code = dimensions[checkRow(row)];
+        return code == StatsDictionary.NO_CODE ? null : dimensionDictionary.decode(code);
+    }// getDimensionKey()
+
+    public synchronized Date getStartTime(int row) {
+        return new Date(startTimes[checkRow(row)]);
+    }// getStartTime()
+
+    public synchronized Date getEndTime(int row) {
+        return new Date(endTimes[checkRow(row)]);
+    }// getEndTime()
+
+    /**
+     * Get metric value of a row, missing values are read as 0
+     *
+     * @param row    Row
+     * @param metric Metric
+     * @return metric value
+     */
+    public synchronized long getMetric(int row, StatMetricEnum metric) {
+        long[] column = metrics[metric.ordinal()];
+        return column == null ? 0L : column[checkRow(row)];
+    }// getMetric()
+
+    /**
+     * Copy of the entity codes of the children, decoded with {@link #getEntityDictionary()}
+     *
+     * @return children column
+     */
+    public synchronized int[] getChildren() {
+        return Arrays.copyOf(children, size);
+    }// getChildren()
+
+    /**
+     * Copy of a metric column, missing values are read as 0
+     *
+     * @param metric Metric
+     * @return metric column
+     */
+    public synchronized long[] getMetricColumn(StatMetricEnum metric) {
+        long[] column = metrics[metric.ordinal()];
+        return column == null ? new long[size] : Arrays.copyOf(column, size);
+    }// getMetricColumn()
+
+    private void addEntity(int parent, int child, TimeSerieStat stat) {
+        if (CollectionUtils.isNotEmpty(stat.getTimeseries())) {
+            for (TimeSerie serie : stat.getTimeseries()) {
+                addRows(parent, child, serie.getStartTime(), serie.getEndTime(), serie.getStats(), serie.getDimensionStats());
+            }
+        } else {
+            addRows(parent, child, stat.getStartTime(), stat.getEndTime(), stat.getStats(), stat.getDimensionStats());
+        }
+    }// addEntity()
+
+    private void addRows(int parent, int child, Date startTime, Date endTime, Stat stats, List<DimensionStat> dimensionStats) {
+        if (CollectionUtils.isNotEmpty(dimensionStats)) {
+            for (DimensionStat dimensionStat : dimensionStats) {
+                if (dimensionStat != null) {
+                    int dimension = dimensionDictionary.encode(dimensionKey(dimensionStat.getDimensions()));
+                    addRow(parent, child, dimension, startTime, endTime, dimensionStat);
+                }
+            }
+        } else if (stats != null) {
+            addRow(parent, child, StatsDictionary.NO_CODE, startTime, endTime, stats);
+        }
+    }// addRows()
+
+    private void addRow(int parent, int child, int dimension, Date startTime, Date endTime, Stat stat) {
+        if (size == parents.length) {
+            grow();
+        }
+        int row = size++;
+        parents[row] = parent;
+        children[row] = child;
+        dimensions[row] = dimension;
+        startTimes[row] = toMillis(startTime);
+        endTimes[row] = toMillis(endTime);
+        for (StatMetricEnum metric : METRICS) {
+            long value = metric.valueOf(stat);
+            long[] column = metrics[metric.ordinal()];
+            if (column == null) {
+                if (value == 0L) {
+                    continue;
+                }
+                column = new long[parents.length];
+                metrics[metric.ordinal()] = column;
+            }
+            column[row] = value;
+        }
+    }// addRow()
+
+    private void grow() {
+        int capacity = parents.length << 1;
+        parents = Arrays.copyOf(parents, capacity);
+        children = Arrays.copyOf(children, capacity);
+        dimensions = Arrays.copyOf(dimensions, capacity);
+        startTimes = Arrays.copyOf(startTimes, capacity);
+        endTimes = Arrays.copyOf(endTimes, capacity);
+        for (int i = 0; i < metrics.length; i++) {
+            if (metrics[i] != null) {
+                metrics[i] = Arrays.copyOf(metrics[i], capacity);
+            }
+        }
+    }// grow()
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " doesn't exist, size is " + size);
+        }
+        return row;
+    }// checkRow()
+
+    private static String dimensionKey(Map<String, String> values) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append('&');
+            }
+            sb.append(value.getKey()).append('=').append(value.getValue());
+        }
+        return sb.toString();
+    }// dimensionKey()
+
+    private static long toMillis(Date date) {
+        return date == null ? 0L : date.getTime();
+    }// toMillis()
+
+}// BreakdownTable
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import snapads4j.enums.DerivedMetricEnum;
+import snapads4j.enums.StatMetricEnum;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compute a declared set of derived metrics (CPM, CPC, ROAS, completion rates...) over columns of stats.
+ * <p>
+ * Each derived metric is computed by a primitive loop over the numerator and denominator columns,
+ * without boxing or null checks per value : a missing column is read as 0, a row with a denominator
+ * equal to 0 gives NaN.
+ *
+ * @author Yassine
+ */
+public class DerivedMetricCalculator {
+
+    private final Set<DerivedMetricEnum> metrics;
+
+    public DerivedMetricCalculator(Collection<DerivedMetricEnum> metrics) {
+        this.metrics = metrics.isEmpty() ? EnumSet.noneOf(DerivedMetricEnum.class) : EnumSet.copyOf(metrics);
+    }// DerivedMetricCalculator()
+
+    public Set<DerivedMetricEnum> getMetrics() {
+        return Collections.unmodifiableSet(metrics);
+    }// getMetrics()
+
+    /**
+     * Metrics required to compute the derived metrics.
+     *
+     * @return metrics
+     */
+    public Set<StatMetricEnum> getRequiredMetrics() {
+        Set<StatMetricEnum> required = EnumSet.noneOf(StatMetricEnum.class);
+        for (DerivedMetricEnum metric : metrics) {
+            required.add(metric.getNumerator());
+            required.add(metric.getDenominator());
+        }
+        return required;
+    }// getRequiredMetrics()
+
+    /**
+     * Compute derived metrics of each row of a cache, rows are aligned with
+     * {@link StatsCache#getEntityId(int)} and {@link StatsCache#getStartTime(int)}.
+     *
+     * @param cache Stats cache
+     * @return derived metrics by row
+     */
+    public DerivedMetricColumns compute(StatsCache cache) {
+        StatsCache.Snapshot snapshot = cache.snapshot();
+        return compute(snapshot.getMetrics(), snapshot.getSize());
+    }// compute()
+
+    /**
+     * Compute derived metrics over columns.
+     *
+     * @param columns Columns indexed by {@link StatMetricEnum#ordinal()}, a null column is read as 0
+     * @param size    Number of rows
+     * @return derived metrics by row
+     */
+    public DerivedMetricColumns compute(long[][] columns, int size) {
+        Map<DerivedMetricEnum, double[]> results = new EnumMap<>(DerivedMetricEnum.class);
+        for (DerivedMetricEnum metric : metrics) {
+            double[] out = new double[size];
+            ratio(columns[metric.getNumerator().ordinal()], columns[metric.getDenominator().ordinal()], metric.getScale(), out, size);
+            results.put(metric, out);
+        }
+        return new DerivedMetricColumns(size, results);
+    }// compute()
+
+    /**
+     * out[i] = numerator[i] * scale / denominator[i], NaN when denominator[i] is 0.
+     *
+     * @param numerator   Numerator column (null = 0)
+     * @param denominator Denominator column (null = 0)
+     * @param scale       Scale
+     * @param out         Output column
+     * @param size        Number of rows
+     */
+    public static void ratio(long[] numerator, long[] denominator, double scale, double[] out, int size) {
+        if (denominator == null) {
+            Arrays.fill(out, 0, size, Double.NaN);
+            return;
+        }
+        if (numerator == null) {
+            for (int i = 0; i < size; i++) {
+                out[i] = denominator[i] == 0L ? Double.NaN : 0.;
+            }
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            long den = denominator[i];
+            out[i] = den == 0L ? Double.NaN : numerator[i] * scale / den;
+        }
+    }// ratio()
+
+}// DerivedMetricCalculator
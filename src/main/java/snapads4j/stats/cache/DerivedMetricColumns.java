@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import lombok.Getter;
+import snapads4j.enums.DerivedMetricEnum;
+
+import java.util.Map;
+
+/**
+ * Derived metrics computed by {@link DerivedMetricCalculator}, one column by derived metric.
+ *
+ * @author Yassine
+ */
+public class DerivedMetricColumns {
+
+    @Getter
+    private final int size;
+
+    private final Map<DerivedMetricEnum, double[]> columns;
+
+    public DerivedMetricColumns(int size, Map<DerivedMetricEnum, double[]> columns) {
+        this.size = size;
+        this.columns = columns;
+    }// DerivedMetricColumns()
+
+    /**
+     * Get column of a derived metric
+     *
+     * @param metric Derived metric
+     * @return column, null if the metric wasn't computed
+     */
+    public double[] get(DerivedMetricEnum metric) {
+        return columns.get(metric);
+    }// get()
+
+    /**
+     * Get value of a derived metric for a row
+     *
+     * @param metric Derived metric
+     * @param row    Row
+     * @return value, NaN if the metric wasn't computed or is undefined
+     */
+    public double get(DerivedMetricEnum metric, int row) {
+        double[] column = columns.get(metric);
+        return column == null ? Double.NaN : column[row];
+    }// get()
+
+}// DerivedMetricColumns
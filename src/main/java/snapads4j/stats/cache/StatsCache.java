@@ -0,0 +1,376 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import lombok.Getter;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.Pagination;
+import snapads4j.model.ads.Ad;
+import snapads4j.model.adsquads.AdSquad;
+import snapads4j.model.stats.Stat;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Local columnar cache of stats.
+ * <p>
+ * Each time bucket of each entity is stored as one row. Entity IDs are dictionary encoded,
+ * start times and metrics are stored in primitive arrays (one array per metric, allocated
+ * the first time the metric is seen). Adding a bucket already cached overwrites the metrics of the
+ * response, so refreshed stats can be added again safely. Metrics absent from a response (not requested)
+ * keep their cached value.
+ * <p>
+ * Writers are serialized, queries work on a snapshot and never block writers. Rows are appended after the rows
+ * captured by a snapshot, and the columns are copied before a captured row is overwritten.
+ *
+ * @author Yassine
+ */
+public class StatsCache {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final StatMetricEnum[] METRICS = StatMetricEnum.values();
+
+    @Getter
+    private final GranularityEnum granularity;
+
+    @Getter
+    private final StatsDictionary dictionary;
+
+    private int size;
+
+    private int[] entities;
+
+    private long[] startTimes;
+
+    private final long[][] metrics;
+
+    /**
+     * Rows holding a value of each metric, indexed by {@link StatMetricEnum#ordinal()}
+     */
+    private final BitSet[] present;
+
+    /**
+     * The metric columns are captured by a snapshot : they must be copied before a row is overwritten
+     */
+    private boolean shared;
+
+    /**
+     * Row index of each entity bucket, indexed by entity code then keyed by start time
+     */
+    private final List<Map<Long, Integer>> rowsByEntity;
+
+    public StatsCache(GranularityEnum granularity) {
+        this(granularity, new StatsDictionary());
+    }// StatsCache()
+
+    public StatsCache(GranularityEnum granularity, StatsDictionary dictionary) {
+        this.granularity = granularity;
+        this.dictionary = dictionary;
+        this.entities = new int[INITIAL_CAPACITY];
+        this.startTimes = new long[INITIAL_CAPACITY];
+        this.metrics = new long[METRICS.length][];
+        this.present = new BitSet[METRICS.length];
+        for (int i = 0; i < present.length; i++) {
+            present[i] = new BitSet();
+        }
+        this.rowsByEntity = new ArrayList<>();
+    }// StatsCache()
+
+    /**
+     * Add all pages returned by {@link snapads4j.stats.SnapStats}.
+     *
+     * @param pages Pages of stats
+     * @throws SnapArgumentException if a stat has no ID or another granularity
+     */
+    public synchronized void addAll(List<Pagination<TimeSerieStat>> pages) throws SnapArgumentException {
+        if (pages != null) {
+            for (Pagination<TimeSerieStat> page : pages) {
+                addPage(page);
+            }
+        }
+    }// addAll()
+
+    /**
+     * Add a page returned by {@link snapads4j.stats.SnapStats}.
+     *
+     * @param page Page of stats
+     * @throws SnapArgumentException if a stat has no ID or another granularity
+     */
+    public synchronized void addPage(Pagination<TimeSerieStat> page) throws SnapArgumentException {
+        if (page != null && page.getResults() != null) {
+            for (TimeSerieStat stat : page.getResults()) {
+                add(stat);
+            }
+        }
+    }// addPage()
+
+    /**
+     * Add stats of an entity, each time serie becomes a row.
+     * Stats without time series (granularity TOTAL / LIFETIME) become a single row.
+     *
+     * @param stat Stats of an entity
+     * @throws SnapArgumentException if the stat has no ID or another granularity
+     */
+    public synchronized void add(TimeSerieStat stat) throws SnapArgumentException {
+        if (stat == null || StringUtils.isEmpty(stat.getId())) {
+            throw new SnapArgumentException("Stat ID is required");
+        }
+        if (stat.getGranularity() != null && stat.getGranularity() != granularity) {
+            throw new SnapArgumentException("Granularity " + stat.getGranularity() + " can't be cached with granularity " + granularity);
+        }
+        int entity = dictionary.setType(stat.getId(), stat.getType());
+        if (CollectionUtils.isNotEmpty(stat.getTimeseries())) {
+            for (TimeSerie serie : stat.getTimeseries()) {
+                put(entity, toMillis(serie.getStartTime()), serie.getStats());
+            }
+        } else if (stat.getStats() != null) {
+            put(entity, toMillis(stat.getStartTime()), stat.getStats());
+        }
+    }// add()
+
+    /**
+     * Bind an ad squad to its campaign (needed to group or filter by campaign).
+     *
+     * @param adSquad Ad squad
+     */
+    public void registerAdSquad(AdSquad adSquad) {
+        dictionary.link(adSquad.getId(), TimeSerieTypeEnum.AD_SQUAD, adSquad.getCampaignId(), TimeSerieTypeEnum.CAMPAIGN);
+    }// registerAdSquad()
+
+    /**
+     * Bind an ad to its ad squad (needed to group or filter by ad squad / campaign).
+     *
+     * @param ad Ad
+     */
+    public void registerAd(Ad ad) {
+        dictionary.link(ad.getId(), TimeSerieTypeEnum.AD, ad.getAdSquadId(), TimeSerieTypeEnum.AD_SQUAD);
+    }// registerAd()
+
+    /**
+     * Number of rows (time buckets) cached
+     *
+     * @return size
+     */
+    public synchronized int size() {
+        return size;
+    }// size()
+
+    /**
+     * Get entity ID of a row
+     *
+     * @param row Row
+     * @return Entity ID
+     */
+    public synchronized String getEntityId(int row) {
+        return dictionary.decode(entities[row]);
+    }// getEntityId()
+
+    /**
+     * Get start time of a row
+     *
+     * @param row Row
+     * @return Start time of the bucket
+     */
+    public synchronized Date getStartTime(int row) {
+        return new Date(startTimes[row]);
+    }// getStartTime()
+
+    /**
+     * Check if a bucket of an entity is cached
+     *
+     * @param id        Entity ID
+     * @param startTime Start time of the bucket
+     * @return true if the bucket is cached
+     */
+    public synchronized boolean contains(String id, Date startTime) {
+        int entity = dictionary.code(id);
+        return entity != StatsDictionary.NO_CODE && entity < rowsByEntity.size()
+                && rowsByEntity.get(entity).containsKey(toMillis(startTime));
+    }// contains()
+
+    /**
+     * Copy consecutive buckets of an entity into primitive arrays. Buckets not cached, or cached without one of the
+     * wanted metrics, are flagged.
+     *
+     * @param id      Entity ID
+     * @param starts  Start time of each bucket (millis)
+     * @param wanted  Metrics to copy
+     * @param values  Values by metric (same order as wanted) then by bucket
+     * @param missing Buckets not cached
+     * @return number of buckets not cached
+     */
+    synchronized int read(String id, long[] starts, StatMetricEnum[] wanted, long[][] values, boolean[] missing) {
+        int entity = dictionary.code(id);
+        Map<Long, Integer> rows = entity == StatsDictionary.NO_CODE || entity >= rowsByEntity.size()
+                ? null : rowsByEntity.get(entity);
+        int nbMissing = 0;
+        for (int bucket = 0; bucket < missing.length; bucket++) {
+            Integer row = rows == null ? null : rows.get(starts[bucket]);
+            boolean complete = row != null;
+            for (int m = 0; m < wanted.length; m++) {
+                long[] column = metrics[wanted[m].ordinal()];
+                complete &= row != null && present[wanted[m].ordinal()].get(row);
+                values[m][bucket] = row == null || column == null ? 0L : column[row];
+            }
+            missing[bucket] = !complete;
+            if (!complete) {
+                nbMissing++;
+            }
+        }
+        return nbMissing;
+    }// read()
+
+    /**
+     * Run a query on the common fork join pool.
+     *
+     * @param query Query
+     * @return result
+     */
+    public StatsCacheResult query(StatsCacheQuery query) {
+        return query(query, ForkJoinPool.commonPool());
+    }// query()
+
+    /**
+     * Run a query, rows are scanned in parallel by the given pool.
+     *
+     * @param query Query
+     * @param pool  Fork join pool
+     * @return result
+     */
+    public StatsCacheResult query(StatsCacheQuery query, ForkJoinPool pool) {
+        StatsCacheScan scan = new StatsCacheScan(snapshot(), dictionary, query);
+        Map<Long, StatsCacheAccumulator> groups = pool.invoke(new StatsCacheScanTask(scan, 0, scan.getSize()));
+        return scan.toResult(groups);
+    }// query()
+
+    /**
+     * Capture the columns, rows below the captured size are never moved nor overwritten by writers.
+     *
+     * @return snapshot
+     */
+    synchronized Snapshot snapshot() {
+        shared = true;
+        return new Snapshot(size, entities, startTimes, metrics.clone());
+    }// snapshot()
+
+    private void put(int entity, long startTime, Stat stat) {
+        int previousSize = size;
+        int row = rowOf(entity, startTime);
+        if (row < previousSize && shared) {
+            // Copy on write, a running query keeps reading the columns it captured
+            for (int i = 0; i < metrics.length; i++) {
+                if (metrics[i] != null) {
+                    metrics[i] = metrics[i].clone();
+                }
+            }
+            shared = false;
+        }
+        for (StatMetricEnum metric : METRICS) {
+            Number raw = metric.rawValueOf(stat);
+            if (raw == null) {
+                // Not in the response : the cached value is kept
+                continue;
+            }
+            long value = raw.longValue();
+            present[metric.ordinal()].set(row);
+            long[] column = metrics[metric.ordinal()];
+            if (column == null) {
+                if (value == 0L) {
+                    continue;
+                }
+                column = new long[entities.length];
+                metrics[metric.ordinal()] = column;
+            }
+            column[row] = value;
+        }
+    }// put()
+
+    private int rowOf(int entity, long startTime) {
+        while (rowsByEntity.size() <= entity) {
+            rowsByEntity.add(new HashMap<>());
+        }
+        Map<Long, Integer> rows = rowsByEntity.get(entity);
+        Integer row = rows.get(startTime);
+        if (row == null) {
+            if (size == entities.length) {
+                grow();
+            }
+            row = size++;
+            entities[row] = entity;
+            startTimes[row] = startTime;
+            rows.put(startTime, row);
+        }
+        return row;
+    }// rowOf()
+
+    private void grow() {
+        int capacity = entities.length << 1;
+        entities = Arrays.copyOf(entities, capacity);
+        startTimes = Arrays.copyOf(startTimes, capacity);
+        for (int i = 0; i < metrics.length; i++) {
+            if (metrics[i] != null) {
+                metrics[i] = Arrays.copyOf(metrics[i], capacity);
+            }
+        }
+        shared = false;
+    }// grow()
+
+    private static long toMillis(Date date) {
+        return date == null ? 0L : date.getTime();
+    }// toMillis()
+
+    /**
+     * Columns captured for a query
+     */
+    @Getter
+    static final class Snapshot {
+
+        private final int size;
+
+        private final int[] entities;
+
+        private final long[] startTimes;
+
+        /**
+         * Metric columns indexed by {@link StatMetricEnum#ordinal()}, null when the metric was never seen
+         */
+        private final long[][] metrics;
+
+        Snapshot(int size, int[] entities, long[] startTimes, long[][] metrics) {
+            this.size = size;
+            this.entities = entities;
+            this.startTimes = startTimes;
+            this.metrics = metrics;
+        }// Snapshot()
+
+    }// Snapshot
+
+}// StatsCache
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Partial aggregates of a group, metrics are stored by slot.
+ *
+ * @author Yassine
+ */
+@Getter
+final class StatsCacheAccumulator {
+
+    private long count;
+
+    private final long[] sums;
+
+    private final long[] mins;
+
+    private final long[] maxs;
+
+    StatsCacheAccumulator(int slots) {
+        this.sums = new long[slots];
+        this.mins = new long[slots];
+        this.maxs = new long[slots];
+        Arrays.fill(mins, Long.MAX_VALUE);
+        Arrays.fill(maxs, Long.MIN_VALUE);
+    }// StatsCacheAccumulator()
+
+    /**
+     * Accumulate a row.
+     *
+     * @param columns Metric column of each slot (null column = 0)
+     * @param row     Row
+     */
+    void add(long[][] columns, int row) {
+        count++;
+        for (int slot = 0; slot < columns.length; slot++) {
+            long[] column = columns[slot];
+            long value = column == null ? 0L : column[row];
+            sums[slot] += value;
+            if (value < mins[slot]) {
+                mins[slot] = value;
+            }
+            if (value > maxs[slot]) {
+                maxs[slot] = value;
+            }
+        }
+    }// add()
+
+    /**
+     * Merge another partial aggregate of the same group.
+     *
+     * @param other Accumulator
+     */
+    void merge(StatsCacheAccumulator other) {
+        count += other.count;
+        for (int slot = 0; slot < sums.length; slot++) {
+            sums[slot] += other.sums[slot];
+            mins[slot] = Math.min(mins[slot], other.mins[slot]);
+            maxs[slot] = Math.max(maxs[slot], other.maxs[slot]);
+        }
+    }// merge()
+
+}// StatsCacheAccumulator
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import lombok.Getter;
+import lombok.ToString;
+import snapads4j.enums.AggregateEnum;
+import snapads4j.enums.DerivedMetricEnum;
+import snapads4j.enums.StatMetricEnum;
+
+/**
+ * Value computed for each group of a {@link StatsCacheQuery}.
+ * <p>
+ * Either an aggregate of a metric or a ratio of two summed metrics
+ * (numerator / denominator * scale), a ratio is NaN when the denominator is 0.
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public class StatsCacheMeasure {
+
+    private final String alias;
+
+    private final AggregateEnum aggregate;
+
+    private final StatMetricEnum metric;
+
+    private final StatMetricEnum denominator;
+
+    private final double scale;
+
+    private StatsCacheMeasure(String alias, AggregateEnum aggregate, StatMetricEnum metric, StatMetricEnum denominator, double scale) {
+        this.alias = alias;
+        this.aggregate = aggregate;
+        this.metric = metric;
+        this.denominator = denominator;
+        this.scale = scale;
+    }// StatsCacheMeasure()
+
+    /**
+     * Aggregate of a metric
+     *
+     * @param alias     Name of the value in results
+     * @param metric    Metric
+     * @param aggregate Aggregate function
+     * @return measure
+     */
+    public static StatsCacheMeasure aggregate(String alias, StatMetricEnum metric, AggregateEnum aggregate) {
+        return new StatsCacheMeasure(alias, aggregate, metric, null, 1.);
+    }// aggregate()
+
+    /**
+     * Ratio between sums of two metrics (Example : spend / impressions * 1000)
+     *
+     * @param alias       Name of the value in results
+     * @param numerator   Metric summed as numerator
+     * @param denominator Metric summed as denominator
+     * @param scale       Factor applied to the ratio
+     * @return measure
+     */
+    public static StatsCacheMeasure ratio(String alias, StatMetricEnum numerator, StatMetricEnum denominator, double scale) {
+        return new StatsCacheMeasure(alias, null, numerator, denominator, scale);
+    }// ratio()
+
+    /**
+     * Derived metric computed from sums (Example : CPM of a campaign)
+     *
+     * @param metric Derived metric, its alias is its lower case name
+     * @return measure
+     */
+    public static StatsCacheMeasure derived(DerivedMetricEnum metric) {
+        return ratio(metric.name().toLowerCase(), metric.getNumerator(), metric.getDenominator(), metric.getScale());
+    }// derived()
+
+    public boolean isRatio() {
+        return denominator != null;
+    }// isRatio()
+
+    /**
+     * Compute the measure from an accumulator.
+     *
+     * @param acc   Accumulator of a group
+     * @param slots Slot of each metric in accumulator, indexed by {@link StatMetricEnum#ordinal()}
+     * @return value
+     */
+    double compute(StatsCacheAccumulator acc, int[] slots) {
+        int slot = slots[metric.ordinal()];
+        if (isRatio()) {
+            long den = acc.getSums()[slots[denominator.ordinal()]];
+            return den == 0L ? Double.NaN : acc.getSums()[slot] * scale / den;
+        }
+        switch (aggregate) {
+            case SUM:
+                return acc.getSums()[slot];
+            case MIN:
+                return acc.getCount() == 0L ? Double.NaN : acc.getMins()[slot];
+            case MAX:
+                return acc.getCount() == 0L ? Double.NaN : acc.getMaxs()[slot];
+            case AVG:
+                return acc.getCount() == 0L ? Double.NaN : (double) acc.getSums()[slot] / acc.getCount();
+            case COUNT:
+            default:
+                return acc.getCount();
+        }
+    }// compute()
+
+}// StatsCacheMeasure
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+import snapads4j.enums.AggregateEnum;
+import snapads4j.enums.DerivedMetricEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.StatsGroupByEnum;
+import snapads4j.exceptions.SnapArgumentException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Query on a {@link StatsCache}.
+ * <p>
+ * Example : sum of spend by campaign for the last 7 days
+ * <pre>
+ * new StatsCacheQuery.Builder()
+ *     .setStartTime(sevenDaysAgo).setEndTime(now)
+ *     .addGroupBy(StatsGroupByEnum.CAMPAIGN)
+ *     .addAggregate("spend", StatMetricEnum.SPEND, AggregateEnum.SUM)
+ *     .build();
+ * </pre>
+ * A built query is immutable, the builder can be reused without changing it.
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public class StatsCacheQuery {
+
+    /**
+     * Maximum number of group by dimensions
+     */
+    public static final int MAX_GROUP_BY = 2;
+
+    private Set<String> entityIds = Collections.emptySet();
+
+    private Set<String> campaignIds = Collections.emptySet();
+
+    private Set<String> adSquadIds = Collections.emptySet();
+
+    /**
+     * Start time (inclusive) of buckets
+     */
+    private Date startTime;
+
+    /**
+     * End time (exclusive) of buckets
+     */
+    private Date endTime;
+
+    private List<StatsGroupByEnum> groupBy = new ArrayList<>();
+
+    private List<StatsCacheMeasure> measures = new ArrayList<>();
+
+    /**
+     * Alias of the measure used to sort groups
+     */
+    private String orderBy;
+
+    private boolean descending;
+
+    /**
+     * Maximum number of groups returned, 0 means no limit
+     */
+    private int limit;
+
+    /**
+     * Time zone used to compute days
+     */
+    private TimeZone timeZone = TimeZone.getTimeZone("UTC");
+
+    private StatsCacheQuery() {
+    }
+
+    /**
+     * Immutable copy of the query being built
+     *
+     * @param query Query being built
+     */
+    private StatsCacheQuery(StatsCacheQuery query) {
+        this.entityIds = Collections.unmodifiableSet(new HashSet<>(query.entityIds));
+        this.campaignIds = Collections.unmodifiableSet(new HashSet<>(query.campaignIds));
+        this.adSquadIds = Collections.unmodifiableSet(new HashSet<>(query.adSquadIds));
+        this.startTime = copy(query.startTime);
+        this.endTime = copy(query.endTime);
+        this.groupBy = Collections.unmodifiableList(new ArrayList<>(query.groupBy));
+        this.measures = Collections.unmodifiableList(new ArrayList<>(query.measures));
+        this.orderBy = query.orderBy;
+        this.descending = query.descending;
+        this.limit = query.limit;
+        this.timeZone = (TimeZone) query.timeZone.clone();
+    }// StatsCacheQuery()
+
+    public Date getStartTime() {
+        return copy(startTime);
+    }// getStartTime()
+
+    public Date getEndTime() {
+        return copy(endTime);
+    }// getEndTime()
+
+    public TimeZone getTimeZone() {
+        return (TimeZone) timeZone.clone();
+    }// getTimeZone()
+
+    private static Date copy(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }// copy()
+
+    /**
+     * Used to build StatsCacheQuery instance (${@link StatsCacheQuery})
+     *
+     * @author Yassine
+     */
+    public static class Builder {
+
+        private final StatsCacheQuery queryInstance;
+
+        /**
+         * Constructor
+         */
+        public Builder() {
+            this.queryInstance = new StatsCacheQuery();
+        }// Builder()
+
+        /**
+         * Keep only stats of these entities
+         *
+         * @param entityIds Entity IDs
+         * @return builder
+         */
+        public Builder setEntityIds(Collection<String> entityIds) {
+            this.queryInstance.entityIds = new HashSet<>(entityIds);
+            return this;
+        }// setEntityIds()
+
+        /**
+         * Keep only stats of entities belonging to these campaigns
+         *
+         * @param campaignIds Campaign IDs
+         * @return builder
+         */
+        public Builder setCampaignIds(Collection<String> campaignIds) {
+            this.queryInstance.campaignIds = new HashSet<>(campaignIds);
+            return this;
+        }// setCampaignIds()
+
+        /**
+         * Keep only stats of entities belonging to these ad squads
+         *
+         * @param adSquadIds Ad squad IDs
+         * @return builder
+         */
+        public Builder setAdSquadIds(Collection<String> adSquadIds) {
+            this.queryInstance.adSquadIds = new HashSet<>(adSquadIds);
+            return this;
+        }// setAdSquadIds()
+
+        public Builder setStartTime(Date startTime) {
+            this.queryInstance.startTime = startTime;
+            return this;
+        }// setStartTime()
+
+        public Builder setEndTime(Date endTime) {
+            this.queryInstance.endTime = endTime;
+            return this;
+        }// setEndTime()
+
+        public Builder addGroupBy(StatsGroupByEnum groupBy) {
+            this.queryInstance.groupBy.add(groupBy);
+            return this;
+        }// addGroupBy()
+
+        public Builder addAggregate(String alias, StatMetricEnum metric, AggregateEnum aggregate) {
+            this.queryInstance.measures.add(StatsCacheMeasure.aggregate(alias, metric, aggregate));
+            return this;
+        }// addAggregate()
+
+        public Builder addRatio(String alias, StatMetricEnum numerator, StatMetricEnum denominator, double scale) {
+            this.queryInstance.measures.add(StatsCacheMeasure.ratio(alias, numerator, denominator, scale));
+            return this;
+        }// addRatio()
+
+        /**
+         * Add a derived metric, its alias is its lower case name (Example : cpm)
+         *
+         * @param metric Derived metric
+         * @return builder
+         */
+        public Builder addDerived(DerivedMetricEnum metric) {
+            this.queryInstance.measures.add(StatsCacheMeasure.derived(metric));
+            return this;
+        }// addDerived()
+
+        public Builder addMeasure(StatsCacheMeasure measure) {
+            this.queryInstance.measures.add(measure);
+            return this;
+        }// addMeasure()
+
+        /**
+         * Sort groups by a measure
+         *
+         * @param alias      Alias of the measure
+         * @param descending true to sort from the highest value
+         * @return builder
+         */
+        public Builder setOrderBy(String alias, boolean descending) {
+            this.queryInstance.orderBy = alias;
+            this.queryInstance.descending = descending;
+            return this;
+        }// setOrderBy()
+
+        public Builder setLimit(int limit) {
+            this.queryInstance.limit = limit;
+            return this;
+        }// setLimit()
+
+        public Builder setTimeZone(TimeZone timeZone) {
+            this.queryInstance.timeZone = timeZone;
+            return this;
+        }// setTimeZone()
+
+        public StatsCacheQuery build() throws SnapArgumentException {
+            StringBuilder sb = new StringBuilder();
+            if (queryInstance.measures.isEmpty()) {
+                sb.append("At least one measure is required,");
+            }
+            if (queryInstance.groupBy.size() > MAX_GROUP_BY) {
+                sb.append("Maximum group by is ").append(MAX_GROUP_BY).append(",");
+            }
+            if (new HashSet<>(queryInstance.groupBy).size() != queryInstance.groupBy.size()) {
+                sb.append("Group by must be distinct,");
+            }
+            Set<String> aliases = new HashSet<>();
+            for (StatsCacheMeasure measure : queryInstance.measures) {
+                if (StringUtils.isEmpty(measure.getAlias()) || measure.getMetric() == null
+                        || (!measure.isRatio() && measure.getAggregate() == null)) {
+                    sb.append("Measure alias, metric and aggregate are required,");
+                } else if (!aliases.add(measure.getAlias())) {
+                    sb.append("Measure alias ").append(measure.getAlias()).append(" is duplicated,");
+                }
+            }
+            if (queryInstance.orderBy != null && !aliases.contains(queryInstance.orderBy)) {
+                sb.append("Order by must be a measure alias,");
+            }
+            if (queryInstance.limit < 0) {
+                sb.append("Limit must be positive,");
+            }
+            if (queryInstance.timeZone == null) {
+                sb.append("Time zone is required,");
+            }
+            if (queryInstance.startTime != null && queryInstance.endTime != null
+                    && queryInstance.startTime.after(queryInstance.endTime)) {
+                sb.append("StartTime must be before EndTime,");
+            }
+            String finalErrors = sb.toString();
+            if (!StringUtils.isEmpty(finalErrors)) {
+                throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+            }
+            return new StatsCacheQuery(this.queryInstance);
+        }// build()
+
+    }// Builder
+
+}// StatsCacheQuery
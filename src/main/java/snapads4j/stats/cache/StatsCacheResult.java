@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import lombok.Getter;
+import lombok.ToString;
+import snapads4j.enums.StatsGroupByEnum;
+
+import java.util.List;
+
+/**
+ * Result of a {@link StatsCacheQuery}, one row by group.
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public class StatsCacheResult {
+
+    /**
+     * Group by dimensions, in the same order as the keys of each row
+     */
+    private final List<StatsGroupByEnum> groupBy;
+
+    private final List<StatsCacheResultRow> rows;
+
+    public StatsCacheResult(List<StatsGroupByEnum> groupBy, List<StatsCacheResultRow> rows) {
+        this.groupBy = groupBy;
+        this.rows = rows;
+    }// StatsCacheResult()
+
+}// StatsCacheResult
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Group of a {@link StatsCacheResult}
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public class StatsCacheResultRow {
+
+    /**
+     * Value of each group by dimension (entity ID or day yyyy-MM-dd), null if unknown
+     */
+    private final List<String> keys;
+
+    /**
+     * Value of each measure by alias
+     */
+    private final Map<String, Double> values;
+
+    public StatsCacheResultRow(List<String> keys, Map<String, Double> values) {
+        this.keys = keys;
+        this.values = values;
+    }// StatsCacheResultRow()
+
+    /**
+     * Get value of a measure
+     *
+     * @param alias Alias of the measure
+     * @return value, NaN if the measure doesn't exist
+     */
+    public double getValue(String alias) {
+        Double value = values.get(alias);
+        return value == null ? Double.NaN : value;
+    }// getValue()
+
+}// StatsCacheResultRow
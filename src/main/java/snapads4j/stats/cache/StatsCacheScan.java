@@ -0,0 +1,236 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import lombok.Getter;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.StatsGroupByEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Execution plan of a {@link StatsCacheQuery} on a snapshot of {@link StatsCache}.
+ * <p>
+ * Everything depending on the entity only (filters, campaign / ad squad of each entity)
+ * is resolved once by entity code, so scanning a row is a few array reads.
+ *
+ * @author Yassine
+ */
+final class StatsCacheScan {
+
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private final StatsCache.Snapshot snapshot;
+
+    private final StatsDictionary dictionary;
+
+    private final StatsCacheQuery query;
+
+    @Getter
+    private final int size;
+
+    /**
+     * Entities kept by filters (indexed by entity code), null when there is no entity filter
+     */
+    private final boolean[] allowed;
+
+    private final long startTime;
+
+    private final long endTime;
+
+    private final StatsGroupByEnum[] groupBy;
+
+    /**
+     * Group code of each entity for each entity dimension (null for ENTITY and DAY)
+     */
+    private final int[][] groupCodes;
+
+    /**
+     * Slot of each metric (indexed by {@link StatMetricEnum#ordinal()}), -1 when unused
+     */
+    private final int[] slots;
+
+    /**
+     * Column of each slot
+     */
+    private final long[][] columns;
+
+    private final TimeZone timeZone;
+
+    StatsCacheScan(StatsCache.Snapshot snapshot, StatsDictionary dictionary, StatsCacheQuery query) {
+        this.snapshot = snapshot;
+        this.dictionary = dictionary;
+        this.query = query;
+        this.size = snapshot.getSize();
+        this.startTime = query.getStartTime() == null ? Long.MIN_VALUE : query.getStartTime().getTime();
+        this.endTime = query.getEndTime() == null ? Long.MAX_VALUE : query.getEndTime().getTime();
+        this.timeZone = query.getTimeZone();
+        int[] campaigns = null;
+        int[] adSquads = null;
+        if (query.getGroupBy().contains(StatsGroupByEnum.CAMPAIGN) || !query.getCampaignIds().isEmpty()) {
+            campaigns = dictionary.resolveAncestors(TimeSerieTypeEnum.CAMPAIGN);
+        }
+        if (query.getGroupBy().contains(StatsGroupByEnum.AD_SQUAD) || !query.getAdSquadIds().isEmpty()) {
+            adSquads = dictionary.resolveAncestors(TimeSerieTypeEnum.AD_SQUAD);
+        }
+        this.groupBy = query.getGroupBy().toArray(new StatsGroupByEnum[0]);
+        this.groupCodes = new int[groupBy.length][];
+        for (int i = 0; i < groupBy.length; i++) {
+            if (groupBy[i] == StatsGroupByEnum.CAMPAIGN) {
+                groupCodes[i] = campaigns;
+            } else if (groupBy[i] == StatsGroupByEnum.AD_SQUAD) {
+                groupCodes[i] = adSquads;
+            }
+        }
+        this.allowed = resolveAllowed(campaigns, adSquads);
+        this.slots = new int[StatMetricEnum.values().length];
+        Arrays.fill(slots, -1);
+        List<long[]> usedColumns = new ArrayList<>();
+        for (StatsCacheMeasure measure : query.getMeasures()) {
+            for (StatMetricEnum metric : new StatMetricEnum[]{measure.getMetric(), measure.getDenominator()}) {
+                if (metric != null && slots[metric.ordinal()] < 0) {
+                    slots[metric.ordinal()] = usedColumns.size();
+                    usedColumns.add(snapshot.getMetrics()[metric.ordinal()]);
+                }
+            }
+        }
+        this.columns = usedColumns.toArray(new long[0][]);
+    }// StatsCacheScan()
+
+    /**
+     * Aggregate rows [from, to[ by group key.
+     *
+     * @param from First row (inclusive)
+     * @param to   Last row (exclusive)
+     * @return accumulators by group key
+     */
+    Map<Long, StatsCacheAccumulator> scan(int from, int to) {
+        Map<Long, StatsCacheAccumulator> groups = new HashMap<>();
+        int[] entities = snapshot.getEntities();
+        long[] startTimes = snapshot.getStartTimes();
+        long lastKey = 0L;
+        StatsCacheAccumulator last = null;
+        for (int row = from; row < to; row++) {
+            int entity = entities[row];
+            long time = startTimes[row];
+            if (time < startTime || time >= endTime || (allowed != null && !allowed[entity])) {
+                continue;
+            }
+            long key = groupKey(entity, time);
+            // Rows of an entity are mostly contiguous, avoid the map lookup in this case
+            if (last == null || key != lastKey) {
+                last = groups.get(key);
+                if (last == null) {
+                    last = new StatsCacheAccumulator(columns.length);
+                    groups.put(key, last);
+                }
+                lastKey = key;
+            }
+            last.add(columns, row);
+        }
+        return groups;
+    }// scan()
+
+    /**
+     * Build the final result from the accumulators of each group.
+     *
+     * @param groups Accumulators by group key
+     * @return result
+     */
+    StatsCacheResult toResult(Map<Long, StatsCacheAccumulator> groups) {
+        List<StatsCacheMeasure> measures = query.getMeasures();
+        List<StatsCacheResultRow> rows = new ArrayList<>(groups.size());
+        for (Map.Entry<Long, StatsCacheAccumulator> group : groups.entrySet()) {
+            Map<String, Double> values = new LinkedHashMap<>();
+            for (StatsCacheMeasure measure : measures) {
+                values.put(measure.getAlias(), measure.compute(group.getValue(), slots));
+            }
+            rows.add(new StatsCacheResultRow(decodeKey(group.getKey()), values));
+        }
+        if (query.getOrderBy() != null) {
+            final String orderBy = query.getOrderBy();
+            // NaN values are always sorted last
+            Comparator<StatsCacheResultRow> comparator = Comparator.comparing(row -> Double.isNaN(row.getValue(orderBy)));
+            Comparator<StatsCacheResultRow> byValue = Comparator.comparingDouble(row -> row.getValue(orderBy));
+            rows.sort(comparator.thenComparing(query.isDescending() ? byValue.reversed() : byValue));
+        }
+        if (query.getLimit() > 0 && rows.size() > query.getLimit()) {
+            rows = new ArrayList<>(rows.subList(0, query.getLimit()));
+        }
+        return new StatsCacheResult(query.getGroupBy(), rows);
+    }// toResult()
+
+    private long groupKey(int entity, long time) {
+        long key = 0L;
+        for (int i = 0; i < groupBy.length; i++) {
+            int code;
+            if (groupBy[i] == StatsGroupByEnum.DAY) {
+                code = (int) Math.floorDiv(time + timeZone.getOffset(time), DAY_MILLIS);
+            } else if (groupBy[i] == StatsGroupByEnum.ENTITY) {
+                code = entity;
+            } else {
+                code = groupCodes[i][entity];
+            }
+            key = (key << 32) | (code & 0xFFFFFFFFL);
+        }
+        return key;
+    }// groupKey()
+
+    private List<String> decodeKey(long key) {
+        String[] values = new String[groupBy.length];
+        for (int i = groupBy.length - 1; i >= 0; i--) {
+            int code = (int) key;
+            key >>>= 32;
+            if (groupBy[i] == StatsGroupByEnum.DAY) {
+                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+                sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+                values[i] = sdf.format(code * DAY_MILLIS);
+            } else {
+                values[i] = dictionary.decode(code);
+            }
+        }
+        return Arrays.asList(values);
+    }// decodeKey()
+
+    private boolean[] resolveAllowed(int[] campaigns, int[] adSquads) {
+        if (query.getEntityIds().isEmpty() && query.getCampaignIds().isEmpty() && query.getAdSquadIds().isEmpty()) {
+            return null;
+        }
+        int entities = campaigns != null ? campaigns.length : adSquads != null ? adSquads.length : dictionary.size();
+        boolean[] result = new boolean[entities];
+        for (int code = 0; code < entities; code++) {
+            result[code] = matches(query.getEntityIds(), code)
+                    && (campaigns == null || matches(query.getCampaignIds(), campaigns[code]))
+                    && (adSquads == null || matches(query.getAdSquadIds(), adSquads[code]));
+        }
+        return result;
+    }// resolveAllowed()
+
+    private boolean matches(Set<String> ids, int code) {
+        return ids.isEmpty() || (code != StatsDictionary.NO_CODE && ids.contains(dictionary.decode(code)));
+    }// matches()
+
+}// StatsCacheScan
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork join task scanning a range of rows of a {@link StatsCacheScan}.
+ * Ranges are split in halves until they are small enough to be scanned by one thread,
+ * then partial aggregates are merged.
+ *
+ * @author Yassine
+ */
+final class StatsCacheScanTask extends RecursiveTask<Map<Long, StatsCacheAccumulator>> {
+
+    private static final long serialVersionUID = -2880402962517012398L;
+
+    /**
+     * Number of rows under which a range isn't split anymore
+     */
+    static final int THRESHOLD = 1 << 15;
+
+    private final transient StatsCacheScan scan;
+
+    private final int from;
+
+    private final int to;
+
+    StatsCacheScanTask(StatsCacheScan scan, int from, int to) {
+        this.scan = scan;
+        this.from = from;
+        this.to = to;
+    }// StatsCacheScanTask()
+
+    @Override
+    protected Map<Long, StatsCacheAccumulator> compute() {
+        if (to - from <= THRESHOLD) {
+            return scan.scan(from, to);
+        }
+        int middle = (from + to) >>> 1;
+        StatsCacheScanTask left = new StatsCacheScanTask(scan, from, middle);
+        StatsCacheScanTask right = new StatsCacheScanTask(scan, middle, to);
+        left.fork();
+        Map<Long, StatsCacheAccumulator> result = right.compute();
+        Map<Long, StatsCacheAccumulator> other = left.join();
+        // Merge the smallest map into the biggest one
+        if (other.size() > result.size()) {
+            Map<Long, StatsCacheAccumulator> tmp = result;
+            result = other;
+            other = tmp;
+        }
+        for (Map.Entry<Long, StatsCacheAccumulator> entry : other.entrySet()) {
+            StatsCacheAccumulator acc = result.get(entry.getKey());
+            if (acc == null) {
+                result.put(entry.getKey(), entry.getValue());
+            } else {
+                acc.merge(entry.getValue());
+            }
+        }
+        return result;
+    }// compute()
+
+}// StatsCacheScanTask
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import snapads4j.enums.TimeSerieTypeEnum;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding of entity IDs.
+ * <p>
+ * Each entity ID is bound to a dense int code, columns only store codes.
+ * The dictionary also remembers the type of each entity and its parent
+ * (ad -> ad squad -> campaign) to resolve group by campaign / ad squad.
+ *
+ * @author Yassine
+ */
+public class StatsDictionary {
+
+    public static final int NO_CODE = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    private final List<String> ids = new ArrayList<>();
+
+    private TimeSerieTypeEnum[] types = new TimeSerieTypeEnum[16];
+
+    private int[] parents = newCodes(16);
+
+    /**
+     * Get the code of an entity ID, a new code is created if the ID is unknown.
+     *
+     * @param id Entity ID
+     * @return code
+     */
+    public synchronized int encode(String id) {
+        Integer code = codes.get(id);
+        if (code == null) {
+            code = ids.size();
+            codes.put(id, code);
+            ids.add(id);
+            if (code == types.length) {
+                int capacity = types.length << 1;
+                types = Arrays.copyOf(types, capacity);
+                int[] newParents = newCodes(capacity);
+                System.arraycopy(parents, 0, newParents, 0, code);
+                parents = newParents;
+            }
+        }
+        return code;
+    }// encode()
+
+    /**
+     * Get the code of an entity ID without creating it.
+     *
+     * @param id Entity ID
+     * @return code or {@link #NO_CODE} if the ID is unknown
+     */
+    public synchronized int code(String id) {
+        Integer code = codes.get(id);
+        return code == null ? NO_CODE : code;
+    }// code()
+
+    /**
+     * Get the entity ID bound to a code.
+     *
+     * @param code code
+     * @return Entity ID or null if code is {@link #NO_CODE}
+     */
+    public synchronized String decode(int code) {
+        return code == NO_CODE ? null : ids.get(code);
+    }// decode()
+
+    public synchronized int size() {
+        return ids.size();
+    }// size()
+
+    public synchronized TimeSerieTypeEnum getType(int code) {
+        return types[code];
+    }// getType()
+
+    /**
+     * Set the type of an entity.
+     *
+     * @param id   Entity ID
+     * @param type Entity type
+     * @return code of entity
+     */
+    public synchronized int setType(String id, TimeSerieTypeEnum type) {
+        int code = encode(id);
+        if (type != null) {
+            types[code] = type;
+        }
+        return code;
+    }// setType()
+
+    /**
+     * Bind an entity to its parent (ad -> ad squad, ad squad -> campaign).
+     *
+     * @param childID    Child entity ID
+     * @param childType  Child entity type
+     * @param parentID   Parent entity ID
+     * @param parentType Parent entity type
+     */
+    public synchronized void link(String childID, TimeSerieTypeEnum childType, String parentID, TimeSerieTypeEnum parentType) {
+        int child = setType(childID, childType);
+        parents[child] = setType(parentID, parentType);
+    }// link()
+
+    /**
+     * Resolve for each code its ancestor (or itself) of the given type.
+     *
+     * @param type Type of ancestor
+     * @return array indexed by code, {@link #NO_CODE} when there is no such ancestor
+     */
+    public synchronized int[] resolveAncestors(TimeSerieTypeEnum type) {
+        int size = ids.size();
+        int[] ancestors = newCodes(size);
+        for (int code = 0; code < size; code++) {
+            int current = code;
+            // Hierarchy depth is at most ad -> ad squad -> campaign -> ad account
+            for (int depth = 0; current != NO_CODE && depth < 4; depth++) {
+                if (types[current] == type) {
+                    ancestors[code] = current;
+                    break;
+                }
+                current = parents[current];
+            }
+        }
+        return ancestors;
+    }// resolveAncestors()
+
+    private static int[] newCodes(int capacity) {
+        int[] array = new int[capacity];
+        Arrays.fill(array, NO_CODE);
+        return array;
+    }// newCodes()
+
+}// StatsDictionary
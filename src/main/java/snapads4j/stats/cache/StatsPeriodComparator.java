@@ -0,0 +1,198 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapExecutionException;
+import snapads4j.exceptions.SnapOAuthAccessTokenException;
+import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.TimeSerieStat;
+import snapads4j.stats.SnapStatsInterface;
+import snapads4j.stats.StatsQuery;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Period over period comparison (yesterday vs the same day last week...) served by a {@link StatsCache}.
+ * <p>
+ * Both periods are read from the cache, the buckets which aren't cached yet are fetched with one request
+ * per period (from the first to the last missing bucket) and added to the cache, so comparing again
+ * or comparing an overlapping period doesn't call the API.
+ * <pre>
+ * StatsPeriodComparator comparator = new StatsPeriodComparator(snapStats, new StatsCache(GranularityEnum.HOUR));
+ * StatsPeriodComparison comparison = comparator.compare(token, TimeSerieTypeEnum.CAMPAIGN, campaignID,
+ *     yesterday, sameDayLastWeek, 24, Arrays.asList(StatMetricEnum.SPEND, StatMetricEnum.IMPRESSIONS));
+ * </pre>
+ * Buckets are found by start time : a DAY comparator must be given the time zone of the ad account, its days are
+ * stepped with the calendar of this time zone (23 or 25 hours when the daylight saving time changes).
+ *
+ * @author Yassine
+ */
+public class StatsPeriodComparator {
+
+    private final SnapStatsInterface snapStats;
+
+    private final StatsCache cache;
+
+    private final TimeZone timeZone;
+
+    /**
+     * Constructor, days are in UTC
+     *
+     * @param snapStats API of stats
+     * @param cache     Cache of stats (HOUR or DAY)
+     * @throws SnapArgumentException If the granularity of the cache isn't HOUR or DAY
+     */
+    public StatsPeriodComparator(SnapStatsInterface snapStats, StatsCache cache) throws SnapArgumentException {
+        this(snapStats, cache, TimeZone.getTimeZone("UTC"));
+    }// StatsPeriodComparator()
+
+    /**
+     * Constructor
+     *
+     * @param snapStats API of stats
+     * @param cache     Cache of stats (HOUR or DAY)
+     * @param timeZone  Time zone of the ad account
+     * @throws SnapArgumentException If the granularity of the cache isn't HOUR or DAY or the time zone is missing
+     */
+    public StatsPeriodComparator(SnapStatsInterface snapStats, StatsCache cache, TimeZone timeZone) throws SnapArgumentException {
+        if (cache.getGranularity() != GranularityEnum.HOUR && cache.getGranularity() != GranularityEnum.DAY) {
+            throw new SnapArgumentException("Granularity of the cache must be HOUR or DAY");
+        }
+        if (timeZone == null) {
+            throw new SnapArgumentException("Time zone is required");
+        }
+        this.snapStats = snapStats;
+        this.cache = cache;
+        this.timeZone = timeZone;
+    }// StatsPeriodComparator()
+
+    /**
+     * Compare two periods of an entity
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param type             Type of the entity (CAMPAIGN, AD_ACCOUNT, AD_SQUAD or AD)
+     * @param id               ID of the entity
+     * @param currentStart     Start of the current period
+     * @param previousStart    Start of the previous period
+     * @param buckets          Number of buckets of each period
+     * @param metrics          Metrics compared
+     * @return comparison
+     */
+    public StatsPeriodComparison compare(String oAuthAccessToken, TimeSerieTypeEnum type, String id, Date currentStart,
+                                         Date previousStart, int buckets, Collection<StatMetricEnum> metrics)
+            throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        if (StringUtils.isEmpty(oAuthAccessToken)) {
+            throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
+        }
+        StringBuilder sb = new StringBuilder();
+        if (type == null || type == TimeSerieTypeEnum.PIXEL) {
+            sb.append("Type must be CAMPAIGN, AD_ACCOUNT, AD_SQUAD or AD,");
+        }
+        if (StringUtils.isEmpty(id)) {
+            sb.append("ID is required,");
+        }
+        if (currentStart == null || previousStart == null) {
+            sb.append("Start of both periods is required,");
+        }
+        if (buckets < 1) {
+            sb.append("At least one bucket is required,");
+        }
+        if (CollectionUtils.isEmpty(metrics) || metrics.contains(null)) {
+            sb.append("At least one metric is required,");
+        }
+        String finalErrors = sb.toString();
+        if (!StringUtils.isEmpty(finalErrors)) {
+            throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+        }
+        StatMetricEnum[] wanted = new LinkedHashSet<>(metrics).toArray(new StatMetricEnum[0]);
+        long[][] current = read(oAuthAccessToken, type, id, currentStart.getTime(), buckets, wanted);
+        long[][] previous = read(oAuthAccessToken, type, id, previousStart.getTime(), buckets, wanted);
+        return new StatsPeriodComparison(type, id, cache.getGranularity(), currentStart, previousStart, wanted, current, previous);
+    }// compare()
+
+    /**
+     * Read a period from the cache, fetching the buckets not cached
+     */
+    private long[][] read(String oAuthAccessToken, TimeSerieTypeEnum type, String id, long start, int buckets,
+                          StatMetricEnum[] wanted)
+            throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        long[][] values = new long[wanted.length][buckets];
+        boolean[] missing = new boolean[buckets];
+        long[] starts = starts(start, buckets);
+        if (cache.read(id, starts, wanted, values, missing) > 0) {
+            int first = 0;
+            while (!missing[first]) {
+                first++;
+            }
+            int last = buckets - 1;
+            while (!missing[last]) {
+                last--;
+            }
+            StatsQuery query = new StatsQuery.Builder()
+                    .setGranularity(cache.getGranularity())
+                    .setStartTime(new Date(starts[first]))
+                    .setEndTime(new Date(starts[last + 1]))
+                    .addMetrics(Arrays.asList(wanted))
+                    .build();
+            cache.addAll(fetch(oAuthAccessToken, type, id, query));
+            cache.read(id, starts, wanted, values, missing);
+        }
+        return values;
+    }// read()
+
+    /**
+     * @return start time of each bucket of a period, then its end
+     */
+    private long[] starts(long start, int buckets) {
+        long[] starts = new long[buckets + 1];
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.setTimeInMillis(start);
+        int field = cache.getGranularity() == GranularityEnum.HOUR ? Calendar.HOUR_OF_DAY : Calendar.DAY_OF_MONTH;
+        for (int bucket = 0; bucket <= buckets; bucket++) {
+            starts[bucket] = calendar.getTimeInMillis();
+            calendar.add(field, 1);
+        }
+        return starts;
+    }// starts()
+
+    private List<Pagination<TimeSerieStat>> fetch(String oAuthAccessToken, TimeSerieTypeEnum type, String id, StatsQuery query)
+            throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        switch (type) {
+            case CAMPAIGN:
+                return snapStats.getCampaignStats(oAuthAccessToken, id, query);
+            case AD_ACCOUNT:
+                return snapStats.getAdAccountStats(oAuthAccessToken, id, query);
+            case AD_SQUAD:
+                return snapStats.getAdSquadStats(oAuthAccessToken, id, query);
+            default:
+                return snapStats.getAdStats(oAuthAccessToken, id, query);
+        }
+    }// fetch()
+
+}// StatsPeriodComparator
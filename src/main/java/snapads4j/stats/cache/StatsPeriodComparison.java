@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import lombok.Getter;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Two periods of an entity aligned bucket by bucket : the n-th bucket of the current period is compared
+ * with the n-th bucket of the previous one.
+ * <p>
+ * Changes are percentages of the previous value, NaN when the previous value is 0.
+ *
+ * @author Yassine
+ */
+public class StatsPeriodComparison {
+
+    @Getter
+    private final TimeSerieTypeEnum type;
+
+    @Getter
+    private final String id;
+
+    @Getter
+    private final GranularityEnum granularity;
+
+    @Getter
+    private final Date currentStart;
+
+    @Getter
+    private final Date previousStart;
+
+    @Getter
+    private final int buckets;
+
+    @Getter
+    private final List<StatMetricEnum> metrics;
+
+    private final long[][] current;
+
+    private final long[][] previous;
+
+    private final long[][] deltas;
+
+    private final double[][] changes;
+
+    private final long[] currentTotals;
+
+    private final long[] previousTotals;
+
+    StatsPeriodComparison(TimeSerieTypeEnum type, String id, GranularityEnum granularity, Date currentStart,
+                          Date previousStart, StatMetricEnum[] metrics, long[][] current, long[][] previous) {
+        this.type = type;
+        this.id = id;
+        this.granularity = granularity;
+        this.currentStart = currentStart;
+        this.previousStart = previousStart;
+        this.metrics = Collections.unmodifiableList(Arrays.asList(metrics));
+        this.buckets = current.length == 0 ? 0 : current[0].length;
+        this.current = current;
+        this.previous = previous;
+        this.deltas = new long[metrics.length][buckets];
+        this.changes = new double[metrics.length][buckets];
+        this.currentTotals = new long[metrics.length];
+        this.previousTotals = new long[metrics.length];
+        for (int m = 0; m < metrics.length; m++) {
+            long[] cur = current[m];
+            long[] prev = previous[m];
+            long[] delta = deltas[m];
+            double[] change = changes[m];
+            long curTotal = 0L;
+            long prevTotal = 0L;
+            for (int b = 0; b < buckets; b++) {
+                delta[b] = cur[b] - prev[b];
+                change[b] = percentage(delta[b], prev[b]);
+                curTotal += cur[b];
+                prevTotal += prev[b];
+            }
+            currentTotals[m] = curTotal;
+            previousTotals[m] = prevTotal;
+        }
+    }// StatsPeriodComparison()
+
+    /**
+     * @param metric Metric
+     * @return values of the current period by bucket
+     */
+    public long[] getCurrent(StatMetricEnum metric) {
+        return current[indexOf(metric)].clone();
+    }// getCurrent()
+
+    /**
+     * @param metric Metric
+     * @return values of the previous period by bucket
+     */
+    public long[] getPrevious(StatMetricEnum metric) {
+        return previous[indexOf(metric)].clone();
+    }// getPrevious()
+
+    /**
+     * @param metric Metric
+     * @return current - previous by bucket
+     */
+    public long[] getDeltas(StatMetricEnum metric) {
+        return deltas[indexOf(metric)].clone();
+    }// getDeltas()
+
+    /**
+     * @param metric Metric
+     * @return change in percent by bucket
+     */
+    public double[] getChanges(StatMetricEnum metric) {
+        return changes[indexOf(metric)].clone();
+    }// getChanges()
+
+    public long getCurrentTotal(StatMetricEnum metric) {
+        return currentTotals[indexOf(metric)];
+    }// getCurrentTotal()
+
+    public long getPreviousTotal(StatMetricEnum metric) {
+        return previousTotals[indexOf(metric)];
+    }// getPreviousTotal()
+
+    public long getTotalDelta(StatMetricEnum metric) {
+        int index = indexOf(metric);
+        return currentTotals[index] - previousTotals[index];
+    }// getTotalDelta()
+
+    /**
+     * @param metric Metric
+     * @return change of the whole period in percent
+     */
+    public double getTotalChange(StatMetricEnum metric) {
+        int index = indexOf(metric);
+        return percentage(currentTotals[index] - previousTotals[index], previousTotals[index]);
+    }// getTotalChange()
+
+    private int indexOf(StatMetricEnum metric) {
+        int index = metrics.indexOf(metric);
+        if (index < 0) {
+            throw new IllegalArgumentException("Metric " + metric + " isn't compared");
+        }
+        return index;
+    }// indexOf()
+
+    private static double percentage(long delta, long previous) {
+        return previous == 0L ? Double.NaN : delta * 100. / previous;
+    }// percentage()
+
+}// StatsPeriodComparison
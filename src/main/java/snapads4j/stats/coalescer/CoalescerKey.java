@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.coalescer;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Identify the stats requests which can share their time buckets : same entity, same granularity, same fields
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+final class CoalescerKey {
+
+    private final TimeSerieTypeEnum type;
+
+    private final String id;
+
+    private final GranularityEnum granularity;
+
+    /**
+     * Sorted fields, empty means all fields
+     */
+    private final List<String> fields;
+
+    CoalescerKey(TimeSerieTypeEnum type, String id, GranularityEnum granularity, List<String> fields) {
+        this.type = type;
+        this.id = id;
+        this.granularity = granularity;
+        List<String> sorted = fields == null ? new ArrayList<>() : new ArrayList<>(fields);
+        Collections.sort(sorted);
+        this.fields = Collections.unmodifiableList(sorted);
+    }// CoalescerKey()
+
+}// CoalescerKey
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.coalescer;
+
+import snapads4j.model.stats.TimeSerie;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Time ranges fetched or being fetched for a {@link CoalescerKey}, with the buckets fetched.
+ * All methods must be called while holding the state lock.
+ *
+ * @author Yassine
+ */
+final class CoalescerState {
+
+    private final List<Range> fetched = new ArrayList<>();
+
+    private final List<Range> inFlight = new ArrayList<>();
+
+    /**
+     * Buckets fetched, keyed by start time
+     */
+    private final TreeMap<Long, TimeSerie> buckets = new TreeMap<>();
+
+    /**
+     * Plan a request : buckets already fresh are copied, missing sub-ranges are registered as in flight
+     * and become owned by the caller, overlapping in flight ranges are awaited.
+     *
+     * @param start    Start of the request (inclusive)
+     * @param end      End of the request (exclusive)
+     * @param now      Current time
+     * @param ttlMillis Time during which fetched ranges are fresh
+     * @return plan
+     */
+    Plan plan(long start, long end, long now, long ttlMillis) {
+        evictExpired(now, ttlMillis);
+        Plan plan = new Plan();
+        List<Range> covering = new ArrayList<>();
+        for (Range range : fetched) {
+            if (range.overlaps(start, end)) {
+                covering.add(range);
+                for (Map.Entry<Long, TimeSerie> bucket : buckets.subMap(Math.max(start, range.start), Math.min(end, range.end)).entrySet()) {
+                    plan.cached.put(bucket.getKey(), bucket.getValue());
+                }
+            }
+        }
+        for (Range range : inFlight) {
+            if (range.overlaps(start, end)) {
+                covering.add(range);
+                plan.awaited.add(range.future);
+            }
+        }
+        covering.sort(Comparator.comparingLong(range -> range.start));
+        long cursor = start;
+        for (Range range : covering) {
+            if (range.start > cursor) {
+                plan.owned.add(startFetch(cursor, Math.min(range.start, end)));
+            }
+            cursor = Math.max(cursor, range.end);
+            if (cursor >= end) {
+                break;
+            }
+        }
+        if (cursor < end) {
+            plan.owned.add(startFetch(cursor, end));
+        }
+        return plan;
+    }// plan()
+
+    /**
+     * Store buckets of an owned range and wake up its waiters
+     */
+    void complete(Range range, List<TimeSerie> series, long now) {
+        inFlight.remove(range);
+        range.fetchedAt = now;
+        fetched.add(range);
+        for (TimeSerie serie : series) {
+            if (serie.getStartTime() != null) {
+                buckets.put(serie.getStartTime().getTime(), serie);
+            }
+        }
+        range.future.complete(series);
+    }// complete()
+
+    /**
+     * Forget an owned range and propagate the failure to its waiters
+     */
+    void fail(Range range, Throwable cause) {
+        inFlight.remove(range);
+        range.future.completeExceptionally(cause);
+    }// fail()
+
+    /**
+     * Remove expired ranges and the buckets no longer covered by a fresh range
+     *
+     * @return true if the state holds nothing anymore
+     */
+    boolean evictExpired(long now, long ttlMillis) {
+        Iterator<Range> it = fetched.iterator();
+        boolean evicted = false;
+        while (it.hasNext()) {
+            if (now - it.next().fetchedAt >= ttlMillis) {
+                it.remove();
+                evicted = true;
+            }
+        }
+        if (evicted) {
+            buckets.keySet().removeIf(time -> fetched.stream().noneMatch(range -> range.contains(time)));
+        }
+        return fetched.isEmpty() && inFlight.isEmpty();
+    }// evictExpired()
+
+    private Range startFetch(long start, long end) {
+        Range range = new Range(start, end);
+        inFlight.add(range);
+        return range;
+    }// startFetch()
+
+    /**
+     * Time range [start, end)
+     */
+    static final class Range {
+
+        final long start;
+
+        final long end;
+
+        final CompletableFuture<List<TimeSerie>> future = new CompletableFuture<>();
+
+        long fetchedAt;
+
+        Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }// Range()
+
+        boolean overlaps(long from, long to) {
+            return start < to && from < end;
+        }// overlaps()
+
+        boolean contains(long time) {
+            return start <= time && time < end;
+        }// contains()
+
+    }// Range
+
+    /**
+     * What a request has to do
+     */
+    static final class Plan {
+
+        /**
+         * Fresh buckets already fetched
+         */
+        final TreeMap<Long, TimeSerie> cached = new TreeMap<>();
+
+        /**
+         * Ranges to fetch by the caller
+         */
+        final List<Range> owned = new ArrayList<>();
+
+        /**
+         * Ranges fetched by other callers
+         */
+        final List<CompletableFuture<List<TimeSerie>>> awaited = new ArrayList<>();
+
+    }// Plan
+
+}// CoalescerState
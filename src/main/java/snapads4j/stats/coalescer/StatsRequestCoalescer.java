@@ -0,0 +1,238 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.coalescer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapExecutionException;
+import snapads4j.exceptions.SnapOAuthAccessTokenException;
+import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+import snapads4j.stats.SnapStatsInterface;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesce overlapping stats requests of the same entity.
+ * <p>
+ * Requests with the same entity, granularity and fields share their time buckets : a request only fetches
+ * the sub-ranges of its window which aren't already fetched (less than ttl ago) nor being fetched by another
+ * request, waits for the sub-ranges being fetched, then gets its window sliced from all of them.
+ * Example : with "last 7 days" already fetched, "last 24 hours" doesn't call the API, and with "last 24 hours"
+ * being fetched, a concurrent "last 7 days" only fetches the 6 previous days.
+ * <p>
+ * Only HOUR and DAY granularities are supported, windows should be aligned on the granularity.
+ *
+ * @author Yassine
+ */
+public class StatsRequestCoalescer {
+
+    private static final Logger LOGGER = LogManager.getLogger(StatsRequestCoalescer.class);
+
+    private final SnapStatsInterface snapStats;
+
+    private final int limit;
+
+    private final long ttlMillis;
+
+    private final ConcurrentHashMap<CoalescerKey, CoalescerState> states;
+
+    /**
+     * @param snapStats Stats API used to fetch missing ranges
+     * @param limit     Pagination limit of fetch requests
+     * @param ttlMillis Duration during which fetched buckets are reused
+     * @throws SnapArgumentException if an argument is invalid
+     */
+    public StatsRequestCoalescer(SnapStatsInterface snapStats, int limit, long ttlMillis) throws SnapArgumentException {
+        if (snapStats == null) {
+            throw new SnapArgumentException("SnapStats is required");
+        }
+        if (ttlMillis <= 0) {
+            throw new SnapArgumentException("TTL must be positive");
+        }
+        this.snapStats = snapStats;
+        this.limit = limit;
+        this.ttlMillis = ttlMillis;
+        this.states = new ConcurrentHashMap<>();
+    }// StatsRequestCoalescer()
+
+    /**
+     * Get stats of an entity on a window, sharing the buckets of overlapping requests.
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param type             Entity type (CAMPAIGN, AD_ACCOUNT, AD_SQUAD or AD)
+     * @param id               Entity ID
+     * @param startTime        Start of the window (inclusive)
+     * @param endTime          End of the window (exclusive)
+     * @param granularity      HOUR or DAY
+     * @param fields           Fields requested (null for all fields, ignored for ad accounts)
+     * @return stats of the entity with the buckets of the window
+     * @throws SnapArgumentException         if an argument is invalid
+     * @throws SnapOAuthAccessTokenException if the token is missing
+     * @throws SnapExecutionException        if a fetch failed
+     * @throws SnapResponseErrorException    if the API responded with an error
+     */
+    public TimeSerieStat getStats(String oAuthAccessToken, TimeSerieTypeEnum type, String id, Date startTime, Date endTime,
+                                  GranularityEnum granularity, List<String> fields)
+            throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException {
+        checkParams(type, id, startTime, endTime, granularity);
+        long start = startTime.getTime();
+        long end = endTime.getTime();
+        CoalescerState state = states.computeIfAbsent(new CoalescerKey(type, id, granularity, fields), key -> new CoalescerState());
+        CoalescerState.Plan plan;
+        synchronized (state) {
+            plan = state.plan(start, end, System.currentTimeMillis(), ttlMillis);
+        }
+        TreeMap<Long, TimeSerie> buckets = new TreeMap<>(plan.cached);
+        fetchOwned(oAuthAccessToken, type, id, granularity, fields, state, plan.owned, buckets);
+        for (CompletableFuture<List<TimeSerie>> future : plan.awaited) {
+            addBuckets(buckets, await(future));
+        }
+        TimeSerieStat result = new TimeSerieStat();
+        result.setId(id);
+        result.setType(type);
+        result.setGranularity(granularity);
+        result.setStartTime(startTime);
+        result.setEndTime(endTime);
+        result.setTimeseries(new ArrayList<>(buckets.subMap(start, end).values()));
+        return result;
+    }// getStats()
+
+    /**
+     * Drop expired buckets of all entities
+     */
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<CoalescerKey, CoalescerState> entry : states.entrySet()) {
+            synchronized (entry.getValue()) {
+                if (entry.getValue().evictExpired(now, ttlMillis)) {
+                    states.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }// evictExpired()
+
+    private void fetchOwned(String oAuthAccessToken, TimeSerieTypeEnum type, String id, GranularityEnum granularity, List<String> fields,
+                            CoalescerState state, List<CoalescerState.Range> owned, TreeMap<Long, TimeSerie> buckets)
+            throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException {
+        int done = 0;
+        try {
+            for (CoalescerState.Range range : owned) {
+                LOGGER.debug("Fetch {} {} stats from {} to {}", type, id, range.start, range.end);
+                List<TimeSerie> series = fetch(oAuthAccessToken, type, id, new Date(range.start), new Date(range.end), granularity, fields);
+                synchronized (state) {
+                    state.complete(range, series, System.currentTimeMillis());
+                }
+                addBuckets(buckets, series);
+                ++done;
+            }
+        } catch (SnapArgumentException | SnapOAuthAccessTokenException | SnapExecutionException | SnapResponseErrorException | RuntimeException e) {
+            synchronized (state) {
+                for (int i = done; i < owned.size(); ++i) {
+                    state.fail(owned.get(i), e);
+                }
+            }
+            throw e;
+        }
+    }// fetchOwned()
+
+    private List<TimeSerie> fetch(String oAuthAccessToken, TimeSerieTypeEnum type, String id, Date startTime, Date endTime, GranularityEnum granularity, List<String> fields)
+            throws SnapArgumentException, SnapOAuthAccessTokenException, SnapExecutionException, SnapResponseErrorException {
+        List<Pagination<TimeSerieStat>> pages;
+        switch (type) {
+            case CAMPAIGN:
+                pages = snapStats.getCampaignStats(oAuthAccessToken, limit, id, startTime, endTime, granularity, fields, null, null, null, null, null, null, null, null);
+                break;
+            case AD_SQUAD:
+                pages = snapStats.getAdSquadStats(oAuthAccessToken, limit, id, startTime, endTime, granularity, fields, null, null, null, null, null, null, null, null);
+                break;
+            case AD:
+                pages = snapStats.getAdStats(oAuthAccessToken, limit, id, startTime, endTime, granularity, fields, null, null, null, null, null, null, null, null);
+                break;
+            default:
+                pages = snapStats.getAdAccountStats(oAuthAccessToken, limit, id, startTime, endTime, granularity, null, null, null, null, null, null, null, null);
+                break;
+        }
+        List<TimeSerie> series = new ArrayList<>();
+        if (pages != null) {
+            for (Pagination<TimeSerieStat> page : pages) {
+                if (page.getResults() != null) {
+                    for (TimeSerieStat stat : page.getResults()) {
+                        if (stat != null && stat.getTimeseries() != null && (stat.getId() == null || id.equals(stat.getId()))) {
+                            series.addAll(stat.getTimeseries());
+                        }
+                    }
+                }
+            }
+        }
+        return series;
+    }// fetch()
+
+    private static List<TimeSerie> await(CompletableFuture<List<TimeSerie>> future) throws SnapExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SnapExecutionException("Interrupted while waiting for coalesced stats", e);
+        } catch (ExecutionException e) {
+            throw new SnapExecutionException("Coalesced stats request failed", e.getCause());
+        }
+    }// await()
+
+    private static void addBuckets(TreeMap<Long, TimeSerie> buckets, List<TimeSerie> series) {
+        for (TimeSerie serie : series) {
+            if (serie.getStartTime() != null) {
+                buckets.put(serie.getStartTime().getTime(), serie);
+            }
+        }
+    }// addBuckets()
+
+    private static void checkParams(TimeSerieTypeEnum type, String id, Date startTime, Date endTime, GranularityEnum granularity) throws SnapArgumentException {
+        StringBuilder sb = new StringBuilder();
+        if (type == null || type == TimeSerieTypeEnum.PIXEL) {
+            sb.append("Entity type must be CAMPAIGN, AD_ACCOUNT, AD_SQUAD or AD,");
+        }
+        if (StringUtils.isEmpty(id)) {
+            sb.append("Entity ID is required,");
+        }
+        if (granularity != GranularityEnum.HOUR && granularity != GranularityEnum.DAY) {
+            sb.append("Granularity must be HOUR or DAY,");
+        }
+        if (startTime == null || endTime == null) {
+            sb.append("StartTime and EndTime are required,");
+        } else if (!startTime.before(endTime)) {
+            sb.append("StartTime must be before EndTime,");
+        }
+        String message = sb.toString();
+        if (!message.isEmpty()) {
+            throw new SnapArgumentException(message.substring(0, message.length() - 1));
+        }
+    }// checkParams()
+
+}// StatsRequestCoalescer
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.pixel;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Events of a domain counted by {@link DomainTopK}
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public class DomainCount {
+
+    private final String domainName;
+
+    /**
+     * Total events, may be overestimated by {@link #getMaxError()} at most
+     */
+    private final long totalEvents;
+
+    /**
+     * 0 when the count is exact
+     */
+    private final long maxError;
+
+    DomainCount(String domainName, long totalEvents, long maxError) {
+        this.domainName = domainName;
+        this.totalEvents = totalEvents;
+        this.maxError = maxError;
+    }// DomainCount()
+
+}// DomainCount
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.pixel;
+
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.stats.Domain;
+import snapads4j.model.stats.DomainConsumer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Top domains by total events, computed while the domains are streamed
+ * ({@link snapads4j.stats.SnapStats#streamPixelDomains}).
+ * <p>
+ * Events of a domain seen several times (several pixels) are summed. At most {@code capacity} domains are
+ * counted (Space-Saving) : when a new domain comes and every counter is taken, it replaces the domain with
+ * the fewest events and inherits its count as error. Counts are exact as long as there are no more domains
+ * than counters, and a domain with more events than the error of the smallest counter is never missed.
+ *
+ * @author Yassine
+ */
+public class DomainTopK implements DomainConsumer {
+
+    @Getter
+    private final int k;
+
+    @Getter
+    private final int capacity;
+
+    private final Map<String, Counter> counters = new HashMap<>();
+
+    /**
+     * Counters sorted by events, the first one is replaced when a new domain comes
+     */
+    private final TreeSet<Counter> byEvents = new TreeSet<>(Comparator.<Counter>comparingLong(counter -> counter.events)
+            .thenComparingLong(counter -> counter.order));
+
+    private long nextOrder;
+
+    private long totalEvents;
+
+    private boolean exact = true;
+
+    /**
+     * Constructor, 10 counters by domain kept (1000 at least)
+     *
+     * @param k Number of domains kept
+     * @throws SnapArgumentException If k is below 1
+     */
+    public DomainTopK(int k) throws SnapArgumentException {
+        this(k, Math.max(1000, k * 10));
+    }// DomainTopK()
+
+    /**
+     * Constructor
+     *
+     * @param k        Number of domains kept
+     * @param capacity Number of domains counted (memory used)
+     * @throws SnapArgumentException If k is below 1 or the capacity below k
+     */
+    public DomainTopK(int k, int capacity) throws SnapArgumentException {
+        StringBuilder sb = new StringBuilder();
+        if (k < 1) {
+            sb.append("K must be at least 1,");
+        }
+        if (capacity < k) {
+            sb.append("Capacity must be at least k,");
+        }
+        String finalErrors = sb.toString();
+        if (!StringUtils.isEmpty(finalErrors)) {
+            throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+        }
+        this.k = k;
+        this.capacity = capacity;
+    }// DomainTopK()
+
+    @Override
+    public void accept(Domain domain) {
+        if (domain != null && StringUtils.isNotEmpty(domain.getDomainName())) {
+            add(domain.getDomainName(), domain.getTotalEvents() == null ? 0L : domain.getTotalEvents());
+        }
+    }// accept()
+
+    /**
+     * Count events of a domain
+     *
+     * @param domainName Domain name
+     * @param events     Events
+     */
+    public synchronized void add(String domainName, long events) {
+        totalEvents += events;
+        Counter counter = counters.get(domainName);
+        if (counter != null) {
+            byEvents.remove(counter);
+            counter.events += events;
+        } else if (counters.size() < capacity) {
+            counter = new Counter(domainName, events, 0L, nextOrder++);
+            counters.put(domainName, counter);
+        } else {
+            Counter smallest = byEvents.pollFirst();
+            counters.remove(smallest.domainName);
+            counter = new Counter(domainName, smallest.events + events, smallest.events, nextOrder++);
+            counters.put(domainName, counter);
+            exact = false;
+        }
+        byEvents.add(counter);
+    }// add()
+
+    /**
+     * @return k domains with the most events, by descending events
+     */
+    public synchronized List<DomainCount> getTop() {
+        List<DomainCount> top = new ArrayList<>(Math.min(k, counters.size()));
+        Iterator<Counter> iterator = byEvents.descendingIterator();
+        while (iterator.hasNext() && top.size() < k) {
+            Counter counter = iterator.next();
+            top.add(new DomainCount(counter.domainName, counter.events, counter.error));
+        }
+        return top;
+    }// getTop()
+
+    /**
+     * @return events of every domain streamed
+     */
+    public synchronized long getTotalEvents() {
+        return totalEvents;
+    }// getTotalEvents()
+
+    /**
+     * @return true if no domain was evicted, every count is exact
+     */
+    public synchronized boolean isExact() {
+        return exact;
+    }// isExact()
+
+    private static final class Counter {
+
+        private final String domainName;
+
+        private long events;
+
+        private final long error;
+
+        private final long order;
+
+        private Counter(String domainName, long events, long error, long order) {
+            this.domainName = domainName;
+            this.events = events;
+            this.error = error;
+            this.order = order;
+        }// Counter()
+
+    }// Counter
+
+}// DomainTopK
@@ -0,0 +1,483 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.poller;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.StatusEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapExecutionException;
+import snapads4j.exceptions.SnapOAuthAccessTokenException;
+import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+import snapads4j.stats.SnapStatsInterface;
+import snapads4j.stats.StatsQuery;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Poll the stats of many entities, each one at its own pace.
+ * <p>
+ * Entities are scheduled on a timer wheel. An entity whose movement metric (spend by default) moved since
+ * its previous poll is polled again after the minimum interval, an entity which didn't move waits twice as
+ * long as the previous time, up to the maximum interval. PAUSED entities aren't polled until their status
+ * changes. Listeners receive the stats which changed.
+ * <p>
+ * Rate limiting is left to the stats client : give it the rate limiter shared with the other API callers
+ * ({@link snapads4j.stats.SnapStats#setRateLimiter(snapads4j.utils.RateLimiter)}), a permit is taken by page fetched.
+ * <pre>
+ * snapStats.setRateLimiter(sharedRateLimiter);
+ * AdaptiveStatsPoller poller = new AdaptiveStatsPoller.Builder()
+ *     .setSnapStats(snapStats).setOAuthAccessToken(token)
+ *     .setQuery(new StatsQuery.Builder().setGranularity(GranularityEnum.TOTAL).addMetric(StatMetricEnum.SPEND).build())
+ *     .build();
+ * poller.addListener(event -&gt; pacing.update(event.getId(), event.getDelta()));
+ * campaigns.forEach(c -&gt; poller.track(TimeSerieTypeEnum.CAMPAIGN, c.getId(), c.getStatus()));
+ * poller.start();
+ * </pre>
+ *
+ * @author Yassine
+ */
+public class AdaptiveStatsPoller implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger(AdaptiveStatsPoller.class);
+
+    private final SnapStatsInterface snapStats;
+
+    @Getter
+    @Setter
+    private volatile String oAuthAccessToken;
+
+    @Getter
+    private final StatsQuery query;
+
+    @Getter
+    private final StatMetricEnum metric;
+
+    @Getter
+    private final long minIntervalMillis;
+
+    @Getter
+    private final long maxIntervalMillis;
+
+    private final long tickMillis;
+
+    private final Executor executor;
+
+    private final boolean ownExecutor;
+
+    private final LongSupplier clock;
+
+    private final TimerWheel<PolledEntity> wheel;
+
+    private final Map<TimeSerieTypeEnum, ConcurrentHashMap<String, PolledEntity>> entities = new EnumMap<>(TimeSerieTypeEnum.class);
+
+    private final List<StatsPollListener> listeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private AdaptiveStatsPoller(Builder builder) {
+        this.snapStats = builder.snapStats;
+        this.oAuthAccessToken = builder.oAuthAccessToken;
+        this.query = builder.query;
+        this.metric = builder.metric;
+        this.minIntervalMillis = builder.minIntervalMillis;
+        this.maxIntervalMillis = builder.maxIntervalMillis;
+        this.tickMillis = builder.tickMillis;
+        this.ownExecutor = builder.executor == null;
+        this.executor = ownExecutor ? Executors.newFixedThreadPool(builder.threads) : builder.executor;
+        this.clock = builder.clock;
+        this.wheel = new TimerWheel<>(tickMillis, (int) Math.min(4096L, maxIntervalMillis / tickMillis + 1), clock.getAsLong());
+        for (TimeSerieTypeEnum type : new TimeSerieTypeEnum[]{TimeSerieTypeEnum.AD_ACCOUNT, TimeSerieTypeEnum.CAMPAIGN, TimeSerieTypeEnum.AD_SQUAD, TimeSerieTypeEnum.AD}) {
+            entities.put(type, new ConcurrentHashMap<>());
+        }
+    }// AdaptiveStatsPoller()
+
+    /**
+     * Start polling in a background thread
+     */
+    public synchronized void start() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "snapads4j-stats-poller");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // An exception would cancel the next ticks
+            scheduler.scheduleAtFixedRate(() -> {
+                try {
+                    tick(clock.getAsLong());
+                } catch (RuntimeException e) {
+                    LOGGER.error("Stats poller tick failed", e);
+                }
+            }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }// start()
+
+    /**
+     * Stop polling, polls in flight are finished
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (ownExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }// close()
+
+    public void addListener(StatsPollListener listener) {
+        listeners.add(listener);
+    }// addListener()
+
+    public void removeListener(StatsPollListener listener) {
+        listeners.remove(listener);
+    }// removeListener()
+
+    /**
+     * Poll an entity, its first poll is done at the next tick (unless it's PAUSED)
+     *
+     * @param type   AD_ACCOUNT, CAMPAIGN, AD_SQUAD or AD
+     * @param id     ID of the entity
+     * @param status Status of the entity
+     * @throws SnapArgumentException If the entity can't be polled
+     */
+    public void track(TimeSerieTypeEnum type, String id, StatusEnum status) throws SnapArgumentException {
+        if (type == null || !entities.containsKey(type)) {
+            throw new SnapArgumentException("Type must be AD_ACCOUNT, CAMPAIGN, AD_SQUAD or AD");
+        }
+        if (StringUtils.isEmpty(id)) {
+            throw new SnapArgumentException("Entity ID is required");
+        }
+        PolledEntity entity = entities.get(type).computeIfAbsent(id, key -> new PolledEntity(type, key, status, minIntervalMillis));
+        entity.status = status;
+        scheduleIfIdle(entity, clock.getAsLong());
+    }// track()
+
+    /**
+     * Update the status of an entity, an entity which is no longer PAUSED is polled at the next tick
+     *
+     * @param type   Type of the entity
+     * @param id     ID of the entity
+     * @param status New status
+     */
+    public void setStatus(TimeSerieTypeEnum type, String id, StatusEnum status) {
+        PolledEntity entity = get(type, id);
+        if (entity != null) {
+            boolean resumed = entity.isPaused() && status != StatusEnum.PAUSED;
+            entity.status = status;
+            if (resumed) {
+                entity.intervalMillis = minIntervalMillis;
+            }
+            scheduleIfIdle(entity, clock.getAsLong());
+        }
+    }// setStatus()
+
+    public void untrack(TimeSerieTypeEnum type, String id) {
+        if (type != null && entities.containsKey(type)) {
+            entities.get(type).remove(id);
+        }
+    }// untrack()
+
+    public boolean isTracked(TimeSerieTypeEnum type, String id) {
+        return get(type, id) != null;
+    }// isTracked()
+
+    /**
+     * @return current delay between two polls of an entity, -1 if not tracked
+     */
+    public long getIntervalMillis(TimeSerieTypeEnum type, String id) {
+        PolledEntity entity = get(type, id);
+        return entity == null ? -1L : entity.intervalMillis;
+    }// getIntervalMillis()
+
+    /**
+     * Hand the entities due to the executor
+     *
+     * @param now Current time (millis)
+     * @return number of entities due
+     */
+    synchronized int tick(long now) {
+        return wheel.advance(now, this::fire);
+    }// tick()
+
+    private void fire(PolledEntity entity) {
+        if (!isCurrent(entity) || entity.isPaused()) {
+            release(entity);
+            return;
+        }
+        try {
+            executor.execute(() -> poll(entity));
+        } catch (RejectedExecutionException e) {
+            // Executor saturated or shut down, try again later
+            LOGGER.warn("Stats poll rejected, type = {}, id = {}", entity.type, entity.id, e);
+            wheel.schedule(entity, clock.getAsLong() + minIntervalMillis);
+        }
+    }// fire()
+
+    private void poll(PolledEntity entity) {
+        long interval = maxIntervalMillis;
+        try {
+            List<TimeSerieStat> stats = fetch(entity);
+            long value = movement(stats);
+            Long previous = entity.lastValue;
+            boolean changed = previous == null || previous != value;
+            interval = changed ? minIntervalMillis : Math.min(maxIntervalMillis, entity.intervalMillis * 2);
+            entity.lastValue = value;
+            entity.intervalMillis = interval;
+            if (changed) {
+                notifyListeners(new StatsPollEvent(entity.type, entity.id, stats, metric, previous, value, new Date(clock.getAsLong()), interval));
+            }
+        } catch (SnapResponseErrorException | SnapExecutionException | SnapArgumentException | SnapOAuthAccessTokenException e) {
+            // Rate limit, expired token, API errors... try again later
+            LOGGER.warn("Impossible to poll stats, type = {}, id = {}", entity.type, entity.id, e);
+            entity.intervalMillis = interval;
+        } catch (RuntimeException e) {
+            LOGGER.error("Unexpected error while polling stats, type = {}, id = {}", entity.type, entity.id, e);
+            entity.intervalMillis = interval;
+        }
+        if (isCurrent(entity) && !entity.isPaused()) {
+            wheel.schedule(entity, clock.getAsLong() + interval);
+        } else {
+            release(entity);
+        }
+    }// poll()
+
+    private List<TimeSerieStat> fetch(PolledEntity entity) throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, SnapResponseErrorException {
+        List<Pagination<TimeSerieStat>> pages;
+        switch (entity.type) {
+            case AD_ACCOUNT:
+                pages = snapStats.getAdAccountStats(oAuthAccessToken, entity.id, query);
+                break;
+            case CAMPAIGN:
+                pages = snapStats.getCampaignStats(oAuthAccessToken, entity.id, query);
+                break;
+            case AD_SQUAD:
+                pages = snapStats.getAdSquadStats(oAuthAccessToken, entity.id, query);
+                break;
+            default:
+                pages = snapStats.getAdStats(oAuthAccessToken, entity.id, query);
+                break;
+        }
+        List<TimeSerieStat> results = new ArrayList<>();
+        if (pages != null) {
+            for (Pagination<TimeSerieStat> page : pages) {
+                if (page.getResults() != null) {
+                    results.addAll(page.getResults());
+                }
+            }
+        }
+        return results;
+    }// fetch()
+
+    /**
+     * Sum of the movement metric (TOTAL stats and time series)
+     */
+    private long movement(List<TimeSerieStat> stats) {
+        long value = 0L;
+        for (TimeSerieStat stat : stats) {
+            value += metric.valueOf(stat.getStats());
+            if (stat.getTimeseries() != null) {
+                for (TimeSerie serie : stat.getTimeseries()) {
+                    value += metric.valueOf(serie.getStats());
+                }
+            }
+        }
+        return value;
+    }// movement()
+
+    private void notifyListeners(StatsPollEvent event) {
+        for (StatsPollListener listener : listeners) {
+            try {
+                listener.onChange(event);
+            } catch (RuntimeException e) {
+                LOGGER.error("Stats poll listener failed, type = {}, id = {}", event.getType(), event.getId(), e);
+            }
+        }
+    }// notifyListeners()
+
+    private void scheduleIfIdle(PolledEntity entity, long deadline) {
+        if (!entity.isPaused() && isCurrent(entity) && entity.scheduled.compareAndSet(false, true)) {
+            wheel.schedule(entity, deadline);
+        }
+    }// scheduleIfIdle()
+
+    /**
+     * Take the entity out of the wheel, then check again : its status may have changed meanwhile
+     */
+    private void release(PolledEntity entity) {
+        entity.scheduled.set(false);
+        scheduleIfIdle(entity, clock.getAsLong());
+    }// release()
+
+    private boolean isCurrent(PolledEntity entity) {
+        return entities.get(entity.type).get(entity.id) == entity;
+    }// isCurrent()
+
+    private PolledEntity get(TimeSerieTypeEnum type, String id) {
+        Map<String, PolledEntity> byId = type == null ? null : entities.get(type);
+        return byId == null || id == null ? null : byId.get(id);
+    }// get()
+
+    /**
+     * Used to build AdaptiveStatsPoller instance ({@link AdaptiveStatsPoller})
+     *
+     * @author Yassine
+     */
+    public static class Builder {
+
+        private SnapStatsInterface snapStats;
+
+        private String oAuthAccessToken;
+
+        private StatsQuery query;
+
+        private StatMetricEnum metric = StatMetricEnum.SPEND;
+
+        private long minIntervalMillis = TimeUnit.MINUTES.toMillis(5);
+
+        private long maxIntervalMillis = TimeUnit.HOURS.toMillis(1);
+
+        private long tickMillis = TimeUnit.SECONDS.toMillis(1);
+
+        private int threads = 4;
+
+        private Executor executor;
+
+        private LongSupplier clock = System::currentTimeMillis;
+
+        public Builder setSnapStats(SnapStatsInterface snapStats) {
+            this.snapStats = snapStats;
+            return this;
+        }// setSnapStats()
+
+        public Builder setOAuthAccessToken(String oAuthAccessToken) {
+            this.oAuthAccessToken = oAuthAccessToken;
+            return this;
+        }// setOAuthAccessToken()
+
+        /**
+         * @param query Query of every poll (TOTAL or LIFETIME granularity to follow the spend of the entities)
+         * @return builder
+         */
+        public Builder setQuery(StatsQuery query) {
+            this.query = query;
+            return this;
+        }// setQuery()
+
+        /**
+         * @param metric Metric whose movement speeds up the polling (spend by default)
+         * @return builder
+         */
+        public Builder setMetric(StatMetricEnum metric) {
+            this.metric = metric;
+            return this;
+        }// setMetric()
+
+        public Builder setMinIntervalMillis(long minIntervalMillis) {
+            this.minIntervalMillis = minIntervalMillis;
+            return this;
+        }// setMinIntervalMillis()
+
+        public Builder setMaxIntervalMillis(long maxIntervalMillis) {
+            this.maxIntervalMillis = maxIntervalMillis;
+            return this;
+        }// setMaxIntervalMillis()
+
+        public Builder setTickMillis(long tickMillis) {
+            this.tickMillis = tickMillis;
+            return this;
+        }// setTickMillis()
+
+        /**
+         * @param threads Number of polling threads (ignored if an executor is given)
+         * @return builder
+         */
+        public Builder setThreads(int threads) {
+            this.threads = threads;
+            return this;
+        }// setThreads()
+
+        /**
+         * @param executor Executor of the polls, not shut down by the poller
+         * @return builder
+         */
+        public Builder setExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }// setExecutor()
+
+        Builder setClock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }// setClock()
+
+        public AdaptiveStatsPoller build() throws SnapArgumentException {
+            StringBuilder sb = new StringBuilder();
+            if (snapStats == null) {
+                sb.append("SnapStats is required,");
+            }
+            if (query == null) {
+                sb.append("Stats query is required,");
+            }
+            if (metric == null) {
+                sb.append("Metric is required,");
+            }
+            if (tickMillis <= 0) {
+                sb.append("Tick must be positive,");
+            }
+            if (minIntervalMillis < tickMillis) {
+                sb.append("Minimum interval must be at least one tick,");
+            }
+            if (maxIntervalMillis < minIntervalMillis) {
+                sb.append("Maximum interval must be greater than minimum interval,");
+            }
+            if (executor == null && threads < 1) {
+                sb.append("At least one thread is required,");
+            }
+            String finalErrors = sb.toString();
+            if (!StringUtils.isEmpty(finalErrors)) {
+                throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+            }
+            return new AdaptiveStatsPoller(this);
+        }// build()
+
+    }// Builder
+
+}// AdaptiveStatsPoller
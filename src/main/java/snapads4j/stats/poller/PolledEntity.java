@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.poller;
+
+import snapads4j.enums.StatusEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Polling state of an entity. An entity has at most one entry in the wheel or one poll in flight.
+ *
+ * @author Yassine
+ */
+final class PolledEntity {
+
+    final TimeSerieTypeEnum type;
+
+    final String id;
+
+    volatile StatusEnum status;
+
+    /**
+     * True while the entity is in the wheel or being polled
+     */
+    final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Current delay between polls, only updated by the poll in flight
+     */
+    volatile long intervalMillis;
+
+    /**
+     * Value of the movement metric at the last poll
+     */
+    volatile Long lastValue;
+
+    PolledEntity(TimeSerieTypeEnum type, String id, StatusEnum status, long intervalMillis) {
+        this.type = type;
+        this.id = id;
+        this.status = status;
+        this.intervalMillis = intervalMillis;
+    }// PolledEntity()
+
+    boolean isPaused() {
+        return status == StatusEnum.PAUSED;
+    }// isPaused()
+
+}// PolledEntity
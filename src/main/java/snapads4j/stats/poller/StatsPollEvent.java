@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.poller;
+
+import lombok.Getter;
+import lombok.ToString;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.model.stats.TimeSerieStat;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Stats of an entity which changed since its previous poll
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public class StatsPollEvent {
+
+    private final TimeSerieTypeEnum type;
+
+    private final String id;
+
+    /**
+     * Stats received
+     */
+    private final List<TimeSerieStat> stats;
+
+    /**
+     * Metric used to detect movements
+     */
+    private final StatMetricEnum metric;
+
+    /**
+     * Value of the metric at the previous poll, null on the first poll
+     */
+    private final Long previousValue;
+
+    private final long value;
+
+    private final Date polledAt;
+
+    /**
+     * Delay before the next poll of the entity
+     */
+    private final long nextPollMillis;
+
+    StatsPollEvent(TimeSerieTypeEnum type, String id, List<TimeSerieStat> stats, StatMetricEnum metric, Long previousValue, long value, Date polledAt, long nextPollMillis) {
+        this.type = type;
+        this.id = id;
+        this.stats = stats;
+        this.metric = metric;
+        this.previousValue = previousValue;
+        this.value = value;
+        this.polledAt = polledAt;
+        this.nextPollMillis = nextPollMillis;
+    }// StatsPollEvent()
+
+    /**
+     * @return movement of the metric since the previous poll (the value on the first poll)
+     */
+    public long getDelta() {
+        return previousValue == null ? value : value - previousValue;
+    }// getDelta()
+
+}// StatsPollEvent
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.poller;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel : scheduling is O(1) whatever the number of entries, a tick only visits the bucket
+ * of the tick.
+ * <p>
+ * {@link #schedule(Object, long)} can be called from any thread, entries are placed in the wheel by the
+ * thread calling {@link #advance(long, Consumer)} (one thread at a time).
+ *
+ * @param <T> Type of the entries
+ * @author Yassine
+ */
+final class TimerWheel<T> {
+
+    private final long tickMillis;
+
+    private final int mask;
+
+    private final List<Queue<Entry<T>>> buckets;
+
+    private final Queue<Entry<T>> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Last tick processed
+     */
+    private long currentTick;
+
+    /**
+     * @param tickMillis Duration of a tick
+     * @param size       Number of buckets (rounded to a power of 2)
+     * @param now        Current time (millis)
+     */
+    TimerWheel(long tickMillis, int size, long now) {
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = capacity - 1;
+        this.buckets = new ArrayList<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        this.currentTick = Math.floorDiv(now, tickMillis);
+    }// TimerWheel()
+
+    /**
+     * Schedule an entry
+     *
+     * @param item     Entry
+     * @param deadline Time when the entry expires (millis)
+     */
+    void schedule(T item, long deadline) {
+        pending.add(new Entry<>(item, Math.floorDiv(deadline, tickMillis)));
+    }// schedule()
+
+    /**
+     * Process the ticks up to now
+     *
+     * @param now     Current time (millis)
+     * @param expired Consumer of the entries expired
+     * @return number of entries expired
+     */
+    int advance(long now, Consumer<T> expired) {
+        int count = 0;
+        Entry<T> entry;
+        while ((entry = pending.poll()) != null) {
+            if (entry.tick <= currentTick) {
+                expired.accept(entry.item);
+                count++;
+            } else {
+                buckets.get((int) (entry.tick & mask)).add(entry);
+            }
+        }
+        long target = Math.floorDiv(now, tickMillis);
+        if (target <= currentTick) {
+            return count;
+        }
+        // After a full turn, every bucket has been visited
+        long from = Math.max(currentTick + 1, target - mask);
+        for (long tick = from; tick <= target; tick++) {
+            Iterator<Entry<T>> it = buckets.get((int) (tick & mask)).iterator();
+            while (it.hasNext()) {
+                entry = it.next();
+                if (entry.tick <= target) {
+                    it.remove();
+                    expired.accept(entry.item);
+                    count++;
+                }
+            }
+        }
+        currentTick = target;
+        return count;
+    }// advance()
+
+    private static final class Entry<T> {
+
+        private final T item;
+
+        private final long tick;
+
+        private Entry(T item, long tick) {
+            this.item = item;
+            this.tick = tick;
+        }// Entry()
+
+    }// Entry
+
+}// TimerWheel
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.rules;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+import snapads4j.enums.DerivedMetricEnum;
+import snapads4j.enums.RuleActionEnum;
+import snapads4j.enums.RuleComparatorEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Rule over a window of recent hours : "pause an ad squad when its CPA over the last 6 hours exceeds 20".
+ * <pre>
+ * StatsRule rule = new StatsRule.Builder()
+ *     .setName("High CPA")
+ *     .setType(TimeSerieTypeEnum.AD_SQUAD)
+ *     .setDerivedMetric(DerivedMetricEnum.CPA_PURCHASE)
+ *     .setWindowHours(6)
+ *     .setComparator(RuleComparatorEnum.GREATER_THAN)
+ *     .setThreshold(20)
+ *     .setAction(RuleActionEnum.PAUSE)
+ *     .build();
+ * </pre>
+ * A derived metric whose denominator is 0 while its numerator isn't (spend without purchase) is infinite.
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public class StatsRule {
+
+    private String name;
+
+    /**
+     * AD_SQUAD or AD
+     */
+    private TimeSerieTypeEnum type;
+
+    /**
+     * Entities of the rule, empty for every entity of the type
+     */
+    private Set<String> entityIds;
+
+    private StatMetricEnum metric;
+
+    private DerivedMetricEnum derivedMetric;
+
+    private int windowHours;
+
+    private RuleComparatorEnum comparator;
+
+    private double threshold;
+
+    private RuleActionEnum action;
+
+    private StatsRule() {
+    }// StatsRule()
+
+    public boolean appliesToAll() {
+        return entityIds.isEmpty();
+    }// appliesToAll()
+
+    /**
+     * Used to build StatsRule instance ({@link StatsRule})
+     *
+     * @author Yassine
+     */
+    public static class Builder {
+
+        private final StatsRule ruleInstance;
+
+        private final Set<String> entityIds = new HashSet<>();
+
+        /**
+         * Constructor
+         */
+        public Builder() {
+            this.ruleInstance = new StatsRule();
+        }// Builder()
+
+        public Builder setName(String name) {
+            this.ruleInstance.name = name;
+            return this;
+        }// setName()
+
+        public Builder setType(TimeSerieTypeEnum type) {
+            this.ruleInstance.type = type;
+            return this;
+        }// setType()
+
+        /**
+         * Restrict the rule to an entity (by default the rule applies to every entity of the type)
+         *
+         * @param entityId Entity ID
+         * @return builder
+         */
+        public Builder addEntityId(String entityId) {
+            this.entityIds.add(entityId);
+            return this;
+        }// addEntityId()
+
+        public Builder addEntityIds(Collection<String> entityIds) {
+            this.entityIds.addAll(entityIds);
+            return this;
+        }// addEntityIds()
+
+        public Builder setMetric(StatMetricEnum metric) {
+            this.ruleInstance.metric = metric;
+            return this;
+        }// setMetric()
+
+        public Builder setDerivedMetric(DerivedMetricEnum derivedMetric) {
+            this.ruleInstance.derivedMetric = derivedMetric;
+            return this;
+        }// setDerivedMetric()
+
+        public Builder setWindowHours(int windowHours) {
+            this.ruleInstance.windowHours = windowHours;
+            return this;
+        }// setWindowHours()
+
+        public Builder setComparator(RuleComparatorEnum comparator) {
+            this.ruleInstance.comparator = comparator;
+            return this;
+        }// setComparator()
+
+        public Builder setThreshold(double threshold) {
+            this.ruleInstance.threshold = threshold;
+            return this;
+        }// setThreshold()
+
+        public Builder setAction(RuleActionEnum action) {
+            this.ruleInstance.action = action;
+            return this;
+        }// setAction()
+
+        public StatsRule build() throws SnapArgumentException {
+            StringBuilder sb = new StringBuilder();
+            StatsRule rule = this.ruleInstance;
+            if (StringUtils.isEmpty(rule.name)) {
+                sb.append("Name is required,");
+            }
+            if (rule.type != TimeSerieTypeEnum.AD_SQUAD && rule.type != TimeSerieTypeEnum.AD) {
+                sb.append("Type must be AD_SQUAD or AD,");
+            }
+            if ((rule.metric == null) == (rule.derivedMetric == null)) {
+                sb.append("Either metric or derived metric is required,");
+            }
+            if (rule.windowHours < 1) {
+                sb.append("Window must be at least 1 hour,");
+            }
+            if (rule.comparator == null) {
+                sb.append("Comparator is required,");
+            }
+            if (rule.action == null) {
+                sb.append("Action is required,");
+            }
+            if (entityIds.contains(null) || entityIds.contains("")) {
+                sb.append("Entity ID can't be empty,");
+            }
+            String finalErrors = sb.toString();
+            if (!StringUtils.isEmpty(finalErrors)) {
+                throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+            }
+            rule.entityIds = Collections.unmodifiableSet(new HashSet<>(entityIds));
+            return rule;
+        }// build()
+
+    }// Builder
+
+}// StatsRule
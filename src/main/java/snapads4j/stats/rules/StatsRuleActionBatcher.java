@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.rules;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import snapads4j.ads.SnapAdInterface;
+import snapads4j.adsquads.SnapAdSquadsInterface;
+import snapads4j.enums.StatusEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapExecutionException;
+import snapads4j.exceptions.SnapOAuthAccessTokenException;
+import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.adsquads.AdSquad;
+import snapads4j.model.ads.Ad;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Apply the actions of matched rules with as few requests as possible : the matches are deduplicated by
+ * entity (the last match wins), entities already in the expected status are skipped and the others are
+ * updated with one request per campaign (ad squads) or per ad squad (ads). A failing batch doesn't stop
+ * the other ones, its entities are reported in {@link StatsRuleActionResult#getFailedIds()}.
+ *
+ * @author Yassine
+ */
+public class StatsRuleActionBatcher {
+
+    private static final Logger LOGGER = LogManager.getLogger(StatsRuleActionBatcher.class);
+
+    private final SnapAdSquadsInterface snapAdSquads;
+
+    private final SnapAdInterface snapAd;
+
+    /**
+     * Constructor
+     *
+     * @param snapAdSquads API of ad squads
+     * @param snapAd       API of ads
+     */
+    public StatsRuleActionBatcher(SnapAdSquadsInterface snapAdSquads, SnapAdInterface snapAd) {
+        this.snapAdSquads = snapAdSquads;
+        this.snapAd = snapAd;
+    }// StatsRuleActionBatcher()
+
+    /**
+     * Apply the actions of matches
+     *
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param matches          Matches ({@link StatsRulesEngine#drainMatches()})
+     * @return entities updated and failures
+     * @throws SnapOAuthAccessTokenException If the token is empty
+     */
+    public StatsRuleActionResult execute(String oAuthAccessToken, List<StatsRuleMatch> matches)
+            throws SnapOAuthAccessTokenException {
+        if (StringUtils.isEmpty(oAuthAccessToken)) {
+            throw new SnapOAuthAccessTokenException("The OAuthAccessToken is required");
+        }
+        StatsRuleActionResult result = new StatsRuleActionResult();
+        if (matches == null || matches.isEmpty()) {
+            return result;
+        }
+        Map<String, StatusEnum> adSquadStatuses = new LinkedHashMap<>();
+        Map<String, StatusEnum> adStatuses = new LinkedHashMap<>();
+        for (StatsRuleMatch match : matches) {
+            Map<String, StatusEnum> statuses = match.getType() == TimeSerieTypeEnum.AD_SQUAD ? adSquadStatuses : adStatuses;
+            statuses.remove(match.getId());
+            statuses.put(match.getId(), match.getRule().getAction().getStatus());
+        }
+        executeAdSquads(oAuthAccessToken, adSquadStatuses, result);
+        executeAds(oAuthAccessToken, adStatuses, result);
+        return result;
+    }// execute()
+
+    private void executeAdSquads(String oAuthAccessToken, Map<String, StatusEnum> statuses, StatsRuleActionResult result)
+            throws SnapOAuthAccessTokenException {
+        Map<String, List<AdSquad>> byCampaign = new LinkedHashMap<>();
+        for (Map.Entry<String, StatusEnum> entry : statuses.entrySet()) {
+            try {
+                Optional<AdSquad> adSquad = snapAdSquads.getSpecificAdSquad(oAuthAccessToken, entry.getKey());
+                if (!adSquad.isPresent()) {
+                    result.getFailedIds().add(entry.getKey());
+                } else if (adSquad.get().getStatus() != entry.getValue()) {
+                    adSquad.get().setStatus(entry.getValue());
+                    byCampaign.computeIfAbsent(adSquad.get().getCampaignId(), key -> new ArrayList<>()).add(adSquad.get());
+                }
+            } catch (SnapArgumentException | SnapResponseErrorException | SnapExecutionException e) {
+                LOGGER.warn("Impossible to get ad squad, id = {}", entry.getKey(), e);
+                result.getFailedIds().add(entry.getKey());
+            }
+        }
+        for (List<AdSquad> adSquads : byCampaign.values()) {
+            try {
+                result.getUpdatedAdSquads().addAll(snapAdSquads.updateAdSquads(oAuthAccessToken, adSquads));
+            } catch (SnapArgumentException | SnapResponseErrorException | SnapExecutionException
+                    | JsonProcessingException | UnsupportedEncodingException e) {
+                LOGGER.warn("Impossible to update ad squads of campaign, id = {}", adSquads.get(0).getCampaignId(), e);
+                adSquads.forEach(adSquad -> result.getFailedIds().add(adSquad.getId()));
+            }
+        }
+    }// executeAdSquads()
+
+    private void executeAds(String oAuthAccessToken, Map<String, StatusEnum> statuses, StatsRuleActionResult result)
+            throws SnapOAuthAccessTokenException {
+        Map<String, List<Ad>> byAdSquad = new LinkedHashMap<>();
+        for (Map.Entry<String, StatusEnum> entry : statuses.entrySet()) {
+            try {
+                Optional<Ad> ad = snapAd.getSpecificAd(oAuthAccessToken, entry.getKey());
+                if (!ad.isPresent()) {
+                    result.getFailedIds().add(entry.getKey());
+                } else if (ad.get().getStatus() != entry.getValue()) {
+                    ad.get().setStatus(entry.getValue());
+                    byAdSquad.computeIfAbsent(ad.get().getAdSquadId(), key -> new ArrayList<>()).add(ad.get());
+                }
+            } catch (SnapArgumentException | SnapResponseErrorException | SnapExecutionException e) {
+                LOGGER.warn("Impossible to get ad, id = {}", entry.getKey(), e);
+                result.getFailedIds().add(entry.getKey());
+            }
+        }
+        for (List<Ad> ads : byAdSquad.values()) {
+            try {
+                result.getUpdatedAds().addAll(snapAd.updateAds(oAuthAccessToken, ads));
+            } catch (SnapArgumentException | SnapResponseErrorException | SnapExecutionException
+                    | JsonProcessingException | UnsupportedEncodingException e) {
+                LOGGER.warn("Impossible to update ads of ad squad, id = {}", ads.get(0).getAdSquadId(), e);
+                ads.forEach(ad -> result.getFailedIds().add(ad.getId()));
+            }
+        }
+    }// executeAds()
+
+}// StatsRuleActionBatcher
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.rules;
+
+import lombok.Getter;
+import lombok.ToString;
+import snapads4j.model.adsquads.AdSquad;
+import snapads4j.model.ads.Ad;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of the actions of rules
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public class StatsRuleActionResult {
+
+    private final List<AdSquad> updatedAdSquads = new ArrayList<>();
+
+    private final List<Ad> updatedAds = new ArrayList<>();
+
+    /**
+     * Entities which couldn't be fetched or updated
+     */
+    private final List<String> failedIds = new ArrayList<>();
+
+}// StatsRuleActionResult
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.rules;
+
+import lombok.Getter;
+import lombok.ToString;
+import snapads4j.enums.TimeSerieTypeEnum;
+
+import java.util.Date;
+
+/**
+ * Entity which started to match a rule
+ *
+ * @author Yassine
+ */
+@Getter
+@ToString
+public class StatsRuleMatch {
+
+    private final StatsRule rule;
+
+    private final TimeSerieTypeEnum type;
+
+    private final String id;
+
+    /**
+     * Value of the window when the rule matched
+     */
+    private final double value;
+
+    private final Date matchedAt;
+
+    StatsRuleMatch(StatsRule rule, TimeSerieTypeEnum type, String id, double value, Date matchedAt) {
+        this.rule = rule;
+        this.type = type;
+        this.id = id;
+        this.value = value;
+        this.matchedAt = matchedAt;
+    }// StatsRuleMatch()
+
+}// StatsRuleMatch
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.rules;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import snapads4j.enums.DerivedMetricEnum;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+import snapads4j.stats.window.RollingStatsWindow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Evaluate rules incrementally as hourly stats come from {@link snapads4j.stats.SnapStats}.
+ * <p>
+ * Every page recorded only re-evaluates the rules covering the entities of the page, the windows are
+ * summed by a shared {@link RollingStatsWindow}. A rule matches once when its condition becomes true and
+ * can match again only after its condition went false. Matches are drained and given to a
+ * {@link StatsRuleActionBatcher}.
+ * <pre>
+ * StatsRulesEngine engine = new StatsRulesEngine(rules);
+ * snapStats.streamAdSquadStats(token, adSquadID, hourlyQuery, engine::addPage);
+ * batcher.execute(token, engine.drainMatches());
+ * </pre>
+ *
+ * @author Yassine
+ */
+public class StatsRulesEngine {
+
+    private final List<StatsRule> rules;
+
+    /**
+     * Rules of an entity by type
+     */
+    private final Map<TimeSerieTypeEnum, Map<String, List<Integer>>> rulesByEntity = new EnumMap<>(TimeSerieTypeEnum.class);
+
+    /**
+     * Rules of every entity by type
+     */
+    private final Map<TimeSerieTypeEnum, List<Integer>> rulesForAll = new EnumMap<>(TimeSerieTypeEnum.class);
+
+    private final RollingStatsWindow window;
+
+    /**
+     * Rules currently matching ("rule|type|id")
+     */
+    private final Set<String> matching = ConcurrentHashMap.newKeySet();
+
+    private final Queue<StatsRuleMatch> matches = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong evaluations = new AtomicLong();
+
+    private final LongSupplier clock;
+
+    /**
+     * Constructor
+     *
+     * @param rules Rules
+     * @throws SnapArgumentException If there is no rule
+     */
+    public StatsRulesEngine(Collection<StatsRule> rules) throws SnapArgumentException {
+        this(rules, System::currentTimeMillis);
+    }// StatsRulesEngine()
+
+    StatsRulesEngine(Collection<StatsRule> rules, LongSupplier clock) throws SnapArgumentException {
+        if (CollectionUtils.isEmpty(rules) || rules.contains(null)) {
+            throw new SnapArgumentException("At least one rule is required");
+        }
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+        this.clock = clock;
+        Set<StatMetricEnum> metrics = EnumSet.noneOf(StatMetricEnum.class);
+        int hours = 1;
+        for (int i = 0; i < this.rules.size(); i++) {
+            StatsRule rule = this.rules.get(i);
+            if (rule.getMetric() != null) {
+                metrics.add(rule.getMetric());
+            } else {
+                metrics.add(rule.getDerivedMetric().getNumerator());
+                metrics.add(rule.getDerivedMetric().getDenominator());
+            }
+            hours = Math.max(hours, rule.getWindowHours());
+            if (rule.appliesToAll()) {
+                rulesForAll.computeIfAbsent(rule.getType(), type -> new ArrayList<>()).add(i);
+            } else {
+                Map<String, List<Integer>> entities = rulesByEntity.computeIfAbsent(rule.getType(), type -> new HashMap<>());
+                for (String id : rule.getEntityIds()) {
+                    entities.computeIfAbsent(id, key -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+        this.window = new RollingStatsWindow(hours, metrics);
+    }// StatsRulesEngine()
+
+    /**
+     * Record a page of HOUR stats, can be given to the stream methods of {@link snapads4j.stats.SnapStats}
+     *
+     * @param page Page of stats
+     */
+    public void addPage(Pagination<TimeSerieStat> page) {
+        if (page != null) {
+            addAll(page.getResults());
+        }
+    }// addPage()
+
+    public void addAll(List<TimeSerieStat> stats) {
+        if (stats != null) {
+            for (TimeSerieStat stat : stats) {
+                add(stat);
+            }
+        }
+    }// addAll()
+
+    /**
+     * Record the hours of an entity and evaluate its rules, entities without rule are ignored
+     *
+     * @param stat Stats of an entity
+     */
+    public void add(TimeSerieStat stat) {
+        if (stat == null || stat.getGranularity() != GranularityEnum.HOUR || stat.getType() == null
+                || StringUtils.isEmpty(stat.getId()) || stat.getTimeseries() == null) {
+            return;
+        }
+        List<Integer> affected = rulesOf(stat.getType(), stat.getId());
+        if (affected.isEmpty()) {
+            return;
+        }
+        boolean recorded = false;
+        for (TimeSerie serie : stat.getTimeseries()) {
+            if (serie.getStartTime() != null) {
+                recorded |= window.record(stat.getType(), stat.getId(), serie.getStartTime(), serie.getStats());
+            }
+        }
+        if (recorded) {
+            evaluate(stat.getType(), stat.getId(), affected);
+        }
+    }// add()
+
+    /**
+     * Value of a rule for an entity over the rule window
+     *
+     * @param rule Rule (of the engine)
+     * @param id   ID of the entity
+     * @return value, NaN if a derived metric can't be computed
+     */
+    public double valueOf(StatsRule rule, String id) {
+        long now = clock.getAsLong();
+        if (rule.getMetric() != null) {
+            return window.sum(rule.getType(), id, rule.getMetric(), rule.getWindowHours(), now);
+        }
+        DerivedMetricEnum derived = rule.getDerivedMetric();
+        long numerator = window.sum(rule.getType(), id, derived.getNumerator(), rule.getWindowHours(), now);
+        long denominator = window.sum(rule.getType(), id, derived.getDenominator(), rule.getWindowHours(), now);
+        if (denominator == 0 && numerator > 0) {
+            // Spend without any conversion, the cost is unbounded
+            return Double.POSITIVE_INFINITY;
+        }
+        return derived.compute(numerator, denominator);
+    }// valueOf()
+
+    /**
+     * Remove the matches found since the last call
+     *
+     * @return matches in order
+     */
+    public List<StatsRuleMatch> drainMatches() {
+        List<StatsRuleMatch> drained = new ArrayList<>();
+        StatsRuleMatch match;
+        while ((match = matches.poll()) != null) {
+            drained.add(match);
+        }
+        return drained;
+    }// drainMatches()
+
+    /**
+     * @return number of rules evaluated since the creation of the engine
+     */
+    public long getEvaluations() {
+        return evaluations.get();
+    }// getEvaluations()
+
+    public List<StatsRule> getRules() {
+        return rules;
+    }// getRules()
+
+    private void evaluate(TimeSerieTypeEnum type, String id, List<Integer> affected) {
+        for (Integer index : affected) {
+            StatsRule rule = rules.get(index);
+            double value = valueOf(rule, id);
+            evaluations.incrementAndGet();
+            String key = index + "|" + type + "|" + id;
+            if (rule.getComparator().compare(value, rule.getThreshold())) {
+                if (matching.add(key)) {
+                    matches.add(new StatsRuleMatch(rule, type, id, value, new Date(clock.getAsLong())));
+                }
+            } else {
+                matching.remove(key);
+            }
+        }
+    }// evaluate()
+
+    private List<Integer> rulesOf(TimeSerieTypeEnum type, String id) {
+        List<Integer> forAll = rulesForAll.getOrDefault(type, Collections.emptyList());
+        Map<String, List<Integer>> entities = rulesByEntity.get(type);
+        List<Integer> forEntity = entities == null ? null : entities.get(id);
+        if (forEntity == null) {
+            return forAll;
+        }
+        if (forAll.isEmpty()) {
+            return forEntity;
+        }
+        List<Integer> affected = new ArrayList<>(forAll);
+        affected.addAll(forEntity);
+        return affected;
+    }// rulesOf()
+
+}// StatsRulesEngine
@@ -0,0 +1,405 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.sketch;
+
+import lombok.Getter;
+import snapads4j.exceptions.SnapArgumentException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * KLL quantile sketch (Karnin, Lang, Liberty) of double values.
+ * <p>
+ * The sketch keeps a hierarchy of compactors : level h holds items of weight 2^h, when a level is full it is
+ * sorted and one item out of two (random offset) is promoted to the next level. Memory is O(k) whatever the
+ * number of values, the rank error is about 1.65 / k (k = 200 : ~1%). Sketches are mergeable (sketches of ad
+ * squads give the sketch of their campaign) and can be serialized with {@link #toByteArray()}.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author Yassine
+ */
+public class KllSketch {
+
+    public static final int DEFAULT_K = 200;
+
+    private static final int MIN_K = 8;
+
+    private static final byte SERIAL_VERSION = 1;
+
+    private static final double C = 2. / 3.;
+
+    @Getter
+    private final int k;
+
+    /**
+     * Number of values added
+     */
+    @Getter
+    private long n;
+
+    @Getter
+    private double min = Double.NaN;
+
+    @Getter
+    private double max = Double.NaN;
+
+    private double[][] levels;
+
+    private int[] sizes;
+
+    private int nbLevels;
+
+    /**
+     * Number of items retained in all levels
+     */
+    private int retained;
+
+    private int maxRetained;
+
+    private final Random random = new Random();
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }// KllSketch()
+
+    /**
+     * @param k Accuracy parameter (at least 8)
+     */
+    public KllSketch(int k) {
+        this.k = Math.max(MIN_K, k);
+        this.levels = new double[4][];
+        this.sizes = new int[4];
+        grow();
+    }// KllSketch()
+
+    /**
+     * Add a value, NaN values are ignored
+     *
+     * @param value Value
+     */
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (n == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        n++;
+        append(0, value);
+        if (retained >= maxRetained) {
+            compress();
+        }
+    }// update()
+
+    /**
+     * Add the values of another sketch, the other sketch is unchanged. A sketch can be merged into itself.
+     *
+     * @param other Sketch
+     */
+    public void merge(KllSketch other) {
+        if (other == null || other.n == 0) {
+            return;
+        }
+        // Read before appending : other may be this sketch
+        int otherLevels = other.nbLevels;
+        int[] otherSizes = Arrays.copyOf(other.sizes, otherLevels);
+        long otherN = other.n;
+        while (nbLevels < otherLevels) {
+            grow();
+        }
+        for (int h = 0; h < otherLevels; h++) {
+            for (int i = 0; i < otherSizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        min = n == 0 ? other.min : Math.min(min, other.min);
+        max = n == 0 ? other.max : Math.max(max, other.max);
+        n += otherN;
+        while (retained >= maxRetained) {
+            compress();
+        }
+    }// merge()
+
+    public boolean isEmpty() {
+        return n == 0;
+    }// isEmpty()
+
+    /**
+     * Approximate value at a rank
+     *
+     * @param fraction Rank between 0 and 1 (0.5 for the median, 0.99 for p99)
+     * @return value, NaN if the sketch is empty
+     */
+    public double getQuantile(double fraction) {
+        return getQuantiles(fraction)[0];
+    }// getQuantile()
+
+    /**
+     * Approximate values at several ranks, sorting the items only once
+     *
+     * @param fractions Ranks between 0 and 1
+     * @return values, NaN if the sketch is empty
+     */
+    public double[] getQuantiles(double... fractions) {
+        double[] results = new double[fractions.length];
+        if (n == 0) {
+            Arrays.fill(results, Double.NaN);
+            return results;
+        }
+        SortedView view = sortedView();
+        for (int i = 0; i < fractions.length; i++) {
+            double fraction = fractions[i];
+            if (fraction < 0 || fraction > 1) {
+                throw new IllegalArgumentException("Fraction must be between 0 and 1 : " + fraction);
+            }
+            if (fraction == 0) {
+                results[i] = min;
+            } else if (fraction == 1) {
+                results[i] = max;
+            } else {
+                long target = (long) Math.ceil(fraction * view.totalWeight);
+                int index = Arrays.binarySearch(view.cumulativeWeights, target);
+                results[i] = view.values[Math.min(index < 0 ? -index - 1 : index, view.values.length - 1)];
+            }
+        }
+        return results;
+    }// getQuantiles()
+
+    /**
+     * Approximate fraction of the values lower than or equal to a value
+     *
+     * @param value Value
+     * @return rank between 0 and 1, NaN if the sketch is empty
+     */
+    public double getRank(double value) {
+        if (n == 0) {
+            return Double.NaN;
+        }
+        long weight = 0L;
+        long total = 0L;
+        for (int h = 0; h < nbLevels; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                if (levels[h][i] <= value) {
+                    weight += 1L << h;
+                }
+            }
+            total += (long) sizes[h] << h;
+        }
+        return (double) weight / total;
+    }// getRank()
+
+    /**
+     * @return number of items retained (memory used)
+     */
+    public int getRetained() {
+        return retained;
+    }// getRetained()
+
+    public KllSketch copy() {
+        KllSketch copy = new KllSketch(k);
+        copy.merge(this);
+        return copy;
+    }// copy()
+
+    /**
+     * Serialize the sketch (version, k, n, min, max, then the items of each level)
+     *
+     * @return bytes
+     */
+    public byte[] toByteArray() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 8 + 8 + 8 + 4 + 4 * nbLevels + 8 * retained);
+        buffer.put(SERIAL_VERSION).putInt(k).putLong(n).putDouble(min).putDouble(max).putInt(nbLevels);
+        for (int h = 0; h < nbLevels; h++) {
+            buffer.putInt(sizes[h]);
+            for (int i = 0; i < sizes[h]; i++) {
+                buffer.putDouble(levels[h][i]);
+            }
+        }
+        return buffer.array();
+    }// toByteArray()
+
+    /**
+     * Deserialize a sketch serialized with {@link #toByteArray()}
+     *
+     * @param bytes Bytes
+     * @return sketch
+     * @throws SnapArgumentException If the bytes aren't a sketch
+     */
+    public static KllSketch fromByteArray(byte[] bytes) throws SnapArgumentException {
+        if (bytes == null) {
+            throw new SnapArgumentException("Bytes are required");
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            byte version = buffer.get();
+            if (version != SERIAL_VERSION) {
+                throw new SnapArgumentException("Unknown sketch version " + version);
+            }
+            KllSketch sketch = new KllSketch(buffer.getInt());
+            sketch.n = buffer.getLong();
+            sketch.min = buffer.getDouble();
+            sketch.max = buffer.getDouble();
+            int nbLevels = buffer.getInt();
+            if (nbLevels < 0 || nbLevels > 64) {
+                throw new SnapArgumentException("Invalid number of levels " + nbLevels);
+            }
+            while (sketch.nbLevels < nbLevels) {
+                sketch.grow();
+            }
+            for (int h = 0; h < nbLevels; h++) {
+                int size = buffer.getInt();
+                if (size < 0 || size > buffer.remaining() / 8) {
+                    throw new SnapArgumentException("Invalid level size " + size);
+                }
+                for (int i = 0; i < size; i++) {
+                    sketch.append(h, buffer.getDouble());
+                }
+            }
+            return sketch;
+        } catch (BufferUnderflowException e) {
+            throw new SnapArgumentException("Truncated sketch");
+        }
+    }// fromByteArray()
+
+    private void append(int level, double value) {
+        double[] items = levels[level];
+        if (items == null || sizes[level] == items.length) {
+            items = items == null ? new double[Math.max(8, capacity(level))] : Arrays.copyOf(items, items.length * 2);
+            levels[level] = items;
+        }
+        items[sizes[level]++] = value;
+        retained++;
+    }// append()
+
+    private void grow() {
+        if (nbLevels == levels.length) {
+            levels = Arrays.copyOf(levels, nbLevels * 2);
+            sizes = Arrays.copyOf(sizes, nbLevels * 2);
+        }
+        nbLevels++;
+        maxRetained = 0;
+        for (int h = 0; h < nbLevels; h++) {
+            maxRetained += capacity(h);
+        }
+    }// grow()
+
+    /**
+     * Capacity of a level, levels below the top one get smaller by a factor 2/3
+     */
+    private int capacity(int level) {
+        int depth = nbLevels - level - 1;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(C, depth)));
+    }// capacity()
+
+    /**
+     * Compact the lowest full level into the next one
+     */
+    private void compress() {
+        for (int h = 0; h < nbLevels; h++) {
+            if (sizes[h] >= capacity(h)) {
+                if (h + 1 >= nbLevels) {
+                    grow();
+                }
+                compact(h);
+                if (retained < maxRetained) {
+                    break;
+                }
+            }
+        }
+    }// compress()
+
+    private void compact(int level) {
+        double[] items = levels[level];
+        int size = sizes[level];
+        Arrays.sort(items, 0, size);
+        // An odd item stays at its level
+        int pairs = size / 2;
+        int offset = random.nextBoolean() ? 1 : 0;
+        for (int i = 0; i < pairs; i++) {
+            append(level + 1, items[2 * i + offset]);
+        }
+        if (size % 2 == 1) {
+            items[0] = items[size - 1];
+            sizes[level] = 1;
+        } else {
+            sizes[level] = 0;
+        }
+        // append() counted the promoted items, the compacted level loses 2 items per pair
+        retained -= 2 * pairs;
+    }// compact()
+
+    /**
+     * Items sorted with their cumulative weights : each level is sorted then merged with the previous ones
+     */
+    private SortedView sortedView() {
+        double[] values = new double[0];
+        long[] cumulativeWeights = new long[0];
+        for (int h = 0; h < nbLevels; h++) {
+            int size = sizes[h];
+            if (size == 0) {
+                continue;
+            }
+            double[] items = levels[h];
+            Arrays.sort(items, 0, size);
+            double[] mergedValues = new double[values.length + size];
+            long[] mergedWeights = new long[values.length + size];
+            long weight = 1L << h;
+            long cumulative = 0L;
+            long previous = 0L;
+            int a = 0;
+            int b = 0;
+            for (int i = 0; i < mergedValues.length; i++) {
+                if (b >= size || (a < values.length && values[a] <= items[b])) {
+                    cumulative += cumulativeWeights[a] - previous;
+                    previous = cumulativeWeights[a];
+                    mergedValues[i] = values[a++];
+                } else {
+                    cumulative += weight;
+                    mergedValues[i] = items[b++];
+                }
+                mergedWeights[i] = cumulative;
+            }
+            values = mergedValues;
+            cumulativeWeights = mergedWeights;
+        }
+        return new SortedView(values, cumulativeWeights);
+    }// sortedView()
+
+    private static final class SortedView {
+
+        private final double[] values;
+
+        private final long[] cumulativeWeights;
+
+        private final long totalWeight;
+
+        private SortedView(double[] values, long[] cumulativeWeights) {
+            this.values = values;
+            this.cumulativeWeights = cumulativeWeights;
+            this.totalWeight = cumulativeWeights.length == 0 ? 0L : cumulativeWeights[cumulativeWeights.length - 1];
+        }// SortedView()
+
+    }// SortedView
+
+}// KllSketch
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.sketch;
+
+import lombok.Getter;
+import org.apache.commons.collections4.CollectionUtils;
+import snapads4j.enums.DerivedMetricEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Distribution of metrics across entities (p50 / p90 / p99 of the CPM of the ads of an organization...)
+ * <p>
+ * Each {@link TimeSerieStat} added is one sample : its TOTAL stats, or the sum of its time series. Derived
+ * metrics are computed from the sums of the entity (entities with a denominator of 0 are skipped).
+ * {@link #addPage(Pagination)} can be given to the stream methods of {@link snapads4j.stats.SnapStats},
+ * sketches of ad squads can be merged into the sketches of their campaign.
+ * <pre>
+ * StatsSketches sketches = new StatsSketches(Collections.emptyList(), Arrays.asList(DerivedMetricEnum.CPM, DerivedMetricEnum.COMPLETION_RATE));
+ * snapStats.streamAdStats(token, adID, query, sketches::addPage);
+ * double[] cpm = sketches.getSketch(DerivedMetricEnum.CPM).getQuantiles(0.5, 0.9, 0.99);
+ * </pre>
+ *
+ * @author Yassine
+ */
+public class StatsSketches {
+
+    private static final byte SERIAL_VERSION = 1;
+
+    private static final StatMetricEnum[] METRICS = StatMetricEnum.values();
+
+    private static final DerivedMetricEnum[] DERIVED_METRICS = DerivedMetricEnum.values();
+
+    @Getter
+    private final int k;
+
+    private final Map<StatMetricEnum, KllSketch> metricSketches = new EnumMap<>(StatMetricEnum.class);
+
+    private final Map<DerivedMetricEnum, KllSketch> derivedSketches = new EnumMap<>(DerivedMetricEnum.class);
+
+    /**
+     * Metrics read from the stats (metrics and inputs of the derived metrics)
+     */
+    private final List<StatMetricEnum> inputs = new ArrayList<>();
+
+    public StatsSketches(Collection<StatMetricEnum> metrics, Collection<DerivedMetricEnum> derivedMetrics) throws SnapArgumentException {
+        this(metrics, derivedMetrics, KllSketch.DEFAULT_K);
+    }// StatsSketches()
+
+    /**
+     * @param metrics        Metrics to sketch
+     * @param derivedMetrics Derived metrics to sketch
+     * @param k              Accuracy of the sketches
+     * @throws SnapArgumentException If there is no metric
+     */
+    public StatsSketches(Collection<StatMetricEnum> metrics, Collection<DerivedMetricEnum> derivedMetrics, int k) throws SnapArgumentException {
+        if (CollectionUtils.isEmpty(metrics) && CollectionUtils.isEmpty(derivedMetrics)) {
+            throw new SnapArgumentException("At least one metric is required");
+        }
+        this.k = k;
+        if (metrics != null) {
+            for (StatMetricEnum metric : metrics) {
+                metricSketches.put(metric, new KllSketch(k));
+            }
+        }
+        if (derivedMetrics != null) {
+            for (DerivedMetricEnum metric : derivedMetrics) {
+                derivedSketches.put(metric, new KllSketch(k));
+            }
+        }
+        for (StatMetricEnum metric : METRICS) {
+            if (metricSketches.containsKey(metric) || isInputOfDerived(metric)) {
+                inputs.add(metric);
+            }
+        }
+    }// StatsSketches()
+
+    public void addPage(Pagination<TimeSerieStat> page) {
+        if (page != null) {
+            addAll(page.getResults());
+        }
+    }// addPage()
+
+    public void addAll(List<TimeSerieStat> stats) {
+        if (stats != null) {
+            for (TimeSerieStat stat : stats) {
+                add(stat);
+            }
+        }
+    }// addAll()
+
+    /**
+     * Add the sample of an entity
+     *
+     * @param stat Stats of the entity
+     */
+    public void add(TimeSerieStat stat) {
+        if (stat == null) {
+            return;
+        }
+        long[] sums = new long[METRICS.length];
+        boolean hasStats = false;
+        if (stat.getStats() != null) {
+            hasStats = true;
+            for (StatMetricEnum metric : inputs) {
+                sums[metric.ordinal()] += metric.valueOf(stat.getStats());
+            }
+        }
+        if (stat.getTimeseries() != null) {
+            for (TimeSerie serie : stat.getTimeseries()) {
+                if (serie.getStats() != null) {
+                    hasStats = true;
+                    for (StatMetricEnum metric : inputs) {
+                        sums[metric.ordinal()] += metric.valueOf(serie.getStats());
+                    }
+                }
+            }
+        }
+        if (!hasStats) {
+            return;
+        }
+        for (Map.Entry<StatMetricEnum, KllSketch> entry : metricSketches.entrySet()) {
+            entry.getValue().update(sums[entry.getKey().ordinal()]);
+        }
+        for (Map.Entry<DerivedMetricEnum, KllSketch> entry : derivedSketches.entrySet()) {
+            DerivedMetricEnum metric = entry.getKey();
+            // NaN (denominator of 0) is ignored by the sketch
+            entry.getValue().update(metric.compute(sums[metric.getNumerator().ordinal()], sums[metric.getDenominator().ordinal()]));
+        }
+    }// add()
+
+    /**
+     * @param metric Metric
+     * @return sketch of the metric, null if not sketched
+     */
+    public KllSketch getSketch(StatMetricEnum metric) {
+        return metricSketches.get(metric);
+    }// getSketch()
+
+    /**
+     * @param metric Derived metric
+     * @return sketch of the metric, null if not sketched
+     */
+    public KllSketch getSketch(DerivedMetricEnum metric) {
+        return derivedSketches.get(metric);
+    }// getSketch()
+
+    public Collection<StatMetricEnum> getMetrics() {
+        return Collections.unmodifiableSet(metricSketches.keySet());
+    }// getMetrics()
+
+    public Collection<DerivedMetricEnum> getDerivedMetrics() {
+        return Collections.unmodifiableSet(derivedSketches.keySet());
+    }// getDerivedMetrics()
+
+    /**
+     * Merge the sketches of another collection (metrics which aren't sketched here are ignored)
+     *
+     * @param other Sketches
+     */
+    public void merge(StatsSketches other) {
+        if (other == null) {
+            return;
+        }
+        for (Map.Entry<StatMetricEnum, KllSketch> entry : metricSketches.entrySet()) {
+            entry.getValue().merge(other.metricSketches.get(entry.getKey()));
+        }
+        for (Map.Entry<DerivedMetricEnum, KllSketch> entry : derivedSketches.entrySet()) {
+            entry.getValue().merge(other.derivedSketches.get(entry.getKey()));
+        }
+    }// merge()
+
+    /**
+     * Serialize the sketches (version, k, then the ordinal and the bytes of each sketch)
+     *
+     * @return bytes
+     */
+    public byte[] toByteArray() {
+        List<byte[]> serialized = new ArrayList<>();
+        int length = 1 + 4 + 4 + 4;
+        for (KllSketch sketch : metricSketches.values()) {
+            serialized.add(sketch.toByteArray());
+        }
+        for (KllSketch sketch : derivedSketches.values()) {
+            serialized.add(sketch.toByteArray());
+        }
+        for (byte[] bytes : serialized) {
+            length += 4 + 4 + bytes.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(SERIAL_VERSION).putInt(k).putInt(metricSketches.size()).putInt(derivedSketches.size());
+        int index = 0;
+        for (StatMetricEnum metric : metricSketches.keySet()) {
+            byte[] bytes = serialized.get(index++);
+            buffer.putInt(metric.ordinal()).putInt(bytes.length).put(bytes);
+        }
+        for (DerivedMetricEnum metric : derivedSketches.keySet()) {
+            byte[] bytes = serialized.get(index++);
+            buffer.putInt(metric.ordinal()).putInt(bytes.length).put(bytes);
+        }
+        return buffer.array();
+    }// toByteArray()
+
+    /**
+     * Deserialize sketches serialized with {@link #toByteArray()}
+     *
+     * @param bytes Bytes
+     * @return sketches
+     * @throws SnapArgumentException If the bytes aren't sketches
+     */
+    public static StatsSketches fromByteArray(byte[] bytes) throws SnapArgumentException {
+        if (bytes == null) {
+            throw new SnapArgumentException("Bytes are required");
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            byte version = buffer.get();
+            if (version != SERIAL_VERSION) {
+                throw new SnapArgumentException("Unknown sketches version " + version);
+            }
+            int k = buffer.getInt();
+            int nbMetrics = buffer.getInt();
+            int nbDerived = buffer.getInt();
+            if (nbMetrics < 0 || nbMetrics > METRICS.length || nbDerived < 0 || nbDerived > DERIVED_METRICS.length) {
+                throw new SnapArgumentException("Invalid number of sketches");
+            }
+            Map<StatMetricEnum, KllSketch> metrics = new EnumMap<>(StatMetricEnum.class);
+            for (int i = 0; i < nbMetrics; i++) {
+                int ordinal = buffer.getInt();
+                if (ordinal < 0 || ordinal >= METRICS.length) {
+                    throw new SnapArgumentException("Unknown metric " + ordinal);
+                }
+                metrics.put(METRICS[ordinal], readSketch(buffer));
+            }
+            Map<DerivedMetricEnum, KllSketch> derived = new EnumMap<>(DerivedMetricEnum.class);
+            for (int i = 0; i < nbDerived; i++) {
+                int ordinal = buffer.getInt();
+                if (ordinal < 0 || ordinal >= DERIVED_METRICS.length) {
+                    throw new SnapArgumentException("Unknown derived metric " + ordinal);
+                }
+                derived.put(DERIVED_METRICS[ordinal], readSketch(buffer));
+            }
+            StatsSketches sketches = new StatsSketches(metrics.keySet(), derived.keySet(), k);
+            sketches.metricSketches.putAll(metrics);
+            sketches.derivedSketches.putAll(derived);
+            return sketches;
+        } catch (BufferUnderflowException e) {
+            throw new SnapArgumentException("Truncated sketches");
+        }
+    }// fromByteArray()
+
+    private static KllSketch readSketch(ByteBuffer buffer) throws SnapArgumentException {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new SnapArgumentException("Invalid sketch length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return KllSketch.fromByteArray(bytes);
+    }// readSketch()
+
+    private boolean isInputOfDerived(StatMetricEnum metric) {
+        for (DerivedMetricEnum derived : derivedSketches.keySet()) {
+            if (derived.getNumerator() == metric || derived.getDenominator() == metric) {
+                return true;
+            }
+        }
+        return false;
+    }// isInputOfDerived()
+
+}// StatsSketches
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.window;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ring of hourly slots of one entity.
+ * <p>
+ * Slot {@code hour % capacity} holds the metrics of an hour. A slot is replaced with a compare-and-set,
+ * the thread winning the CAS adds the difference to the totals, so concurrent pollers never lose an update
+ * and readers never wait. Slots older than the window are expired lazily by the readers.
+ *
+ * @author Yassine
+ */
+final class EntityWindow {
+
+    private final int capacity;
+
+    private final AtomicReferenceArray<Slot> slots;
+
+    /**
+     * Sum of every slot held, one cell per metric
+     */
+    private final AtomicLongArray totals;
+
+    /**
+     * Hours up to this one are out of the window
+     */
+    private final AtomicLong expiredThrough = new AtomicLong(Long.MIN_VALUE);
+
+    EntityWindow(int capacity, int nbMetrics) {
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.totals = new AtomicLongArray(nbMetrics);
+    }// EntityWindow()
+
+    /**
+     * Set the metrics of an hour (a newer poll of the same hour replaces the previous values)
+     *
+     * @param hour   Hours since epoch
+     * @param values Metrics
+     * @return false if the hour is out of the window
+     */
+    boolean record(long hour, long[] values) {
+        if (hour <= expiredThrough.get()) {
+            return false;
+        }
+        int index = index(hour);
+        Slot next = new Slot(hour, values);
+        while (true) {
+            Slot current = slots.get(index);
+            if (current != null && current.hour > hour) {
+                return false;
+            }
+            if (slots.compareAndSet(index, current, next)) {
+                for (int i = 0; i < values.length; i++) {
+                    totals.addAndGet(i, current == null ? values[i] : values[i] - current.values[i]);
+                }
+                break;
+            }
+        }
+        // The window may have moved between the first check and the CAS
+        if (hour <= expiredThrough.get()) {
+            evict(index, hour);
+            return false;
+        }
+        return true;
+    }// record()
+
+    /**
+     * Sum of the whole window, O(1)
+     *
+     * @param metric  Index of the metric
+     * @param nowHour Current hour since epoch
+     * @return sum
+     */
+    long total(int metric, long nowHour) {
+        expire(nowHour);
+        return totals.get(metric);
+    }// total()
+
+    /**
+     * Sum of the last hours, the current one included
+     *
+     * @param metric  Index of the metric
+     * @param hours   Number of hours
+     * @param nowHour Current hour since epoch
+     * @return sum
+     */
+    long sum(int metric, int hours, long nowHour) {
+        if (hours >= capacity) {
+            return total(metric, nowHour);
+        }
+        long sum = 0L;
+        for (long hour = nowHour - hours + 1; hour <= nowHour; hour++) {
+            Slot slot = slots.get(index(hour));
+            if (slot != null && slot.hour == hour) {
+                sum += slot.values[metric];
+            }
+        }
+        return sum;
+    }// sum()
+
+    /**
+     * Value of a metric for an hour
+     *
+     * @param metric Index of the metric
+     * @param hour   Hours since epoch
+     * @return value, 0 if the hour isn't held
+     */
+    long get(int metric, long hour) {
+        Slot slot = slots.get(index(hour));
+        return slot != null && slot.hour == hour ? slot.values[metric] : 0L;
+    }// get()
+
+    /**
+     * Last hour recorded
+     *
+     * @return hours since epoch, {@link Long#MIN_VALUE} if nothing is held
+     */
+    long lastHour() {
+        long last = Long.MIN_VALUE;
+        for (int i = 0; i < capacity; i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.hour > last) {
+                last = slot.hour;
+            }
+        }
+        return last;
+    }// lastHour()
+
+    /**
+     * Remove the hours out of the window, amortized O(1) : each hour is expired only once
+     *
+     * @param nowHour Current hour since epoch
+     */
+    void expire(long nowHour) {
+        long floor = nowHour - capacity;
+        long done = expiredThrough.get();
+        while (done < floor) {
+            if (expiredThrough.compareAndSet(done, floor)) {
+                long from = Math.max(done, floor - capacity) + 1;
+                for (long hour = from; hour <= floor; hour++) {
+                    evict(index(hour), floor);
+                }
+                return;
+            }
+            done = expiredThrough.get();
+        }
+    }// expire()
+
+    private void evict(int index, long floor) {
+        while (true) {
+            Slot current = slots.get(index);
+            if (current == null || current.hour > floor) {
+                return;
+            }
+            if (slots.compareAndSet(index, current, null)) {
+                for (int i = 0; i < current.values.length; i++) {
+                    totals.addAndGet(i, -current.values[i]);
+                }
+                return;
+            }
+        }
+    }// evict()
+
+    private int index(long hour) {
+        return (int) Math.floorMod(hour, (long) capacity);
+    }// index()
+
+    /**
+     * Metrics of an hour, never modified once published
+     */
+    private static final class Slot {
+
+        private final long hour;
+
+        private final long[] values;
+
+        private Slot(long hour, long[] values) {
+            this.hour = hour;
+            this.values = values;
+        }// Slot()
+
+    }// Slot
+
+}// EntityWindow
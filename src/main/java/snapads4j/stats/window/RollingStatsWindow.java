@@ -0,0 +1,252 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.window;
+
+import lombok.Getter;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.Stat;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory rolling window of the recent HOUR stats of many entities (budget pacing, alerting...).
+ * <p>
+ * Each entity (campaign, ad squad, ad...) has a ring of hourly slots holding primitive metrics.
+ * Updates are lock-free (compare-and-set of the slot, atomic cells for the totals), so pollers feeding the
+ * window and threads reading it never block each other. The sum of the whole window is O(1), the sum of
+ * the last N hours reads N slots.
+ * <pre>
+ * RollingStatsWindow window = new RollingStatsWindow(24, Arrays.asList(StatMetricEnum.SPEND, StatMetricEnum.IMPRESSIONS));
+ * snapStats.streamCampaignStats(token, campaignID, hourQuery, window::addPage);
+ * long spend24h = window.sum(TimeSerieTypeEnum.CAMPAIGN, campaignID, StatMetricEnum.SPEND, System.currentTimeMillis());
+ * long spend3h = window.sum(TimeSerieTypeEnum.CAMPAIGN, campaignID, StatMetricEnum.SPEND, 3, System.currentTimeMillis());
+ * </pre>
+ * Hours are UTC hours since epoch ; stats are expected to be requested with HOUR granularity.
+ *
+ * @author Yassine
+ */
+public class RollingStatsWindow {
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Size of the window in hours
+     */
+    @Getter
+    private final int hours;
+
+    @Getter
+    private final Set<StatMetricEnum> metrics;
+
+    private final StatMetricEnum[] trackedMetrics;
+
+    /**
+     * Position of each metric in the slots, -1 if not tracked
+     */
+    private final int[] metricIndexes;
+
+    private final Map<TimeSerieTypeEnum, Map<String, EntityWindow>> windows = new EnumMap<>(TimeSerieTypeEnum.class);
+
+    /**
+     * Constructor
+     *
+     * @param hours   Size of the window in hours
+     * @param metrics Metrics tracked
+     * @throws SnapArgumentException If the window is empty or there is no metric
+     */
+    public RollingStatsWindow(int hours, Collection<StatMetricEnum> metrics) throws SnapArgumentException {
+        if (hours < 1) {
+            throw new SnapArgumentException("Window must be at least 1 hour");
+        }
+        if (CollectionUtils.isEmpty(metrics) || metrics.contains(null)) {
+            throw new SnapArgumentException("At least one metric is required");
+        }
+        this.hours = hours;
+        this.metrics = Collections.unmodifiableSet(EnumSet.copyOf(metrics));
+        this.trackedMetrics = this.metrics.toArray(new StatMetricEnum[0]);
+        this.metricIndexes = new int[StatMetricEnum.values().length];
+        Arrays.fill(metricIndexes, -1);
+        for (int i = 0; i < trackedMetrics.length; i++) {
+            metricIndexes[trackedMetrics[i].ordinal()] = i;
+        }
+        for (TimeSerieTypeEnum type : TimeSerieTypeEnum.values()) {
+            windows.put(type, new ConcurrentHashMap<>());
+        }
+    }// RollingStatsWindow()
+
+    /**
+     * Record a page of stats, can be given to the stream methods of {@link snapads4j.stats.SnapStats}
+     *
+     * @param page Page of stats
+     */
+    public void addPage(Pagination<TimeSerieStat> page) {
+        if (page != null) {
+            addAll(page.getResults());
+        }
+    }// addPage()
+
+    public void addAll(List<TimeSerieStat> stats) {
+        if (stats != null) {
+            for (TimeSerieStat stat : stats) {
+                add(stat);
+            }
+        }
+    }// addAll()
+
+    /**
+     * Record the hours of an entity, stats which aren't HOUR stats are ignored
+     *
+     * @param stat Stats of an entity
+     */
+    public void add(TimeSerieStat stat) {
+        if (stat == null || stat.getGranularity() != GranularityEnum.HOUR || stat.getType() == null
+                || StringUtils.isEmpty(stat.getId()) || stat.getTimeseries() == null) {
+            return;
+        }
+        for (TimeSerie serie : stat.getTimeseries()) {
+            if (serie.getStartTime() != null) {
+                record(stat.getType(), stat.getId(), serie.getStartTime(), serie.getStats());
+            }
+        }
+    }// add()
+
+    /**
+     * Set the metrics of an hour, a newer poll of the same hour replaces the previous values
+     *
+     * @param type      Type of the entity
+     * @param id        ID of the entity
+     * @param startTime Start of the hour
+     * @param stats     Stats of the hour
+     * @return false if the hour is out of the window
+     */
+    public boolean record(TimeSerieTypeEnum type, String id, Date startTime, Stat stats) {
+        long[] values = new long[trackedMetrics.length];
+        for (int i = 0; i < trackedMetrics.length; i++) {
+            values[i] = trackedMetrics[i].valueOf(stats);
+        }
+        EntityWindow window = windows.get(type).computeIfAbsent(id, key -> new EntityWindow(hours, trackedMetrics.length));
+        return window.record(toHour(startTime.getTime()), values);
+    }// record()
+
+    /**
+     * Sum of a metric over the whole window, O(1)
+     *
+     * @param type   Type of the entity
+     * @param id     ID of the entity
+     * @param metric Metric
+     * @param now    Current time (millis)
+     * @return sum, 0 if the entity is unknown
+     */
+    public long sum(TimeSerieTypeEnum type, String id, StatMetricEnum metric, long now) {
+        int index = indexOf(metric);
+        EntityWindow window = windows.get(type).get(id);
+        return window == null ? 0L : window.total(index, toHour(now));
+    }// sum()
+
+    /**
+     * Sum of a metric over the last hours, the current hour included
+     *
+     * @param type      Type of the entity
+     * @param id        ID of the entity
+     * @param metric    Metric
+     * @param lastHours Number of hours (the window size at most)
+     * @param now       Current time (millis)
+     * @return sum, 0 if the entity is unknown
+     */
+    public long sum(TimeSerieTypeEnum type, String id, StatMetricEnum metric, int lastHours, long now) {
+        int index = indexOf(metric);
+        EntityWindow window = windows.get(type).get(id);
+        return window == null || lastHours < 1 ? 0L : window.sum(index, lastHours, toHour(now));
+    }// sum()
+
+    /**
+     * Value of a metric for one hour
+     *
+     * @param type      Type of the entity
+     * @param id        ID of the entity
+     * @param metric    Metric
+     * @param startTime Start of the hour
+     * @return value, 0 if the hour isn't held
+     */
+    public long get(TimeSerieTypeEnum type, String id, StatMetricEnum metric, Date startTime) {
+        int index = indexOf(metric);
+        EntityWindow window = windows.get(type).get(id);
+        return window == null ? 0L : window.get(index, toHour(startTime.getTime()));
+    }// get()
+
+    /**
+     * Start of the last hour recorded for an entity
+     *
+     * @param type Type of the entity
+     * @param id   ID of the entity
+     * @return start of the hour, null if nothing is held
+     */
+    public Date getLastHour(TimeSerieTypeEnum type, String id) {
+        EntityWindow window = windows.get(type).get(id);
+        long last = window == null ? Long.MIN_VALUE : window.lastHour();
+        return last == Long.MIN_VALUE ? null : new Date(last * HOUR_MILLIS);
+    }// getLastHour()
+
+    public boolean contains(TimeSerieTypeEnum type, String id) {
+        return windows.get(type).containsKey(id);
+    }// contains()
+
+    public void remove(TimeSerieTypeEnum type, String id) {
+        windows.get(type).remove(id);
+    }// remove()
+
+    /**
+     * @return number of entities held
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, EntityWindow> entities : windows.values()) {
+            size += entities.size();
+        }
+        return size;
+    }// size()
+
+    private int indexOf(StatMetricEnum metric) {
+        int index = metricIndexes[metric.ordinal()];
+        if (index < 0) {
+            throw new IllegalArgumentException("Metric " + metric + " isn't tracked by the window");
+        }
+        return index;
+    }// indexOf()
+
+    private static long toHour(long millis) {
+        return Math.floorDiv(millis, HOUR_MILLIS);
+    }// toHour()
+
+}// RollingStatsWindow
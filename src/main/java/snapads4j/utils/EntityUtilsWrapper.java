@@ -20,6 +20,7 @@ import org.apache.http.ParseException;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * Pour contourner Mockito (impossible d'utiliser Powermock)
@@ -40,4 +41,15 @@ public class EntityUtilsWrapper {
         return "";
     }// toString()
 
+    /**
+     * Content of an entity, to decode it while it is received instead of buffering it
+     *
+     * @param httpEntity Entity
+     * @return content
+     * @throws IOException If the content can't be read
+     */
+    public InputStream getContent(HttpEntity httpEntity) throws IOException {
+        return httpEntity.getContent();
+    }// getContent()
+
 }// EntityUtilsWrapper
@@ -22,13 +22,17 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 public class FileUtils {
 
+    private static final Pattern SEGMENT_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]+");
+
     /**
      * Test equality between width and height. It's useful to check ratio 1:1.
      *
@@ -141,4 +145,20 @@ public class FileUtils {
         return total;
     }// getLengthLargeMedia()
 
+    /**
+     * Get the file of a segment in a directory, the segment ID can't lead out of the directory
+     *
+     * @param directory Directory
+     * @param segmentID ID of the segment (letters, digits, '_' and '-')
+     * @param extension Extension of the file (with the dot)
+     * @return path of the file
+     * @throws IllegalArgumentException If the segment ID is invalid
+     */
+    public static Path getSegmentFile(Path directory, String segmentID, String extension) {
+        if (segmentID == null || !SEGMENT_ID_PATTERN.matcher(segmentID).matches()) {
+            throw new IllegalArgumentException("Segment ID is invalid");
+        }
+        return directory.resolve(segmentID + extension);
+    }// getSegmentFile()
+
 }// FileUtils
@@ -75,6 +75,22 @@ public class HttpUtils {
         return request;
     } // preparePostRequest()
 
+    /**
+     * Prepare POST request HTTP with an already built body
+     *
+     * @param url              url
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param entity           Body (JSON)
+     * @return HttpRequest
+     */
+    public static HttpPost preparePostRequestEntity(String url, String oAuthAccessToken, HttpEntity entity) {
+        HttpPost request = new HttpPost(url);
+        request.setEntity(entity);
+        request.addHeader("Content-Type", "application/json");
+        request.addHeader("Authorization", "Bearer " + oAuthAccessToken);
+        return request;
+    } // preparePostRequestEntity()
+
     /**
      * Prepare POST request HTTP
      *
@@ -193,4 +209,20 @@ public class HttpUtils {
         request.addHeader("Authorization", "Bearer " + oAuthAccessToken);
         return request;
     } // prepareDeleteRequestObject()
+
+    /**
+     * Prepare DELETE request HTTP with an already built body
+     *
+     * @param url              url
+     * @param oAuthAccessToken oAuthAccessToken
+     * @param entity           Body (JSON)
+     * @return HttpRequest
+     */
+    public static HttpDeleteWithBody prepareDeleteRequestEntity(String url, String oAuthAccessToken, HttpEntity entity) {
+        HttpDeleteWithBody request = new HttpDeleteWithBody(url);
+        request.setEntity(entity);
+        request.addHeader("Content-Type", "application/json");
+        request.addHeader("Authorization", "Bearer " + oAuthAccessToken);
+        return request;
+    } // prepareDeleteRequestEntity()
 } // HttpUtils
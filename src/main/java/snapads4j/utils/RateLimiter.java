@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.utils;
+
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+import snapads4j.exceptions.SnapArgumentException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate limiter which can be shared by every component calling the API (pollers, uploads...).
+ * <p>
+ * Permits are handed out every {@code 1 / permitsPerSecond} second, up to {@code burst} permits can be
+ * taken at once after an idle period. Waiting is done outside of the lock, so a thread waiting for its
+ * permit doesn't prevent other threads from reserving theirs.
+ *
+ * @author Yassine
+ */
+public class RateLimiter {
+
+    @Getter
+    private final double permitsPerSecond;
+
+    @Getter
+    private final int burst;
+
+    private final long intervalNanos;
+
+    private final LongSupplier clock;
+
+    /**
+     * Time when the next permit is free
+     */
+    private long nextFreeNanos;
+
+    /**
+     * Constructor
+     *
+     * @param permitsPerSecond Permits per second
+     * @param burst            Permits which can be taken at once
+     * @throws SnapArgumentException If an argument is invalid
+     */
+    public RateLimiter(double permitsPerSecond, int burst) throws SnapArgumentException {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }// RateLimiter()
+
+    RateLimiter(double permitsPerSecond, int burst, LongSupplier clock) throws SnapArgumentException {
+        StringBuilder sb = new StringBuilder();
+        if (!(permitsPerSecond > 0)) {
+            sb.append("Permits per second must be positive,");
+        }
+        if (burst < 1) {
+            sb.append("Burst must be at least 1,");
+        }
+        String finalErrors = sb.toString();
+        if (!StringUtils.isEmpty(finalErrors)) {
+            throw new SnapArgumentException(finalErrors.substring(0, finalErrors.length() - 1));
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.clock = clock;
+        this.nextFreeNanos = clock.getAsLong() - (burst - 1) * intervalNanos;
+    }// RateLimiter()
+
+    /**
+     * Take a permit, waiting until it's free
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve(true);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }// acquire()
+
+    /**
+     * Take a permit only if it's free now
+     *
+     * @return true if the permit is taken
+     */
+    public boolean tryAcquire() {
+        return reserve(false) == 0L;
+    }// tryAcquire()
+
+    /**
+     * @param wait Reserve the permit even if it isn't free now
+     * @return nanoseconds to wait before using the permit, -1 if not reserved
+     */
+    private synchronized long reserve(boolean wait) {
+        long now = clock.getAsLong();
+        long start = Math.max(nextFreeNanos, now - (burst - 1) * intervalNanos);
+        long waitNanos = Math.max(0L, start - now);
+        if (waitNanos > 0 && !wait) {
+            return -1L;
+        }
+        nextFreeNanos = start + intervalNanos;
+        return waitNanos;
+    }// reserve()
+
+}// RateLimiter
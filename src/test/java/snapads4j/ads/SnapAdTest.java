@@ -1056,6 +1056,12 @@ public class SnapAdTest {
                 .isInstanceOf(SnapArgumentException.class).hasMessage("The AdAccount ID is required");
     }// test_getAllAds_AdAccount_should_throw_SnapArgumentException_when_ad_account_id_is_null()
 
+    @Test
+    public void test_streamAllAds_AdAccount_should_throw_SnapArgumentException_when_consumer_is_null() {
+        assertThatThrownBy(() -> ad.streamAllAdsFromAdAccount(oAuthAccessToken, accountId, 50, null))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Consumer is required");
+    }// test_streamAllAds_AdAccount_should_throw_SnapArgumentException_when_consumer_is_null()
+
     @Test
     public void test_getAllAds_AdAccount_should_throw_SnapArgumentException_when_min_limit_is_wrong() {
         assertThatThrownBy(() -> ad.getAllAdsFromAdAccount(oAuthAccessToken, accountId, 10))
@@ -413,6 +413,32 @@ public class SnapAdSquadsTest {
         });
     }// test_update_ad_squad_should_success()
 
+    @Test
+    public void test_update_ad_squads_should_send_one_request_per_campaign() throws IOException,
+            SnapOAuthAccessTokenException, SnapResponseErrorException, SnapArgumentException, SnapExecutionException {
+        Mockito.when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        Mockito.when(statusLine.getStatusCode()).thenReturn(200);
+        Mockito.when(httpClient.execute(Mockito.any(HttpPut.class))).thenReturn(httpResponse);
+        Mockito.when(httpResponse.getEntity()).thenReturn(httpEntity);
+        Mockito.when(entityUtilsWrapper.toString(httpEntity)).thenReturn(SnapResponseUtils.getSnapAdSquadUpdated());
+        AdSquad other = initFunctionalAdSquad();
+        other.setBillingEvent(BillingEventEnum.IMPRESSION);
+        other.setId("1a2b3c4d-86a5-4e9e-8afd-ac4c118896d4");
+        List<AdSquad> adSquads = new ArrayList<>();
+        adSquads.add(adSquadForUpdate);
+        adSquads.add(other);
+        List<AdSquad> updated = sAdSquads.updateAdSquads(oAuthAccessToken, adSquads);
+        assertThat(updated).hasSize(1);
+        assertThat(updated.get(0).getId()).isEqualTo(adSquadForUpdate.getId());
+        Mockito.verify(httpClient, Mockito.times(1)).execute(Mockito.any(HttpPut.class));
+    }// test_update_ad_squads_should_send_one_request_per_campaign()
+
+    @Test
+    public void test_update_ad_squads_should_throw_SnapArgumentException_when_list_is_empty() {
+        assertThatThrownBy(() -> sAdSquads.updateAdSquads(oAuthAccessToken, new ArrayList<>()))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("At least one ad squad is required");
+    } // test_update_ad_squads_should_throw_SnapArgumentException_when_list_is_empty()
+
     @Test
     public void test_update_ad_squad_should_throw_SnapOAuthAccessTokenException_when_token_is_null() {
         assertThatThrownBy(() -> sAdSquads.updateAdSquad(null, adSquad))
@@ -1295,6 +1321,12 @@ public class SnapAdSquadsTest {
                 .isInstanceOf(SnapArgumentException.class).hasMessage("The AdAccount ID is required");
     } // test_getAllAdSquads_AdAccount_should_throw_SnapArgumentException_when_ad_account_id_is_null()
 
+    @Test
+    public void test_streamAllAdSquads_AdAccount_should_throw_SnapArgumentException_when_consumer_is_null() {
+        assertThatThrownBy(() -> sAdSquads.streamAllAdSquadsFromAdAccount(oAuthAccessToken, accountId, 50, null))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Consumer is required");
+    } // test_streamAllAdSquads_AdAccount_should_throw_SnapArgumentException_when_consumer_is_null()
+
     @Test
     public void test_getAllAdSquads_AdAccount_should_throw_SnapArgumentException_when_min_limit_is_wrong() {
         assertThatThrownBy(() -> sAdSquads.getAllAdSquadsFromAdAccount(oAuthAccessToken, accountId, 10))
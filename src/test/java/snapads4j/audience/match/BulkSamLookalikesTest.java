@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.match;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import snapads4j.enums.SourceTypeEnum;
+import snapads4j.enums.TypeCreationSpecDetails;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapOAuthAccessTokenException;
+import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.audience.match.AudienceSegment;
+import snapads4j.model.audience.match.SamLookalikes;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkSamLookalikesTest {
+
+    private static final String TOKEN = "token";
+
+    private static final String AD_ACCOUNT_ID = "d47d2516-4f1f-46f0-a63c-31a46804c3aa";
+
+    private static final String SEED_ID = "5677923948298240";
+
+    @Mock
+    private SnapAudienceSegmentInterface snapAudienceSegment;
+
+    @Test
+    public void test_build_should_create_one_lookalike_by_country_and_type() throws Exception {
+        try (BulkSamLookalikes bulk = builder().setCountries(Arrays.asList("us", "FR", "US"))
+                .setTypes(Arrays.asList(TypeCreationSpecDetails.BALANCE, TypeCreationSpecDetails.REACH)).build()) {
+            List<SamLookalikes> lookalikes = bulk.getLookalikes();
+            assertThat(lookalikes).extracting(SamLookalikes::getName).containsExactly("seed US BALANCE", "seed US REACH",
+                    "seed FR BALANCE", "seed FR REACH");
+            assertThat(lookalikes).allSatisfy(sam -> {
+                assertThat(sam.getAdAccountId()).isEqualTo(AD_ACCOUNT_ID);
+                assertThat(sam.getSourceType()).isEqualTo(SourceTypeEnum.LOOKALIKE);
+                assertThat(sam.getRetentionInDays()).isEqualTo(180);
+                assertThat(sam.getCreationSpec().getSeedSegmentId()).isEqualTo(SEED_ID);
+            });
+        }
+    }// test_build_should_create_one_lookalike_by_country_and_type()
+
+    @Test
+    public void test_create_should_batch_requests_and_isolate_failures() throws Exception {
+        Mockito.when(snapAudienceSegment.createAllSamLookalikes(Mockito.eq(TOKEN), Mockito.anyList()))
+                .thenAnswer(invocation -> {
+                    List<SamLookalikes> sams = invocation.getArgument(1);
+                    if (sams.stream().anyMatch(sam -> sam.getCreationSpec().getCountry().equals("DE"))) {
+                        throw new SnapResponseErrorException("Service Unavailable", 503);
+                    }
+                    return sams.stream().map(sam -> {
+                        AudienceSegment segment = new AudienceSegment();
+                        segment.setId(sam.getName());
+                        segment.setCreationSpec(sam.getCreationSpec());
+                        return sam.getCreationSpec().getCountry().equals("GB") ? null : segment;
+                    }).collect(Collectors.toList());
+                });
+        try (BulkSamLookalikes bulk = builder().setCountries(Arrays.asList("US", "FR", "GB", "DE"))
+                .setTypes(Arrays.asList(TypeCreationSpecDetails.BALANCE, TypeCreationSpecDetails.REACH))
+                .setBatchSize(3).setThreads(3).build()) {
+            BulkSamLookalikesResult result = bulk.create(TOKEN);
+
+            Mockito.verify(snapAudienceSegment, Mockito.times(3)).createAllSamLookalikes(Mockito.eq(TOKEN), Mockito.anyList());
+            assertThat(result.isComplete()).isFalse();
+            assertThat(result.getSegments()).hasSize(4);
+            assertThat(result.getSegment(SEED_ID, "FR", TypeCreationSpecDetails.REACH).getId()).isEqualTo("seed FR REACH");
+            assertThat(result.getSegment(SEED_ID, "GB", TypeCreationSpecDetails.BALANCE)).isNull();
+            assertThat(result.getErrors()).hasSize(4);
+            assertThat(result.getErrors().keySet()).extracting(spec -> spec.getCountry() + " " + spec.getType())
+                    .containsExactly("GB BALANCE", "GB REACH", "DE BALANCE", "DE REACH");
+            assertThat(result.getErrors().values()).last().isInstanceOf(SnapResponseErrorException.class);
+        }
+    }// test_create_should_batch_requests_and_isolate_failures()
+
+    @Test
+    public void test_create_should_throw_error_when_token_is_missing() throws Exception {
+        try (BulkSamLookalikes bulk = builder().setCountries(Arrays.asList("US")).build()) {
+            assertThatThrownBy(() -> bulk.create("")).isInstanceOf(SnapOAuthAccessTokenException.class)
+                    .hasMessage("The OAuthAccessToken is required");
+        }
+    }// test_create_should_throw_error_when_token_is_missing()
+
+    @Test
+    public void test_build_should_throw_error_when_parameters_are_invalid() {
+        assertThatThrownBy(() -> new BulkSamLookalikes.Builder().setCountries(Arrays.asList("US", "USA"))
+                .setTypes(Arrays.asList(TypeCreationSpecDetails.REACH, null)).setRetentionInDays(181).build())
+                .isInstanceOf(SnapArgumentException.class).hasMessage("SnapAudienceSegment is required,"
+                + "The Ad Account ID is required,Seed segment ID is required,Country must be an ISO-2 code : USA,"
+                + "Lookalike creation spec type is required,The retention must be between 0 and 180 days");
+    }// test_build_should_throw_error_when_parameters_are_invalid()
+
+    private BulkSamLookalikes.Builder builder() {
+        return new BulkSamLookalikes.Builder().setSnapAudienceSegment(snapAudienceSegment).setAdAccountId(AD_ACCOUNT_ID)
+                .setSeedSegmentId(SEED_ID).setName("seed");
+    }// builder()
+
+}// BulkSamLookalikesTest
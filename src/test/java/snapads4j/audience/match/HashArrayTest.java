@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.match;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import snapads4j.enums.SchemaEnum;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HashArrayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void test_add_should_store_raw_hashes_and_encode_hex_lazily() {
+        HashArray hashes = HashArray.allocate(2);
+        hashes.add(DigestUtils.sha256("a@toto.com"), 0);
+        assertThat(hashes.addHashed(SchemaEnum.EMAIL_SHA256, " B@toto.com ")).isTrue();
+        assertThat(hashes.addHashed(SchemaEnum.EMAIL_SHA256, "invalid")).isFalse();
+
+        assertThat(hashes.size()).isEqualTo(2);
+        assertThat(hashes.hex(0)).isEqualTo(DigestUtils.sha256Hex("a@toto.com"));
+        assertThat(hashes.hex(1)).isEqualTo(DigestUtils.sha256Hex("b@toto.com"));
+        byte[] out = new byte[HashArray.HASH_LENGTH];
+        hashes.get(1, out, 0);
+        assertThat(out).isEqualTo(DigestUtils.sha256("b@toto.com"));
+        assertThatThrownBy(() -> hashes.add(out, 0)).isInstanceOf(IllegalStateException.class).hasMessage("HashArray is full");
+        assertThatThrownBy(() -> hashes.hex(2)).isInstanceOf(IndexOutOfBoundsException.class);
+    }// test_add_should_store_raw_hashes_and_encode_hex_lazily()
+
+    @Test
+    public void test_sort_should_order_hashes_as_unsigned_bytes() {
+        checkSort(1000, 1);
+    }// test_sort_should_order_hashes_as_unsigned_bytes()
+
+    @Test
+    public void test_parallel_sort_should_order_hashes_as_unsigned_bytes() {
+        checkSort(HashArray.PARALLEL_SORT_THRESHOLD * 3, 4);
+    }// test_parallel_sort_should_order_hashes_as_unsigned_bytes()
+
+    @Test
+    public void test_remove_duplicates_and_index_of() {
+        HashArray hashes = HashArray.allocate(6);
+        for (String email : Arrays.asList("c@toto.com", "a@toto.com", "c@toto.com", "b@toto.com", "a@toto.com")) {
+            hashes.addHashed(SchemaEnum.EMAIL_SHA256, email);
+        }
+        hashes.sort(1);
+        assertThat(hashes.removeDuplicates()).isEqualTo(2);
+        assertThat(hashes.size()).isEqualTo(3);
+        for (String email : Arrays.asList("a@toto.com", "b@toto.com", "c@toto.com")) {
+            long index = hashes.indexOf(DigestUtils.sha256(email), 0);
+            assertThat(index).isNotNegative();
+            assertThat(hashes.hex(index)).isEqualTo(DigestUtils.sha256Hex(email));
+        }
+        assertThat(hashes.contains(DigestUtils.sha256("d@toto.com"), 0)).isFalse();
+    }// test_remove_duplicates_and_index_of()
+
+    @Test
+    public void test_diff_should_merge_sorted_arrays() {
+        HashArray previous = sorted("a@toto.com", "c@toto.com", "e@toto.com", "f@toto.com");
+        HashArray current = sorted("b@toto.com", "c@toto.com", "f@toto.com", "g@toto.com", "h@toto.com");
+        List<String> additions = new ArrayList<>();
+        List<String> removals = new ArrayList<>();
+        HashArray.diff(previous, current, (hashes, index) -> additions.add(hashes.hex(index)),
+                (hashes, index) -> removals.add(hashes.hex(index)));
+
+        assertThat(additions).isSorted().containsExactlyInAnyOrder(DigestUtils.sha256Hex("b@toto.com"),
+                DigestUtils.sha256Hex("g@toto.com"), DigestUtils.sha256Hex("h@toto.com"));
+        assertThat(removals).isSorted().containsExactlyInAnyOrder(DigestUtils.sha256Hex("a@toto.com"),
+                DigestUtils.sha256Hex("e@toto.com"));
+    }// test_diff_should_merge_sorted_arrays()
+
+    @Test
+    public void test_write_then_open_should_map_the_file() throws Exception {
+        HashArray hashes = sorted("a@toto.com", "b@toto.com", "c@toto.com");
+        Path file = folder.getRoot().toPath().resolve("segment.sha256");
+        hashes.write(file);
+
+        try (HashArray mapped = HashArray.open(file)) {
+            assertThat(mapped.size()).isEqualTo(3);
+            for (long i = 0; i < 3; i++) {
+                assertThat(mapped.hex(i)).isEqualTo(hashes.hex(i));
+            }
+            assertThat(mapped.contains(DigestUtils.sha256("b@toto.com"), 0)).isTrue();
+            assertThatThrownBy(() -> mapped.sort(1)).isInstanceOf(IllegalStateException.class).hasMessage("HashArray is read only");
+        }
+    }// test_write_then_open_should_map_the_file()
+
+    private static void checkSort(int size, int parallelism) {
+        Random random = new Random(42);
+        HashArray hashes = HashArray.allocate(size);
+        byte[] hash = new byte[HashArray.HASH_LENGTH];
+        List<String> expected = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            random.nextBytes(hash);
+            // Shared prefixes, so the sort goes deeper than the first bytes
+            hash[0] = (byte) (i % 3 == 0 ? 0xFF : hash[0]);
+            hash[1] = (byte) (i % 3 == 0 ? 0x80 : hash[1]);
+            hashes.add(hash, 0);
+            expected.add(hashes.hex(i));
+        }
+        hashes.sort(parallelism);
+        expected.sort(null);
+        for (int i = 0; i < size; i++) {
+            assertThat(hashes.hex(i)).isEqualTo(expected.get(i));
+        }
+    }// checkSort()
+
+    private static HashArray sorted(String... emails) {
+        HashArray hashes = HashArray.allocate(emails.length);
+        for (String email : emails) {
+            hashes.addHashed(SchemaEnum.EMAIL_SHA256, email);
+        }
+        hashes.sort(1);
+        return hashes;
+    }// sorted()
+
+}// HashArrayTest
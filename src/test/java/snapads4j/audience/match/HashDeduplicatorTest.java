@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.match;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HashDeduplicatorTest {
+
+    @Test
+    public void test_add_should_accept_each_hash_once() {
+        HashDeduplicator deduplicator = new HashDeduplicator();
+        assertThat(deduplicator.add(DigestUtils.sha256("a@toto.com"), 0)).isTrue();
+        assertThat(deduplicator.add(DigestUtils.sha256("b@toto.com"), 0)).isTrue();
+        assertThat(deduplicator.add(DigestUtils.sha256("a@toto.com"), 0)).isFalse();
+        assertThat(deduplicator.add(new byte[HashArray.HASH_LENGTH], 0)).isTrue();
+        assertThat(deduplicator.add(new byte[HashArray.HASH_LENGTH], 0)).isFalse();
+
+        assertThat(deduplicator.getDistinct()).isEqualTo(3);
+        assertThat(deduplicator.getDuplicates()).isEqualTo(2);
+    }// test_add_should_accept_each_hash_once()
+
+    @Test
+    public void test_add_should_stay_exact_beyond_expected_size() {
+        // Tiny expectations : the filter and the exact set grow, false positives must not drop hashes
+        HashDeduplicator deduplicator = new HashDeduplicator(16, 0.2);
+        Random random = new Random(42);
+        byte[][] hashes = new byte[50_000][HashArray.HASH_LENGTH];
+        for (byte[] hash : hashes) {
+            random.nextBytes(hash);
+            assertThat(deduplicator.add(hash, 0)).isTrue();
+        }
+        for (byte[] hash : hashes) {
+            assertThat(deduplicator.add(hash, 0)).isFalse();
+        }
+        assertThat(deduplicator.getDistinct()).isEqualTo(hashes.length);
+        assertThat(deduplicator.getDuplicates()).isEqualTo(hashes.length);
+        assertThat(deduplicator.getFalsePositives()).isLessThan(hashes.length / 5);
+    }// test_add_should_stay_exact_beyond_expected_size()
+
+    @Test
+    public void test_scalable_bloom_filter_should_add_stages_when_full() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            filter.put(random.nextLong(), random.nextLong());
+        }
+        assertThat(filter.getStages()).isEqualTo(4);
+        random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain(random.nextLong(), random.nextLong())).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain(random.nextLong(), random.nextLong())) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(200);
+    }// test_scalable_bloom_filter_should_add_stages_when_full()
+
+    @Test
+    public void test_constructor_should_check_arguments() {
+        assertThatThrownBy(() -> new HashDeduplicator(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HashDeduplicator(10, 1)).isInstanceOf(IllegalArgumentException.class);
+    }// test_constructor_should_check_arguments()
+
+}// HashDeduplicatorTest
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.match;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+import snapads4j.enums.SchemaEnum;
+import snapads4j.model.audience.match.FormUserForAudienceSegment;
+import snapads4j.model.audience.match.SnapHttpRequestUserForAudienceSegment;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HashedUsersEntityTest {
+
+    private static final String SEGMENT_ID = "5677923948298240";
+
+    @Test
+    public void test_body_should_be_the_same_as_jackson() throws Exception {
+        List<String> hashes = Arrays.asList(DigestUtils.sha256Hex("a@b.com"), DigestUtils.sha256Hex("c@d.com"),
+                "é\"\\\n");
+        HashedUsersEntity entity = new HashedUsersEntity(SEGMENT_ID, SchemaEnum.EMAIL_SHA256, hashes);
+        byte[] body = write(entity);
+        assertThat(new String(body, StandardCharsets.UTF_8)).isEqualTo(jackson(SEGMENT_ID, hashes));
+        assertThat(entity.getContentLength()).isEqualTo(body.length);
+    }// test_body_should_be_the_same_as_jackson()
+
+    @Test
+    public void test_body_should_handle_empty_and_big_lists() throws Exception {
+        HashedUsersEntity empty = new HashedUsersEntity(SEGMENT_ID, SchemaEnum.MOBILE_AD_ID_SHA256,
+                Collections.<String>emptyList());
+        assertThat(new String(write(empty), StandardCharsets.UTF_8))
+                .isEqualTo(jackson(SEGMENT_ID, SchemaEnum.MOBILE_AD_ID_SHA256, Collections.<String>emptyList()));
+        List<String> hashes = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            hashes.add(DigestUtils.sha256Hex("user" + i + "@toto.com"));
+        }
+        HashedUsersEntity entity = new HashedUsersEntity(SEGMENT_ID, SchemaEnum.EMAIL_SHA256, hashes);
+        byte[] body = write(entity);
+        assertThat(new String(body, StandardCharsets.UTF_8)).isEqualTo(jackson(SEGMENT_ID, hashes));
+        assertThat(entity.getContentLength()).isEqualTo(body.length);
+    }// test_body_should_handle_empty_and_big_lists()
+
+    @Test
+    public void test_entity_should_be_repeatable() throws Exception {
+        HashedUsersEntity entity = new HashedUsersEntity(SEGMENT_ID, SchemaEnum.EMAIL_SHA256,
+                Arrays.asList(DigestUtils.sha256Hex("a@b.com"), DigestUtils.sha256Hex("c@d.com")));
+        assertThat(entity.isRepeatable()).isTrue();
+        assertThat(entity.isStreaming()).isFalse();
+        assertThat(entity.getContentType().getValue()).startsWith("application/json");
+        byte[] first = write(entity);
+        assertThat(write(entity)).isEqualTo(first);
+        assertThat(EntityUtils.toByteArray(entity)).isEqualTo(first);
+    }// test_entity_should_be_repeatable()
+
+    @Test
+    public void test_raw_hashes_should_be_written_in_hex() throws Exception {
+        List<String> hashes = new ArrayList<>();
+        ByteBuffer raw = ByteBuffer.allocateDirect(3000 * IdentifierHasher.HASH_LENGTH);
+        for (int i = 0; i < 3000; i++) {
+            raw.put(DigestUtils.sha256("user" + i + "@toto.com"));
+            hashes.add(DigestUtils.sha256Hex("user" + i + "@toto.com"));
+        }
+        raw.flip();
+        HashedUsersEntity entity = new HashedUsersEntity(SEGMENT_ID, SchemaEnum.EMAIL_SHA256, raw);
+        byte[] body = write(entity);
+        assertThat(new String(body, StandardCharsets.UTF_8)).isEqualTo(jackson(SEGMENT_ID, hashes));
+        assertThat(entity.getContentLength()).isEqualTo(body.length);
+        assertThat(write(entity)).isEqualTo(body);
+        assertThat(raw.position()).isEqualTo(0);
+    }// test_raw_hashes_should_be_written_in_hex()
+
+    @Test
+    public void test_raw_hashes_should_be_32_bytes_long() {
+        assertThatThrownBy(() -> new HashedUsersEntity(SEGMENT_ID, SchemaEnum.EMAIL_SHA256, ByteBuffer.allocate(33)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Buffer must contain 32 bytes hashes");
+    }// test_raw_hashes_should_be_32_bytes_long()
+
+    @Test
+    public void test_segment_id_should_be_escaped() throws Exception {
+        List<String> hashes = Collections.singletonList(DigestUtils.sha256Hex("a@b.com"));
+        HashedUsersEntity entity = new HashedUsersEntity("id\"é", SchemaEnum.PHONE_SHA256, hashes);
+        byte[] body = write(entity);
+        assertThat(new String(body, StandardCharsets.UTF_8)).isEqualTo(jackson("id\"é", SchemaEnum.PHONE_SHA256, hashes));
+        assertThat(entity.getContentLength()).isEqualTo(body.length);
+    }// test_segment_id_should_be_escaped()
+
+    private static byte[] write(HashedUsersEntity entity) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        return out.toByteArray();
+    }// write()
+
+    private static String jackson(String segmentID, List<String> hashes) throws Exception {
+        return jackson(segmentID, SchemaEnum.EMAIL_SHA256, hashes);
+    }// jackson()
+
+    private static String jackson(String segmentID, SchemaEnum schema, List<String> hashes) throws Exception {
+        FormUserForAudienceSegment form = new FormUserForAudienceSegment();
+        form.setId(segmentID);
+        form.setSchema(schema);
+        form.setData(hashes);
+        SnapHttpRequestUserForAudienceSegment request = new SnapHttpRequestUserForAudienceSegment();
+        request.addUserForAudienceSegment(form);
+        return new ObjectMapper().writeValueAsString(request);
+    }// jackson()
+
+}// HashedUsersEntityTest
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.match;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import snapads4j.enums.SchemaEnum;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Emails normalized and hashed with streams, Pattern and DigestUtils (previous implementation) vs {@link IdentifierHasher}.
+ * Scores are identifiers by second on one thread.
+ * <p>
+ * Run : mvn -Pbenchmarks test-compile exec:exec -Dbenchmark.include=IdentifierHasherBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+@Fork(1)
+public class IdentifierHasherBenchmark {
+
+    private static final int SIZE = 10_000;
+
+    private List<String> emails;
+
+    private byte[] hashes;
+
+    private char[] hex;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        emails = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            emails.add("  User." + random.nextInt(1_000_000) + "@Example" + random.nextInt(100) + ".com ");
+        }
+        hashes = new byte[SIZE * IdentifierHasher.HASH_LENGTH];
+        hex = new char[SIZE * IdentifierHasher.HEX_LENGTH];
+    }// setUp()
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public List<String> streams() {
+        List<String> data = emails.stream().map(String::trim).map(String::toLowerCase).collect(Collectors.toList());
+        List<String> valid = data.stream().filter(Pattern.compile("^(.+)@(.+)$").asPredicate()).collect(Collectors.toList());
+        if (valid.size() != data.size()) {
+            throw new IllegalStateException();
+        }
+        return data.stream().map(DigestUtils::sha256Hex).collect(Collectors.toList());
+    }// streams()
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public List<String> kernelStrings() {
+        List<String> data = new ArrayList<>(SIZE);
+        for (String email : emails) {
+            data.add(IdentifierHasher.hashHex(SchemaEnum.EMAIL_SHA256, email));
+        }
+        return data;
+    }// kernelStrings()
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public char[] kernelHexBuffer() {
+        for (int i = 0; i < SIZE; i++) {
+            IdentifierHasher.hashHex(SchemaEnum.EMAIL_SHA256, emails.get(i), hex, i * IdentifierHasher.HEX_LENGTH);
+        }
+        return hex;
+    }// kernelHexBuffer()
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public byte[] kernelBytes() {
+        for (int i = 0; i < SIZE; i++) {
+            IdentifierHasher.hash(SchemaEnum.EMAIL_SHA256, emails.get(i), hashes, i * IdentifierHasher.HASH_LENGTH);
+        }
+        return hashes;
+    }// kernelBytes()
+
+}// IdentifierHasherBenchmark
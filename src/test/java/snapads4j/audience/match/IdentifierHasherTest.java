@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.match;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Test;
+import snapads4j.enums.SchemaEnum;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdentifierHasherTest {
+
+    @Test
+    public void test_hash_hex_email_should_trim_and_lower_case() {
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.EMAIL_SHA256, "   yAssine.azimani@toto.com \t"))
+                .isEqualTo(DigestUtils.sha256Hex("yassine.azimani@toto.com"));
+    }// test_hash_hex_email_should_trim_and_lower_case()
+
+    @Test
+    public void test_hash_hex_email_should_encode_non_ascii_in_utf8() {
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.EMAIL_SHA256, "ÉLODIE@Café.fr"))
+                .isEqualTo(DigestUtils.sha256Hex("élodie@café.fr".getBytes(StandardCharsets.UTF_8)));
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.EMAIL_SHA256, "😀@smile.com"))
+                .isEqualTo(DigestUtils.sha256Hex("😀@smile.com".getBytes(StandardCharsets.UTF_8)));
+    }// test_hash_hex_email_should_encode_non_ascii_in_utf8()
+
+    @Test
+    public void test_hash_hex_email_should_reject_invalid_email() {
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.EMAIL_SHA256, "foo")).isNull();
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.EMAIL_SHA256, "@toto.com")).isNull();
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.EMAIL_SHA256, "foo@ ")).isNull();
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.EMAIL_SHA256, "   ")).isNull();
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.EMAIL_SHA256, "a@b")).isNotNull();
+    }// test_hash_hex_email_should_reject_invalid_email()
+
+    @Test
+    public void test_hash_hex_phone_should_keep_digits_only() {
+        String expected = DigestUtils.sha256Hex("33612345678");
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.PHONE_SHA256, "+33 6 12 34 56 78")).isEqualTo(expected);
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.PHONE_SHA256, "0033-6-12-34-56-78")).isEqualTo(expected);
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.PHONE_SHA256, "(336)123.45678")).isEqualTo(expected);
+    }// test_hash_hex_phone_should_keep_digits_only()
+
+    @Test
+    public void test_hash_hex_phone_should_reject_invalid_phone() {
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.PHONE_SHA256, "102030405")).isNull();
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.PHONE_SHA256, "A02#@!40B")).isNull();
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.PHONE_SHA256, "1234567890123456")).isNull();
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.PHONE_SHA256, "123-456-7890")).isNotNull();
+    }// test_hash_hex_phone_should_reject_invalid_phone()
+
+    @Test
+    public void test_hash_hex_mobile_ad_id_should_lower_case() {
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.MOBILE_AD_ID_SHA256, " 6D92078A-8246-4BA4-AE5B-76104861E7DC "))
+                .isEqualTo(DigestUtils.sha256Hex("6d92078a-8246-4ba4-ae5b-76104861e7dc"));
+    }// test_hash_hex_mobile_ad_id_should_lower_case()
+
+    @Test
+    public void test_hash_should_write_raw_bytes_at_offset() {
+        byte[] out = new byte[IdentifierHasher.HASH_LENGTH + 4];
+        assertThat(IdentifierHasher.hash(SchemaEnum.EMAIL_SHA256, "Test@Example.com", out, 4)).isTrue();
+        assertThat(Arrays.copyOfRange(out, 4, out.length)).isEqualTo(DigestUtils.sha256("test@example.com"));
+        assertThat(Arrays.copyOfRange(out, 0, 4)).containsOnly(0);
+        assertThat(IdentifierHasher.hash(SchemaEnum.EMAIL_SHA256, "invalid", out, 0)).isFalse();
+    }// test_hash_should_write_raw_bytes_at_offset()
+
+    @Test
+    public void test_hash_hex_should_write_into_buffer() {
+        char[] out = new char[IdentifierHasher.HEX_LENGTH * 2];
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.EMAIL_SHA256, "a@b.com", out, 0)).isTrue();
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.EMAIL_SHA256, "c@d.com", out, IdentifierHasher.HEX_LENGTH)).isTrue();
+        assertThat(new String(out)).isEqualTo(DigestUtils.sha256Hex("a@b.com") + DigestUtils.sha256Hex("c@d.com"));
+    }// test_hash_hex_should_write_into_buffer()
+
+    @Test
+    public void test_hash_hex_should_handle_long_identifiers() {
+        char[] chars = new char[1000];
+        Arrays.fill(chars, 'A');
+        chars[10] = '@';
+        String identifier = new String(chars);
+        assertThat(IdentifierHasher.hashHex(SchemaEnum.EMAIL_SHA256, identifier))
+                .isEqualTo(DigestUtils.sha256Hex(identifier.toLowerCase()));
+    }// test_hash_hex_should_handle_long_identifiers()
+
+}// IdentifierHasherTest
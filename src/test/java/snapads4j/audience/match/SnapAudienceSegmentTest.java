@@ -16,6 +16,7 @@
 package snapads4j.audience.match;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.*;
@@ -1123,6 +1124,28 @@ public class SnapAudienceSegmentTest {
                 .isInstanceOf(SnapExecutionException.class);
     }// add_user_from_segment_should_throw_SnapExecutionException()
 
+    @Test
+    public void add_hashed_users_to_segment_should_send_data_as_is()
+            throws SnapOAuthAccessTokenException, SnapResponseErrorException, IOException,
+            SnapArgumentException, SnapExecutionException {
+        Mockito.when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        Mockito.when(statusLine.getStatusCode()).thenReturn(200);
+        Mockito.when(httpClient.execute(Mockito.any(HttpPost.class))).thenReturn(httpResponse);
+        Mockito.when(httpResponse.getEntity()).thenReturn(httpEntity);
+        Mockito.when(entityUtilsWrapper.toString(httpEntity))
+                .thenReturn(SnapResponseUtils.getSnapAddUserForAudienceSegment());
+        String hash = DigestUtils.sha256Hex("john.jo@toto.com");
+        data.add(hash);
+        assertThat(snapAudienceSegment.addHashedUsersToSegment(oAuthAccessToken, form)).isEqualTo(2);
+        assertThat(form.getData()).containsExactly(hash);
+    }// add_hashed_users_to_segment_should_send_data_as_is()
+
+    @Test
+    public void add_hashed_users_to_segment_should_SnapOAuthAccessTokenException_when_oAuthAccessToken_is_null() {
+        assertThatThrownBy(() -> snapAudienceSegment.addHashedUsersToSegment(null, form))
+                .hasMessage("The OAuthAccessToken is required").isInstanceOf(SnapOAuthAccessTokenException.class);
+    }// add_hashed_users_to_segment_should_SnapOAuthAccessTokenException_when_oAuthAccessToken_is_null()
+
     @Test
     public void delete_user_from_segment_should_success_when_data_add()
             throws SnapOAuthAccessTokenException, SnapResponseErrorException, IOException,
@@ -1356,6 +1379,28 @@ public class SnapAudienceSegmentTest {
                 .isInstanceOf(SnapExecutionException.class);
     }// delete_user_from_segment_should_throw_SnapExecutionException()
 
+    @Test
+    public void delete_hashed_users_from_segment_should_send_data_as_is()
+            throws SnapOAuthAccessTokenException, SnapResponseErrorException, IOException,
+            SnapArgumentException, SnapExecutionException {
+        Mockito.when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        Mockito.when(statusLine.getStatusCode()).thenReturn(200);
+        Mockito.when(httpClient.execute(Mockito.any(HttpDeleteWithBody.class))).thenReturn(httpResponse);
+        Mockito.when(httpResponse.getEntity()).thenReturn(httpEntity);
+        Mockito.when(entityUtilsWrapper.toString(httpEntity))
+                .thenReturn(SnapResponseUtils.getSnapDeleteUserForAudienceSegment());
+        String hash = DigestUtils.sha256Hex("john.jo@toto.com");
+        data.add(hash);
+        assertThat(snapAudienceSegment.deleteHashedUsersFromSegment(oAuthAccessToken, form)).isEqualTo(2);
+        assertThat(form.getData()).containsExactly(hash);
+    }// delete_hashed_users_from_segment_should_send_data_as_is()
+
+    @Test
+    public void delete_hashed_users_from_segment_should_SnapOAuthAccessTokenException_when_oAuthAccessToken_is_empty() {
+        assertThatThrownBy(() -> snapAudienceSegment.deleteHashedUsersFromSegment("", form))
+                .hasMessage("The OAuthAccessToken is required").isInstanceOf(SnapOAuthAccessTokenException.class);
+    }// delete_hashed_users_from_segment_should_SnapOAuthAccessTokenException_when_oAuthAccessToken_is_empty()
+
     @Test
     public void test_delete_all_users_from_segment_should_success() throws SnapResponseErrorException,
             SnapOAuthAccessTokenException, SnapArgumentException, IOException, SnapExecutionException {
@@ -1925,6 +1970,60 @@ public class SnapAudienceSegmentTest {
                 .isInstanceOf(SnapResponseErrorException.class).hasMessage("Error 1337");
     } // should_throw_exception_1337_create_sam_look_a_likes()
 
+    @Test
+    public void test_create_all_sam_look_a_likes_should_success() throws IOException,
+            SnapOAuthAccessTokenException, SnapResponseErrorException, SnapArgumentException, SnapExecutionException {
+        Mockito.when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        Mockito.when(statusLine.getStatusCode()).thenReturn(200);
+        Mockito.when(httpClient.execute(Mockito.any(HttpPost.class))).thenReturn(httpResponse);
+        Mockito.when(httpResponse.getEntity()).thenReturn(httpEntity);
+        Mockito.when(entityUtilsWrapper.toString(httpEntity))
+                .thenReturn(SnapResponseUtils.getSnapSamLookalikesCreatedMultiple());
+        List<SamLookalikes> sams = Stream.of("US", "FR", "DE").map(country -> {
+            SamLookalikes sam = initSam();
+            sam.getCreationSpec().setCountry(country);
+            return sam;
+        }).collect(Collectors.toList());
+        List<AudienceSegment> created = snapAudienceSegment.createAllSamLookalikes(oAuthAccessToken, sams);
+        assertThat(created).hasSize(3);
+        assertThat(created.get(0).getId()).isEqualTo("5652536396611584");
+        assertThat(created.get(0).getCreationSpec()).isEqualTo(sams.get(0).getCreationSpec());
+        assertThat(created.get(1).getId()).isEqualTo("5652536396611585");
+        assertThat(created.get(1).getCreationSpec()).isEqualTo(sams.get(1).getCreationSpec());
+        assertThat(created.get(2)).isNull();
+        Mockito.verify(httpClient, Mockito.times(1)).execute(Mockito.any(HttpPost.class));
+    }// test_create_all_sam_look_a_likes_should_success()
+
+    @Test
+    public void test_create_all_sam_look_a_likes_should_throw_SnapOAuthAccessTokenException_when_token_is_null() {
+        List<SamLookalikes> sams = new ArrayList<>();
+        sams.add(this.sam);
+        assertThatThrownBy(() -> snapAudienceSegment.createAllSamLookalikes(null, sams))
+                .isInstanceOf(SnapOAuthAccessTokenException.class).hasMessage("The OAuthAccessToken is required");
+    } // test_create_all_sam_look_a_likes_should_throw_SnapOAuthAccessTokenException_when_token_is_null()
+
+    @Test
+    public void test_create_all_sam_look_a_likes_should_throw_SnapArgumentException_when_sams_are_empty() {
+        assertThatThrownBy(() -> snapAudienceSegment.createAllSamLookalikes(oAuthAccessToken, new ArrayList<>()))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Sam Lookalikes parameter is required");
+    } // test_create_all_sam_look_a_likes_should_throw_SnapArgumentException_when_sams_are_empty()
+
+    @Test
+    public void test_create_all_sam_look_a_likes_should_throw_SnapArgumentException_with_index_of_bad_sam() {
+        SamLookalikes other = initSam();
+        other.setAdAccountId("other");
+        other.getCreationSpec().setCountry(null);
+        List<SamLookalikes> sams = new ArrayList<>();
+        sams.add(this.sam);
+        sams.add(other);
+        sams.add(null);
+        assertThatThrownBy(() -> snapAudienceSegment.createAllSamLookalikes(oAuthAccessToken, sams))
+                .isInstanceOf(SnapArgumentException.class).hasMessage(
+                "SamLookalikes index n°1 : Lookalike creation spec country is required,"
+                        + "SamLookalikes index n°1 : All Sam Lookalikes must have the same Ad Account ID,"
+                        + "SamLookalikes index n°2 : Sam Lookalikes parameter is required");
+    } // test_create_all_sam_look_a_likes_should_throw_SnapArgumentException_with_index_of_bad_sam()
+
     private FormUserForAudienceSegment initFormUserForAudienceSegment(SchemaEnum schema) {
         return initFormUserForAudienceSegment(schema, true);
     }// initFormUserForAudienceSegment()
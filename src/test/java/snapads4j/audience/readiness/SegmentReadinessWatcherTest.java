@@ -0,0 +1,249 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.readiness;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import snapads4j.audience.match.SnapAudienceSegmentInterface;
+import snapads4j.enums.TargetableStatusEnum;
+import snapads4j.enums.UploadStatusEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapExecutionException;
+import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.Pagination;
+import snapads4j.model.audience.match.AudienceSegment;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SegmentReadinessWatcherTest {
+
+    private static final long SECOND = 1000L;
+
+    private static final long NOW = 1578441600000L;
+
+    private final AtomicLong clock = new AtomicLong(NOW);
+
+    /**
+     * State returned by the API for each segment
+     */
+    private final Map<String, AudienceSegment> states = new ConcurrentHashMap<>();
+
+    private SnapAudienceSegmentInterface snapAudienceSegment;
+
+    private SegmentReadinessWatcher watcher;
+
+    @Before
+    public void init() throws Exception {
+        snapAudienceSegment = Mockito.mock(SnapAudienceSegmentInterface.class);
+        when(snapAudienceSegment.getSpecificAudienceSegment(anyString(), anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(states.get(invocation.<String>getArgument(1))));
+        when(snapAudienceSegment.getAllAudienceSegments(anyString(), anyString(), anyInt())).thenAnswer(invocation ->
+                Collections.singletonList(new Pagination<>(1, Arrays.asList(states.values().stream()
+                        .filter(s -> s.getAdAccountId().equals(invocation.getArgument(1))).toArray(AudienceSegment[]::new)))));
+        watcher = new SegmentReadinessWatcher.Builder()
+                .setSnapAudienceSegment(snapAudienceSegment)
+                .setOAuthAccessToken("token")
+                .setMinIntervalMillis(10 * SECOND)
+                .setMaxIntervalMillis(80 * SECOND)
+                .setTickMillis(SECOND)
+                .setExecutor(Runnable::run)
+                .setClock(clock::get)
+                .build();
+    }// init()
+
+    @Test
+    public void test_future_completes_once_segment_is_ready_and_settled() throws Exception {
+        state("acc1", "s1", UploadStatusEnum.PROCESSING, TargetableStatusEnum.NOT_READY, 0);
+        CompletableFuture<AudienceSegment> future = watcher.watch("acc1", "s1");
+        assertThat(watcher.watch("acc1", "s1")).isSameAs(future);
+        assertThat(watcher.tick(NOW)).isEqualTo(1);
+
+        state("acc1", "s1", UploadStatusEnum.COMPLETE, TargetableStatusEnum.READY, 1000);
+        advance(10 * SECOND);
+        // Changed since the previous poll : not settled yet
+        assertThat(future).isNotDone();
+        assertThat(watcher.getIntervalMillis("s1")).isEqualTo(10 * SECOND);
+
+        advance(10 * SECOND);
+        assertThat(future).isCompleted();
+        assertThat(future.get().getApproximateNumberUsers()).isEqualTo(1000);
+        assertThat(watcher.isWatched("s1")).isFalse();
+        verify(snapAudienceSegment, times(3)).getSpecificAudienceSegment("token", "s1");
+    }// test_future_completes_once_segment_is_ready_and_settled()
+
+    @Test
+    public void test_segment_which_does_not_change_backs_off() throws Exception {
+        state("acc1", "s1", UploadStatusEnum.PROCESSING, TargetableStatusEnum.NOT_READY, 0);
+        watcher.watch("acc1", "s1");
+        watcher.tick(NOW);
+        assertThat(watcher.getIntervalMillis("s1")).isEqualTo(10 * SECOND);
+
+        // No change : 10, 20, 40 then 80 seconds (maximum)
+        long[] expectedIntervals = {20 * SECOND, 40 * SECOND, 80 * SECOND, 80 * SECOND};
+        for (long expected : expectedIntervals) {
+            long interval = watcher.getIntervalMillis("s1");
+            assertThat(advance(interval - SECOND)).isZero();
+            assertThat(advance(SECOND)).isEqualTo(1);
+            assertThat(watcher.getIntervalMillis("s1")).isEqualTo(expected);
+        }
+
+        // Users are coming : back to the minimum interval
+        state("acc1", "s1", UploadStatusEnum.PROCESSING, TargetableStatusEnum.NOT_READY, 500);
+        advance(80 * SECOND);
+        assertThat(watcher.getIntervalMillis("s1")).isEqualTo(10 * SECOND);
+    }// test_segment_which_does_not_change_backs_off()
+
+    @Test
+    public void test_segments_of_same_ad_account_are_polled_at_once() throws Exception {
+        state("acc1", "s1", UploadStatusEnum.COMPLETE, TargetableStatusEnum.READY, 1000);
+        state("acc1", "s2", UploadStatusEnum.COMPLETE, TargetableStatusEnum.READY, 2000);
+        state("acc1", "s3", UploadStatusEnum.COMPLETE, TargetableStatusEnum.TOO_FEW_USERS, 10);
+        state("acc2", "s4", UploadStatusEnum.COMPLETE, TargetableStatusEnum.READY, 3000);
+        CompletableFuture<?>[] futures = {watcher.watch("acc1", "s1"), watcher.watch("acc1", "s2"),
+                watcher.watch("acc1", "s3"), watcher.watch("acc2", "s4")};
+        assertThat(watcher.tick(NOW)).isEqualTo(4);
+        advance(10 * SECOND);
+
+        assertThat(futures).allMatch(CompletableFuture::isDone);
+        verify(snapAudienceSegment, times(2)).getAllAudienceSegments("token", "acc1", 1000);
+        verify(snapAudienceSegment, never()).getAllAudienceSegments(anyString(), eq("acc2"), anyInt());
+        verify(snapAudienceSegment, never()).getSpecificAudienceSegment(anyString(), eq("s1"));
+        verify(snapAudienceSegment, times(2)).getSpecificAudienceSegment("token", "s4");
+    }// test_segments_of_same_ad_account_are_polled_at_once()
+
+    @Test
+    public void test_segment_not_listed_is_polled_alone() throws Exception {
+        state("acc1", "s1", UploadStatusEnum.COMPLETE, TargetableStatusEnum.READY, 1000);
+        state("acc1", "s2", UploadStatusEnum.COMPLETE, TargetableStatusEnum.READY, 2000);
+        watcher.watch("acc1", "s1");
+        watcher.watch("acc1", "s2");
+        CompletableFuture<AudienceSegment> missing = watcher.watch("acc1", "s3");
+        watcher.tick(NOW);
+
+        verify(snapAudienceSegment, times(1)).getAllAudienceSegments("token", "acc1", 1000);
+        verify(snapAudienceSegment, times(1)).getSpecificAudienceSegment("token", "s3");
+        assertThat(missing).isCompletedExceptionally();
+        assertThatThrownBy(missing::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(SnapExecutionException.class).hasMessageContaining("Segment not found : s3");
+    }// test_segment_not_listed_is_polled_alone()
+
+    @Test
+    public void test_api_error_backs_off_and_timeout_fails_future() throws Exception {
+        watcher = new SegmentReadinessWatcher.Builder().setSnapAudienceSegment(snapAudienceSegment)
+                .setOAuthAccessToken("token").setMinIntervalMillis(10 * SECOND).setMaxIntervalMillis(80 * SECOND)
+                .setTickMillis(SECOND).setTimeoutMillis(60 * SECOND).setExecutor(Runnable::run).setClock(clock::get)
+                .build();
+        when(snapAudienceSegment.getSpecificAudienceSegment("token", "s1"))
+                .thenThrow(new SnapResponseErrorException("Too Many Requests", 429));
+        CompletableFuture<AudienceSegment> future = watcher.watch("acc1", "s1");
+        watcher.tick(NOW);
+        assertThat(watcher.getIntervalMillis("s1")).isEqualTo(20 * SECOND);
+
+        advance(60 * SECOND);
+        assertThat(future).isCompletedExceptionally();
+        assertThatThrownBy(future::get).hasMessageContaining("Segment not ready in time : s1");
+        assertThat(watcher.isWatched("s1")).isFalse();
+    }// test_api_error_backs_off_and_timeout_fails_future()
+
+    @Test
+    public void test_rejected_poll_is_done_at_next_minimum_interval() throws Exception {
+        AtomicInteger rejections = new AtomicInteger(1);
+        watcher = new SegmentReadinessWatcher.Builder().setSnapAudienceSegment(snapAudienceSegment)
+                .setOAuthAccessToken("token").setMinIntervalMillis(10 * SECOND).setMaxIntervalMillis(80 * SECOND)
+                .setTickMillis(SECOND).setClock(clock::get).setExecutor(command -> {
+                    if (rejections.getAndDecrement() > 0) {
+                        throw new RejectedExecutionException("Queue full");
+                    }
+                    command.run();
+                }).build();
+        state("acc1", "s1", UploadStatusEnum.PROCESSING, TargetableStatusEnum.NOT_READY, 0);
+        watcher.watch("acc1", "s1");
+        assertThat(watcher.tick(NOW)).isEqualTo(1);
+        verify(snapAudienceSegment, never()).getSpecificAudienceSegment(anyString(), anyString());
+
+        assertThat(advance(10 * SECOND - 1)).isZero();
+        assertThat(advance(1)).isEqualTo(1);
+        verify(snapAudienceSegment, times(1)).getSpecificAudienceSegment("token", "s1");
+    }// test_rejected_poll_is_done_at_next_minimum_interval()
+
+    @Test
+    public void test_unwatch_and_close_cancel_futures() throws Exception {
+        CompletableFuture<AudienceSegment> first = watcher.watch("acc1", "s1");
+        CompletableFuture<AudienceSegment> second = watcher.watch("acc1", "s2");
+        watcher.unwatch("s1");
+        assertThat(first).isCancelled();
+        assertThat(watcher.isWatched("s1")).isFalse();
+        assertThat(watcher.getIntervalMillis("s1")).isEqualTo(-1L);
+
+        watcher.close();
+        assertThat(second).isCancelled();
+        assertThatThrownBy(second::get).isInstanceOf(CancellationException.class);
+        assertThat(watcher.tick(NOW)).isZero();
+    }// test_unwatch_and_close_cancel_futures()
+
+    @Test
+    public void test_watch_and_build_should_throw_error_when_arguments_are_invalid() {
+        assertThatThrownBy(() -> watcher.watch(null, "", null)).isInstanceOf(SnapArgumentException.class)
+                .hasMessage("The Ad Account ID is required,Segment ID is required,Condition is required");
+        assertThatThrownBy(() -> new SegmentReadinessWatcher.Builder().setMinIntervalMillis(10L)
+                .setMaxIntervalMillis(5L).setTickMillis(100L).setBatchThreshold(0).build())
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("SnapAudienceSegment is required,Minimum interval must be at least one tick,"
+                        + "Maximum interval must be greater than minimum interval,Batch threshold must be positive");
+        assertThatThrownBy(() -> new SegmentReadinessWatcher.Builder().setSnapAudienceSegment(snapAudienceSegment)
+                .setPageLimit(10).build())
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Minimum page limit is 50");
+        assertThatThrownBy(() -> new SegmentReadinessWatcher.Builder().setSnapAudienceSegment(snapAudienceSegment)
+                .setPageLimit(1001).build())
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Maximum page limit is 1000");
+    }// test_watch_and_build_should_throw_error_when_arguments_are_invalid()
+
+    private void state(String adAccountId, String id, UploadStatusEnum upload, TargetableStatusEnum targetable, int users) {
+        AudienceSegment segment = new AudienceSegment();
+        segment.setAdAccountId(adAccountId);
+        segment.setId(id);
+        segment.setUploadStatus(upload);
+        segment.setTargetableStatus(targetable);
+        segment.setApproximateNumberUsers(users);
+        states.put(id, segment);
+    }// state()
+
+    private int advance(long millis) {
+        return watcher.tick(clock.addAndGet(millis));
+    }// advance()
+
+}// SegmentReadinessWatcherTest
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.sync;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import snapads4j.audience.match.HashArray;
+import snapads4j.audience.match.SnapAudienceSegmentInterface;
+import snapads4j.enums.SchemaEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapOAuthAccessTokenException;
+import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.audience.match.FormUserForAudienceSegment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class SegmentSyncTest {
+
+    private static final String TOKEN = "token";
+
+    private static final String SEGMENT_ID = "5701023945457664";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private SnapAudienceSegmentInterface snapAudienceSegment;
+
+    private SegmentSnapshotStore store;
+
+    private SegmentSync sync;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new SegmentSnapshotStore(folder.getRoot().toPath().resolve("snapshots"));
+        sync = new SegmentSync.Builder().setSnapAudienceSegment(snapAudienceSegment).setSnapshotStore(store).setBatchSize(2).build();
+    }// setUp()
+
+    @Test
+    public void test_first_sync_should_add_everything_and_save_snapshot() throws Exception {
+        SegmentSyncResult result = sync.sync(TOKEN, SEGMENT_ID, SchemaEnum.EMAIL_SHA256,
+                Arrays.asList("a@toto.com", "B@toto.com", " b@toto.com", "c@toto.com", "invalid"));
+
+        assertThat(result.getIdentifiers()).isEqualTo(3);
+        assertThat(result.getInvalidIdentifiers()).isEqualTo(1);
+        assertThat(result.getAdditions()).isEqualTo(3);
+        assertThat(result.getRemovals()).isZero();
+        assertThat(result.isComplete()).isTrue();
+        assertThat(sent(true, 2)).containsExactlyInAnyOrder(hash("a@toto.com"), hash("b@toto.com"), hash("c@toto.com"));
+        Mockito.verify(snapAudienceSegment, Mockito.never()).deleteHashedUsersFromSegment(Mockito.anyString(), Mockito.any());
+        assertThat(snapshot()).isSorted().containsExactlyInAnyOrder(hash("a@toto.com"), hash("b@toto.com"), hash("c@toto.com"));
+    }// test_first_sync_should_add_everything_and_save_snapshot()
+
+    @Test
+    public void test_sync_should_send_only_deltas() throws Exception {
+        sync.sync(TOKEN, SEGMENT_ID, SchemaEnum.EMAIL_SHA256, Arrays.asList("a@toto.com", "b@toto.com", "c@toto.com"));
+        Mockito.reset(snapAudienceSegment);
+
+        SegmentSyncResult result = sync.sync(TOKEN, SEGMENT_ID, SchemaEnum.EMAIL_SHA256, Arrays.asList("b@toto.com", "c@toto.com", "d@toto.com"));
+
+        assertThat(result.getAdditions()).isEqualTo(1);
+        assertThat(result.getRemovals()).isEqualTo(1);
+        assertThat(sent(true, 1)).containsExactly(hash("d@toto.com"));
+        assertThat(sent(false, 1)).containsExactly(hash("a@toto.com"));
+        assertThat(snapshot()).containsExactlyInAnyOrder(hash("b@toto.com"), hash("c@toto.com"), hash("d@toto.com"));
+    }// test_sync_should_send_only_deltas()
+
+    @Test
+    public void test_sync_without_changes_should_send_nothing() throws Exception {
+        sync.sync(TOKEN, SEGMENT_ID, SchemaEnum.EMAIL_SHA256, Arrays.asList("a@toto.com", "b@toto.com"));
+        Mockito.reset(snapAudienceSegment);
+
+        SegmentSyncResult result = sync.sync(TOKEN, SEGMENT_ID, SchemaEnum.EMAIL_SHA256, Arrays.asList("B@toto.com", "a@toto.com"));
+
+        assertThat(result.getAdditions()).isZero();
+        assertThat(result.getRemovals()).isZero();
+        Mockito.verifyZeroInteractions(snapAudienceSegment);
+    }// test_sync_without_changes_should_send_nothing()
+
+    @Test
+    public void test_failed_batches_should_be_sent_again_by_next_sync() throws Exception {
+        sync.sync(TOKEN, SEGMENT_ID, SchemaEnum.EMAIL_SHA256, Arrays.asList("a@toto.com", "b@toto.com"));
+        Mockito.reset(snapAudienceSegment);
+        Mockito.when(snapAudienceSegment.addHashedUsersToSegment(Mockito.eq(TOKEN), Mockito.any(FormUserForAudienceSegment.class)))
+                .thenThrow(new SnapResponseErrorException("Error 500", 500));
+        Mockito.when(snapAudienceSegment.deleteHashedUsersFromSegment(Mockito.eq(TOKEN), Mockito.any(FormUserForAudienceSegment.class)))
+                .thenThrow(new SnapResponseErrorException("Error 500", 500));
+
+        SegmentSyncResult result = sync.sync(TOKEN, SEGMENT_ID, SchemaEnum.EMAIL_SHA256, Arrays.asList("b@toto.com", "c@toto.com"));
+
+        assertThat(result.isComplete()).isFalse();
+        assertThat(result.getFailedAdditions()).isEqualTo(1);
+        assertThat(result.getFailedRemovals()).isEqualTo(1);
+        // Nothing changed on Snap side
+        assertThat(snapshot()).containsExactlyInAnyOrder(hash("a@toto.com"), hash("b@toto.com"));
+
+        Mockito.reset(snapAudienceSegment);
+        result = sync.sync(TOKEN, SEGMENT_ID, SchemaEnum.EMAIL_SHA256, Arrays.asList("b@toto.com", "c@toto.com"));
+        assertThat(result.isComplete()).isTrue();
+        assertThat(sent(true, 1)).containsExactly(hash("c@toto.com"));
+        assertThat(sent(false, 1)).containsExactly(hash("a@toto.com"));
+    }// test_failed_batches_should_be_sent_again_by_next_sync()
+
+    @Test
+    public void test_sync_should_throw_error_when_token_is_missing() {
+        assertThatThrownBy(() -> sync.sync("", SEGMENT_ID, SchemaEnum.EMAIL_SHA256, Collections.emptyList()))
+                .isInstanceOf(SnapOAuthAccessTokenException.class).hasMessage("The OAuthAccessToken is required");
+    }// test_sync_should_throw_error_when_token_is_missing()
+
+    @Test
+    public void test_sync_should_throw_error_when_arguments_are_missing() {
+        assertThatThrownBy(() -> sync.sync(TOKEN, null, null, null))
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("Segment ID is required,Schema is required,Identifiers are required");
+    }// test_sync_should_throw_error_when_arguments_are_missing()
+
+    private List<String> sent(boolean add, int requests) throws Exception {
+        ArgumentCaptor<FormUserForAudienceSegment> captor = ArgumentCaptor.forClass(FormUserForAudienceSegment.class);
+        if (add) {
+            Mockito.verify(snapAudienceSegment, Mockito.times(requests)).addHashedUsersToSegment(Mockito.eq(TOKEN), captor.capture());
+        } else {
+            Mockito.verify(snapAudienceSegment, Mockito.times(requests)).deleteHashedUsersFromSegment(Mockito.eq(TOKEN), captor.capture());
+        }
+        captor.getAllValues().forEach(form -> assertThat(form.getId()).isEqualTo(SEGMENT_ID));
+        return captor.getAllValues().stream().flatMap(form -> form.getData().stream()).collect(Collectors.toList());
+    }// sent()
+
+    private List<String> snapshot() throws IOException {
+        List<String> hashes = new ArrayList<>();
+        try (HashArray snapshot = store.load(SEGMENT_ID)) {
+            for (long i = 0; i < snapshot.size(); i++) {
+                hashes.add(snapshot.hex(i));
+            }
+        }
+        return hashes;
+    }// snapshot()
+
+    private static String hash(String email) {
+        return DigestUtils.sha256Hex(email);
+    }// hash()
+
+}// SegmentSyncTest
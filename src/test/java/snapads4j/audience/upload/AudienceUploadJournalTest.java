@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.upload;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import snapads4j.enums.SchemaEnum;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AudienceUploadJournalTest {
+
+    private static final String SEGMENT_ID = "segment1";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void test_open_should_resume_after_contiguous_acknowledged_batches() throws Exception {
+        AudienceUploadJournal journal = new AudienceUploadJournal(folder.newFolder().toPath());
+        Path file = file("content");
+        try (AudienceUploadJournal.Entry entry = journal.open(SEGMENT_ID, file, SchemaEnum.EMAIL_SHA256, 2, -1, 5)) {
+            assertThat(entry.getResumeOffset()).isEqualTo(5);
+            assertThat(entry.getResumeBatchNumber()).isEqualTo(0);
+            entry.acknowledge(1, 5, 20, 2);
+            entry.acknowledge(3, 35, 50, 2);
+            entry.acknowledge(2, 20, 35, 2);
+            entry.acknowledge(5, 65, 80, 1);
+        }
+        try (AudienceUploadJournal.Entry entry = journal.open(SEGMENT_ID, file, SchemaEnum.EMAIL_SHA256, 2, -1, 5)) {
+            assertThat(entry.getResumeOffset()).isEqualTo(50);
+            assertThat(entry.getResumeBatchNumber()).isEqualTo(3);
+            assertThat(entry.isAcknowledged(50, 65)).isFalse();
+            assertThat(entry.isAcknowledged(65, 80)).isTrue();
+            assertThat(entry.isAcknowledged(65, 81)).isFalse();
+        }
+    }// test_open_should_resume_after_contiguous_acknowledged_batches()
+
+    @Test
+    public void test_open_should_drop_line_cut_by_a_crash() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        AudienceUploadJournal journal = new AudienceUploadJournal(directory);
+        Path file = file("content");
+        try (AudienceUploadJournal.Entry entry = journal.open(SEGMENT_ID, file, SchemaEnum.EMAIL_SHA256, 2, -1, 0)) {
+            entry.acknowledge(1, 0, 20, 2);
+        }
+        Files.write(directory.resolve(SEGMENT_ID + ".journal"), "2 20 4".getBytes(StandardCharsets.US_ASCII),
+                StandardOpenOption.APPEND);
+        try (AudienceUploadJournal.Entry entry = journal.open(SEGMENT_ID, file, SchemaEnum.EMAIL_SHA256, 2, -1, 0)) {
+            assertThat(entry.getResumeOffset()).isEqualTo(20);
+            entry.acknowledge(2, 20, 40, 2);
+        }
+        try (AudienceUploadJournal.Entry entry = journal.open(SEGMENT_ID, file, SchemaEnum.EMAIL_SHA256, 2, -1, 0)) {
+            assertThat(entry.getResumeOffset()).isEqualTo(40);
+        }
+    }// test_open_should_drop_line_cut_by_a_crash()
+
+    @Test
+    public void test_open_should_replace_journal_of_another_upload() throws Exception {
+        AudienceUploadJournal journal = new AudienceUploadJournal(folder.newFolder().toPath());
+        Path file = file("content");
+        try (AudienceUploadJournal.Entry entry = journal.open(SEGMENT_ID, file, SchemaEnum.EMAIL_SHA256, 2, -1, 0)) {
+            entry.acknowledge(1, 0, 20, 2);
+        }
+        try (AudienceUploadJournal.Entry entry = journal.open(SEGMENT_ID, file, SchemaEnum.EMAIL_SHA256, 3, -1, 0)) {
+            assertThat(entry.getResumeOffset()).isEqualTo(0);
+        }
+        Files.write(file, "other content".getBytes(StandardCharsets.US_ASCII));
+        try (AudienceUploadJournal.Entry entry = journal.open(SEGMENT_ID, file, SchemaEnum.EMAIL_SHA256, 3, -1, 0)) {
+            assertThat(entry.getResumeOffset()).isEqualTo(0);
+        }
+        journal.delete(SEGMENT_ID);
+        assertThat(journal.exists(SEGMENT_ID)).isFalse();
+    }// test_open_should_replace_journal_of_another_upload()
+
+    @Test
+    public void test_journal_should_reject_invalid_segment_id() throws Exception {
+        AudienceUploadJournal journal = new AudienceUploadJournal(folder.newFolder().toPath());
+        assertThatThrownBy(() -> journal.exists("../segment")).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Segment ID is invalid");
+    }// test_journal_should_reject_invalid_segment_id()
+
+    private Path file(String content) throws Exception {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }// file()
+
+}// AudienceUploadJournalTest
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.audience.upload;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import snapads4j.audience.match.SnapAudienceSegmentInterface;
+import snapads4j.enums.SchemaEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapOAuthAccessTokenException;
+import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.audience.match.FormUserForAudienceSegment;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AudienceUploadPipelineTest {
+
+    private static final String TOKEN = "token";
+
+    private static final String SEGMENT_ID = "segment1";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private SnapAudienceSegmentInterface snapAudienceSegment;
+
+    private AudienceUploadPipeline pipeline;
+
+    private final List<List<String>> uploaded = new CopyOnWriteArrayList<>();
+
+    @After
+    public void tearDown() {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }// tearDown()
+
+    @Test
+    public void test_upload_should_hash_and_send_identifiers_by_batch() throws Exception {
+        Path file = write("Test1@Example.com\r\n\r\ntest2@example.com\ntest3@example.com\n test4@example.com \ntest5@example.com");
+        recordUploads();
+        pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment).setBatchSize(2)
+                .setHashThreads(2).setUploadThreads(2).build();
+        AudienceUploadResult result = pipeline.upload(TOKEN, SEGMENT_ID, SchemaEnum.EMAIL_SHA256, file);
+
+        assertThat(result.getBatches()).isEqualTo(3);
+        assertThat(result.getIdentifiers()).isEqualTo(5);
+        assertThat(result.getUploadedUsers()).isEqualTo(5);
+        assertThat(result.getEndOffset()).isEqualTo(Files.size(file));
+        assertThat(result.isComplete()).isTrue();
+        List<String> hashes = new ArrayList<>();
+        uploaded.forEach(hashes::addAll);
+        assertThat(hashes).containsExactlyInAnyOrder(DigestUtils.sha256Hex("test1@example.com"), DigestUtils.sha256Hex("test2@example.com"),
+                DigestUtils.sha256Hex("test3@example.com"), DigestUtils.sha256Hex("test4@example.com"),
+                DigestUtils.sha256Hex("test5@example.com"));
+        assertThat(uploaded).allMatch(batch -> batch.size() <= 2);
+    }// test_upload_should_hash_and_send_identifiers_by_batch()
+
+    @Test
+    public void test_upload_should_skip_invalid_identifiers() throws Exception {
+        Path file = write("test1@example.com\nnot an email\ntest2@example.com\n");
+        recordUploads();
+        pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment).build();
+        AudienceUploadResult result = pipeline.upload(TOKEN, SEGMENT_ID, SchemaEnum.EMAIL_SHA256, file);
+
+        assertThat(result.getBatches()).isEqualTo(1);
+        assertThat(result.getIdentifiers()).isEqualTo(3);
+        assertThat(result.getInvalidIdentifiers()).isEqualTo(1);
+        assertThat(result.getUploadedUsers()).isEqualTo(2);
+        assertThat(uploaded).hasSize(1);
+        assertThat(uploaded.get(0)).doesNotContain(DigestUtils.sha256Hex("not an email"));
+    }// test_upload_should_skip_invalid_identifiers()
+
+    @Test
+    public void test_upload_should_remove_duplicates_when_asked() throws Exception {
+        Path file = write("a@toto.com\nA@toto.com \nb@toto.com\na@toto.com\nc@toto.com\nb@toto.com\n");
+        recordUploads();
+        List<AudienceUploadProgress> progress = new CopyOnWriteArrayList<>();
+        pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment).setBatchSize(2)
+                .setDeduplicate(true).setListener((batch, current) -> progress.add(current)).build();
+        AudienceUploadResult result = pipeline.upload(TOKEN, SEGMENT_ID, SchemaEnum.EMAIL_SHA256, file);
+
+        assertThat(result.getIdentifiers()).isEqualTo(6);
+        assertThat(result.getDuplicates()).isEqualTo(3);
+        assertThat(result.getUploadedUsers()).isEqualTo(3);
+        List<String> hashes = new ArrayList<>();
+        uploaded.forEach(hashes::addAll);
+        assertThat(hashes).containsExactlyInAnyOrder(DigestUtils.sha256Hex("a@toto.com"), DigestUtils.sha256Hex("b@toto.com"),
+                DigestUtils.sha256Hex("c@toto.com"));
+        assertThat(progress).extracting(AudienceUploadProgress::getDuplicates).contains(3L);
+    }// test_upload_should_remove_duplicates_when_asked()
+
+    @Test
+    public void test_upload_should_keep_duplicates_by_default() throws Exception {
+        Path file = write("a@toto.com\na@toto.com\n");
+        recordUploads();
+        pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment).build();
+        AudienceUploadResult result = pipeline.upload(TOKEN, SEGMENT_ID, SchemaEnum.EMAIL_SHA256, file);
+
+        assertThat(result.getDuplicates()).isZero();
+        assertThat(uploaded.get(0)).hasSize(2);
+    }// test_upload_should_keep_duplicates_by_default()
+
+    @Test
+    public void test_upload_should_report_failed_batch_with_its_offsets() throws Exception {
+        Path file = write("1111111111\n2222222222\n3333333333\n4444444444\n");
+        Mockito.when(snapAudienceSegment.addHashedUsersToSegment(Mockito.eq(TOKEN), Mockito.any(FormUserForAudienceSegment.class)))
+                .thenAnswer(invocation -> {
+                    FormUserForAudienceSegment form = invocation.getArgument(1);
+                    if (form.getData().contains(DigestUtils.sha256Hex("3333333333"))) {
+                        throw new SnapResponseErrorException("Error 500", 500);
+                    }
+                    return form.getData().size();
+                });
+        List<AudienceBatchResult> notified = new CopyOnWriteArrayList<>();
+        pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment).setBatchSize(2)
+                .setListener((batch, progress) -> notified.add(batch)).build();
+        AudienceUploadResult result = pipeline.upload(TOKEN, SEGMENT_ID, SchemaEnum.PHONE_SHA256, file);
+
+        assertThat(result.getBatches()).isEqualTo(2);
+        assertThat(result.getUploadedUsers()).isEqualTo(2);
+        assertThat(result.isComplete()).isFalse();
+        assertThat(result.getFailedBatches()).hasSize(1);
+        AudienceBatchResult failed = result.getFailedBatches().get(0);
+        assertThat(failed.getBatchNumber()).isEqualTo(2);
+        assertThat(failed.getStartOffset()).isEqualTo(22);
+        assertThat(failed.getEndOffset()).isEqualTo(44);
+        assertThat(failed.getError()).isInstanceOf(SnapResponseErrorException.class);
+        assertThat(notified).hasSize(2);
+    }// test_upload_should_report_failed_batch_with_its_offsets()
+
+    @Test
+    public void test_upload_should_resume_from_journal() throws Exception {
+        Path file = write("phone\n1111111111\n2222222222\n3333333333\n4444444444\n5555555555\n6666666666\n");
+        AudienceUploadJournal journal = new AudienceUploadJournal(folder.newFolder().toPath());
+        Mockito.when(snapAudienceSegment.addHashedUsersToSegment(Mockito.eq(TOKEN), Mockito.any(FormUserForAudienceSegment.class)))
+                .thenAnswer(invocation -> {
+                    FormUserForAudienceSegment form = invocation.getArgument(1);
+                    if (form.getData().contains(DigestUtils.sha256Hex("3333333333"))) {
+                        throw new SnapResponseErrorException("Error 503", 503);
+                    }
+                    return form.getData().size();
+                });
+        pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment).setBatchSize(2)
+                .setHeader(true).setJournal(journal).build();
+        AudienceUploadResult first = pipeline.upload(TOKEN, SEGMENT_ID, SchemaEnum.PHONE_SHA256, file);
+        assertThat(first.getFailedBatches()).hasSize(1);
+        assertThat(first.getUploadedUsers()).isEqualTo(4);
+        assertThat(journal.exists(SEGMENT_ID)).isTrue();
+
+        Mockito.reset(snapAudienceSegment);
+        recordUploads();
+        AudienceUploadResult second = pipeline.upload(TOKEN, SEGMENT_ID, SchemaEnum.PHONE_SHA256, file);
+        assertThat(uploaded).hasSize(1);
+        assertThat(uploaded.get(0)).containsExactly(DigestUtils.sha256Hex("3333333333"),
+                DigestUtils.sha256Hex("4444444444"));
+        assertThat(second.getBatches()).isEqualTo(3);
+        assertThat(second.getSkippedBatches()).isEqualTo(2);
+        assertThat(second.getUploadedUsers()).isEqualTo(2);
+        assertThat(second.isComplete()).isTrue();
+        assertThat(journal.exists(SEGMENT_ID)).isFalse();
+    }// test_upload_should_resume_from_journal()
+
+    @Test
+    public void test_upload_should_deduplicate_against_acknowledged_batches_when_resuming() throws Exception {
+        Path file = write("phone\n1111111111\n2222222222\n3333333333\n1111111111\n2222222222\n4444444444\n");
+        AudienceUploadJournal journal = new AudienceUploadJournal(folder.newFolder().toPath());
+        Mockito.when(snapAudienceSegment.addHashedUsersToSegment(Mockito.eq(TOKEN), Mockito.any(FormUserForAudienceSegment.class)))
+                .thenAnswer(invocation -> {
+                    FormUserForAudienceSegment form = invocation.getArgument(1);
+                    if (form.getData().contains(DigestUtils.sha256Hex("3333333333"))) {
+                        throw new SnapResponseErrorException("Error 503", 503);
+                    }
+                    return form.getData().size();
+                });
+        pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment).setBatchSize(2)
+                .setHeader(true).setDeduplicate(true).setJournal(journal).build();
+        AudienceUploadResult first = pipeline.upload(TOKEN, SEGMENT_ID, SchemaEnum.PHONE_SHA256, file);
+        assertThat(first.getFailedBatches()).hasSize(1);
+
+        Mockito.reset(snapAudienceSegment);
+        recordUploads();
+        AudienceUploadResult second = pipeline.upload(TOKEN, SEGMENT_ID, SchemaEnum.PHONE_SHA256, file);
+        List<String> hashes = new ArrayList<>();
+        uploaded.forEach(hashes::addAll);
+        // 1111111111 was uploaded by the first batch, acknowledged by the first upload
+        assertThat(hashes).containsExactly(DigestUtils.sha256Hex("3333333333"));
+        assertThat(second.getSkippedBatches()).isEqualTo(2);
+        assertThat(second.getDuplicates()).isEqualTo(1);
+        assertThat(second.isComplete()).isTrue();
+    }// test_upload_should_deduplicate_against_acknowledged_batches_when_resuming()
+
+    @Test
+    public void test_upload_should_deduplicate_in_batch_order_when_resuming() throws Exception {
+        Path file = write("3333333333\n1111111111\n5555555555\n3333333333\n");
+        AudienceUploadJournal journal = new AudienceUploadJournal(folder.newFolder().toPath());
+        Mockito.when(snapAudienceSegment.addHashedUsersToSegment(Mockito.eq(TOKEN), Mockito.any(FormUserForAudienceSegment.class)))
+                .thenAnswer(invocation -> {
+                    FormUserForAudienceSegment form = invocation.getArgument(1);
+                    if (form.getData().contains(DigestUtils.sha256Hex("1111111111"))) {
+                        throw new SnapResponseErrorException("Error 503", 503);
+                    }
+                    return form.getData().size();
+                });
+        pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment).setBatchSize(2)
+                .setDeduplicate(true).setJournal(journal).build();
+        AudienceUploadResult first = pipeline.upload(TOKEN, SEGMENT_ID, SchemaEnum.PHONE_SHA256, file);
+        assertThat(first.getFailedBatches()).hasSize(1);
+        pipeline.close();
+
+        Mockito.reset(snapAudienceSegment);
+        recordUploads();
+        // Hashing is slow : the acknowledged batch 2 is read before the failed batch 1 is hashed
+        Executor slowHash = task -> new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            task.run();
+        }).start();
+        pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment).setBatchSize(2)
+                .setDeduplicate(true).setJournal(journal).setExecutors(slowHash, Runnable::run).build();
+        AudienceUploadResult second = pipeline.upload(TOKEN, SEGMENT_ID, SchemaEnum.PHONE_SHA256, file);
+        List<String> hashes = new ArrayList<>();
+        uploaded.forEach(hashes::addAll);
+        // 3333333333 first occurs in the failed batch 1, the acknowledged batch 2 doesn't hide it
+        assertThat(hashes).containsExactly(DigestUtils.sha256Hex("3333333333"), DigestUtils.sha256Hex("1111111111"));
+        assertThat(second.getSkippedBatches()).isEqualTo(1);
+        assertThat(second.isComplete()).isTrue();
+    }// test_upload_should_deduplicate_in_batch_order_when_resuming()
+
+    @Test
+    public void test_upload_should_send_each_batch_to_every_segment() throws Exception {
+        Path file = write("1111111111\n2222222222\n3333333333\n4444444444\n5555555555\n");
+        Map<String, List<String>> sent = new ConcurrentHashMap<>();
+        Mockito.when(snapAudienceSegment.addHashedUsersToSegment(Mockito.eq(TOKEN), Mockito.any(FormUserForAudienceSegment.class)))
+                .thenAnswer(invocation -> {
+                    FormUserForAudienceSegment form = invocation.getArgument(1);
+                    if (form.getId().equals("segment2") && form.getData().contains(DigestUtils.sha256Hex("3333333333"))) {
+                        throw new SnapResponseErrorException("Error 503", 503);
+                    }
+                    sent.computeIfAbsent(form.getId(), id -> new CopyOnWriteArrayList<>()).addAll(form.getData());
+                    return form.getData().size();
+                });
+        Map<String, AtomicLong> notified = new ConcurrentHashMap<>();
+        pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment).setBatchSize(2)
+                .setListener((batch, progress) -> notified.computeIfAbsent(batch.getSegmentId(), id -> new AtomicLong())
+                        .set(progress.getBatchesDone()))
+                .build();
+        Map<String, AudienceUploadResult> results = pipeline.uploadToSegments(TOKEN,
+                Arrays.asList("segment1", "segment2", "segment1"), SchemaEnum.PHONE_SHA256, file);
+
+        assertThat(results).containsOnlyKeys("segment1", "segment2");
+        assertThat(results.get("segment1").isComplete()).isTrue();
+        assertThat(results.get("segment1").getUploadedUsers()).isEqualTo(5);
+        assertThat(sent.get("segment1")).hasSize(5);
+        assertThat(results.get("segment2").getUploadedUsers()).isEqualTo(3);
+        assertThat(results.get("segment2").getFailedBatches()).extracting(AudienceBatchResult::getBatchNumber)
+                .containsExactly(2L);
+        assertThat(results.get("segment2").getFailedBatches().get(0).getSegmentId()).isEqualTo("segment2");
+        assertThat(notified.get("segment1").get()).isEqualTo(3);
+        assertThat(notified.get("segment2").get()).isEqualTo(3);
+    }// test_upload_should_send_each_batch_to_every_segment()
+
+    @Test
+    public void test_upload_should_throw_error_when_segments_are_missing() throws Exception {
+        pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment).build();
+        assertThatThrownBy(() -> pipeline.uploadToSegments(TOKEN, Arrays.asList("segment1", ""), SchemaEnum.EMAIL_SHA256, write("")))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Segment ID is required");
+        assertThatThrownBy(() -> pipeline.uploadToSegments(TOKEN, Collections.<String>emptyList(), SchemaEnum.EMAIL_SHA256, write("")))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Segment ID is required");
+    }// test_upload_should_throw_error_when_segments_are_missing()
+
+    @Test
+    public void test_upload_should_read_csv_column_and_skip_header() throws Exception {
+        Path file = write("name,email\n\"Doe, John\",john@example.com\nJane,\"jane@example.com\"\nNobody\n");
+        recordUploads();
+        pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment).setCsvColumn(1, ',')
+                .setHeader(true).build();
+        AudienceUploadResult result = pipeline.upload(TOKEN, SEGMENT_ID, SchemaEnum.EMAIL_SHA256, file);
+
+        assertThat(result.getIdentifiers()).isEqualTo(2);
+        assertThat(uploaded.get(0)).containsExactly(DigestUtils.sha256Hex("john@example.com"),
+                DigestUtils.sha256Hex("jane@example.com"));
+    }// test_upload_should_read_csv_column_and_skip_header()
+
+    @Test
+    public void test_upload_should_throw_error_when_token_is_missing() throws Exception {
+        pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment).build();
+        assertThatThrownBy(() -> pipeline.upload(null, SEGMENT_ID, SchemaEnum.EMAIL_SHA256, write("")))
+                .isInstanceOf(SnapOAuthAccessTokenException.class).hasMessage("The OAuthAccessToken is required");
+    }// test_upload_should_throw_error_when_token_is_missing()
+
+    @Test
+    public void test_upload_should_throw_error_when_file_is_missing() throws Exception {
+        pipeline = new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment).build();
+        assertThatThrownBy(() -> pipeline.upload(TOKEN, null, null, folder.getRoot().toPath().resolve("missing.csv")))
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("Segment ID is required,Schema is required,File must exist");
+    }// test_upload_should_throw_error_when_file_is_missing()
+
+    @Test
+    public void test_build_should_throw_error_when_batch_is_too_big() {
+        assertThatThrownBy(() -> new AudienceUploadPipeline.Builder().setSnapAudienceSegment(snapAudienceSegment)
+                .setBatchSize(AudienceUploadPipeline.MAX_BATCH_SIZE + 1).build())
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Batch size must be between 1 and 100000");
+    }// test_build_should_throw_error_when_batch_is_too_big()
+
+    @Test
+    public void test_field_should_handle_quotes() {
+        assertThat(AudienceFileReader.field("a,\"b \"\"c\"\", d\",e", 1, ',')).isEqualTo("b \"c\", d");
+        assertThat(AudienceFileReader.field("a,\"b\",e", 2, ',')).isEqualTo("e");
+        assertThat(AudienceFileReader.field("a;b", 1, ';')).isEqualTo("b");
+        assertThat(AudienceFileReader.field("a,", 1, ',')).isEmpty();
+        assertThat(AudienceFileReader.field("a", 1, ',')).isNull();
+    }// test_field_should_handle_quotes()
+
+    private void recordUploads() throws Exception {
+        Mockito.when(snapAudienceSegment.addHashedUsersToSegment(Mockito.eq(TOKEN), Mockito.any(FormUserForAudienceSegment.class)))
+                .thenAnswer(invocation -> {
+                    FormUserForAudienceSegment form = invocation.getArgument(1);
+                    assertThat(form.getId()).isEqualTo(SEGMENT_ID);
+                    uploaded.add(Collections.unmodifiableList(new ArrayList<>(form.getData())));
+                    return form.getData().size();
+                });
+    }// recordUploads()
+
+    private Path write(String content) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }// write()
+
+}// AudienceUploadPipelineTest
@@ -575,6 +575,12 @@ public class SnapCampaignsTest {
                 .isInstanceOf(SnapArgumentException.class).hasMessage("The Ad Account ID is required");
     } // test_getAllCampaigns_should_throw_SnapArgumentException_when_ad_account_id_is_null()
 
+    @Test
+    public void test_streamAllCampaigns_should_throw_SnapArgumentException_when_consumer_is_null() {
+        assertThatThrownBy(() -> sCampaigns.streamAllCampaigns(oAuthAccessToken, accountId, 50, null))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Consumer is required");
+    } // test_streamAllCampaigns_should_throw_SnapArgumentException_when_consumer_is_null()
+
     @Test
     public void test_getAllCampaigns_should_throw_SnapArgumentException_when_ad_account_id_is_empty() {
         assertThatThrownBy(() -> sCampaigns.getAllCampaigns(oAuthAccessToken, "", 50))
@@ -686,6 +686,12 @@ public class SnapCreativeTest {
                 .isInstanceOf(SnapArgumentException.class).hasMessage("The AdAccount ID is required");
     }// test_get_all_creatives_should_throw_SnapArgumentException_when_ad_account_id_is_null()
 
+    @Test
+    public void test_stream_all_creatives_should_throw_SnapArgumentException_when_consumer_is_null() {
+        assertThatThrownBy(() -> snapCreative.streamAllCreative(oAuthAccessToken, adAccountID, 50, null))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Consumer is required");
+    }// test_stream_all_creatives_should_throw_SnapArgumentException_when_consumer_is_null()
+
     @Test
     public void test_get_all_creatives_should_throw_SnapArgumentException_when_ad_account_id_is_empty() {
         assertThatThrownBy(() -> snapCreative.getAllCreative(oAuthAccessToken, "", 50))
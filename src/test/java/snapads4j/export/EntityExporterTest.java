@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.export;
+
+import org.junit.Test;
+import snapads4j.enums.ExportFormatEnum;
+import snapads4j.enums.StatusEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.Pagination;
+import snapads4j.model.campaigns.Campaign;
+import snapads4j.model.campaigns.MeasurementSpec;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class EntityExporterTest {
+
+    @Test
+    public void test_export_ndjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (EntityExporter<Campaign> exporter = new EntityExporter<>(Channels.newChannel(out), Campaign.class, ExportFormatEnum.NDJSON, false)) {
+            exporter.writeAll(pages());
+            assertThat(exporter.getCount()).isEqualTo(3);
+        }
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(
+                "{\"id\":\"c1\",\"status\":\"ACTIVE\",\"name\":\"Simple\"}\n" +
+                "{\"id\":\"c2\",\"status\":\"PAUSED\",\"name\":\"Comma, \\\"quoted\\\"\",\"measurement_spec\":{\"ios_app_id\":\"123\",\"android_app_url\":null}}\n" +
+                "{\"id\":\"c3\",\"status\":\"ACTIVE\",\"name\":\"Multi\\nline\"}\n");
+    }// test_export_ndjson()
+
+    @Test
+    public void test_export_ndjson_gzip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (EntityExporter<Campaign> exporter = new EntityExporter<>(Channels.newChannel(out), Campaign.class, ExportFormatEnum.NDJSON, true)) {
+            exporter.writeAll(pages());
+        }
+        List<String> lines = readGzipLines(out.toByteArray());
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).isEqualTo("{\"id\":\"c1\",\"status\":\"ACTIVE\",\"name\":\"Simple\"}");
+    }// test_export_ndjson_gzip()
+
+    @Test
+    public void test_export_csv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (EntityExporter<Campaign> exporter = new EntityExporter<>(Channels.newChannel(out), Campaign.class, ExportFormatEnum.CSV, false)) {
+            exporter.writeAll(pages());
+        }
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\r\n", -1);
+        assertThat(lines).hasSize(5);
+        assertThat(lines[0]).isEqualTo("id,status,name,objective,created_at,updated_at,ad_account_id,daily_budget_micro,start_time,end_time,lifetime_spend_cap_micro,measurement_spec,buy_model");
+        assertThat(lines[1]).isEqualTo("c1,ACTIVE,Simple,,,,,,,,,,");
+        assertThat(lines[2]).isEqualTo("c2,PAUSED,\"Comma, \"\"quoted\"\"\",,,,,,,,,\"{\"\"ios_app_id\"\":\"\"123\"\",\"\"android_app_url\"\":null}\",");
+        assertThat(lines[3]).isEqualTo("c3,ACTIVE,\"Multi\nline\",,,,,,,,,,");
+        assertThat(lines[4]).isEmpty();
+    }// test_export_csv()
+
+    @Test
+    public void test_write_after_close_fails() throws Exception {
+        EntityExporter<Campaign> exporter = new EntityExporter<>(Channels.newChannel(new ByteArrayOutputStream()), Campaign.class, ExportFormatEnum.CSV, false);
+        exporter.close();
+        assertThatThrownBy(() -> exporter.write(campaign("c1", "name", StatusEnum.ACTIVE))).isInstanceOf(IOException.class);
+    }// test_write_after_close_fails()
+
+    @Test
+    public void test_exporter_requires_format() {
+        assertThatThrownBy(() -> new EntityExporter<>(Channels.newChannel(new ByteArrayOutputStream()), Campaign.class, null, false))
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("Export format is required");
+    }// test_exporter_requires_format()
+
+    private static List<Pagination<Campaign>> pages() {
+        Campaign quoted = campaign("c2", "Comma, \"quoted\"", StatusEnum.PAUSED);
+        MeasurementSpec spec = new MeasurementSpec();
+        spec.setIosAppId("123");
+        quoted.setMeasurementSpec(spec);
+        return Arrays.asList(
+                new Pagination<>(1, Arrays.asList(campaign("c1", "Simple", StatusEnum.ACTIVE), quoted)),
+                new Pagination<>(2, Collections.singletonList(campaign("c3", "Multi\nline", StatusEnum.ACTIVE))));
+    }// pages()
+
+    private static Campaign campaign(String id, String name, StatusEnum status) {
+        Campaign campaign = new Campaign();
+        campaign.setId(id);
+        campaign.setName(name);
+        campaign.setStatus(status);
+        return campaign;
+    }// campaign()
+
+    private static List<String> readGzipLines(byte[] content) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(content)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }// readGzipLines()
+
+}// EntityExporterTest
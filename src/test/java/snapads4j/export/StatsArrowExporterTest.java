@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.export;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryEncoder;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.junit.Test;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.Stat;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StatsArrowExporterTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    /**
+     * 2020-01-01T00:00:00Z
+     */
+    private static final long T0 = 1577836800000L;
+
+    @Test
+    public void test_write_pages_with_dictionary_deltas() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StatsArrowExporter exporter = new StatsArrowExporter(Channels.newChannel(out), Arrays.asList(StatMetricEnum.IMPRESSIONS, StatMetricEnum.SPEND))) {
+            exporter.writePage(new Pagination<>(1, Arrays.asList(stat("ad1", 2, 10), stat("ad2", 1, 20))));
+            exporter.writePage(new Pagination<>(2, Collections.emptyList()));
+            exporter.writePage(new Pagination<>(3, Arrays.asList(stat("ad3", 1, 30), stat("ad1", 1, 40))));
+            assertThat(exporter.getRowCount()).isEqualTo(5);
+        }
+
+        List<String> entities = new ArrayList<>();
+        List<Long> impressions = new ArrayList<>();
+        List<Long> spends = new ArrayList<>();
+        List<Long> startTimes = new ArrayList<>();
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertThat(root.getSchema().getFields()).extracting("name")
+                    .containsExactly("entity_id", "entity_type", "start_time", "end_time", "impressions", "spend");
+            int batches = 0;
+            while (reader.loadNextBatch()) {
+                ++batches;
+                FieldVector indices = root.getVector("entity_id");
+                Dictionary dictionary = reader.getDictionaryVectors().get(indices.getField().getDictionary().getId());
+                try (VarCharVector decoded = (VarCharVector) DictionaryEncoder.decode(indices, dictionary)) {
+                    for (int row = 0; row < root.getRowCount(); ++row) {
+                        entities.add(new String(decoded.get(row), "UTF-8"));
+                        impressions.add(((BigIntVector) root.getVector("impressions")).getObject(row));
+                        spends.add(((BigIntVector) root.getVector("spend")).getObject(row));
+                        startTimes.add(((TimeStampMilliTZVector) root.getVector("start_time")).get(row));
+                    }
+                }
+                assertThat(root.getVector("entity_type").getObject(0).toString()).isEqualTo("AD");
+            }
+            assertThat(batches).isEqualTo(2);
+        }
+        assertThat(entities).containsExactly("ad1", "ad1", "ad2", "ad3", "ad1");
+        assertThat(impressions).containsExactly(10L, 10L, 20L, 30L, 40L);
+        assertThat(spends).containsExactly(null, null, null, null, null);
+        assertThat(startTimes).containsExactly(T0, T0 + HOUR, T0, T0, T0);
+    }// test_write_pages_with_dictionary_deltas()
+
+    @Test
+    public void test_close_without_page_writes_schema_only() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new StatsArrowExporter(Channels.newChannel(out)).close();
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            assertThat(reader.getVectorSchemaRoot().getSchema().getFields()).hasSize(4 + StatMetricEnum.values().length);
+            assertThat(reader.loadNextBatch()).isFalse();
+        }
+    }// test_close_without_page_writes_schema_only()
+
+    @Test
+    public void test_write_after_close_fails() throws SnapArgumentException, IOException {
+        StatsArrowExporter exporter = new StatsArrowExporter(Channels.newChannel(new ByteArrayOutputStream()));
+        exporter.close();
+        assertThatThrownBy(() -> exporter.writePage(new Pagination<>(1, Collections.singletonList(stat("ad1", 1, 1)))))
+                .isInstanceOf(IOException.class);
+    }// test_write_after_close_fails()
+
+    @Test
+    public void test_exporter_requires_metrics() {
+        assertThatThrownBy(() -> new StatsArrowExporter(Channels.newChannel(new ByteArrayOutputStream()), Collections.emptyList()))
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("At least one metric is required");
+    }// test_exporter_requires_metrics()
+
+    private static TimeSerieStat stat(String id, int hours, int impressions) {
+        TimeSerieStat stat = new TimeSerieStat();
+        stat.setId(id);
+        stat.setType(TimeSerieTypeEnum.AD);
+        stat.setGranularity(GranularityEnum.HOUR);
+        List<TimeSerie> series = new ArrayList<>();
+        for (int h = 0; h < hours; ++h) {
+            TimeSerie serie = new TimeSerie();
+            serie.setStartTime(new Date(T0 + h * HOUR));
+            serie.setEndTime(new Date(T0 + (h + 1) * HOUR));
+            Stat s = new Stat();
+            s.setImpressions(impressions);
+            serie.setStats(s);
+            series.add(serie);
+        }
+        stat.setTimeseries(series);
+        return stat;
+    }// stat()
+
+}// StatsArrowExporterTest
@@ -1525,6 +1525,12 @@ public class SnapMediaTest {
                 .isInstanceOf(SnapArgumentException.class).hasMessage("The Ad Account ID is required");
     }// test_get_all_media_should_throw_SnapArgumentException_when_ad_account_id_is_null()
 
+    @Test
+    public void test_stream_all_media_should_throw_SnapArgumentException_when_consumer_is_null() {
+        assertThatThrownBy(() -> snapMedia.streamAllMedia(oAuthAccessToken, adAccountID, 50, null))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Consumer is required");
+    }// test_stream_all_media_should_throw_SnapArgumentException_when_consumer_is_null()
+
     @Test
     public void test_get_all_media_should_throw_SnapArgumentException_when_ad_account_id_is_empty() {
         assertThatThrownBy(() -> snapMedia.getAllMedia(oAuthAccessToken, "", 50)).isInstanceOf(SnapArgumentException.class)
@@ -23,6 +23,7 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
@@ -39,9 +40,12 @@ import snapads4j.model.stats.Stat;
 import snapads4j.model.stats.TimeSerie;
 import snapads4j.model.stats.TimeSerieStat;
 import snapads4j.utils.EntityUtilsWrapper;
+import snapads4j.utils.RateLimiter;
 import snapads4j.utils.SnapResponseUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -454,6 +458,16 @@ public class SnapStatsTest {
                 .isInstanceOf(SnapArgumentException.class);
     }// get_campaign_stats_should_throw_SnapArgumentException_when_granularity_is_null()
 
+    @Test
+    public void get_campaign_stats_should_throw_first_error_only() {
+        assertThatThrownBy(() -> this.snapStats.getCampaignStats(oAuthAccessToken, limitPagination, campaignID, null, null, GranularityEnum.DAY))
+                .hasMessage("StartTime is required")
+                .isInstanceOf(SnapArgumentException.class);
+        assertThatThrownBy(() -> new StatsQuery.Builder().setGranularity(GranularityEnum.DAY).build())
+                .hasMessage("StartTime is required,EndTime is required")
+                .isInstanceOf(SnapArgumentException.class);
+    }// get_campaign_stats_should_throw_first_error_only()
+
     @Test
     public void get_campaign_stats_should_throw_SnapExecutionException_when_IOException_is_occured() throws IOException {
         Mockito.when(httpClient.execute((Mockito.any(HttpGet.class)))).thenThrow(IOException.class);
@@ -2211,4 +2225,147 @@ public class SnapStatsTest {
                 .isInstanceOf(SnapResponseErrorException.class).hasMessage("Error 1337");
     }// should_throw_exception_1337_get_pixel_specific_domain_stats()
 
+    @Test
+    public void get_campaign_stats_with_query_should_request_projected_fields() throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, IOException, SnapResponseErrorException {
+        Mockito.when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        Mockito.when(statusLine.getStatusCode()).thenReturn(200);
+        Mockito.when(httpClient.execute(Mockito.any(HttpGet.class))).thenReturn(httpResponse);
+        Mockito.when(httpResponse.getEntity()).thenReturn(httpEntity);
+        Mockito.when(entityUtilsWrapper.toString(httpEntity))
+                .thenReturn(SnapResponseUtils.getStatsCampaignDay());
+        StatsQuery query = new StatsQuery.Builder()
+                .setGranularity(GranularityEnum.DAY)
+                .setStartTime(startTime)
+                .setEndTime(endTime)
+                .addMetric(StatMetricEnum.SWIPES)
+                .addDerivedMetric(DerivedMetricEnum.CPM)
+                .setLimit(limitPagination)
+                .build();
+        List<Pagination<TimeSerieStat>> result = this.snapStats.getCampaignStats(oAuthAccessToken, campaignID, query);
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getResults().get(0).getTimeseries()).hasSize(2);
+
+        ArgumentCaptor<HttpGet> request = ArgumentCaptor.forClass(HttpGet.class);
+        Mockito.verify(httpClient).execute(request.capture());
+        assertThat(request.getValue().getURI().toString())
+                .startsWith(snapStats.getEndpointCampaignStats().replace("{campaign_id}", campaignID) + "?granularity=DAY&start_time=")
+                .endsWith("&fields=impressions,swipes,spend&limit=" + limitPagination);
+    }// get_campaign_stats_with_query_should_request_projected_fields()
+
+    @Test
+    public void should_throw_exception_limit_get_campaign_stats_with_query() throws SnapArgumentException {
+        StatsQuery query = new StatsQuery.Builder().setGranularity(GranularityEnum.TOTAL).setLimit(201).build();
+        assertThatThrownBy(() -> this.snapStats.getCampaignStats(oAuthAccessToken, campaignID, query))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Maximum limit is 200");
+        assertThatThrownBy(() -> this.snapStats.getCampaignStats(oAuthAccessToken, campaignID, null))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Stats query is required");
+    }// should_throw_exception_limit_get_campaign_stats_with_query()
+
+    @Test
+    public void get_pixel_specific_domain_stats_with_query_should_reuse_query_for_each_pixel() throws SnapOAuthAccessTokenException, SnapArgumentException, SnapExecutionException, IOException, SnapResponseErrorException {
+        Mockito.when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        Mockito.when(statusLine.getStatusCode()).thenReturn(200);
+        Mockito.when(httpClient.execute(Mockito.any(HttpGet.class))).thenReturn(httpResponse);
+        Mockito.when(httpResponse.getEntity()).thenReturn(httpEntity);
+        Mockito.when(entityUtilsWrapper.toString(httpEntity))
+                .thenReturn(SnapResponseUtils.getStatsSpecificPixelDomain());
+        StatsQuery query = new StatsQuery.Builder()
+                .setGranularity(GranularityEnum.DAY)
+                .setStartTime(startTime)
+                .setEndTime(endTime)
+                .setSwipeUpAttributionWindow(SwipeUpAttributionWindowEnum.ONE_DAY)
+                .setLimit(limitPagination)
+                .build();
+        this.snapStats.getPixelSpecificDomainStats(oAuthAccessToken, pixelID, domainUrl, query);
+        this.snapStats.getPixelSpecificDomainStats(oAuthAccessToken, "other_pixel", domainUrl, query);
+
+        ArgumentCaptor<HttpGet> request = ArgumentCaptor.forClass(HttpGet.class);
+        Mockito.verify(httpClient, Mockito.times(2)).execute(request.capture());
+        assertThat(request.getAllValues().get(0).getURI().toString())
+                .isEqualTo(snapStats.getEndpointPixelSpecificDomain().replace("{pixel_id}", pixelID) + "?" + query.getQueryString() + "&domain=" + domainUrl);
+        assertThat(request.getAllValues().get(1).getURI().toString())
+                .isEqualTo(snapStats.getEndpointPixelSpecificDomain().replace("{pixel_id}", "other_pixel") + "?" + query.getQueryString() + "&domain=" + domainUrl)
+                .contains("&swipe_up_attribution_window=1_DAY&");
+        assertThatThrownBy(() -> this.snapStats.getPixelSpecificDomainStats(oAuthAccessToken, pixelID, null, query))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Domain is required");
+    }// get_pixel_specific_domain_stats_with_query_should_reuse_query_for_each_pixel()
+
+    @Test
+    public void get_campaign_stats_with_rate_limiter_should_take_a_permit_by_page() throws Exception {
+        Mockito.when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        Mockito.when(statusLine.getStatusCode()).thenReturn(200);
+        Mockito.when(httpClient.execute(Mockito.any(HttpGet.class))).thenReturn(httpResponse);
+        Mockito.when(httpResponse.getEntity()).thenReturn(httpEntity);
+        Mockito.when(entityUtilsWrapper.toString(httpEntity))
+                .thenReturn(SnapResponseUtils.getStatsCampaignTotal());
+        RateLimiter rateLimiter = Mockito.mock(RateLimiter.class);
+        this.snapStats.setRateLimiter(rateLimiter);
+        this.snapStats.getCampaignStats(oAuthAccessToken, limitPagination, campaignID, startTime, endTime, GranularityEnum.TOTAL);
+        Mockito.verify(rateLimiter, Mockito.times(1)).acquire();
+
+        Mockito.doThrow(InterruptedException.class).when(rateLimiter).acquire();
+        assertThatThrownBy(() -> this.snapStats.getCampaignStats(oAuthAccessToken, limitPagination, campaignID, startTime, endTime, GranularityEnum.TOTAL))
+                .isInstanceOf(SnapExecutionException.class);
+        assertThat(Thread.interrupted()).isTrue();
+        Mockito.verify(httpClient, Mockito.times(1)).execute(Mockito.any(HttpGet.class));
+    }// get_campaign_stats_with_rate_limiter_should_take_a_permit_by_page()
+
+    @Test
+    public void get_pixel_domains_stats_should_follow_next_page() throws Exception {
+        String nextLink = "https://adsapi.snapchat.com/v1/pixels/" + pixelID + "/domains/stats?cursor=2";
+        Mockito.when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        Mockito.when(statusLine.getStatusCode()).thenReturn(200);
+        Mockito.when(httpClient.execute(Mockito.any(HttpGet.class))).thenReturn(httpResponse);
+        Mockito.when(httpResponse.getEntity()).thenReturn(httpEntity);
+        Mockito.when(entityUtilsWrapper.toString(httpEntity))
+                .thenReturn(pixelDomainsWithNextLink(nextLink), SnapResponseUtils.getStatsPixelDomains());
+        List<Pagination<TimeSerieStat>> result = this.snapStats.getPixelDomainsStats(oAuthAccessToken, limitPagination, pixelID);
+        assertThat(result).hasSize(2);
+        ArgumentCaptor<HttpGet> request = ArgumentCaptor.forClass(HttpGet.class);
+        Mockito.verify(httpClient, Mockito.times(2)).execute(request.capture());
+        assertThat(request.getAllValues().get(1).getURI().toString()).isEqualTo(nextLink);
+    }// get_pixel_domains_stats_should_follow_next_page()
+
+    @Test
+    public void stream_pixel_domains_should_decode_domains_of_every_page() throws Exception {
+        String nextLink = "https://adsapi.snapchat.com/v1/pixels/" + pixelID + "/domains/stats?cursor=2";
+        Mockito.when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        Mockito.when(statusLine.getStatusCode()).thenReturn(200);
+        Mockito.when(httpClient.execute(Mockito.any(HttpGet.class))).thenReturn(httpResponse);
+        Mockito.when(httpResponse.getEntity()).thenReturn(httpEntity);
+        Mockito.when(entityUtilsWrapper.getContent(httpEntity))
+                .thenReturn(new ByteArrayInputStream(pixelDomainsWithNextLink(nextLink).getBytes(StandardCharsets.UTF_8)),
+                        new ByteArrayInputStream(SnapResponseUtils.getStatsPixelDomains().getBytes(StandardCharsets.UTF_8)));
+        List<String> domains = new ArrayList<>();
+        this.snapStats.streamPixelDomains(oAuthAccessToken, limitPagination, pixelID,
+                domain -> domains.add(domain.getDomainName() + "=" + domain.getTotalEvents()));
+        assertThat(domains).hasSize(8);
+        assertThat(domains.subList(0, 4)).containsExactly("abc.snapchat.com=30", "xyz.snapchat.com=8",
+                "snapchat.com=180886", "www.snapchat.com=9682034");
+        ArgumentCaptor<HttpGet> request = ArgumentCaptor.forClass(HttpGet.class);
+        Mockito.verify(httpClient, Mockito.times(2)).execute(request.capture());
+        assertThat(request.getAllValues().get(0).getURI().toString())
+                .isEqualTo(snapStats.getEndpointPixelDomains().replace("{pixel_id}", pixelID) + "?limit=" + limitPagination);
+        assertThat(request.getAllValues().get(1).getURI().toString()).isEqualTo(nextLink);
+        Mockito.verify(entityUtilsWrapper, Mockito.never()).toString(httpEntity);
+    }// stream_pixel_domains_should_decode_domains_of_every_page()
+
+    @Test
+    public void stream_pixel_domains_should_throw_exceptions() throws IOException {
+        assertThatThrownBy(() -> this.snapStats.streamPixelDomains(oAuthAccessToken, limitPagination, pixelID, null))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Consumer is required");
+        assertThatThrownBy(() -> this.snapStats.streamPixelDomains(oAuthAccessToken, limitPagination, "", domain -> {
+        })).isInstanceOf(SnapArgumentException.class).hasMessage("Pixel ID is required");
+        Mockito.when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        Mockito.when(statusLine.getStatusCode()).thenReturn(404);
+        Mockito.when(httpClient.execute(Mockito.any(HttpGet.class))).thenReturn(httpResponse);
+        Mockito.when(httpResponse.getEntity()).thenReturn(httpEntity);
+        assertThatThrownBy(() -> this.snapStats.streamPixelDomains(oAuthAccessToken, limitPagination, pixelID, domain -> {
+        })).isInstanceOf(SnapResponseErrorException.class).hasMessage("Not Found");
+    }// stream_pixel_domains_should_throw_exceptions()
+
+    private static String pixelDomainsWithNextLink(String nextLink) {
+        return SnapResponseUtils.getStatsPixelDomains().replace("\"paging\": {}", "\"paging\": {\"next_link\": \"" + nextLink + "\"}");
+    }// pixelDomainsWithNextLink()
+
 }// SnapStatsTest
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats;
+
+import org.junit.Test;
+import snapads4j.enums.BreakdownEnum;
+import snapads4j.enums.DerivedMetricEnum;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.SwipeUpAttributionWindowEnum;
+import snapads4j.exceptions.SnapArgumentException;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StatsQueryTest {
+
+    @Test
+    public void test_fields_include_derived_metric_inputs() throws SnapArgumentException {
+        StatsQuery query = new StatsQuery.Builder()
+                .setGranularity(GranularityEnum.TOTAL)
+                .addMetrics(Arrays.asList(StatMetricEnum.SPEND, StatMetricEnum.IMPRESSIONS))
+                .addDerivedMetric(DerivedMetricEnum.CPM)
+                .addDerivedMetric(DerivedMetricEnum.SWIPE_UP_RATE)
+                .build();
+        assertThat(query.getFields()).containsExactly("impressions", "swipes", "spend");
+        assertThat(query.getQueryString()).isEqualTo("granularity=TOTAL&fields=impressions,swipes,spend&limit=200");
+    }// test_fields_include_derived_metric_inputs()
+
+    @Test
+    public void test_no_metric_requests_all_fields() throws SnapArgumentException {
+        StatsQuery query = new StatsQuery.Builder().setGranularity(GranularityEnum.LIFETIME).setLimit(50).build();
+        assertThat(query.getFields()).isEmpty();
+        assertThat(query.getQueryString()).isEqualTo("granularity=LIFETIME&limit=50");
+    }// test_no_metric_requests_all_fields()
+
+    @Test
+    public void test_window_is_encoded() throws SnapArgumentException {
+        Calendar cal = Calendar.getInstance();
+        cal.set(2020, Calendar.JANUARY, 1, 0, 0, 0);
+        Date start = cal.getTime();
+        cal.add(Calendar.DATE, 1);
+        StatsQuery query = new StatsQuery.Builder().setGranularity(GranularityEnum.HOUR).setStartTime(start).setEndTime(cal.getTime()).build();
+        assertThat(query.getQueryString()).startsWith("granularity=HOUR&start_time=2020-01-0").doesNotContain("+");
+    }// test_window_is_encoded()
+
+    @Test
+    public void test_check_query() {
+        Calendar cal = Calendar.getInstance();
+        cal.set(Calendar.MINUTE, 30);
+        Date halfHour = cal.getTime();
+        assertThatThrownBy(() -> new StatsQuery.Builder().setGranularity(GranularityEnum.HOUR).setStartTime(halfHour).build())
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("EndTime is required,StarTime must be set to the top of the hour (Example : 22:00:00 not 22:45:11)");
+        assertThatThrownBy(() -> new StatsQuery.Builder().build())
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("Granularity is required");
+    }// test_check_query()
+
+    @Test
+    public void test_all_parameters_are_encoded_once() throws SnapArgumentException {
+        StatsQuery query = new StatsQuery.Builder()
+                .setGranularity(GranularityEnum.TOTAL)
+                .addMetric(StatMetricEnum.SPEND)
+                .setFields(Arrays.asList("spend", "conversion_purchases"))
+                .setConversionSourceTypes(Arrays.asList("web", "app"))
+                .setBreakdown(BreakdownEnum.AD)
+                .setTest(false)
+                .setReportDimension("country")
+                .setSwipeUpAttributionWindow(SwipeUpAttributionWindowEnum.SEVEN_DAY)
+                .setOmitEmpty(true)
+                .setLimit(100)
+                .build();
+        assertThat(query.getFields()).containsExactly("spend", "conversion_purchases");
+        assertThat(query.getQueryString()).isEqualTo("granularity=TOTAL&fields=spend,conversion_purchases&conversion_source_types=web,app"
+                + "&breakdown=ad&test=false&report_dimension=country&swipe_up_attribution_window=7_DAY&omitEmpty=true&limit=100");
+    }// test_all_parameters_are_encoded_once()
+
+    @Test
+    public void test_query_is_immutable() throws SnapArgumentException {
+        Calendar cal = Calendar.getInstance();
+        cal.set(2020, Calendar.JANUARY, 1, 0, 0, 0);
+        Date start = cal.getTime();
+        cal.add(Calendar.DATE, 1);
+        StatsQuery.Builder builder = new StatsQuery.Builder().setGranularity(GranularityEnum.DAY).setStartTime(start).setEndTime(cal.getTime());
+        StatsQuery query = builder.build();
+        String queryString = query.getQueryString();
+        builder.setGranularity(GranularityEnum.HOUR).addMetric(StatMetricEnum.SPEND);
+        start.setTime(0L);
+        query.getEndTime().setTime(0L);
+        assertThat(query.getGranularity()).isEqualTo(GranularityEnum.DAY);
+        assertThat(query.getMetrics()).isEmpty();
+        assertThat(query.getStartTime()).isNotEqualTo(start);
+        assertThat(query.getQueryString()).isEqualTo(queryString);
+        assertThatThrownBy(() -> query.getMetrics().add(StatMetricEnum.SPEND)).isInstanceOf(UnsupportedOperationException.class);
+    }// test_query_is_immutable()
+
+    @Test
+    public void test_builder_copies_query() throws SnapArgumentException {
+        StatsQuery query = new StatsQuery.Builder().setGranularity(GranularityEnum.TOTAL).addMetric(StatMetricEnum.SPEND).build();
+        StatsQuery variant = new StatsQuery.Builder(query).setSwipeUpAttributionWindow(SwipeUpAttributionWindowEnum.ONE_DAY).build();
+        assertThat(variant.getFields()).containsExactly("spend");
+        assertThat(variant.getQueryString()).isEqualTo("granularity=TOTAL&fields=spend&swipe_up_attribution_window=1_DAY&limit=200");
+        assertThat(query.getSwipeUpAttributionWindow()).isNull();
+    }// test_builder_copies_query()
+
+}// StatsQueryTest
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.attribution;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.SwipeUpAttributionWindowEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.enums.ViewAttributionWindowEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.TimeSerieStat;
+import snapads4j.stats.SnapStatsInterface;
+import snapads4j.stats.StatsQuery;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AttributionWindowFanOutTest {
+
+    private static final String TOKEN = "token";
+
+    @Mock
+    private SnapStatsInterface snapStats;
+
+    private AttributionWindowFanOut fanOut;
+
+    private StatsQuery query;
+
+    private final List<AttributionWindows> windows = Arrays.asList(
+            new AttributionWindows(SwipeUpAttributionWindowEnum.ONE_DAY, ViewAttributionWindowEnum.ONE_HOUR),
+            new AttributionWindows(SwipeUpAttributionWindowEnum.SEVEN_DAY, ViewAttributionWindowEnum.ONE_DAY),
+            new AttributionWindows(SwipeUpAttributionWindowEnum.TWENTY_EIGHT_DAY, null));
+
+    @Before
+    public void setUp() throws SnapArgumentException {
+        fanOut = new AttributionWindowFanOut.Builder().setSnapStats(snapStats).setThreads(3).build();
+        query = new StatsQuery.Builder().setGranularity(GranularityEnum.TOTAL).setLimit(50).build();
+    }// setUp()
+
+    @After
+    public void tearDown() {
+        fanOut.close();
+    }// tearDown()
+
+    @Test
+    public void test_fetch_runs_each_pair_concurrently() throws Exception {
+        CountDownLatch started = new CountDownLatch(windows.size());
+        Mockito.when(snapStats.getAdSquadStats(Mockito.eq(TOKEN), Mockito.eq("sq1"), Mockito.any(StatsQuery.class)))
+                .thenAnswer(invocation -> {
+                    started.countDown();
+                    // Every walk waits for the others, it would time out if they ran one by one
+                    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+                    StatsQuery variant = invocation.getArgument(2);
+                    TimeSerieStat stat = new TimeSerieStat();
+                    stat.setId(variant.getSwipeUpAttributionWindow() + "/" + variant.getViewAttributionWindow());
+                    return Collections.singletonList(new Pagination<>(1, Collections.singletonList(stat)));
+                });
+        Map<AttributionWindows, List<Pagination<TimeSerieStat>>> results = fanOut.fetch(TOKEN, TimeSerieTypeEnum.AD_SQUAD, "sq1", query, windows);
+        assertThat(results.keySet()).containsExactlyElementsOf(windows);
+        assertThat(results.get(windows.get(0)).get(0).getResults().get(0).getId()).isEqualTo("ONE_DAY/ONE_HOUR");
+        assertThat(results.get(new AttributionWindows(SwipeUpAttributionWindowEnum.TWENTY_EIGHT_DAY, null))
+                .get(0).getResults().get(0).getId()).isEqualTo("TWENTY_EIGHT_DAY/null");
+    }// test_fetch_runs_each_pair_concurrently()
+
+    @Test
+    public void test_fetch_keeps_base_query() throws Exception {
+        Mockito.when(snapStats.getCampaignStats(Mockito.eq(TOKEN), Mockito.eq("c1"), Mockito.any(StatsQuery.class)))
+                .thenAnswer(invocation -> {
+                    StatsQuery variant = invocation.getArgument(2);
+                    assertThat(variant.getLimit()).isEqualTo(50);
+                    assertThat(variant.getGranularity()).isEqualTo(GranularityEnum.TOTAL);
+                    assertThat(variant.getQueryString()).contains("swipe_up_attribution_window=");
+                    return Collections.emptyList();
+                });
+        assertThat(fanOut.fetch(TOKEN, TimeSerieTypeEnum.CAMPAIGN, "c1", query, windows)).hasSize(3);
+        Mockito.verify(snapStats, Mockito.times(3)).getCampaignStats(Mockito.eq(TOKEN), Mockito.eq("c1"), Mockito.any(StatsQuery.class));
+    }// test_fetch_keeps_base_query()
+
+    @Test
+    public void test_fetch_should_rethrow_error_of_a_walk() throws Exception {
+        Mockito.when(snapStats.getAdStats(Mockito.eq(TOKEN), Mockito.eq("ad1"), Mockito.any(StatsQuery.class)))
+                .thenThrow(new SnapResponseErrorException("Error 500", 500));
+        assertThatThrownBy(() -> fanOut.fetch(TOKEN, TimeSerieTypeEnum.AD, "ad1", query, windows))
+                .isInstanceOf(SnapResponseErrorException.class).hasMessage("Error 500");
+    }// test_fetch_should_rethrow_error_of_a_walk()
+
+    @Test
+    public void test_fetch_should_throw_SnapArgumentException() {
+        assertThatThrownBy(() -> fanOut.fetch(TOKEN, TimeSerieTypeEnum.PIXEL, null, null, Collections.emptyList()))
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("Type must be CAMPAIGN, AD_ACCOUNT, AD_SQUAD or AD,ID is required,Stats query is required,"
+                        + "At least one pair of attribution windows is required");
+        assertThatThrownBy(() -> new AttributionWindowFanOut.Builder().setThreads(0).build())
+                .isInstanceOf(SnapArgumentException.class).hasMessage("SnapStats is required,At least one thread is required");
+    }// test_fetch_should_throw_SnapArgumentException()
+
+}// AttributionWindowFanOutTest
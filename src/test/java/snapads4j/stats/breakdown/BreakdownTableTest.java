@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.breakdown;
+
+import org.junit.Test;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.SnapHttpResponseTimeseriesStat;
+import snapads4j.model.stats.TimeSerieStat;
+import snapads4j.utils.JsonUtils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BreakdownTableTest {
+
+    private static final String BREAKDOWN_AD = "{\"request_status\":\"SUCCESS\",\"timeseries_stats\":[{\"sub_request_status\":\"SUCCESS\",\"timeseries_stat\":{"
+            + "\"id\":\"c1\",\"type\":\"CAMPAIGN\",\"granularity\":\"DAY\",\"breakdown_stats\":{\"ad\":["
+            + "{\"id\":\"ad1\",\"type\":\"AD\",\"granularity\":\"DAY\",\"timeseries\":["
+            + "{\"start_time\":\"2020-01-01T00:00:00.000-08:00\",\"end_time\":\"2020-01-02T00:00:00.000-08:00\",\"stats\":{\"impressions\":100,\"spend\":2000}},"
+            + "{\"start_time\":\"2020-01-02T00:00:00.000-08:00\",\"end_time\":\"2020-01-03T00:00:00.000-08:00\",\"stats\":{\"impressions\":150,\"spend\":3000}}]},"
+            + "{\"id\":\"ad2\",\"type\":\"AD\",\"granularity\":\"DAY\",\"timeseries\":["
+            + "{\"start_time\":\"2020-01-01T00:00:00.000-08:00\",\"end_time\":\"2020-01-02T00:00:00.000-08:00\",\"stats\":{\"impressions\":50}}]}]},"
+            + "\"start_time\":\"2020-01-01T00:00:00.000-08:00\",\"end_time\":\"2020-01-03T00:00:00.000-08:00\"}}]}";
+
+    private static final String DIMENSION_COUNTRY = "{\"request_status\":\"SUCCESS\",\"timeseries_stats\":[{\"sub_request_status\":\"SUCCESS\",\"timeseries_stat\":{"
+            + "\"id\":\"sq1\",\"type\":\"AD_SQUAD\",\"granularity\":\"DAY\",\"timeseries\":["
+            + "{\"start_time\":\"2020-01-01T00:00:00.000-08:00\",\"end_time\":\"2020-01-02T00:00:00.000-08:00\",\"dimension_stats\":["
+            + "{\"impressions\":70,\"swipes\":7,\"country\":\"us\"},{\"impressions\":30,\"swipes\":1,\"country\":\"fr\"}]}]}}]}";
+
+    @Test
+    public void test_decode_ad_breakdown() throws IOException {
+        BreakdownTable table = new BreakdownTable();
+        table.addAll(pages(BREAKDOWN_AD));
+        assertThat(table.size()).isEqualTo(3);
+        assertThat(table.getParentId(0)).isEqualTo("c1");
+        assertThat(table.getChildId(0)).isEqualTo("ad1");
+        assertThat(table.getChildType(0)).isEqualTo(TimeSerieTypeEnum.AD);
+        assertThat(table.getDimensionKey(0)).isNull();
+        assertThat(table.getStartTime(1).getTime()).isEqualTo(table.getEndTime(0).getTime());
+        assertThat(table.getChildId(2)).isEqualTo("ad2");
+        assertThat(table.getMetricColumn(StatMetricEnum.IMPRESSIONS)).containsExactly(100L, 150L, 50L);
+        assertThat(table.getMetricColumn(StatMetricEnum.SPEND)).containsExactly(2000L, 3000L, 0L);
+        assertThat(table.getMetricColumn(StatMetricEnum.SWIPES)).containsExactly(0L, 0L, 0L);
+        assertThat(table.getEntityDictionary().size()).isEqualTo(3);
+    }// test_decode_ad_breakdown()
+
+    @Test
+    public void test_decode_report_dimension() throws IOException {
+        BreakdownTable table = new BreakdownTable();
+        table.addAll(pages(DIMENSION_COUNTRY));
+        table.addAll(pages(DIMENSION_COUNTRY));
+        assertThat(table.size()).isEqualTo(4);
+        assertThat(table.getParentId(0)).isEqualTo("sq1");
+        assertThat(table.getChildId(0)).isEqualTo("sq1");
+        assertThat(table.getDimensionKey(0)).isEqualTo("country=us");
+        assertThat(table.getDimensionKey(1)).isEqualTo("country=fr");
+        assertThat(table.getDimensionDictionary().size()).isEqualTo(2);
+        assertThat(table.getMetric(1, StatMetricEnum.IMPRESSIONS)).isEqualTo(30L);
+        assertThat(table.getMetric(1, StatMetricEnum.SWIPES)).isEqualTo(1L);
+    }// test_decode_report_dimension()
+
+    @Test
+    public void test_ignore_stats_without_id() {
+        BreakdownTable table = new BreakdownTable();
+        table.addPage(new Pagination<>(1, Collections.singletonList(new TimeSerieStat())));
+        assertThat(table.size()).isZero();
+        assertThatThrownBy(() -> table.getChildId(0)).isInstanceOf(IndexOutOfBoundsException.class);
+    }// test_ignore_stats_without_id()
+
+    private static List<Pagination<TimeSerieStat>> pages(String json) throws IOException {
+        SnapHttpResponseTimeseriesStat response = JsonUtils.initMapper().readValue(json, SnapHttpResponseTimeseriesStat.class);
+        return Collections.singletonList(new Pagination<>(1, response.getTimeseriesStats()));
+    }// pages()
+
+}// BreakdownTableTest
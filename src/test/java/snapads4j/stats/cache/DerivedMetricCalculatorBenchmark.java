@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snapads4j.enums.DerivedMetricEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.model.stats.Stat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Derived metrics computed object by object from {@link Stat} getters vs computed over columns.
+ * <p>
+ * Run : mvn -Pbenchmarks test-compile exec:exec -Dbenchmark.include=DerivedMetricCalculatorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DerivedMetricCalculatorBenchmark {
+
+    private static final DerivedMetricEnum[] METRICS = {DerivedMetricEnum.CPM, DerivedMetricEnum.CPC,
+            DerivedMetricEnum.ROAS, DerivedMetricEnum.COMPLETION_RATE};
+
+    @Param({"1000000"})
+    private int size;
+
+    private List<Stat> stats;
+
+    private long[][] columns;
+
+    private DerivedMetricCalculator calculator;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        stats = new ArrayList<>(size);
+        columns = new long[StatMetricEnum.values().length][];
+        for (StatMetricEnum metric : new StatMetricEnum[]{StatMetricEnum.SPEND, StatMetricEnum.IMPRESSIONS,
+                StatMetricEnum.SWIPES, StatMetricEnum.CONVERSION_PURCHASES_VALUE, StatMetricEnum.VIEW_COMPLETION}) {
+            columns[metric.ordinal()] = new long[size];
+        }
+        for (int i = 0; i < size; i++) {
+            Stat stat = new Stat();
+            stat.setSpend(random.nextInt(50_000_000));
+            stat.setImpressions(random.nextInt(10_000));
+            stat.setSwipes(random.nextInt(100));
+            stat.setConversionPurchasesValue(random.nextInt(100_000_000));
+            stat.setViewCompletion(random.nextInt(1_000));
+            stats.add(stat);
+            columns[StatMetricEnum.SPEND.ordinal()][i] = stat.getSpend();
+            columns[StatMetricEnum.IMPRESSIONS.ordinal()][i] = stat.getImpressions();
+            columns[StatMetricEnum.SWIPES.ordinal()][i] = stat.getSwipes();
+            columns[StatMetricEnum.CONVERSION_PURCHASES_VALUE.ordinal()][i] = stat.getConversionPurchasesValue();
+            columns[StatMetricEnum.VIEW_COMPLETION.ordinal()][i] = stat.getViewCompletion();
+        }
+        calculator = new DerivedMetricCalculator(Arrays.asList(METRICS));
+    }// setUp()
+
+    @Benchmark
+    public double[][] objectPath() {
+        double[][] results = new double[METRICS.length][size];
+        for (int i = 0; i < size; i++) {
+            Stat stat = stats.get(i);
+            Integer spend = stat.getSpend();
+            Integer impressions = stat.getImpressions();
+            Integer swipes = stat.getSwipes();
+            Integer purchasesValue = stat.getConversionPurchasesValue();
+            Integer completion = stat.getViewCompletion();
+            results[0][i] = spend != null && impressions != null && impressions != 0 ? spend / 1_000_000. / impressions * 1000 : Double.NaN;
+            results[1][i] = spend != null && swipes != null && swipes != 0 ? spend / 1_000_000. / swipes : Double.NaN;
+            results[2][i] = purchasesValue != null && spend != null && spend != 0 ? purchasesValue / (double) spend : Double.NaN;
+            results[3][i] = completion != null && impressions != null && impressions != 0 ? completion / (double) impressions : Double.NaN;
+        }
+        return results;
+    }// objectPath()
+
+    @Benchmark
+    public DerivedMetricColumns columnarPath() {
+        return calculator.compute(columns, size);
+    }// columnarPath()
+
+}// DerivedMetricCalculatorBenchmark
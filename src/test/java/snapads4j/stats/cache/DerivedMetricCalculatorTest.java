@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import org.junit.Test;
+import snapads4j.enums.AggregateEnum;
+import snapads4j.enums.DerivedMetricEnum;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.StatsGroupByEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.stats.Stat;
+import snapads4j.model.stats.TimeSerieStat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+public class DerivedMetricCalculatorTest {
+
+    @Test
+    public void test_compute_derived_metrics_over_columns() {
+        long[][] columns = new long[StatMetricEnum.values().length][];
+        columns[StatMetricEnum.SPEND.ordinal()] = new long[]{5_000_000L, 0L, 2_000_000L};
+        columns[StatMetricEnum.IMPRESSIONS.ordinal()] = new long[]{1000L, 0L, 4000L};
+        columns[StatMetricEnum.SWIPES.ordinal()] = new long[]{10L, 5L, 0L};
+        columns[StatMetricEnum.CONVERSION_PURCHASES_VALUE.ordinal()] = new long[]{15_000_000L, 0L, 1_000_000L};
+        DerivedMetricCalculator calculator = new DerivedMetricCalculator(Arrays.asList(DerivedMetricEnum.CPM,
+                DerivedMetricEnum.CPC, DerivedMetricEnum.ROAS, DerivedMetricEnum.COMPLETION_RATE));
+        DerivedMetricColumns result = calculator.compute(columns, 3);
+        assertThat(result.getSize()).isEqualTo(3);
+        assertThat(result.get(DerivedMetricEnum.CPM)).containsExactly(5., Double.NaN, 0.5);
+        assertThat(result.get(DerivedMetricEnum.CPC)).containsExactly(0.5, 0., Double.NaN);
+        assertThat(result.get(DerivedMetricEnum.ROAS)).containsExactly(3., Double.NaN, 0.5);
+        // view_completion column is missing : read as 0
+        assertThat(result.get(DerivedMetricEnum.COMPLETION_RATE)).containsExactly(0., Double.NaN, 0.);
+        assertThat(result.get(DerivedMetricEnum.ECPI)).isNull();
+        assertThat(result.get(DerivedMetricEnum.ECPI, 0)).isNaN();
+        assertThat(calculator.getRequiredMetrics()).containsExactlyInAnyOrder(StatMetricEnum.SPEND, StatMetricEnum.IMPRESSIONS,
+                StatMetricEnum.SWIPES, StatMetricEnum.CONVERSION_PURCHASES_VALUE, StatMetricEnum.VIEW_COMPLETION);
+    }// test_compute_derived_metrics_over_columns()
+
+    @Test
+    public void test_compute_derived_metrics_over_cache() throws SnapArgumentException {
+        StatsCache cache = new StatsCache(GranularityEnum.TOTAL);
+        cache.add(stat("ad1", 3_000_000, 1500, 30));
+        cache.add(stat("ad2", 1_000_000, 500, 0));
+        DerivedMetricColumns result = new DerivedMetricCalculator(Collections.singletonList(DerivedMetricEnum.CPM)).compute(cache);
+        assertThat(cache.getEntityId(0)).isEqualTo("ad1");
+        assertThat(cache.getStartTime(1)).isEqualTo(new Date(0));
+        assertThat(result.get(DerivedMetricEnum.CPM, 0)).isEqualTo(2., offset(1e-9));
+        assertThat(result.get(DerivedMetricEnum.CPM, 1)).isEqualTo(2., offset(1e-9));
+        StatsCacheResult total = cache.query(new StatsCacheQuery.Builder()
+                .addGroupBy(StatsGroupByEnum.ENTITY)
+                .addDerived(DerivedMetricEnum.CPC)
+                .addAggregate("spend", StatMetricEnum.SPEND, AggregateEnum.SUM)
+                .setOrderBy("spend", false)
+                .build());
+        assertThat(total.getRows().get(0).getValue("cpc")).isNaN();
+        assertThat(total.getRows().get(1).getValue("cpc")).isEqualTo(0.1, offset(1e-9));
+    }// test_compute_derived_metrics_over_cache()
+
+    private static TimeSerieStat stat(String adID, int spend, int impressions, int swipes) {
+        TimeSerieStat stat = new TimeSerieStat();
+        stat.setId(adID);
+        stat.setType(TimeSerieTypeEnum.AD);
+        stat.setGranularity(GranularityEnum.TOTAL);
+        Stat values = new Stat();
+        values.setSpend(spend);
+        values.setImpressions(impressions);
+        values.setSwipes(swipes);
+        stat.setStats(values);
+        return stat;
+    }// stat()
+
+}// DerivedMetricCalculatorTest
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import snapads4j.enums.AggregateEnum;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.StatsGroupByEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.Pagination;
+import snapads4j.model.ads.Ad;
+import snapads4j.model.adsquads.AdSquad;
+import snapads4j.model.stats.Stat;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StatsCacheTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    /**
+     * 2020-01-01T00:00:00Z
+     */
+    private static final long T0 = 1577836800000L;
+
+    private StatsCache cache;
+
+    @Before
+    public void setUp() throws SnapArgumentException {
+        cache = new StatsCache(GranularityEnum.HOUR);
+        cache.registerAdSquad(adSquad("sq1", "c1"));
+        cache.registerAdSquad(adSquad("sq2", "c2"));
+        cache.registerAd(ad("ad1", "sq1"));
+        cache.registerAd(ad("ad2", "sq1"));
+        cache.registerAd(ad("ad3", "sq2"));
+        List<Pagination<TimeSerieStat>> pages = new ArrayList<>();
+        pages.add(new Pagination<>(1, Collections.singletonList(stat("ad1", 48, 10, 1000))));
+        pages.add(new Pagination<>(2, Collections.singletonList(stat("ad2", 48, 20, 2000))));
+        pages.add(new Pagination<>(3, Collections.singletonList(stat("ad3", 48, 30, 4000))));
+        cache.addAll(pages);
+    }// setUp()
+
+    @Test
+    public void test_sum_spend_by_campaign() throws SnapArgumentException {
+        StatsCacheResult result = cache.query(new StatsCacheQuery.Builder()
+                .addGroupBy(StatsGroupByEnum.CAMPAIGN)
+                .addAggregate("spend", StatMetricEnum.SPEND, AggregateEnum.SUM)
+                .setOrderBy("spend", true)
+                .build());
+        assertThat(cache.size()).isEqualTo(144);
+        assertThat(result.getRows()).hasSize(2);
+        assertThat(result.getRows().get(0).getKeys()).containsExactly("c2");
+        assertThat(result.getRows().get(0).getValue("spend")).isEqualTo(48 * 4000.);
+        assertThat(result.getRows().get(1).getKeys()).containsExactly("c1");
+        assertThat(result.getRows().get(1).getValue("spend")).isEqualTo(48 * 3000.);
+    }// test_sum_spend_by_campaign()
+
+    @Test
+    public void test_top_ads_by_swipes_with_time_filter() throws SnapArgumentException {
+        StatsCacheResult result = cache.query(new StatsCacheQuery.Builder()
+                .setStartTime(new Date(T0 + 24 * HOUR))
+                .setEndTime(new Date(T0 + 30 * HOUR))
+                .addGroupBy(StatsGroupByEnum.ENTITY)
+                .addAggregate("swipes", StatMetricEnum.SWIPES, AggregateEnum.SUM)
+                .addAggregate("points", StatMetricEnum.SWIPES, AggregateEnum.COUNT)
+                .setOrderBy("swipes", true)
+                .setLimit(2)
+                .build());
+        assertThat(result.getRows()).hasSize(2);
+        assertThat(result.getRows().get(0).getKeys()).containsExactly("ad3");
+        assertThat(result.getRows().get(0).getValue("swipes")).isEqualTo(6 * 30.);
+        assertThat(result.getRows().get(0).getValue("points")).isEqualTo(6.);
+        assertThat(result.getRows().get(1).getKeys()).containsExactly("ad2");
+    }// test_top_ads_by_swipes_with_time_filter()
+
+    @Test
+    public void test_group_by_ad_squad_and_day_with_ratio() throws SnapArgumentException {
+        StatsCacheResult result = cache.query(new StatsCacheQuery.Builder()
+                .setCampaignIds(Collections.singletonList("c1"))
+                .addGroupBy(StatsGroupByEnum.AD_SQUAD)
+                .addGroupBy(StatsGroupByEnum.DAY)
+                .addRatio("cpc", StatMetricEnum.SPEND, StatMetricEnum.SWIPES, 1.)
+                .addAggregate("max_spend", StatMetricEnum.SPEND, AggregateEnum.MAX)
+                .addAggregate("avg_swipes", StatMetricEnum.SWIPES, AggregateEnum.AVG)
+                .build());
+        assertThat(result.getRows()).hasSize(2);
+        for (StatsCacheResultRow row : result.getRows()) {
+            assertThat(row.getKeys().get(0)).isEqualTo("sq1");
+            assertThat(row.getKeys().get(1)).isIn("2020-01-01", "2020-01-02");
+            assertThat(row.getValue("cpc")).isEqualTo(24 * 3000. / (24 * 30.));
+            assertThat(row.getValue("max_spend")).isEqualTo(2000.);
+            assertThat(row.getValue("avg_swipes")).isEqualTo(15.);
+        }
+    }// test_group_by_ad_squad_and_day_with_ratio()
+
+    @Test
+    public void test_ratio_without_denominator_is_nan() throws SnapArgumentException {
+        StatsCacheResult result = cache.query(new StatsCacheQuery.Builder()
+                .addRatio("cpm", StatMetricEnum.SPEND, StatMetricEnum.IMPRESSIONS, 1000.)
+                .build());
+        assertThat(result.getRows()).hasSize(1);
+        assertThat(result.getRows().get(0).getKeys()).isEmpty();
+        assertThat(result.getRows().get(0).getValue("cpm")).isNaN();
+    }// test_ratio_without_denominator_is_nan()
+
+    @Test
+    public void test_add_same_bucket_overwrites_row() throws SnapArgumentException {
+        cache.add(stat("ad1", 1, 99, 1));
+        StatsCacheResult result = cache.query(new StatsCacheQuery.Builder()
+                .setEntityIds(Collections.singletonList("ad1"))
+                .setEndTime(new Date(T0 + HOUR))
+                .addAggregate("swipes", StatMetricEnum.SWIPES, AggregateEnum.SUM)
+                .build());
+        assertThat(cache.size()).isEqualTo(144);
+        assertThat(result.getRows().get(0).getValue("swipes")).isEqualTo(99.);
+    }// test_add_same_bucket_overwrites_row()
+
+    @Test
+    public void test_overwrite_row_should_not_change_a_running_snapshot() throws SnapArgumentException {
+        StatsCache.Snapshot snapshot = cache.snapshot();
+        long[] swipes = snapshot.getMetrics()[StatMetricEnum.SWIPES.ordinal()];
+        cache.add(stat("ad1", 1, 99, 1));
+        assertThat(swipes[0]).isEqualTo(10L);
+        assertThat(cache.snapshot().getMetrics()[StatMetricEnum.SWIPES.ordinal()][0]).isEqualTo(99L);
+    }// test_overwrite_row_should_not_change_a_running_snapshot()
+
+    @Test
+    public void test_built_query_should_not_change_with_its_builder() throws SnapArgumentException {
+        StatsCacheQuery.Builder builder = new StatsCacheQuery.Builder()
+                .addGroupBy(StatsGroupByEnum.CAMPAIGN)
+                .addAggregate("spend", StatMetricEnum.SPEND, AggregateEnum.SUM);
+        StatsCacheQuery query = builder.build();
+        builder.addGroupBy(StatsGroupByEnum.DAY).addAggregate("swipes", StatMetricEnum.SWIPES, AggregateEnum.SUM);
+        assertThat(query.getGroupBy()).containsExactly(StatsGroupByEnum.CAMPAIGN);
+        assertThat(query.getMeasures()).hasSize(1);
+        assertThatThrownBy(() -> query.getGroupBy().add(StatsGroupByEnum.DAY))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> query.getMeasures().clear())
+                .isInstanceOf(UnsupportedOperationException.class);
+    }// test_built_query_should_not_change_with_its_builder()
+
+    @Test
+    public void test_parallel_scan_on_large_cache() throws SnapArgumentException {
+        StatsCache large = new StatsCache(GranularityEnum.HOUR);
+        int hours = 24 * 30;
+        for (int i = 0; i < 300; i++) {
+            large.add(stat("ad" + i, hours, i % 7, 10));
+        }
+        StatsCacheResult result = large.query(new StatsCacheQuery.Builder()
+                .addGroupBy(StatsGroupByEnum.DAY)
+                .addAggregate("swipes", StatMetricEnum.SWIPES, AggregateEnum.SUM)
+                .addAggregate("min", StatMetricEnum.SWIPES, AggregateEnum.MIN)
+                .build());
+        long swipesByHour = 0;
+        for (int i = 0; i < 300; i++) {
+            swipesByHour += i % 7;
+        }
+        assertThat(large.size()).isGreaterThan(StatsCacheScanTask.THRESHOLD);
+        assertThat(result.getRows()).hasSize(30);
+        for (StatsCacheResultRow row : result.getRows()) {
+            assertThat(row.getValue("swipes")).isEqualTo(24. * swipesByHour);
+            assertThat(row.getValue("min")).isEqualTo(0.);
+        }
+    }// test_parallel_scan_on_large_cache()
+
+    @Test
+    public void test_add_other_granularity_should_throw_SnapArgumentException() {
+        TimeSerieStat stat = stat("ad1", 1, 1, 1);
+        stat.setGranularity(GranularityEnum.DAY);
+        assertThatThrownBy(() -> cache.add(stat)).isInstanceOf(SnapArgumentException.class)
+                .hasMessage("Granularity DAY can't be cached with granularity HOUR");
+    }// test_add_other_granularity_should_throw_SnapArgumentException()
+
+    @Test
+    public void test_query_builder_should_throw_SnapArgumentException() {
+        assertThatThrownBy(() -> new StatsCacheQuery.Builder()
+                .addAggregate("spend", StatMetricEnum.SPEND, AggregateEnum.SUM)
+                .addAggregate("spend", StatMetricEnum.SPEND, AggregateEnum.MAX)
+                .setOrderBy("swipes", true)
+                .build()).isInstanceOf(SnapArgumentException.class)
+                .hasMessage("Measure alias spend is duplicated,Order by must be a measure alias");
+        assertThatThrownBy(() -> new StatsCacheQuery.Builder().build())
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("At least one measure is required");
+    }// test_query_builder_should_throw_SnapArgumentException()
+
+    private static TimeSerieStat stat(String adID, int hours, int swipes, int spend) {
+        TimeSerieStat stat = new TimeSerieStat();
+        stat.setId(adID);
+        stat.setType(TimeSerieTypeEnum.AD);
+        stat.setGranularity(GranularityEnum.HOUR);
+        List<TimeSerie> series = new ArrayList<>();
+        for (int h = 0; h < hours; h++) {
+            TimeSerie serie = new TimeSerie();
+            serie.setStartTime(new Date(T0 + h * HOUR));
+            serie.setEndTime(new Date(T0 + (h + 1) * HOUR));
+            Stat values = new Stat();
+            values.setSwipes(swipes);
+            values.setSpend(spend);
+            serie.setStats(values);
+            series.add(serie);
+        }
+        stat.setTimeseries(series);
+        return stat;
+    }// stat()
+
+    private static AdSquad adSquad(String id, String campaignID) {
+        AdSquad adSquad = new AdSquad();
+        adSquad.setId(id);
+        adSquad.setCampaignId(campaignID);
+        return adSquad;
+    }// adSquad()
+
+    private static Ad ad(String id, String adSquadID) {
+        Ad ad = new Ad();
+        ad.setId(id);
+        ad.setAdSquadId(adSquadID);
+        return ad;
+    }// ad()
+
+}// StatsCacheTest
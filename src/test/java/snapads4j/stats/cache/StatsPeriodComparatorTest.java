@@ -0,0 +1,246 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.Stat;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+import snapads4j.stats.SnapStatsInterface;
+import snapads4j.stats.StatsQuery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StatsPeriodComparatorTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private static final long WEEK = 7 * 24 * HOUR;
+
+    /**
+     * 2020-01-08T00:00:00Z
+     */
+    private static final long T0 = 1578441600000L;
+
+    private static final String TOKEN = "token";
+
+    @Mock
+    private SnapStatsInterface snapStats;
+
+    private StatsCache cache;
+
+    private StatsPeriodComparator comparator;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new StatsCache(GranularityEnum.HOUR);
+        comparator = new StatsPeriodComparator(snapStats, cache);
+        Mockito.when(snapStats.getCampaignStats(Mockito.eq(TOKEN), Mockito.eq("c1"), Mockito.any(StatsQuery.class)))
+                .thenAnswer(invocation -> answer(invocation.getArgument(2)));
+    }// setUp()
+
+    @Test
+    public void test_compare_fetches_each_period_once() throws Exception {
+        StatsPeriodComparison comparison = comparator.compare(TOKEN, TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(T0),
+                new Date(T0 - WEEK), 3, Arrays.asList(StatMetricEnum.SPEND, StatMetricEnum.IMPRESSIONS));
+        assertThat(comparison.getBuckets()).isEqualTo(3);
+        assertThat(comparison.getCurrent(StatMetricEnum.SPEND)).containsExactly(150L, 150L, 150L);
+        assertThat(comparison.getPrevious(StatMetricEnum.SPEND)).containsExactly(100L, 100L, 100L);
+        assertThat(comparison.getDeltas(StatMetricEnum.SPEND)).containsExactly(50L, 50L, 50L);
+        assertThat(comparison.getChanges(StatMetricEnum.SPEND)).containsExactly(50., 50., 50.);
+        assertThat(comparison.getTotalDelta(StatMetricEnum.SPEND)).isEqualTo(150L);
+        assertThat(comparison.getTotalChange(StatMetricEnum.SPEND)).isEqualTo(50.);
+        assertThat(comparison.getTotalChange(StatMetricEnum.IMPRESSIONS)).isZero();
+        Mockito.verify(snapStats, Mockito.times(2)).getCampaignStats(Mockito.eq(TOKEN), Mockito.eq("c1"), Mockito.any(StatsQuery.class));
+        // Both periods are cached now
+        comparator.compare(TOKEN, TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(T0 + HOUR),
+                new Date(T0 + HOUR - WEEK), 2, Collections.singletonList(StatMetricEnum.SPEND));
+        Mockito.verify(snapStats, Mockito.times(2)).getCampaignStats(Mockito.eq(TOKEN), Mockito.eq("c1"), Mockito.any(StatsQuery.class));
+    }// test_compare_fetches_each_period_once()
+
+    @Test
+    public void test_compare_fetches_only_missing_buckets() throws Exception {
+        cache.add(stat("c1", T0 - WEEK, 4));
+        cache.add(stat("c1", T0, 1));
+        StatsPeriodComparison comparison = comparator.compare(TOKEN, TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(T0),
+                new Date(T0 - WEEK), 4, Collections.singletonList(StatMetricEnum.SPEND));
+        ArgumentCaptor<StatsQuery> captor = ArgumentCaptor.forClass(StatsQuery.class);
+        Mockito.verify(snapStats, Mockito.times(1)).getCampaignStats(Mockito.eq(TOKEN), Mockito.eq("c1"), captor.capture());
+        assertThat(captor.getValue().getStartTime()).isEqualTo(new Date(T0 + HOUR));
+        assertThat(captor.getValue().getEndTime()).isEqualTo(new Date(T0 + 4 * HOUR));
+        assertThat(captor.getValue().getGranularity()).isEqualTo(GranularityEnum.HOUR);
+        assertThat(comparison.getCurrentTotal(StatMetricEnum.SPEND)).isEqualTo(600L);
+        assertThat(comparison.getPreviousTotal(StatMetricEnum.SPEND)).isEqualTo(400L);
+    }// test_compare_fetches_only_missing_buckets()
+
+    @Test
+    public void test_day_buckets_follow_the_time_zone_of_the_ad_account() throws Exception {
+        TimeZone newYork = TimeZone.getTimeZone("America/New_York");
+        StatsCache days = new StatsCache(GranularityEnum.DAY);
+        // Daylight saving time starts on 2020-03-08 in New York : this day lasts 23 hours
+        Calendar calendar = Calendar.getInstance(newYork);
+        calendar.clear();
+        calendar.set(2020, Calendar.MARCH, 7);
+        List<Date> midnights = new ArrayList<>();
+        for (int day = 0; day < 3; day++) {
+            midnights.add(calendar.getTime());
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        assertThat(midnights.get(2).getTime() - midnights.get(1).getTime()).isEqualTo(23 * HOUR);
+        List<TimeSerie> series = new ArrayList<>();
+        for (Date midnight : midnights) {
+            Stat stats = new Stat();
+            stats.setSpend(100);
+            TimeSerie serie = new TimeSerie();
+            serie.setStartTime(midnight);
+            serie.setStats(stats);
+            series.add(serie);
+        }
+        TimeSerieStat stat = new TimeSerieStat();
+        stat.setId("c1");
+        stat.setGranularity(GranularityEnum.DAY);
+        stat.setTimeseries(series);
+        days.add(stat);
+
+        StatsPeriodComparison comparison = new StatsPeriodComparator(snapStats, days, newYork).compare(TOKEN,
+                TimeSerieTypeEnum.CAMPAIGN, "c1", midnights.get(0), midnights.get(0), 3,
+                Collections.singletonList(StatMetricEnum.SPEND));
+        assertThat(comparison.getCurrent(StatMetricEnum.SPEND)).containsExactly(100L, 100L, 100L);
+        Mockito.verify(snapStats, Mockito.never()).getCampaignStats(Mockito.anyString(), Mockito.anyString(), Mockito.any(StatsQuery.class));
+    }// test_day_buckets_follow_the_time_zone_of_the_ad_account()
+
+    @Test
+    public void test_buckets_cached_without_a_wanted_metric_are_fetched() throws Exception {
+        comparator.compare(TOKEN, TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(T0), new Date(T0 - WEEK), 3,
+                Collections.singletonList(StatMetricEnum.SPEND));
+        Mockito.verify(snapStats, Mockito.times(2)).getCampaignStats(Mockito.eq(TOKEN), Mockito.eq("c1"), Mockito.any(StatsQuery.class));
+
+        // Impressions weren't fetched : both periods are fetched again
+        StatsPeriodComparison comparison = comparator.compare(TOKEN, TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(T0),
+                new Date(T0 - WEEK), 3, Arrays.asList(StatMetricEnum.SPEND, StatMetricEnum.IMPRESSIONS));
+        Mockito.verify(snapStats, Mockito.times(4)).getCampaignStats(Mockito.eq(TOKEN), Mockito.eq("c1"), Mockito.any(StatsQuery.class));
+        assertThat(comparison.getCurrent(StatMetricEnum.SPEND)).containsExactly(150L, 150L, 150L);
+        assertThat(comparison.getCurrent(StatMetricEnum.IMPRESSIONS)).containsExactly(10L, 10L, 10L);
+        assertThat(comparison.getPrevious(StatMetricEnum.IMPRESSIONS)).containsExactly(10L, 10L, 10L);
+    }// test_buckets_cached_without_a_wanted_metric_are_fetched()
+
+    @Test
+    public void test_fetch_keeps_the_metrics_it_did_not_request() throws Exception {
+        cache.add(stat("c1", T0 + HOUR, 1, 500));
+        cache.add(stat("c1", T0 + HOUR - WEEK, 1, 500));
+        // Buckets 0 and 2 are missing : bucket 1 is fetched again with spend only
+        StatsPeriodComparison comparison = comparator.compare(TOKEN, TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(T0),
+                new Date(T0 - WEEK), 3, Collections.singletonList(StatMetricEnum.SPEND));
+        assertThat(comparison.getCurrent(StatMetricEnum.SPEND)).containsExactly(150L, 150L, 150L);
+
+        comparison = comparator.compare(TOKEN, TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(T0 + HOUR),
+                new Date(T0 + HOUR - WEEK), 1, Collections.singletonList(StatMetricEnum.IMPRESSIONS));
+        assertThat(comparison.getCurrent(StatMetricEnum.IMPRESSIONS)).containsExactly(10L);
+        Mockito.verify(snapStats, Mockito.times(2)).getCampaignStats(Mockito.eq(TOKEN), Mockito.eq("c1"), Mockito.any(StatsQuery.class));
+    }// test_fetch_keeps_the_metrics_it_did_not_request()
+
+    @Test
+    public void test_change_is_nan_when_previous_is_zero() throws Exception {
+        cache.add(stat("c1", T0 - WEEK, 1, 0));
+        StatsPeriodComparison comparison = comparator.compare(TOKEN, TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(T0),
+                new Date(T0 - WEEK), 1, Collections.singletonList(StatMetricEnum.SPEND));
+        assertThat(comparison.getDeltas(StatMetricEnum.SPEND)).containsExactly(150L);
+        assertThat(comparison.getChanges(StatMetricEnum.SPEND)[0]).isNaN();
+        assertThatThrownBy(() -> comparison.getDeltas(StatMetricEnum.SWIPES)).isInstanceOf(IllegalArgumentException.class);
+    }// test_change_is_nan_when_previous_is_zero()
+
+    @Test
+    public void test_compare_should_throw_SnapArgumentException() {
+        assertThatThrownBy(() -> comparator.compare(TOKEN, TimeSerieTypeEnum.PIXEL, "", null, new Date(T0), 0, null))
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("Type must be CAMPAIGN, AD_ACCOUNT, AD_SQUAD or AD,ID is required,"
+                        + "Start of both periods is required,At least one bucket is required,At least one metric is required");
+        assertThatThrownBy(() -> comparator.compare(null, TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(T0), new Date(T0), 1,
+                Collections.singletonList(StatMetricEnum.SPEND))).hasMessage("The OAuthAccessToken is required");
+        assertThatThrownBy(() -> new StatsPeriodComparator(snapStats, new StatsCache(GranularityEnum.TOTAL)))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Granularity of the cache must be HOUR or DAY");
+        assertThatThrownBy(() -> new StatsPeriodComparator(snapStats, cache, null))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Time zone is required");
+    }// test_compare_should_throw_SnapArgumentException()
+
+    /**
+     * Hours of the query, spend is 150 from T0 and 100 before. Like the API, only the fields requested are returned.
+     */
+    private static List<Pagination<TimeSerieStat>> answer(StatsQuery query) {
+        long start = query.getStartTime().getTime();
+        int hours = (int) ((query.getEndTime().getTime() - start) / HOUR);
+        TimeSerieStat stat = stat("c1", start, hours);
+        for (TimeSerie serie : stat.getTimeseries()) {
+            if (!query.getFields().contains(StatMetricEnum.SPEND.getField())) {
+                serie.getStats().setSpend(null);
+            }
+            if (!query.getFields().contains(StatMetricEnum.IMPRESSIONS.getField())) {
+                serie.getStats().setImpressions(null);
+            }
+        }
+        return Collections.singletonList(new Pagination<>(1, Collections.singletonList(stat)));
+    }// answer()
+
+    private static TimeSerieStat stat(String id, long start, int hours) {
+        return stat(id, start, hours, -1);
+    }// stat()
+
+    /**
+     * @param spend Spend of each hour, -1 for the default spend
+     */
+    private static TimeSerieStat stat(String id, long start, int hours, int spend) {
+        List<TimeSerie> series = new ArrayList<>();
+        for (int i = 0; i < hours; i++) {
+            long hour = start + i * HOUR;
+            Stat stats = new Stat();
+            stats.setSpend(spend >= 0 ? spend : hour >= T0 ? 150 : 100);
+            stats.setImpressions(10);
+            TimeSerie serie = new TimeSerie();
+            serie.setStartTime(new Date(hour));
+            serie.setEndTime(new Date(hour + HOUR));
+            serie.setStats(stats);
+            series.add(serie);
+        }
+        TimeSerieStat stat = new TimeSerieStat();
+        stat.setId(id);
+        stat.setType(TimeSerieTypeEnum.CAMPAIGN);
+        stat.setGranularity(GranularityEnum.HOUR);
+        stat.setTimeseries(series);
+        return stat;
+    }// stat()
+
+}// StatsPeriodComparatorTest
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.coalescer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapExecutionException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.Stat;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+import snapads4j.stats.SnapStatsInterface;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StatsRequestCoalescerTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    /**
+     * 2020-01-08T00:00:00Z
+     */
+    private static final long NOW = 1578441600000L;
+
+    private static final String TOKEN = "token";
+
+    private SnapStatsInterface snapStats;
+
+    private StatsRequestCoalescer coalescer;
+
+    @Before
+    public void setUp() throws Exception {
+        snapStats = Mockito.mock(SnapStatsInterface.class);
+        when(snapStats.getCampaignStats(anyString(), anyInt(), anyString(), any(Date.class), any(Date.class), any(GranularityEnum.class),
+                any(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull()))
+                .thenAnswer(StatsRequestCoalescerTest::hourlyStats);
+        coalescer = new StatsRequestCoalescer(snapStats, 200, 60_000L);
+    }// setUp()
+
+    @Test
+    public void test_window_included_in_fetched_window_is_not_fetched() throws Exception {
+        TimeSerieStat week = campaignStats(NOW - 168 * HOUR, NOW);
+        TimeSerieStat day = campaignStats(NOW - 24 * HOUR, NOW);
+        assertThat(week.getTimeseries()).hasSize(168);
+        assertThat(day.getTimeseries()).hasSize(24);
+        assertThat(day.getTimeseries().get(0).getStartTime().getTime()).isEqualTo(NOW - 24 * HOUR);
+        verify(snapStats, times(1)).getCampaignStats(anyString(), anyInt(), anyString(), any(Date.class), any(Date.class), any(GranularityEnum.class),
+                any(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull());
+    }// test_window_included_in_fetched_window_is_not_fetched()
+
+    @Test
+    public void test_only_missing_range_is_fetched() throws Exception {
+        campaignStats(NOW - 24 * HOUR, NOW);
+        TimeSerieStat week = campaignStats(NOW - 168 * HOUR, NOW);
+        assertThat(week.getTimeseries()).hasSize(168);
+        verify(snapStats).getCampaignStats(eq(TOKEN), eq(200), eq("c1"), eq(new Date(NOW - 168 * HOUR)), eq(new Date(NOW - 24 * HOUR)), eq(GranularityEnum.HOUR),
+                isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull());
+    }// test_only_missing_range_is_fetched()
+
+    @Test
+    public void test_different_fields_are_not_shared() throws Exception {
+        campaignStats(NOW - 24 * HOUR, NOW);
+        coalescer.getStats(TOKEN, TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(NOW - 24 * HOUR), new Date(NOW), GranularityEnum.HOUR, Collections.singletonList("spend"));
+        verify(snapStats, times(2)).getCampaignStats(anyString(), anyInt(), anyString(), any(Date.class), any(Date.class), any(GranularityEnum.class),
+                any(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull());
+    }// test_different_fields_are_not_shared()
+
+    @Test
+    public void test_concurrent_request_waits_in_flight_range() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(snapStats.getCampaignStats(anyString(), anyInt(), anyString(), eq(new Date(NOW - 24 * HOUR)), any(Date.class), any(GranularityEnum.class),
+                any(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull()))
+                .thenAnswer(invocation -> {
+                    fetching.countDown();
+                    release.await(10, TimeUnit.SECONDS);
+                    return hourlyStats(invocation);
+                });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<TimeSerieStat> day = executor.submit(() -> campaignStats(NOW - 24 * HOUR, NOW));
+            assertThat(fetching.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<TimeSerieStat> twoDays = executor.submit(() -> campaignStats(NOW - 48 * HOUR, NOW));
+            Thread.sleep(100);
+            assertThat(twoDays.isDone()).isFalse();
+            release.countDown();
+            assertThat(day.get(10, TimeUnit.SECONDS).getTimeseries()).hasSize(24);
+            assertThat(twoDays.get(10, TimeUnit.SECONDS).getTimeseries()).hasSize(48);
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(snapStats).getCampaignStats(eq(TOKEN), eq(200), eq("c1"), eq(new Date(NOW - 48 * HOUR)), eq(new Date(NOW - 24 * HOUR)), eq(GranularityEnum.HOUR),
+                isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull());
+        verify(snapStats, times(2)).getCampaignStats(anyString(), anyInt(), anyString(), any(Date.class), any(Date.class), any(GranularityEnum.class),
+                any(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull());
+    }// test_concurrent_request_waits_in_flight_range()
+
+    @Test
+    public void test_failed_range_is_fetched_again() throws Exception {
+        when(snapStats.getCampaignStats(anyString(), anyInt(), anyString(), any(Date.class), any(Date.class), any(GranularityEnum.class),
+                any(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull()))
+                .thenThrow(new SnapExecutionException("Impossible to get campaign stats", null))
+                .thenAnswer(StatsRequestCoalescerTest::hourlyStats);
+        assertThatThrownBy(() -> campaignStats(NOW - 24 * HOUR, NOW)).isInstanceOf(SnapExecutionException.class);
+        assertThat(campaignStats(NOW - 24 * HOUR, NOW).getTimeseries()).hasSize(24);
+    }// test_failed_range_is_fetched_again()
+
+    @Test
+    public void test_check_params() {
+        assertThatThrownBy(() -> coalescer.getStats(TOKEN, TimeSerieTypeEnum.PIXEL, "", new Date(NOW), new Date(NOW - HOUR), GranularityEnum.TOTAL, null))
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("Entity type must be CAMPAIGN, AD_ACCOUNT, AD_SQUAD or AD,Entity ID is required,Granularity must be HOUR or DAY,StartTime must be before EndTime");
+    }// test_check_params()
+
+    private TimeSerieStat campaignStats(long start, long end) throws Exception {
+        return coalescer.getStats(TOKEN, TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(start), new Date(end), GranularityEnum.HOUR, null);
+    }// campaignStats()
+
+    private static List<Pagination<TimeSerieStat>> hourlyStats(InvocationOnMock invocation) {
+        long start = invocation.<Date>getArgument(3).getTime();
+        long end = invocation.<Date>getArgument(4).getTime();
+        List<TimeSerie> series = new ArrayList<>();
+        for (long time = start; time < end; time += HOUR) {
+            TimeSerie serie = new TimeSerie();
+            serie.setStartTime(new Date(time));
+            serie.setEndTime(new Date(time + HOUR));
+            Stat stat = new Stat();
+            stat.setImpressions((int) ((time - NOW) / HOUR));
+            serie.setStats(stat);
+            series.add(serie);
+        }
+        TimeSerieStat stat = new TimeSerieStat();
+        stat.setId(invocation.getArgument(2));
+        stat.setTimeseries(series);
+        return Collections.singletonList(new Pagination<>(1, Collections.singletonList(stat)));
+    }// hourlyStats()
+
+}// StatsRequestCoalescerTest
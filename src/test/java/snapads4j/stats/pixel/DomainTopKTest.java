@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.pixel;
+
+import org.junit.Test;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.stats.Domain;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DomainTopKTest {
+
+    @Test
+    public void test_top_domains_are_exact_below_capacity() throws SnapArgumentException {
+        DomainTopK topK = new DomainTopK(2);
+        topK.accept(domain("abc.snapchat.com", 30));
+        topK.accept(domain("xyz.snapchat.com", 8));
+        topK.accept(domain("snapchat.com", 180886));
+        topK.accept(domain("abc.snapchat.com", 200000));
+        topK.accept(domain(null, 5));
+        List<DomainCount> top = topK.getTop();
+        assertThat(top).extracting(DomainCount::getDomainName).containsExactly("abc.snapchat.com", "snapchat.com");
+        assertThat(top.get(0).getTotalEvents()).isEqualTo(200030L);
+        assertThat(top.get(0).getMaxError()).isZero();
+        assertThat(topK.getTotalEvents()).isEqualTo(380924L);
+        assertThat(topK.isExact()).isTrue();
+    }// test_top_domains_are_exact_below_capacity()
+
+    @Test
+    public void test_heavy_domains_are_kept_over_capacity() throws SnapArgumentException {
+        DomainTopK topK = new DomainTopK(3, 50);
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            topK.add("small" + i + ".com", random.nextInt(10));
+            if (i % 1000 == 0) {
+                topK.add("big1.com", 5_000);
+                topK.add("big2.com", 3_000);
+                topK.add("big3.com", 1_000);
+            }
+        }
+        List<DomainCount> top = topK.getTop();
+        assertThat(topK.isExact()).isFalse();
+        assertThat(top).extracting(DomainCount::getDomainName).containsExactly("big1.com", "big2.com", "big3.com");
+        // 10 x 5000 events, the count may only be overestimated by its error
+        assertThat(top.get(0).getTotalEvents() - top.get(0).getMaxError()).isLessThanOrEqualTo(50_000L);
+        assertThat(top.get(0).getTotalEvents()).isGreaterThanOrEqualTo(50_000L);
+    }// test_heavy_domains_are_kept_over_capacity()
+
+    @Test
+    public void test_constructor_should_throw_SnapArgumentException() {
+        assertThatThrownBy(() -> new DomainTopK(0, -1)).isInstanceOf(SnapArgumentException.class)
+                .hasMessage("K must be at least 1,Capacity must be at least k");
+    }// test_constructor_should_throw_SnapArgumentException()
+
+    private static Domain domain(String name, int events) {
+        Domain domain = new Domain();
+        domain.setDomainName(name);
+        domain.setTotalEvents(events);
+        return domain;
+    }// domain()
+
+}// DomainTopKTest
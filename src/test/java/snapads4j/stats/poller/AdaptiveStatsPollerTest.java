@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.poller;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.StatusEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.exceptions.SnapResponseErrorException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.Stat;
+import snapads4j.model.stats.TimeSerieStat;
+import snapads4j.stats.SnapStatsInterface;
+import snapads4j.stats.StatsQuery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AdaptiveStatsPollerTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private static final long NOW = 1578441600000L;
+
+    private final AtomicLong clock = new AtomicLong(NOW);
+
+    private final AtomicInteger spend = new AtomicInteger();
+
+    private final List<StatsPollEvent> events = new ArrayList<>();
+
+    private SnapStatsInterface snapStats;
+
+    private AdaptiveStatsPoller poller;
+
+    @Before
+    public void init() throws Exception {
+        snapStats = Mockito.mock(SnapStatsInterface.class);
+        when(snapStats.getCampaignStats(anyString(), anyString(), any(StatsQuery.class))).thenAnswer(invocation -> {
+            Stat stat = new Stat();
+            stat.setSpend(spend.get());
+            TimeSerieStat timeSerieStat = new TimeSerieStat();
+            timeSerieStat.setId(invocation.getArgument(1));
+            timeSerieStat.setStats(stat);
+            return Collections.singletonList(new Pagination<>(1, Collections.singletonList(timeSerieStat)));
+        });
+        poller = new AdaptiveStatsPoller.Builder()
+                .setSnapStats(snapStats)
+                .setOAuthAccessToken("token")
+                .setQuery(new StatsQuery.Builder().setGranularity(GranularityEnum.TOTAL).build())
+                .setMinIntervalMillis(MINUTE)
+                .setMaxIntervalMillis(8 * MINUTE)
+                .setTickMillis(1000L)
+                .setExecutor(Runnable::run)
+                .setClock(clock::get)
+                .build();
+        poller.addListener(events::add);
+    }// init()
+
+    @Test
+    public void test_idle_entity_backs_off_and_moving_entity_speeds_up() throws Exception {
+        poller.track(TimeSerieTypeEnum.CAMPAIGN, "c1", StatusEnum.ACTIVE);
+        assertThat(poller.tick(NOW)).isEqualTo(1);
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getPreviousValue()).isNull();
+        assertThat(poller.getIntervalMillis(TimeSerieTypeEnum.CAMPAIGN, "c1")).isEqualTo(MINUTE);
+
+        // No movement : 1, 2, 4 then 8 minutes (maximum)
+        long[] expectedIntervals = {2 * MINUTE, 4 * MINUTE, 8 * MINUTE, 8 * MINUTE};
+        for (long expected : expectedIntervals) {
+            long interval = poller.getIntervalMillis(TimeSerieTypeEnum.CAMPAIGN, "c1");
+            assertThat(advance(interval - 1000L)).isZero();
+            assertThat(advance(1000L)).isEqualTo(1);
+            assertThat(poller.getIntervalMillis(TimeSerieTypeEnum.CAMPAIGN, "c1")).isEqualTo(expected);
+        }
+        assertThat(events).hasSize(1);
+
+        // Spend moves : back to the minimum interval and the change is delivered
+        spend.set(1500);
+        advance(8 * MINUTE);
+        assertThat(poller.getIntervalMillis(TimeSerieTypeEnum.CAMPAIGN, "c1")).isEqualTo(MINUTE);
+        assertThat(events).hasSize(2);
+        assertThat(events.get(1).getDelta()).isEqualTo(1500L);
+        assertThat(events.get(1).getNextPollMillis()).isEqualTo(MINUTE);
+    }// test_idle_entity_backs_off_and_moving_entity_speeds_up()
+
+    @Test
+    public void test_paused_entity_is_skipped_until_resumed() throws Exception {
+        poller.track(TimeSerieTypeEnum.CAMPAIGN, "c1", StatusEnum.PAUSED);
+        assertThat(poller.tick(NOW)).isZero();
+        advance(10 * MINUTE);
+        verify(snapStats, never()).getCampaignStats(anyString(), anyString(), any(StatsQuery.class));
+
+        poller.setStatus(TimeSerieTypeEnum.CAMPAIGN, "c1", StatusEnum.ACTIVE);
+        advance(1000L);
+        verify(snapStats, times(1)).getCampaignStats(eq("token"), eq("c1"), any(StatsQuery.class));
+
+        // Paused while in the wheel : dropped when due
+        poller.setStatus(TimeSerieTypeEnum.CAMPAIGN, "c1", StatusEnum.PAUSED);
+        advance(MINUTE);
+        verify(snapStats, times(1)).getCampaignStats(eq("token"), eq("c1"), any(StatsQuery.class));
+    }// test_paused_entity_is_skipped_until_resumed()
+
+    @Test
+    public void test_untracked_entity_is_no_longer_polled() throws Exception {
+        poller.track(TimeSerieTypeEnum.CAMPAIGN, "c1", StatusEnum.ACTIVE);
+        poller.tick(NOW);
+        poller.untrack(TimeSerieTypeEnum.CAMPAIGN, "c1");
+        advance(10 * MINUTE);
+        verify(snapStats, times(1)).getCampaignStats(anyString(), anyString(), any(StatsQuery.class));
+        assertThat(poller.isTracked(TimeSerieTypeEnum.CAMPAIGN, "c1")).isFalse();
+    }// test_untracked_entity_is_no_longer_polled()
+
+    @Test
+    public void test_error_waits_maximum_interval() throws Exception {
+        when(snapStats.getCampaignStats(anyString(), eq("c2"), any(StatsQuery.class)))
+                .thenThrow(new SnapResponseErrorException("Too Many Requests / Rate limit reached", 429));
+        poller.track(TimeSerieTypeEnum.CAMPAIGN, "c2", StatusEnum.ACTIVE);
+        poller.tick(NOW);
+        assertThat(poller.getIntervalMillis(TimeSerieTypeEnum.CAMPAIGN, "c2")).isEqualTo(8 * MINUTE);
+        assertThat(events).isEmpty();
+        assertThat(advance(8 * MINUTE)).isEqualTo(1);
+    }// test_error_waits_maximum_interval()
+
+    @Test
+    public void test_rejected_poll_is_scheduled_again() throws Exception {
+        AtomicInteger rejections = new AtomicInteger(1);
+        AdaptiveStatsPoller saturated = new AdaptiveStatsPoller.Builder()
+                .setSnapStats(snapStats)
+                .setOAuthAccessToken("token")
+                .setQuery(new StatsQuery.Builder().setGranularity(GranularityEnum.TOTAL).build())
+                .setMinIntervalMillis(MINUTE)
+                .setMaxIntervalMillis(8 * MINUTE)
+                .setTickMillis(1000L)
+                .setExecutor(command -> {
+                    if (rejections.getAndDecrement() > 0) {
+                        throw new RejectedExecutionException("Queue full");
+                    }
+                    command.run();
+                })
+                .setClock(clock::get)
+                .build();
+        saturated.track(TimeSerieTypeEnum.CAMPAIGN, "c1", StatusEnum.ACTIVE);
+        assertThat(saturated.tick(NOW)).isEqualTo(1);
+        verify(snapStats, never()).getCampaignStats(anyString(), anyString(), any(StatsQuery.class));
+
+        assertThat(saturated.tick(clock.addAndGet(MINUTE))).isEqualTo(1);
+        verify(snapStats, times(1)).getCampaignStats(eq("token"), eq("c1"), any(StatsQuery.class));
+    }// test_rejected_poll_is_scheduled_again()
+
+    @Test
+    public void test_check_params() {
+        assertThatThrownBy(() -> new AdaptiveStatsPoller.Builder().setMinIntervalMillis(10).setMaxIntervalMillis(5).setTickMillis(1).build())
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("SnapStats is required,Stats query is required,Maximum interval must be greater than minimum interval");
+        assertThatThrownBy(() -> poller.track(TimeSerieTypeEnum.PIXEL, "p1", StatusEnum.ACTIVE))
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("Type must be AD_ACCOUNT, CAMPAIGN, AD_SQUAD or AD");
+    }// test_check_params()
+
+    private int advance(long millis) {
+        return poller.tick(clock.addAndGet(millis));
+    }// advance()
+
+}// AdaptiveStatsPollerTest
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.rules;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import snapads4j.ads.SnapAdInterface;
+import snapads4j.adsquads.SnapAdSquadsInterface;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.RuleActionEnum;
+import snapads4j.enums.RuleComparatorEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.StatusEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapExecutionException;
+import snapads4j.model.ads.Ad;
+import snapads4j.model.adsquads.AdSquad;
+import snapads4j.model.stats.Stat;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class StatsRuleActionBatcherTest {
+
+    /**
+     * 2020-01-08T00:00:00Z
+     */
+    private static final long NOW = 1578441600000L;
+
+    private static final String TOKEN = "token";
+
+    @Mock
+    private SnapAdSquadsInterface snapAdSquads;
+
+    @Mock
+    private SnapAdInterface snapAd;
+
+    private StatsRuleActionBatcher batcher;
+
+    private StatsRulesEngine engine;
+
+    @Before
+    public void init() throws Exception {
+        batcher = new StatsRuleActionBatcher(snapAdSquads, snapAd);
+        StatsRule pause = new StatsRule.Builder().setName("Pause").setType(TimeSerieTypeEnum.AD_SQUAD)
+                .setMetric(StatMetricEnum.SPEND).setWindowHours(1).setComparator(RuleComparatorEnum.GREATER_THAN)
+                .setThreshold(100).setAction(RuleActionEnum.PAUSE).build();
+        StatsRule pauseAd = new StatsRule.Builder().setName("Pause ad").setType(TimeSerieTypeEnum.AD)
+                .setMetric(StatMetricEnum.SPEND).setWindowHours(1).setComparator(RuleComparatorEnum.GREATER_THAN)
+                .setThreshold(100).setAction(RuleActionEnum.PAUSE).build();
+        engine = new StatsRulesEngine(Arrays.asList(pause, pauseAd), () -> NOW);
+        for (String id : Arrays.asList("as1", "as2", "as3", "as4")) {
+            engine.add(hourly(TimeSerieTypeEnum.AD_SQUAD, id, 500));
+        }
+        engine.add(hourly(TimeSerieTypeEnum.AD, "ad1", 500));
+        Mockito.when(snapAdSquads.getSpecificAdSquad(Mockito.eq(TOKEN), Mockito.anyString()))
+                .thenAnswer(invocation -> Optional.of(adSquad(invocation.getArgument(1))));
+        Mockito.when(snapAdSquads.updateAdSquads(Mockito.eq(TOKEN), Mockito.anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        Mockito.when(snapAd.getSpecificAd(TOKEN, "ad1")).thenReturn(Optional.of(ad("ad1", "as1")));
+        Mockito.when(snapAd.updateAds(Mockito.eq(TOKEN), Mockito.anyList())).thenAnswer(invocation -> invocation.getArgument(1));
+    }// init()
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_actions_are_batched_by_parent() throws Exception {
+        StatsRuleActionResult result = batcher.execute(TOKEN, engine.drainMatches());
+        ArgumentCaptor<List<AdSquad>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(snapAdSquads, Mockito.times(2)).updateAdSquads(Mockito.eq(TOKEN), captor.capture());
+        assertThat(captor.getAllValues().get(0)).extracting(AdSquad::getId).containsExactly("as1", "as3");
+        assertThat(captor.getAllValues().get(1)).extracting(AdSquad::getId).containsExactly("as2");
+        assertThat(result.getUpdatedAdSquads()).extracting(AdSquad::getStatus).containsOnly(StatusEnum.PAUSED);
+        assertThat(result.getUpdatedAds()).extracting(Ad::getId).containsExactly("ad1");
+        assertThat(result.getFailedIds()).isEmpty();
+        Mockito.verify(snapAd, Mockito.times(1)).updateAds(Mockito.eq(TOKEN), Mockito.anyList());
+    }// test_actions_are_batched_by_parent()
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_failing_batch_does_not_stop_others() throws Exception {
+        Mockito.when(snapAdSquads.updateAdSquads(Mockito.eq(TOKEN), Mockito.anyList())).thenAnswer(invocation -> {
+            List<AdSquad> adSquads = invocation.getArgument(1);
+            if ("c1".equals(adSquads.get(0).getCampaignId())) {
+                throw new SnapExecutionException("Impossible to update ad squads", new RuntimeException());
+            }
+            return adSquads;
+        });
+        StatsRuleActionResult result = batcher.execute(TOKEN, engine.drainMatches());
+        assertThat(result.getFailedIds()).containsExactly("as1", "as3");
+        assertThat(result.getUpdatedAdSquads()).extracting(AdSquad::getId).containsExactly("as2");
+    }// test_failing_batch_does_not_stop_others()
+
+    @Test
+    public void test_execute_should_throw_SnapOAuthAccessTokenException() {
+        assertThatThrownBy(() -> batcher.execute(null, Collections.emptyList()))
+                .hasMessage("The OAuthAccessToken is required");
+    }// test_execute_should_throw_SnapOAuthAccessTokenException()
+
+    /**
+     * as1 and as3 belong to c1, as2 to c2, as4 is already paused
+     */
+    private static AdSquad adSquad(String id) {
+        AdSquad adSquad = new AdSquad();
+        adSquad.setId(id);
+        adSquad.setCampaignId(id.equals("as2") ? "c2" : "c1");
+        adSquad.setStatus(id.equals("as4") ? StatusEnum.PAUSED : StatusEnum.ACTIVE);
+        return adSquad;
+    }// adSquad()
+
+    private static Ad ad(String id, String adSquadId) {
+        Ad ad = new Ad();
+        ad.setId(id);
+        ad.setAdSquadId(adSquadId);
+        ad.setStatus(StatusEnum.ACTIVE);
+        return ad;
+    }// ad()
+
+    private static TimeSerieStat hourly(TimeSerieTypeEnum type, String id, int spend) {
+        Stat stats = new Stat();
+        stats.setSpend(spend);
+        TimeSerie serie = new TimeSerie();
+        serie.setStartTime(new Date(NOW));
+        serie.setStats(stats);
+        TimeSerieStat stat = new TimeSerieStat();
+        stat.setId(id);
+        stat.setType(type);
+        stat.setGranularity(GranularityEnum.HOUR);
+        stat.setTimeseries(Collections.singletonList(serie));
+        return stat;
+    }// hourly()
+
+}// StatsRuleActionBatcherTest
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.rules;
+
+import org.junit.Before;
+import org.junit.Test;
+import snapads4j.enums.DerivedMetricEnum;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.RuleActionEnum;
+import snapads4j.enums.RuleComparatorEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.stats.Stat;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StatsRulesEngineTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    /**
+     * 2020-01-08T00:00:00Z
+     */
+    private static final long NOW = 1578441600000L;
+
+    private StatsRule highSpend;
+
+    private StatsRule highCpa;
+
+    @Before
+    public void init() throws SnapArgumentException {
+        highSpend = new StatsRule.Builder().setName("High spend").setType(TimeSerieTypeEnum.AD_SQUAD)
+                .addEntityId("as1").setMetric(StatMetricEnum.SPEND).setWindowHours(3)
+                .setComparator(RuleComparatorEnum.GREATER_THAN).setThreshold(100).setAction(RuleActionEnum.PAUSE).build();
+        highCpa = new StatsRule.Builder().setName("High CPA").setType(TimeSerieTypeEnum.AD)
+                .setDerivedMetric(DerivedMetricEnum.CPA_PURCHASE).setWindowHours(6)
+                .setComparator(RuleComparatorEnum.GREATER_THAN_OR_EQUAL).setThreshold(20).setAction(RuleActionEnum.PAUSE).build();
+    }// init()
+
+    @Test
+    public void test_only_affected_rules_are_evaluated() throws SnapArgumentException {
+        StatsRulesEngine engine = new StatsRulesEngine(Arrays.asList(highSpend, highCpa), () -> NOW);
+        engine.add(hourly(TimeSerieTypeEnum.AD_SQUAD, "as2", stat(500, 0)));
+        engine.add(hourly(TimeSerieTypeEnum.CAMPAIGN, "as1", stat(500, 0)));
+        assertThat(engine.getEvaluations()).isZero();
+        engine.add(hourly(TimeSerieTypeEnum.AD_SQUAD, "as1", stat(50, 0)));
+        assertThat(engine.getEvaluations()).isEqualTo(1L);
+        engine.add(hourly(TimeSerieTypeEnum.AD, "ad1", stat(50_000_000, 1)));
+        engine.add(hourly(TimeSerieTypeEnum.AD, "ad2", stat(1_000_000, 1)));
+        assertThat(engine.getEvaluations()).isEqualTo(3L);
+        List<StatsRuleMatch> matches = engine.drainMatches();
+        assertThat(matches).hasSize(1);
+        assertThat(matches.get(0).getRule()).isSameAs(highCpa);
+        assertThat(matches.get(0).getId()).isEqualTo("ad1");
+        assertThat(matches.get(0).getValue()).isEqualTo(50.);
+    }// test_only_affected_rules_are_evaluated()
+
+    @Test
+    public void test_rule_matches_once_until_condition_goes_false() throws SnapArgumentException {
+        StatsRulesEngine engine = new StatsRulesEngine(Collections.singletonList(highSpend), () -> NOW);
+        engine.add(hourly(TimeSerieTypeEnum.AD_SQUAD, "as1", stat(60, 0), stat(60, 0)));
+        assertThat(engine.drainMatches()).hasSize(1);
+        engine.add(hourly(TimeSerieTypeEnum.AD_SQUAD, "as1", stat(70, 0)));
+        assertThat(engine.drainMatches()).isEmpty();
+        // A new poll of the hours lowers the spend
+        engine.add(hourly(TimeSerieTypeEnum.AD_SQUAD, "as1", stat(10, 0), stat(10, 0)));
+        assertThat(engine.drainMatches()).isEmpty();
+        engine.add(hourly(TimeSerieTypeEnum.AD_SQUAD, "as1", stat(200, 0)));
+        assertThat(engine.drainMatches()).hasSize(1);
+    }// test_rule_matches_once_until_condition_goes_false()
+
+    @Test
+    public void test_spend_without_conversion_is_infinite_cpa() throws SnapArgumentException {
+        StatsRulesEngine engine = new StatsRulesEngine(Collections.singletonList(highCpa), () -> NOW);
+        engine.add(hourly(TimeSerieTypeEnum.AD, "ad1", stat(0, 0)));
+        assertThat(engine.valueOf(highCpa, "ad1")).isNaN();
+        assertThat(engine.drainMatches()).isEmpty();
+        engine.add(hourly(TimeSerieTypeEnum.AD, "ad1", stat(1_000_000, 0)));
+        assertThat(engine.valueOf(highCpa, "ad1")).isEqualTo(Double.POSITIVE_INFINITY);
+        assertThat(engine.drainMatches()).hasSize(1);
+    }// test_spend_without_conversion_is_infinite_cpa()
+
+    @Test
+    public void test_window_of_rule_is_applied() throws SnapArgumentException {
+        StatsRulesEngine engine = new StatsRulesEngine(Arrays.asList(highSpend, highCpa), () -> NOW);
+        engine.add(hourly(TimeSerieTypeEnum.AD_SQUAD, "as1", stat(10, 0), stat(10, 0), stat(10, 0), stat(500, 0)));
+        // The 4th hour is held (window of 6 hours) but out of the rule window
+        assertThat(engine.valueOf(highSpend, "as1")).isEqualTo(30.);
+        assertThat(engine.drainMatches()).isEmpty();
+    }// test_window_of_rule_is_applied()
+
+    @Test
+    public void test_build_rule_should_throw_SnapArgumentException() {
+        assertThatThrownBy(() -> new StatsRule.Builder().setType(TimeSerieTypeEnum.CAMPAIGN).setMetric(StatMetricEnum.SPEND)
+                .setDerivedMetric(DerivedMetricEnum.CPA_PURCHASE).build())
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("Name is required,Type must be AD_SQUAD or AD,Either metric or derived metric is required,"
+                        + "Window must be at least 1 hour,Comparator is required,Action is required");
+        assertThatThrownBy(() -> new StatsRulesEngine(Collections.emptyList()))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("At least one rule is required");
+    }// test_build_rule_should_throw_SnapArgumentException()
+
+    /**
+     * @param stats Stats of the hours, the first one is the current hour
+     */
+    private static TimeSerieStat hourly(TimeSerieTypeEnum type, String id, Stat... stats) {
+        TimeSerie[] series = new TimeSerie[stats.length];
+        for (int i = 0; i < stats.length; i++) {
+            series[i] = new TimeSerie();
+            series[i].setStartTime(new Date(NOW - i * HOUR));
+            series[i].setEndTime(new Date(NOW - (i - 1) * HOUR));
+            series[i].setStats(stats[i]);
+        }
+        TimeSerieStat stat = new TimeSerieStat();
+        stat.setId(id);
+        stat.setType(type);
+        stat.setGranularity(GranularityEnum.HOUR);
+        stat.setTimeseries(Arrays.asList(series));
+        return stat;
+    }// hourly()
+
+    private static Stat stat(int spend, int purchases) {
+        Stat stat = new Stat();
+        stat.setSpend(spend);
+        stat.setConversionPurchases(purchases);
+        return stat;
+    }// stat()
+
+}// StatsRulesEngineTest
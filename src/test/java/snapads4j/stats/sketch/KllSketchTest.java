@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.sketch;
+
+import org.junit.Test;
+import snapads4j.exceptions.SnapArgumentException;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+public class KllSketchTest {
+
+    @Test
+    public void test_quantiles_of_many_values() {
+        KllSketch sketch = new KllSketch();
+        Random random = new Random(42);
+        int n = 200_000;
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextGaussian() * 10 + 100;
+            sketch.update(values[i]);
+        }
+        Arrays.sort(values);
+        assertThat(sketch.getN()).isEqualTo(n);
+        assertThat(sketch.getRetained()).isLessThan(1000);
+        assertThat(sketch.getMin()).isEqualTo(values[0]);
+        assertThat(sketch.getMax()).isEqualTo(values[n - 1]);
+        double[] quantiles = sketch.getQuantiles(0.5, 0.9, 0.99);
+        assertRankError(values, quantiles[0], 0.5);
+        assertRankError(values, quantiles[1], 0.9);
+        assertRankError(values, quantiles[2], 0.99);
+        assertThat(sketch.getRank(values[n / 4])).isCloseTo(0.25, within(0.02));
+    }// test_quantiles_of_many_values()
+
+    @Test
+    public void test_small_sketch_is_exact() {
+        KllSketch sketch = new KllSketch();
+        for (int i = 1; i <= 100; i++) {
+            sketch.update(i);
+        }
+        sketch.update(Double.NaN);
+        assertThat(sketch.getN()).isEqualTo(100);
+        assertThat(sketch.getQuantile(0.5)).isEqualTo(50.);
+        assertThat(sketch.getQuantile(0.9)).isEqualTo(90.);
+        assertThat(sketch.getQuantile(0)).isEqualTo(1.);
+        assertThat(sketch.getQuantile(1)).isEqualTo(100.);
+        assertThat(new KllSketch().getQuantile(0.5)).isNaN();
+        assertThatThrownBy(() -> sketch.getQuantile(2)).isInstanceOf(IllegalArgumentException.class);
+    }// test_small_sketch_is_exact()
+
+    @Test
+    public void test_merge_sketches() {
+        Random random = new Random(7);
+        int n = 50_000;
+        double[] values = new double[4 * n];
+        KllSketch merged = new KllSketch();
+        for (int s = 0; s < 4; s++) {
+            KllSketch part = new KllSketch();
+            for (int i = 0; i < n; i++) {
+                // Each part has its own range : the merge must see all of them
+                double value = s * 1000 + random.nextDouble() * 1000;
+                values[s * n + i] = value;
+                part.update(value);
+            }
+            merged.merge(part);
+        }
+        Arrays.sort(values);
+        assertThat(merged.getN()).isEqualTo(4L * n);
+        assertThat(merged.getMin()).isEqualTo(values[0]);
+        assertThat(merged.getMax()).isEqualTo(values[values.length - 1]);
+        assertRankError(values, merged.getQuantile(0.5), 0.5);
+        assertRankError(values, merged.getQuantile(0.1), 0.1);
+    }// test_merge_sketches()
+
+    @Test(timeout = 10_000)
+    public void test_merge_sketch_into_itself() {
+        int n = 10_000;
+        double[] values = new double[2 * n];
+        KllSketch sketch = new KllSketch();
+        for (int i = 0; i < n; i++) {
+            values[2 * i] = i;
+            values[2 * i + 1] = i;
+            sketch.update(i);
+        }
+        sketch.merge(sketch);
+        assertThat(sketch.getN()).isEqualTo(2L * n);
+        assertThat(sketch.getMin()).isEqualTo(0.);
+        assertThat(sketch.getMax()).isEqualTo(n - 1.);
+        assertRankError(values, sketch.getQuantile(0.5), 0.5);
+    }// test_merge_sketch_into_itself()
+
+    @Test
+    public void test_serialization() throws SnapArgumentException {
+        KllSketch sketch = new KllSketch(100);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.update(i % 997);
+        }
+        KllSketch copy = KllSketch.fromByteArray(sketch.toByteArray());
+        assertThat(copy.getK()).isEqualTo(100);
+        assertThat(copy.getN()).isEqualTo(sketch.getN());
+        assertThat(copy.getRetained()).isEqualTo(sketch.getRetained());
+        assertThat(copy.getQuantiles(0.25, 0.5, 0.75)).containsExactly(sketch.getQuantiles(0.25, 0.5, 0.75));
+        assertThatThrownBy(() -> KllSketch.fromByteArray(new byte[]{1, 0, 0}))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Truncated sketch");
+        assertThatThrownBy(() -> KllSketch.fromByteArray(new byte[]{9}))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Unknown sketch version 9");
+    }// test_serialization()
+
+    private static void assertRankError(double[] sortedValues, double quantile, double fraction) {
+        int index = Arrays.binarySearch(sortedValues, quantile);
+        assertThat(index).isGreaterThanOrEqualTo(0);
+        assertThat((double) index / sortedValues.length).isCloseTo(fraction, within(0.02));
+    }// assertRankError()
+
+}// KllSketchTest
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.sketch;
+
+import org.junit.Test;
+import snapads4j.enums.DerivedMetricEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.Stat;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+public class StatsSketchesTest {
+
+    @Test
+    public void test_sketch_derived_metric_per_entity() throws SnapArgumentException {
+        StatsSketches sketches = new StatsSketches(Collections.singletonList(StatMetricEnum.IMPRESSIONS), Collections.singletonList(DerivedMetricEnum.CPM));
+        List<TimeSerieStat> ads = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            // CPM of ad i = i (spend in micro currency)
+            ads.add(totalStat(i * 1_000_000, 1000));
+        }
+        ads.add(totalStat(5_000_000, 0));
+        sketches.addPage(new Pagination<>(1, ads));
+        KllSketch cpm = sketches.getSketch(DerivedMetricEnum.CPM);
+        assertThat(cpm.getN()).isEqualTo(100);
+        assertThat(cpm.getQuantile(0.5)).isCloseTo(50., within(1e-9));
+        assertThat(cpm.getQuantile(0.99)).isCloseTo(99., within(1e-9));
+        assertThat(sketches.getSketch(StatMetricEnum.IMPRESSIONS).getN()).isEqualTo(101);
+        assertThat(sketches.getSketch(StatMetricEnum.SPEND)).isNull();
+    }// test_sketch_derived_metric_per_entity()
+
+    @Test
+    public void test_time_series_are_summed_per_entity() throws SnapArgumentException {
+        StatsSketches sketches = new StatsSketches(null, Collections.singletonList(DerivedMetricEnum.COMPLETION_RATE));
+        TimeSerieStat ad = new TimeSerieStat();
+        ad.setTimeseries(Arrays.asList(serie(10, 100), serie(30, 100)));
+        sketches.add(ad);
+        assertThat(sketches.getSketch(DerivedMetricEnum.COMPLETION_RATE).getQuantile(0.5)).isCloseTo(0.2, within(1e-9));
+    }// test_time_series_are_summed_per_entity()
+
+    @Test
+    public void test_merge_and_serialize() throws SnapArgumentException {
+        StatsSketches adSquad1 = new StatsSketches(Collections.singletonList(StatMetricEnum.IMPRESSIONS), Collections.singletonList(DerivedMetricEnum.CPM));
+        StatsSketches adSquad2 = new StatsSketches(Collections.singletonList(StatMetricEnum.IMPRESSIONS), Collections.singletonList(DerivedMetricEnum.CPM));
+        for (int i = 1; i <= 50; i++) {
+            adSquad1.add(totalStat(i * 1_000_000, 1000));
+            adSquad2.add(totalStat((i + 50) * 1_000_000, 1000));
+        }
+        StatsSketches campaign = StatsSketches.fromByteArray(adSquad1.toByteArray());
+        campaign.merge(StatsSketches.fromByteArray(adSquad2.toByteArray()));
+        assertThat(campaign.getMetrics()).containsExactly(StatMetricEnum.IMPRESSIONS);
+        assertThat(campaign.getDerivedMetrics()).containsExactly(DerivedMetricEnum.CPM);
+        assertThat(campaign.getSketch(DerivedMetricEnum.CPM).getN()).isEqualTo(100);
+        assertThat(campaign.getSketch(DerivedMetricEnum.CPM).getQuantile(0.9)).isCloseTo(90., within(1e-9));
+        assertThatThrownBy(() -> new StatsSketches(null, Collections.emptyList()))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("At least one metric is required");
+    }// test_merge_and_serialize()
+
+    @Test(timeout = 10_000)
+    public void test_merge_into_itself() throws SnapArgumentException {
+        StatsSketches sketches = new StatsSketches(Collections.singletonList(StatMetricEnum.IMPRESSIONS), Collections.singletonList(DerivedMetricEnum.CPM));
+        for (int i = 1; i <= 50; i++) {
+            sketches.add(totalStat(i * 1_000_000, 1000));
+        }
+        sketches.merge(sketches);
+        assertThat(sketches.getSketch(StatMetricEnum.IMPRESSIONS).getN()).isEqualTo(100);
+        assertThat(sketches.getSketch(DerivedMetricEnum.CPM).getN()).isEqualTo(100);
+        assertThat(sketches.getSketch(DerivedMetricEnum.CPM).getQuantile(0.9)).isCloseTo(45., within(1e-9));
+    }// test_merge_into_itself()
+
+    private static TimeSerieStat totalStat(int spend, int impressions) {
+        Stat stat = new Stat();
+        stat.setSpend(spend);
+        stat.setImpressions(impressions);
+        TimeSerieStat timeSerieStat = new TimeSerieStat();
+        timeSerieStat.setStats(stat);
+        return timeSerieStat;
+    }// totalStat()
+
+    private static TimeSerie serie(int viewCompletion, int impressions) {
+        Stat stat = new Stat();
+        stat.setViewCompletion(viewCompletion);
+        stat.setImpressions(impressions);
+        TimeSerie serie = new TimeSerie();
+        serie.setStats(stat);
+        return serie;
+    }// serie()
+
+}// StatsSketchesTest
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.stats.window;
+
+import org.junit.Before;
+import org.junit.Test;
+import snapads4j.enums.GranularityEnum;
+import snapads4j.enums.StatMetricEnum;
+import snapads4j.enums.TimeSerieTypeEnum;
+import snapads4j.exceptions.SnapArgumentException;
+import snapads4j.model.Pagination;
+import snapads4j.model.stats.Stat;
+import snapads4j.model.stats.TimeSerie;
+import snapads4j.model.stats.TimeSerieStat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RollingStatsWindowTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    /**
+     * 2020-01-08T00:00:00Z
+     */
+    private static final long NOW = 1578441600000L;
+
+    private RollingStatsWindow window;
+
+    @Before
+    public void init() throws SnapArgumentException {
+        window = new RollingStatsWindow(6, Arrays.asList(StatMetricEnum.SPEND, StatMetricEnum.IMPRESSIONS));
+    }// init()
+
+    @Test
+    public void test_sum_window_and_last_hours() {
+        for (int i = 0; i < 6; i++) {
+            window.record(TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(NOW - i * HOUR), stat(10 * (i + 1), 100));
+        }
+        assertThat(window.sum(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.SPEND, NOW)).isEqualTo(210L);
+        assertThat(window.sum(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.SPEND, 2, NOW)).isEqualTo(30L);
+        assertThat(window.sum(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.IMPRESSIONS, 3, NOW + HOUR / 2)).isEqualTo(300L);
+        assertThat(window.sum(TimeSerieTypeEnum.AD, "c1", StatMetricEnum.SPEND, NOW)).isZero();
+        assertThat(window.getLastHour(TimeSerieTypeEnum.CAMPAIGN, "c1")).isEqualTo(new Date(NOW));
+    }// test_sum_window_and_last_hours()
+
+    @Test
+    public void test_poll_of_same_hour_replaces_values() {
+        window.record(TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(NOW), stat(10, 1));
+        window.record(TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(NOW), stat(25, 2));
+        assertThat(window.sum(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.SPEND, NOW)).isEqualTo(25L);
+        assertThat(window.get(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.IMPRESSIONS, new Date(NOW))).isEqualTo(2L);
+    }// test_poll_of_same_hour_replaces_values()
+
+    @Test
+    public void test_old_hours_expire() {
+        window.record(TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(NOW - 5 * HOUR), stat(5, 0));
+        window.record(TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(NOW), stat(1, 0));
+        assertThat(window.sum(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.SPEND, NOW)).isEqualTo(6L);
+        assertThat(window.sum(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.SPEND, NOW + HOUR)).isEqualTo(1L);
+        assertThat(window.record(TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(NOW - 5 * HOUR), stat(5, 0))).isFalse();
+        // A newer hour takes the slot of the hour out of the window
+        window.record(TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(NOW + 2 * HOUR), stat(7, 0));
+        assertThat(window.sum(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.SPEND, NOW + 2 * HOUR)).isEqualTo(8L);
+        assertThat(window.sum(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.SPEND, NOW + 100 * HOUR)).isZero();
+    }// test_old_hours_expire()
+
+    @Test
+    public void test_add_page_keeps_hour_stats_only() {
+        TimeSerieStat hourly = timeSerieStat("c1", GranularityEnum.HOUR, 3);
+        TimeSerieStat daily = timeSerieStat("c2", GranularityEnum.DAY, 1);
+        window.addPage(new Pagination<>(1, Arrays.asList(hourly, daily)));
+        assertThat(window.size()).isEqualTo(1);
+        assertThat(window.contains(TimeSerieTypeEnum.CAMPAIGN, "c2")).isFalse();
+        assertThat(window.sum(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.IMPRESSIONS, NOW)).isEqualTo(300L);
+        window.remove(TimeSerieTypeEnum.CAMPAIGN, "c1");
+        assertThat(window.size()).isZero();
+    }// test_add_page_keeps_hour_stats_only()
+
+    @Test
+    public void test_concurrent_pollers() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int round = 1; round <= 1000; round++) {
+                    for (int i = 0; i < 6; i++) {
+                        window.record(TimeSerieTypeEnum.CAMPAIGN, "c1", new Date(NOW - i * HOUR), stat(round, 1));
+                        window.sum(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.SPEND, NOW);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        long expected = 0L;
+        for (int i = 0; i < 6; i++) {
+            expected += window.get(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.SPEND, new Date(NOW - i * HOUR));
+        }
+        assertThat(window.sum(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.SPEND, NOW)).isEqualTo(expected);
+        assertThat(window.sum(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.IMPRESSIONS, NOW)).isEqualTo(6L);
+    }// test_concurrent_pollers()
+
+    @Test
+    public void test_check_params() {
+        assertThatThrownBy(() -> new RollingStatsWindow(0, Collections.singletonList(StatMetricEnum.SPEND)))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("Window must be at least 1 hour");
+        assertThatThrownBy(() -> new RollingStatsWindow(24, Collections.emptyList()))
+                .isInstanceOf(SnapArgumentException.class).hasMessage("At least one metric is required");
+        assertThatThrownBy(() -> window.sum(TimeSerieTypeEnum.CAMPAIGN, "c1", StatMetricEnum.SWIPES, NOW))
+                .isInstanceOf(IllegalArgumentException.class);
+    }// test_check_params()
+
+    private static Stat stat(int spend, int impressions) {
+        Stat stat = new Stat();
+        stat.setSpend(spend);
+        stat.setImpressions(impressions);
+        return stat;
+    }// stat()
+
+    private static TimeSerieStat timeSerieStat(String id, GranularityEnum granularity, int nbHours) {
+        List<TimeSerie> series = new ArrayList<>();
+        for (int i = 0; i < nbHours; i++) {
+            TimeSerie serie = new TimeSerie();
+            serie.setStartTime(new Date(NOW - i * HOUR));
+            serie.setEndTime(new Date(NOW - (i - 1) * HOUR));
+            serie.setStats(stat(1, 100));
+            series.add(serie);
+        }
+        TimeSerieStat stat = new TimeSerieStat();
+        stat.setId(id);
+        stat.setType(TimeSerieTypeEnum.CAMPAIGN);
+        stat.setGranularity(granularity);
+        stat.setTimeseries(series);
+        return stat;
+    }// timeSerieStat()
+
+}// RollingStatsWindowTest
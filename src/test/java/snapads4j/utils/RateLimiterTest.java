@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package snapads4j.utils;
+
+import org.junit.Test;
+import snapads4j.exceptions.SnapArgumentException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RateLimiterTest {
+
+    @Test
+    public void test_burst_then_steady_rate() throws SnapArgumentException {
+        AtomicLong clock = new AtomicLong(0L);
+        RateLimiter rateLimiter = new RateLimiter(10, 3, clock::get);
+        assertThat(rateLimiter.tryAcquire()).isTrue();
+        assertThat(rateLimiter.tryAcquire()).isTrue();
+        assertThat(rateLimiter.tryAcquire()).isTrue();
+        assertThat(rateLimiter.tryAcquire()).isFalse();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(rateLimiter.tryAcquire()).isTrue();
+        assertThat(rateLimiter.tryAcquire()).isFalse();
+        // Idle : the burst is available again, not more
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        int permits = 0;
+        while (rateLimiter.tryAcquire()) {
+            permits++;
+        }
+        assertThat(permits).isEqualTo(3);
+    }// test_burst_then_steady_rate()
+
+    @Test
+    public void test_acquire_waits_for_permit() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(20, 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.acquire();
+        }
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(190));
+    }// test_acquire_waits_for_permit()
+
+    @Test
+    public void test_check_params() {
+        assertThatThrownBy(() -> new RateLimiter(0, 0))
+                .isInstanceOf(SnapArgumentException.class)
+                .hasMessage("Permits per second must be positive,Burst must be at least 1");
+    }// test_check_params()
+
+}// RateLimiterTest